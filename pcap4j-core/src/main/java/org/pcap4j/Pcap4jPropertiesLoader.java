@@ -51,6 +51,21 @@ public final class Pcap4jPropertiesLoader {
    */
   public static final String DLT_RAW_KEY = KEY_PREFIX + ".dlt.raw";
 
+  /**
+   *
+   */
+  public static final String FAST_FAIL_DECODING_KEY = KEY_PREFIX + ".packet.fastFailDecoding";
+
+  /**
+   *
+   */
+  public static final String ZERO_COPY_PAYLOAD_KEY = KEY_PREFIX + ".packet.zeroCopyPayload";
+
+  /**
+   *
+   */
+  public static final String DECODE_DEPTH_KEY = KEY_PREFIX + ".packet.decodeDepth";
+
   private static final int AF_INET_DEFAULT = 2;
   private static final int AF_PACKET_DEFAULT = 17;
   private static final int AF_LINK_DEFAULT = 18;
@@ -138,6 +153,47 @@ public final class Pcap4jPropertiesLoader {
            );
   }
 
+  /**
+   * If true, {@link org.pcap4j.packet.IllegalRawDataException} is thrown without capturing
+   * a stack trace and without a hex dump of the raw data in its message.
+   *
+   * @return whether fast-fail decoding is enabled. Never null.
+   */
+  public Boolean getFastFailDecoding() {
+    return loader.getBoolean(
+             FAST_FAIL_DECODING_KEY,
+             Boolean.FALSE
+           );
+  }
+
+  /**
+   * If true, leaf packets such as {@link org.pcap4j.packet.UnknownPacket} and
+   * {@link org.pcap4j.packet.IllegalPacket} reference a slice of the byte array given to
+   * their static factory methods instead of copying it.
+   * The byte array must not be modified afterwards.
+   *
+   * @return whether zero-copy payloads are enabled. Never null.
+   */
+  public Boolean getZeroCopyPayload() {
+    return loader.getBoolean(
+             ZERO_COPY_PAYLOAD_KEY,
+             Boolean.FALSE
+           );
+  }
+
+  /**
+   * The name of the default {@link org.pcap4j.packet.factory.DecodeDepth}:
+   * FULL, DATA_LINK, NETWORK, or TRANSPORT.
+   *
+   * @return the name of the default decode depth. Never null.
+   */
+  public String getDecodeDepth() {
+    return loader.getString(
+             DECODE_DEPTH_KEY,
+             "FULL"
+           );
+  }
+
   /**
    * @return The default address family for IPv6 addresses (platform specific)
    */
@@ -0,0 +1,1782 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import static org.pcap4j.core.BpfInstruction.*;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * A pure Java compiler of tcpdump filter expressions (see pcap-filter(7)) into BPF programs.
+ * Unlike {@link PcapHandle#compileFilter(String, BpfProgram.BpfCompileMode, java.net.Inet4Address)
+ * PcapHandle.compileFilter()} and
+ * {@link Pcaps#compileFilter(int, DataLinkType, String, BpfProgram.BpfCompileMode,
+ * java.net.Inet4Address) Pcaps.compileFilter()}, which serialize calls to pcap_compile()
+ * because it isn't thread-safe, this compiler can be called concurrently. The programs it
+ * makes can be given to {@link PcapHandle#setFilter(BpfProgram)}, and
+ * {@link BpfProgram#applyFilter(byte[])} evaluates them in Java without the native library.
+ * <p>
+ * The following subset of the grammar is supported:
+ * </p>
+ * <ul>
+ * <li>{@code [ether|ip|ip6|arp|rarp] [src|dst|src or dst|src and dst] host ADDR},
+ *     where ADDR is an IPv4, IPv6, or MAC address</li>
+ * <li>{@code [ip|ip6|arp|rarp] [src|dst|...] net NET/LEN} and {@code net NET mask MASK}</li>
+ * <li>{@code [tcp|udp|sctp] [src|dst|...] port PORT} and {@code portrange PORT1-PORT2}</li>
+ * <li>{@code ip}, {@code ip6}, {@code arp}, {@code rarp}, {@code tcp}, {@code udp},
+ *     {@code sctp}, {@code icmp}, {@code icmp6}, {@code igmp},
+ *     {@code [ip|ip6|ether] proto PROTO}, {@code ether broadcast},
+ *     {@code ether multicast}, {@code ip multicast}, and {@code ip6 multicast}</li>
+ * <li>{@code vlan [ID]}, which, as in libpcap, shifts the offsets of the network layer
+ *     for the rest of the expression</li>
+ * <li>{@code less LEN} and {@code greater LEN}</li>
+ * <li>comparisons of arithmetic expressions of numbers, {@code len}, and loads such as
+ *     {@code ip[2:2]} or {@code tcp[tcpflags]}, with {@code + - * / % & | ^ << >>}</li>
+ * <li>{@code and}, {@code or}, {@code not} (or {@code &&}, {@code ||}, and {@code !}),
+ *     parentheses, and the abbreviation of repeated qualifiers
+ *     (e.g. {@code host 10.0.0.1 or 10.0.0.2})</li>
+ * </ul>
+ * <p>
+ * Host and network names are not resolved, and the data link types EN10MB, LINUX_SLL, and
+ * RAW are supported. A program made by this compiler accepts and rejects the same packets
+ * as one made by libpcap from the same expression, but its instructions differ because
+ * this compiler doesn't optimize them as much as libpcap. {@code vlan} matches VLAN tags in
+ * packet data, so on Linux, where the kernel may strip tags from captured packets, it is
+ * equivalent to libpcap's output only for offline and dead handles.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class BpfCompiler {
+
+  /**
+   * The snapshot length which {@link #compile(String, DataLinkType)} makes programs return
+   * for accepted packets.
+   */
+  public static final int DEFAULT_SNAPLEN = 65536;
+
+  private static final int ETHERTYPE_IP = 0x0800;
+  private static final int ETHERTYPE_ARP = 0x0806;
+  private static final int ETHERTYPE_RARP = 0x8035;
+  private static final int ETHERTYPE_IPV6 = 0x86DD;
+  private static final int[] ETHERTYPE_VLANS = {0x8100, 0x88A8, 0x9100};
+
+  private static final int IPPROTO_ICMP = 1;
+  private static final int IPPROTO_IGMP = 2;
+  private static final int IPPROTO_TCP = 6;
+  private static final int IPPROTO_UDP = 17;
+  private static final int IPPROTO_ICMPV6 = 58;
+  private static final int IPPROTO_SCTP = 132;
+
+  private static final Pattern MAC_ADDRESS
+    = Pattern.compile(
+        "[0-9a-fA-F]{1,2}([:.-])[0-9a-fA-F]{1,2}(\\1[0-9a-fA-F]{1,2}){4}"
+          + "|[0-9a-fA-F]{4}\\.[0-9a-fA-F]{4}\\.[0-9a-fA-F]{4}"
+      );
+
+  private static final Map<String, Integer> PROTOCOLS = new HashMap<String, Integer>();
+  private static final Map<String, Integer> ETHER_PROTOCOLS = new HashMap<String, Integer>();
+  private static final Map<String, Integer> PORTS = new HashMap<String, Integer>();
+  private static final Map<String, Integer> CONSTANTS = new HashMap<String, Integer>();
+
+  static {
+    PROTOCOLS.put("icmp", IPPROTO_ICMP);
+    PROTOCOLS.put("igmp", IPPROTO_IGMP);
+    PROTOCOLS.put("tcp", IPPROTO_TCP);
+    PROTOCOLS.put("udp", IPPROTO_UDP);
+    PROTOCOLS.put("gre", 47);
+    PROTOCOLS.put("esp", 50);
+    PROTOCOLS.put("ah", 51);
+    PROTOCOLS.put("icmp6", IPPROTO_ICMPV6);
+    PROTOCOLS.put("pim", 103);
+    PROTOCOLS.put("vrrp", 112);
+    PROTOCOLS.put("sctp", IPPROTO_SCTP);
+
+    ETHER_PROTOCOLS.put("ip", ETHERTYPE_IP);
+    ETHER_PROTOCOLS.put("arp", ETHERTYPE_ARP);
+    ETHER_PROTOCOLS.put("rarp", ETHERTYPE_RARP);
+    ETHER_PROTOCOLS.put("ip6", ETHERTYPE_IPV6);
+
+    PORTS.put("ftp-data", 20);
+    PORTS.put("ftp", 21);
+    PORTS.put("ssh", 22);
+    PORTS.put("telnet", 23);
+    PORTS.put("smtp", 25);
+    PORTS.put("domain", 53);
+    PORTS.put("bootps", 67);
+    PORTS.put("bootpc", 68);
+    PORTS.put("tftp", 69);
+    PORTS.put("http", 80);
+    PORTS.put("www", 80);
+    PORTS.put("pop3", 110);
+    PORTS.put("ntp", 123);
+    PORTS.put("imap", 143);
+    PORTS.put("snmp", 161);
+    PORTS.put("snmp-trap", 162);
+    PORTS.put("bgp", 179);
+    PORTS.put("ldap", 389);
+    PORTS.put("https", 443);
+    PORTS.put("syslog", 514);
+
+    CONSTANTS.put("tcpflags", 13);
+    CONSTANTS.put("tcp-fin", 0x01);
+    CONSTANTS.put("tcp-syn", 0x02);
+    CONSTANTS.put("tcp-rst", 0x04);
+    CONSTANTS.put("tcp-push", 0x08);
+    CONSTANTS.put("tcp-ack", 0x10);
+    CONSTANTS.put("tcp-urg", 0x20);
+    CONSTANTS.put("tcp-ece", 0x40);
+    CONSTANTS.put("tcp-cwr", 0x80);
+    CONSTANTS.put("icmptype", 0);
+    CONSTANTS.put("icmpcode", 1);
+    CONSTANTS.put("icmp-echoreply", 0);
+    CONSTANTS.put("icmp-unreach", 3);
+    CONSTANTS.put("icmp-sourcequench", 4);
+    CONSTANTS.put("icmp-redirect", 5);
+    CONSTANTS.put("icmp-echo", 8);
+    CONSTANTS.put("icmp-routeradvert", 9);
+    CONSTANTS.put("icmp-routersolicit", 10);
+    CONSTANTS.put("icmp-timxceed", 11);
+    CONSTANTS.put("icmp-paramprob", 12);
+    CONSTANTS.put("icmp-tstamp", 13);
+    CONSTANTS.put("icmp-tstampreply", 14);
+    CONSTANTS.put("icmp-ireq", 15);
+    CONSTANTS.put("icmp-ireqreply", 16);
+    CONSTANTS.put("icmp-maskreq", 17);
+    CONSTANTS.put("icmp-maskreply", 18);
+  }
+
+  private BpfCompiler() { throw new AssertionError(); }
+
+  /**
+   * Compiles an expression into a program which returns {@link #DEFAULT_SNAPLEN} for
+   * accepted packets.
+   *
+   * @param expression a tcpdump filter expression. An empty one accepts all packets.
+   * @param dlt the data link type of packets to be filtered.
+   * @return a new BpfProgram object.
+   * @throws IllegalArgumentException if the expression is invalid or unsupported.
+   */
+  public static BpfProgram compile(String expression, DataLinkType dlt) {
+    return compile(expression, dlt, DEFAULT_SNAPLEN);
+  }
+
+  /**
+   * @param expression a tcpdump filter expression. An empty one accepts all packets.
+   * @param dlt the data link type of packets to be filtered.
+   * @param snaplen the value which the program returns for accepted packets.
+   * @return a new BpfProgram object.
+   * @throws IllegalArgumentException if the expression is invalid or unsupported.
+   */
+  public static BpfProgram compile(String expression, DataLinkType dlt, int snaplen) {
+    if (expression == null || dlt == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("expression: ").append(expression)
+        .append(" dlt: ").append(dlt);
+      throw new NullPointerException(sb.toString());
+    }
+    if (snaplen <= 0) {
+      throw new IllegalArgumentException("snaplen must be positive but: " + snaplen);
+    }
+
+    return new BpfProgram(assemble(parse(expression, dlt), snaplen, 0), expression);
+  }
+
+  /**
+   * @param expression expression
+   * @param dlt dlt
+   * @return the root of the syntax tree of the expression, or null if it's empty.
+   * @throws IllegalArgumentException if the expression is invalid or unsupported.
+   */
+  static Node parse(String expression, DataLinkType dlt) {
+    return new Parser(expression, dlt).parse();
+  }
+
+  /**
+   * @param node a syntax tree or a part of it. null to accept all packets.
+   * @param accept the value which the program returns if the node is true.
+   * @param reject the value which the program returns if the node is false.
+   * @return the instructions of a program.
+   */
+  static BpfInstruction[] assemble(Node node, int accept, int reject) {
+    Code code = new Code();
+    Label acceptLabel = new Label();
+    Label rejectLabel = new Label();
+    if (node != null) {
+      node.gen(code, acceptLabel, rejectLabel);
+    }
+    code.place(acceptLabel);
+    code.stmt(RET | K, accept);
+    code.place(rejectLabel);
+    code.stmt(RET | K, reject);
+    return code.assemble();
+  }
+
+  private static final class Label {
+
+    private int index = -1;
+
+  }
+
+  private static final class Insn {
+
+    private final int code;
+    private final int k;
+    private final Label jt;
+    private final Label jf;
+
+    private Insn(int code, int k, Label jt, Label jf) {
+      this.code = code;
+      this.k = k;
+      this.jt = jt;
+      this.jf = jf;
+    }
+
+    private boolean isConditional() {
+      return (code & 0x07) == JMP && (code & 0xF0) != JA;
+    }
+
+    private boolean isJa() {
+      return (code & 0x07) == JMP && (code & 0xF0) == JA;
+    }
+
+  }
+
+  private static final class Code {
+
+    private final List<Insn> insns = new ArrayList<Insn>();
+    private int scratch = 0;
+
+    private void place(Label label) {
+      label.index = insns.size();
+    }
+
+    private void stmt(int code, int k) {
+      insns.add(new Insn(code, k, null, null));
+    }
+
+    private void jump(int code, int k, Label jt, Label jf) {
+      insns.add(new Insn(code, k, jt, jf));
+    }
+
+    private void ja(Label target) {
+      insns.add(new Insn(JMP | JA, 0, target, null));
+    }
+
+    private int allocScratch() {
+      if (scratch == MEMWORDS) {
+        throw new IllegalArgumentException("Too complex arithmetic expression.");
+      }
+      return scratch++;
+    }
+
+    private void freeScratch() {
+      scratch--;
+    }
+
+    /**
+     * Resolves labels. A conditional jump whose target is too far for 8 bit offsets
+     * is replaced by a conditional jump to one of two following unconditional jumps.
+     */
+    private BpfInstruction[] assemble() {
+      int n = insns.size();
+      boolean[] far = new boolean[n];
+      int[] pos = new int[n + 1];
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (int i = 0; i < n; i++) {
+          pos[i + 1] = pos[i] + (far[i] ? 3 : 1);
+        }
+        for (int i = 0; i < n; i++) {
+          Insn insn = insns.get(i);
+          if (insn.isConditional() && !far[i]) {
+            int t = pos[insn.jt.index] - pos[i] - 1;
+            int f = pos[insn.jf.index] - pos[i] - 1;
+            if (t > 255 || f > 255) {
+              far[i] = true;
+              changed = true;
+            }
+          }
+        }
+      }
+
+      List<BpfInstruction> result = new ArrayList<BpfInstruction>(pos[n]);
+      for (int i = 0; i < n; i++) {
+        Insn insn = insns.get(i);
+        int next = pos[i] + 1;
+        if (insn.isConditional()) {
+          if (far[i]) {
+            result.add(new BpfInstruction(insn.code, 0, 1, insn.k));
+            result.add(new BpfInstruction(JMP | JA, 0, 0, pos[insn.jt.index] - next - 1));
+            result.add(new BpfInstruction(JMP | JA, 0, 0, pos[insn.jf.index] - next - 2));
+          }
+          else {
+            result.add(
+              new BpfInstruction(
+                insn.code, pos[insn.jt.index] - next, pos[insn.jf.index] - next, insn.k
+              )
+            );
+          }
+        }
+        else if (insn.isJa()) {
+          result.add(new BpfInstruction(insn.code, 0, 0, pos[insn.jt.index] - next));
+        }
+        else {
+          result.add(new BpfInstruction(insn.code, 0, 0, insn.k));
+        }
+      }
+      return result.toArray(new BpfInstruction[result.size()]);
+    }
+
+  }
+
+  abstract static class Node {
+
+    abstract void gen(Code code, Label t, Label f);
+
+  }
+
+  static final class Const extends Node {
+
+    final boolean value;
+
+    private Const(boolean value) {
+      this.value = value;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      code.ja(value ? t : f);
+    }
+
+  }
+
+  static final class And extends Node {
+
+    final Node left;
+    final Node right;
+
+    private And(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      Label mid = new Label();
+      left.gen(code, mid, f);
+      code.place(mid);
+      right.gen(code, t, f);
+    }
+
+  }
+
+  static final class Or extends Node {
+
+    final Node left;
+    final Node right;
+
+    private Or(Node left, Node right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      Label mid = new Label();
+      left.gen(code, t, mid);
+      code.place(mid);
+      right.gen(code, t, f);
+    }
+
+  }
+
+  static final class Not extends Node {
+
+    final Node operand;
+
+    private Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      operand.gen(code, f, t);
+    }
+
+  }
+
+  /**
+   * Loads a value into A by statements and tests it by a conditional jump.
+   */
+  static final class Test extends Node {
+
+    final int[] stmts;
+    final int jmp;
+    final int k;
+
+    /**
+     * @param jmp JEQ, JGT, JGE, or JSET
+     * @param k k
+     * @param stmts pairs of an opcode and k
+     */
+    private Test(int jmp, int k, int... stmts) {
+      this.stmts = stmts;
+      this.jmp = jmp;
+      this.k = k;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      for (int i = 0; i < stmts.length; i += 2) {
+        code.stmt(stmts[i], stmts[i + 1]);
+      }
+      code.jump(JMP | jmp | K, k, t, f);
+    }
+
+  }
+
+  /**
+   * Loads a value into A by statements and tests if it's in a range.
+   */
+  static final class Range extends Node {
+
+    final int[] stmts;
+    final int low;
+    final int high;
+
+    private Range(int low, int high, int... stmts) {
+      this.stmts = stmts;
+      this.low = low;
+      this.high = high;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      for (int i = 0; i < stmts.length; i += 2) {
+        code.stmt(stmts[i], stmts[i + 1]);
+      }
+      Label mid = new Label();
+      code.jump(JMP | JGE | K, low, mid, f);
+      code.place(mid);
+      code.jump(JMP | JGT | K, high, f, t);
+    }
+
+  }
+
+  private static final class Compare extends Node {
+
+    private final Node guard;
+    private final Arith left;
+    private final String relop;
+    private final Arith right;
+
+    private Compare(Node guard, Arith left, String relop, Arith right) {
+      this.guard = guard;
+      this.left = left;
+      this.relop = relop;
+      this.right = right;
+    }
+
+    @Override
+    void gen(Code code, Label t, Label f) {
+      if (guard != null) {
+        Label ok = new Label();
+        guard.gen(code, ok, f);
+        code.place(ok);
+      }
+
+      int src;
+      int k;
+      if (right.isConst()) {
+        left.gen(code);
+        src = K;
+        k = right.value();
+      }
+      else {
+        right.gen(code);
+        int m = code.allocScratch();
+        code.stmt(ST, m);
+        left.gen(code);
+        code.stmt(LDX | MEM, m);
+        code.freeScratch();
+        src = X;
+        k = 0;
+      }
+
+      if (relop.equals("=") || relop.equals("==")) {
+        code.jump(JMP | JEQ | src, k, t, f);
+      }
+      else if (relop.equals("!=")) {
+        code.jump(JMP | JEQ | src, k, f, t);
+      }
+      else if (relop.equals(">")) {
+        code.jump(JMP | JGT | src, k, t, f);
+      }
+      else if (relop.equals(">=")) {
+        code.jump(JMP | JGE | src, k, t, f);
+      }
+      else if (relop.equals("<")) {
+        code.jump(JMP | JGE | src, k, f, t);
+      }
+      else {
+        code.jump(JMP | JGT | src, k, f, t);
+      }
+    }
+
+  }
+
+  private abstract static class Arith {
+
+    boolean isConst() {
+      return false;
+    }
+
+    int value() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Generates statements which load the value of this expression into A.
+     *
+     * @param code code
+     */
+    abstract void gen(Code code);
+
+    /**
+     * @param guards the protocol checks which loads in this expression need are put into
+     *               this map by their protocol names.
+     */
+    void guards(Map<String, Node> guards) {}
+
+  }
+
+  private static final class Num extends Arith {
+
+    private final int value;
+
+    private Num(int value) {
+      this.value = value;
+    }
+
+    @Override
+    boolean isConst() {
+      return true;
+    }
+
+    @Override
+    int value() {
+      return value;
+    }
+
+    @Override
+    void gen(Code code) {
+      code.stmt(LD | IMM, value);
+    }
+
+  }
+
+  private static final class Len extends Arith {
+
+    @Override
+    void gen(Code code) {
+      code.stmt(LD | W | LEN, 0);
+    }
+
+  }
+
+  private static final class Load extends Arith {
+
+    private final String protocol;
+    private final Node guard;
+    private final int base;
+    private final boolean transport;
+    private final Arith index;
+    private final int size;
+
+    /**
+     * @param protocol protocol
+     * @param guard guard
+     * @param base the offset of the protocol header, or of the IPv4 header if transport.
+     * @param transport true if the load is relative to the header following an IPv4 header.
+     * @param index index
+     * @param size B, H, or W
+     */
+    private Load(
+      String protocol, Node guard, int base, boolean transport, Arith index, int size
+    ) {
+      this.protocol = protocol;
+      this.guard = guard;
+      this.base = base;
+      this.transport = transport;
+      this.index = index;
+      this.size = size;
+    }
+
+    @Override
+    void gen(Code code) {
+      if (index.isConst()) {
+        if (transport) {
+          code.stmt(LDX | B | MSH, base);
+          code.stmt(LD | size | IND, base + index.value());
+        }
+        else {
+          code.stmt(LD | size | ABS, base + index.value());
+        }
+        return;
+      }
+
+      index.gen(code);
+      if (transport) {
+        int m = code.allocScratch();
+        code.stmt(ST, m);
+        code.stmt(LDX | B | MSH, base);
+        code.stmt(LD | MEM, m);
+        code.freeScratch();
+        code.stmt(ALU | ADD | X, 0);
+      }
+      code.stmt(MISC | TAX, 0);
+      code.stmt(LD | size | IND, base);
+    }
+
+    @Override
+    void guards(Map<String, Node> guards) {
+      if (guard != null && !guards.containsKey(protocol)) {
+        guards.put(protocol, guard);
+      }
+      index.guards(guards);
+    }
+
+  }
+
+  private static final class Binary extends Arith {
+
+    private final int op;
+    private final Arith left;
+    private final Arith right;
+
+    private Binary(int op, Arith left, Arith right) {
+      this.op = op;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    void gen(Code code) {
+      if (right.isConst()) {
+        left.gen(code);
+        code.stmt(ALU | op | K, right.value());
+        return;
+      }
+      right.gen(code);
+      int m = code.allocScratch();
+      code.stmt(ST, m);
+      left.gen(code);
+      code.stmt(LDX | MEM, m);
+      code.freeScratch();
+      code.stmt(ALU | op | X, 0);
+    }
+
+    @Override
+    void guards(Map<String, Node> guards) {
+      left.guards(guards);
+      right.guards(guards);
+    }
+
+  }
+
+  private static final class Negate extends Arith {
+
+    private final Arith operand;
+
+    private Negate(Arith operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    void gen(Code code) {
+      operand.gen(code);
+      code.stmt(ALU | NEG, 0);
+    }
+
+    @Override
+    void guards(Map<String, Node> guards) {
+      operand.guards(guards);
+    }
+
+  }
+
+  private static final class SyntaxError extends IllegalArgumentException {
+
+    private static final long serialVersionUID = -4467103356271470012L;
+
+    private SyntaxError(String message) {
+      super(message);
+    }
+
+  }
+
+  private static final class Token {
+
+    private final String text;
+    private final boolean word;
+    private final int position;
+
+    private Token(String text, boolean word, int position) {
+      this.text = text;
+      this.word = word;
+      this.position = position;
+    }
+
+    private boolean is(String s) {
+      return text.equals(s);
+    }
+
+  }
+
+  /**
+   * Qualifiers of a primitive, which are reused for an ID without qualifiers.
+   */
+  private static final class Qualifiers {
+
+    private final String protocol;
+    private final String direction;
+    private final String type;
+
+    private Qualifiers(String protocol, String direction, String type) {
+      this.protocol = protocol;
+      this.direction = direction;
+      this.type = type;
+    }
+
+  }
+
+  private static final class Parser {
+
+    private static final List<String> PROTOCOL_QUALIFIERS
+      = Arrays.asList(
+          "ether", "link", "ip", "ip6", "arp", "rarp",
+          "tcp", "udp", "sctp", "icmp", "icmp6", "igmp"
+        );
+    private static final List<String> TYPE_QUALIFIERS
+      = Arrays.asList("host", "net", "port", "portrange");
+    private static final List<String> KEYWORDS
+      = Arrays.asList(
+          "and", "or", "not", "src", "dst", "host", "net", "port", "portrange", "proto",
+          "mask", "vlan", "less", "greater", "len", "broadcast", "multicast", "gateway"
+        );
+
+    private final String expression;
+    private final DataLinkType dlt;
+    private final List<Token> tokens = new ArrayList<Token>();
+    private int next = 0;
+
+    private final boolean ether;
+    private int linkTypeOffset;
+    private int networkOffset;
+    private Qualifiers lastQualifiers = null;
+
+    private Parser(String expression, DataLinkType dlt) {
+      this.expression = expression;
+      this.dlt = dlt;
+      if (dlt.equals(DataLinkType.EN10MB)) {
+        this.ether = true;
+        this.linkTypeOffset = 12;
+        this.networkOffset = 14;
+      }
+      else if (dlt.equals(DataLinkType.LINUX_SLL)) {
+        this.ether = false;
+        this.linkTypeOffset = 14;
+        this.networkOffset = 16;
+      }
+      else if (dlt.equals(DataLinkType.RAW)) {
+        this.ether = false;
+        this.linkTypeOffset = -1;
+        this.networkOffset = 0;
+      }
+      else {
+        throw new IllegalArgumentException("Unsupported data link type: " + dlt);
+      }
+      tokenize();
+    }
+
+    private Node parse() {
+      if (peek() == null) {
+        return null;
+      }
+      Node node = parseOr();
+      if (peek() != null) {
+        throw error("Unexpected '" + peek().text + "'", peek());
+      }
+      return node;
+    }
+
+    private SyntaxError error(String message, Token token) {
+      StringBuilder sb = new StringBuilder(100);
+      sb.append(message)
+        .append(" at position ")
+        .append(token != null ? token.position : expression.length())
+        .append(" in: ")
+        .append(expression);
+      return new SyntaxError(sb.toString());
+    }
+
+    private Token peek() {
+      return next < tokens.size() ? tokens.get(next) : null;
+    }
+
+    private Token peek(int ahead) {
+      return next + ahead < tokens.size() ? tokens.get(next + ahead) : null;
+    }
+
+    private boolean peekIs(String text) {
+      Token token = peek();
+      return token != null && token.is(text);
+    }
+
+    private Token take() {
+      Token token = peek();
+      if (token == null) {
+        throw error("Unexpected end of expression", null);
+      }
+      next++;
+      return token;
+    }
+
+    private void expect(String text) {
+      Token token = peek();
+      if (token == null || !token.is(text)) {
+        throw error("'" + text + "' expected", token);
+      }
+      next++;
+    }
+
+    private Node parseOr() {
+      Node node = parseAnd();
+      while (peekIs("or") || peekIs("||")) {
+        take();
+        node = new Or(node, parseAnd());
+      }
+      return node;
+    }
+
+    private Node parseAnd() {
+      Node node = parseUnary();
+      while (peekIs("and") || peekIs("&&")) {
+        take();
+        node = new And(node, parseUnary());
+      }
+      return node;
+    }
+
+    private Node parseUnary() {
+      Token token = peek();
+      if (token == null) {
+        throw error("Unexpected end of expression", null);
+      }
+      if (token.is("not") || token.is("!")) {
+        take();
+        return new Not(parseUnary());
+      }
+      if (token.is("(")) {
+        int saved = next;
+        int savedNetworkOffset = networkOffset;
+        int savedLinkTypeOffset = linkTypeOffset;
+        Qualifiers savedQualifiers = lastQualifiers;
+        try {
+          return parseComparison();
+        } catch (SyntaxError e) {
+          next = saved;
+          networkOffset = savedNetworkOffset;
+          linkTypeOffset = savedLinkTypeOffset;
+          lastQualifiers = savedQualifiers;
+        }
+        take();
+        Node node = parseOr();
+        expect(")");
+        return node;
+      }
+      if (startsArith(token)) {
+        return parseComparison();
+      }
+      return parsePrimitive();
+    }
+
+    private boolean startsArith(Token token) {
+      if (token.is("-") || token.is("len")) {
+        return true;
+      }
+      if (!token.word) {
+        return false;
+      }
+      if (isNumber(token.text) || CONSTANTS.containsKey(token.text)) {
+        return true;
+      }
+      Token following = peek(1);
+      return following != null && following.is("[");
+    }
+
+    // primitives
+
+    private Node parsePrimitive() {
+      Token first = peek();
+      if (first.is("vlan")) {
+        take();
+        return parseVlan();
+      }
+      if (first.is("less") || first.is("greater")) {
+        take();
+        int length = parseNumber(take());
+        if (first.is("less")) {
+          return new Not(new Test(JGT, length, LD | W | LEN, 0));
+        }
+        return new Test(JGE, length, LD | W | LEN, 0);
+      }
+      if (first.is("broadcast") || first.is("multicast")) {
+        take();
+        return parseCast("ether", first);
+      }
+      if (first.is("gateway")) {
+        throw error("'gateway' is not supported", first);
+      }
+
+      String protocol = null;
+      if (first.word && PROTOCOL_QUALIFIERS.contains(first.text)) {
+        protocol = take().text;
+        if (protocol.equals("link")) {
+          protocol = "ether";
+        }
+      }
+
+      String direction = null;
+      if (peekIs("src") || peekIs("dst")) {
+        direction = take().text;
+        Token conj = peek();
+        Token other = peek(1);
+        if (
+             conj != null && other != null
+          && (conj.is("or") || conj.is("and"))
+          && (other.is("src") || other.is("dst"))
+          && !other.is(direction)
+        ) {
+          take();
+          take();
+          direction = conj.is("or") ? "src or dst" : "src and dst";
+        }
+      }
+
+      Token token = peek();
+      if (direction == null && protocol != null) {
+        if (token != null && token.is("proto")) {
+          take();
+          return parseProto(protocol, take());
+        }
+        if (token != null && (token.is("broadcast") || token.is("multicast"))) {
+          take();
+          return parseCast(protocol, token);
+        }
+        if (token == null || !token.word || !TYPE_QUALIFIERS.contains(token.text)) {
+          if (token != null && token.word && !KEYWORDS.contains(token.text)) {
+            Qualifiers q = new Qualifiers(protocol, null, "host");
+            lastQualifiers = q;
+            return primitive(q, take());
+          }
+          return protocol(protocol, first);
+        }
+      }
+      if (direction == null && protocol == null && token != null && token.is("proto")) {
+        take();
+        return parseProto(null, take());
+      }
+
+      String type = "host";
+      if (token != null && token.word && TYPE_QUALIFIERS.contains(token.text)) {
+        type = take().text;
+      }
+      else if (direction == null && protocol == null) {
+        // An ID without qualifiers reuses the last ones.
+        if (token != null && token.word && !KEYWORDS.contains(token.text)) {
+          if (lastQualifiers == null) {
+            throw error("A qualifier expected before '" + token.text + "'", token);
+          }
+          return primitive(lastQualifiers, take());
+        }
+        throw error("A primitive expected", token);
+      }
+
+      Qualifiers q = new Qualifiers(protocol, direction, type);
+      lastQualifiers = q;
+      return primitive(q, take());
+    }
+
+    private Node primitive(Qualifiers q, Token id) {
+      if (!id.word || KEYWORDS.contains(id.text)) {
+        throw error("An ID expected", id);
+      }
+      String direction = q.direction != null ? q.direction : "src or dst";
+      if (q.type.equals("host")) {
+        return host(q.protocol, direction, id);
+      }
+      if (q.type.equals("net")) {
+        return net(q.protocol, direction, id);
+      }
+      if (q.type.equals("port")) {
+        int port = parsePort(id);
+        return port(q.protocol, direction, port, port, id);
+      }
+      // portrange
+      int dash = id.text.indexOf('-');
+      if (dash <= 0) {
+        throw error("A port range such as 1000-2000 expected", id);
+      }
+      int low = parsePort(new Token(id.text.substring(0, dash), true, id.position));
+      int high = parsePort(new Token(id.text.substring(dash + 1), true, id.position));
+      if (low > high) {
+        int tmp = low;
+        low = high;
+        high = tmp;
+      }
+      return port(q.protocol, direction, low, high, id);
+    }
+
+    private Node parseVlan() {
+      if (!ether) {
+        throw error("'vlan' is supported only for EN10MB", peek());
+      }
+      Node tagged = null;
+      for (int type: ETHERTYPE_VLANS) {
+        Node test = new Test(JEQ, type, LD | H | ABS, linkTypeOffset);
+        tagged = tagged == null ? test : new Or(tagged, test);
+      }
+      Node node = tagged;
+      Token token = peek();
+      if (token != null && token.word && isNumber(token.text)) {
+        take();
+        int id = parseNumber(token);
+        if (id > 4095) {
+          throw error("VLAN ID must be less than 4096", token);
+        }
+        node = new And(
+                 node,
+                 new Test(JEQ, id, LD | H | ABS, linkTypeOffset + 2, ALU | AND | K, 0x0FFF)
+               );
+      }
+      linkTypeOffset += 4;
+      networkOffset += 4;
+      return node;
+    }
+
+    private Node parseCast(String protocol, Token token) {
+      boolean broadcast = token.is("broadcast");
+      if (protocol.equals("ether")) {
+        if (!ether) {
+          throw error("'" + token.text + "' is supported only for EN10MB", token);
+        }
+        if (broadcast) {
+          return etherAddr(0, new byte[] {-1, -1, -1, -1, -1, -1});
+        }
+        return new Test(JSET, 0x01, LD | B | ABS, 0);
+      }
+      if (protocol.equals("ip") && !broadcast) {
+        return new And(
+                 linkType(ETHERTYPE_IP),
+                 new Test(JGE, 224, LD | B | ABS, networkOffset + 16)
+               );
+      }
+      if (protocol.equals("ip6") && !broadcast) {
+        return new And(
+                 linkType(ETHERTYPE_IPV6),
+                 new Test(JEQ, 0xFF, LD | B | ABS, networkOffset + 24)
+               );
+      }
+      throw error("'" + protocol + " " + token.text + "' is not supported", token);
+    }
+
+    private Node parseProto(String protocol, Token id) {
+      String name = id.text.startsWith("\\") ? id.text.substring(1) : id.text;
+      if (protocol != null && protocol.equals("ether")) {
+        Integer type = ETHER_PROTOCOLS.get(name);
+        return linkType(type != null ? type : parseNumber(id));
+      }
+      Integer number = PROTOCOLS.get(name);
+      int value = number != null ? number : parseNumber(id);
+      if (value > 255) {
+        throw error("Invalid protocol number", id);
+      }
+      if (protocol == null) {
+        return new Or(ipProto(value), ip6Next(value));
+      }
+      if (protocol.equals("ip")) {
+        return ipProto(value);
+      }
+      if (protocol.equals("ip6")) {
+        return ip6Next(value);
+      }
+      throw error("'" + protocol + " proto' is not supported", id);
+    }
+
+    private Node protocol(String protocol, Token token) {
+      if (protocol.equals("ip")) {
+        return linkType(ETHERTYPE_IP);
+      }
+      if (protocol.equals("ip6")) {
+        return linkType(ETHERTYPE_IPV6);
+      }
+      if (protocol.equals("arp")) {
+        return linkType(ETHERTYPE_ARP);
+      }
+      if (protocol.equals("rarp")) {
+        return linkType(ETHERTYPE_RARP);
+      }
+      if (protocol.equals("icmp")) {
+        return ipProto(IPPROTO_ICMP);
+      }
+      if (protocol.equals("igmp")) {
+        return ipProto(IPPROTO_IGMP);
+      }
+      if (protocol.equals("icmp6")) {
+        return ip6Next(IPPROTO_ICMPV6);
+      }
+      if (protocol.equals("tcp") || protocol.equals("udp") || protocol.equals("sctp")) {
+        int number = PROTOCOLS.get(protocol);
+        return new Or(ipProto(number), ip6Next(number));
+      }
+      throw error("'" + protocol + "' needs a qualifier or an ID", token);
+    }
+
+    private Node linkType(int type) {
+      if (linkTypeOffset >= 0) {
+        return new Test(JEQ, type, LD | H | ABS, linkTypeOffset);
+      }
+      // RAW: the IP version
+      if (type == ETHERTYPE_IP) {
+        return new Test(JEQ, 0x40, LD | B | ABS, 0, ALU | AND | K, 0xF0);
+      }
+      if (type == ETHERTYPE_IPV6) {
+        return new Test(JEQ, 0x60, LD | B | ABS, 0, ALU | AND | K, 0xF0);
+      }
+      return new Const(false);
+    }
+
+    private Node ipProto(int protocol) {
+      return new And(
+               linkType(ETHERTYPE_IP),
+               new Test(JEQ, protocol, LD | B | ABS, networkOffset + 9)
+             );
+    }
+
+    private Node ip6Next(int protocol) {
+      return new And(
+               linkType(ETHERTYPE_IPV6),
+               new Test(JEQ, protocol, LD | B | ABS, networkOffset + 6)
+             );
+    }
+
+    private Node notFragment() {
+      return new Not(new Test(JSET, 0x1FFF, LD | H | ABS, networkOffset + 6));
+    }
+
+    private Node directed(String direction, Node src, Node dst) {
+      if (direction.equals("src")) {
+        return src;
+      }
+      if (direction.equals("dst")) {
+        return dst;
+      }
+      if (direction.equals("src and dst")) {
+        return new And(src, dst);
+      }
+      return new Or(src, dst);
+    }
+
+    private Node host(String protocol, String direction, Token id) {
+      String text = id.text;
+      if (MAC_ADDRESS.matcher(text).matches()) {
+        if (protocol != null && !protocol.equals("ether")) {
+          throw error("A MAC address is not applicable to '" + protocol + "'", id);
+        }
+        if (!ether) {
+          throw error("'ether host' is supported only for EN10MB", id);
+        }
+        byte[] mac = parseMac(text);
+        return directed(direction, etherAddr(6, mac), etherAddr(0, mac));
+      }
+      if (protocol != null && protocol.equals("ether")) {
+        throw error("A MAC address expected", id);
+      }
+      if (text.indexOf(':') >= 0) {
+        return net6(protocol, direction, parseInet6(id), 128, id);
+      }
+      return net4(protocol, direction, parseInet4(id, true), 0xFFFFFFFF, id);
+    }
+
+    private Node net(String protocol, String direction, Token id) {
+      String text = id.text;
+      int slash = text.indexOf('/');
+      String addr = slash < 0 ? text : text.substring(0, slash);
+      if (addr.indexOf(':') >= 0) {
+        int prefix
+          = slash < 0
+            ? 128
+            : parseNumber(new Token(text.substring(slash + 1), true, id.position));
+        if (prefix > 128) {
+          throw error("Invalid prefix length", id);
+        }
+        return net6(
+                 protocol, direction, parseInet6(new Token(addr, true, id.position)), prefix, id
+               );
+      }
+
+      Token addrToken = new Token(addr, true, id.position);
+      int octets = addr.split("\\.", -1).length;
+      int mask;
+      if (slash >= 0) {
+        int prefix = parseNumber(new Token(text.substring(slash + 1), true, id.position));
+        if (prefix > 32) {
+          throw error("Invalid prefix length", id);
+        }
+        mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+      }
+      else if (peekIs("mask")) {
+        take();
+        mask = parseInet4(take(), true);
+      }
+      else {
+        mask = octets >= 4 ? -1 : -1 << (32 - 8 * octets);
+      }
+      int net = parseInet4(addrToken, false);
+      if ((net & ~mask) != 0) {
+        throw error("Non-network bits set in " + text, id);
+      }
+      return net4(protocol, direction, net, mask, id);
+    }
+
+    private Node net4(String protocol, String direction, int addr, int mask, Token id) {
+      Node node = null;
+      if (protocol == null || protocol.equals("ip")) {
+        node = new And(
+                 linkType(ETHERTYPE_IP),
+                 directed(
+                   direction,
+                   addr4(networkOffset + 12, addr, mask),
+                   addr4(networkOffset + 16, addr, mask)
+                 )
+               );
+      }
+      if (protocol == null || protocol.equals("arp")) {
+        Node arp
+          = new And(
+              linkType(ETHERTYPE_ARP),
+              directed(
+                direction,
+                addr4(networkOffset + 14, addr, mask),
+                addr4(networkOffset + 24, addr, mask)
+              )
+            );
+        node = node == null ? arp : new Or(node, arp);
+      }
+      if (protocol == null || protocol.equals("rarp")) {
+        Node rarp
+          = new And(
+              linkType(ETHERTYPE_RARP),
+              directed(
+                direction,
+                addr4(networkOffset + 14, addr, mask),
+                addr4(networkOffset + 24, addr, mask)
+              )
+            );
+        node = node == null ? rarp : new Or(node, rarp);
+      }
+      if (node == null) {
+        throw error("An IPv4 address is not applicable to '" + protocol + "'", id);
+      }
+      return node;
+    }
+
+    private Node addr4(int offset, int addr, int mask) {
+      if (mask == -1) {
+        return new Test(JEQ, addr, LD | W | ABS, offset);
+      }
+      return new Test(JEQ, addr & mask, LD | W | ABS, offset, ALU | AND | K, mask);
+    }
+
+    private Node net6(String protocol, String direction, byte[] addr, int prefix, Token id) {
+      if (protocol != null && !protocol.equals("ip6")) {
+        throw error("An IPv6 address is not applicable to '" + protocol + "'", id);
+      }
+      return new And(
+               linkType(ETHERTYPE_IPV6),
+               directed(
+                 direction,
+                 addr6(networkOffset + 8, addr, prefix),
+                 addr6(networkOffset + 24, addr, prefix)
+               )
+             );
+    }
+
+    private Node addr6(int offset, byte[] addr, int prefix) {
+      // Compare the last word first as libpcap does, since it differs most often.
+      Node node = null;
+      for (int i = 3; i >= 0; i--) {
+        int bits = Math.min(Math.max(prefix - 32 * i, 0), 32);
+        if (bits == 0) {
+          continue;
+        }
+        int mask = bits == 32 ? -1 : -1 << (32 - bits);
+        int word = ByteArrays.getInt(addr, 4 * i);
+        if ((word & ~mask) != 0) {
+          throw new IllegalArgumentException("Non-network bits set in an IPv6 network.");
+        }
+        Node test = addr4(offset + 4 * i, word, mask);
+        node = node == null ? test : new And(node, test);
+      }
+      return node != null ? node : new Const(true);
+    }
+
+    private Node etherAddr(int offset, byte[] mac) {
+      return new And(
+               new Test(JEQ, ByteArrays.getInt(mac, 2), LD | W | ABS, offset + 2),
+               new Test(JEQ, ByteArrays.getShort(mac, 0) & 0xFFFF, LD | H | ABS, offset)
+             );
+    }
+
+    private Node port(String protocol, String direction, int low, int high, Token id) {
+      List<Integer> protocols = new ArrayList<Integer>();
+      if (protocol == null || protocol.equals("ip") || protocol.equals("ip6")) {
+        protocols.add(IPPROTO_TCP);
+        protocols.add(IPPROTO_UDP);
+        protocols.add(IPPROTO_SCTP);
+      }
+      else if (
+           protocol.equals("tcp") || protocol.equals("udp") || protocol.equals("sctp")
+      ) {
+        protocols.add(PROTOCOLS.get(protocol));
+      }
+      else {
+        throw error("A port is not applicable to '" + protocol + "'", id);
+      }
+
+      Node v4 = null;
+      Node v6 = null;
+      for (int number: protocols) {
+        Node test4 = new Test(JEQ, number, LD | B | ABS, networkOffset + 9);
+        Node test6 = new Test(JEQ, number, LD | B | ABS, networkOffset + 6);
+        v4 = v4 == null ? test4 : new Or(v4, test4);
+        v6 = v6 == null ? test6 : new Or(v6, test6);
+      }
+
+      int ip4 = networkOffset;
+      Node ports4
+        = directed(
+            direction,
+            portTest(low, high, LD | H | IND, ip4, LDX | B | MSH, ip4),
+            portTest(low, high, LD | H | IND, ip4 + 2, LDX | B | MSH, ip4)
+          );
+      int ip6 = networkOffset + 40;
+      Node ports6
+        = directed(
+            direction,
+            portTest(low, high, LD | H | ABS, ip6),
+            portTest(low, high, LD | H | ABS, ip6 + 2)
+          );
+
+      Node node4 = null;
+      Node node6 = null;
+      if (protocol == null || !protocol.equals("ip6")) {
+        node4 = new And(new And(new And(linkType(ETHERTYPE_IP), v4), notFragment()), ports4);
+      }
+      if (protocol == null || !protocol.equals("ip")) {
+        node6 = new And(new And(linkType(ETHERTYPE_IPV6), v6), ports6);
+      }
+      if (node4 == null) {
+        return node6;
+      }
+      return node6 == null ? node4 : new Or(node4, node6);
+    }
+
+    private Node portTest(int low, int high, int code, int k, int... prefix) {
+      int[] stmts = new int[prefix.length + 2];
+      System.arraycopy(prefix, 0, stmts, 0, prefix.length);
+      stmts[prefix.length] = code;
+      stmts[prefix.length + 1] = k;
+      if (low == high) {
+        return new Test(JEQ, low, stmts);
+      }
+      return new Range(low, high, stmts);
+    }
+
+    // arithmetic
+
+    private Node parseComparison() {
+      Arith left = parseArith();
+      Token relop = take();
+      if (
+           !relop.is("=") && !relop.is("==") && !relop.is("!=")
+        && !relop.is(">") && !relop.is(">=") && !relop.is("<") && !relop.is("<=")
+      ) {
+        throw error("A relational operator expected", relop);
+      }
+      Arith right = parseArith();
+
+      Map<String, Node> guards = new LinkedHashMap<String, Node>();
+      left.guards(guards);
+      right.guards(guards);
+      Node guard = null;
+      for (Node node: guards.values()) {
+        guard = guard == null ? node : new And(guard, node);
+      }
+      return new Compare(guard, left, relop.text, right);
+    }
+
+    private Arith parseArith() {
+      Arith node = parseBitAnd();
+      while (peekIs("|") || peekIs("^")) {
+        int op = take().is("|") ? OR : XOR;
+        node = binary(op, node, parseBitAnd());
+      }
+      return node;
+    }
+
+    private Arith parseBitAnd() {
+      Arith node = parseShift();
+      while (peekIs("&")) {
+        take();
+        node = binary(AND, node, parseShift());
+      }
+      return node;
+    }
+
+    private Arith parseShift() {
+      Arith node = parseAdditive();
+      while (peekIs("<<") || peekIs(">>")) {
+        int op = take().is("<<") ? LSH : RSH;
+        node = binary(op, node, parseAdditive());
+      }
+      return node;
+    }
+
+    private Arith parseAdditive() {
+      Arith node = parseMultiplicative();
+      while (peekIs("+") || peekIs("-")) {
+        int op = take().is("+") ? ADD : SUB;
+        node = binary(op, node, parseMultiplicative());
+      }
+      return node;
+    }
+
+    private Arith parseMultiplicative() {
+      Arith node = parseArithUnary();
+      while (peekIs("*") || peekIs("/") || peekIs("%")) {
+        Token token = take();
+        int op = token.is("*") ? MUL : (token.is("/") ? DIV : MOD);
+        Arith right = parseArithUnary();
+        if (op != MUL && right.isConst() && right.value() == 0) {
+          throw error("Division by zero", token);
+        }
+        node = binary(op, node, right);
+      }
+      return node;
+    }
+
+    private Arith parseArithUnary() {
+      if (peekIs("-")) {
+        take();
+        Arith operand = parseArithUnary();
+        return operand.isConst() ? new Num(-operand.value()) : new Negate(operand);
+      }
+      return parseArithPrimary();
+    }
+
+    private Arith parseArithPrimary() {
+      Token token = take();
+      if (token.is("(")) {
+        Arith node = parseArith();
+        expect(")");
+        return node;
+      }
+      if (token.is("len")) {
+        return new Len();
+      }
+      if (!token.word) {
+        throw error("An arithmetic expression expected", token);
+      }
+      Integer constant = CONSTANTS.get(token.text);
+      if (constant != null) {
+        return new Num(constant);
+      }
+      if (isNumber(token.text)) {
+        return new Num(parseNumber(token));
+      }
+      if (peekIs("[")) {
+        return parseLoad(token);
+      }
+      throw error("An arithmetic expression expected", token);
+    }
+
+    private Arith parseLoad(Token protocol) {
+      expect("[");
+      Arith index = parseArith();
+      int size = B;
+      if (peekIs(":")) {
+        take();
+        Token sizeToken = take();
+        int n = parseNumber(sizeToken);
+        if (n == 1) {
+          size = B;
+        }
+        else if (n == 2) {
+          size = H;
+        }
+        else if (n == 4) {
+          size = W;
+        }
+        else {
+          throw error("The size must be 1, 2, or 4", sizeToken);
+        }
+      }
+      expect("]");
+
+      String name = protocol.text;
+      if (name.equals("ether") || name.equals("link")) {
+        if (linkTypeOffset < 0) {
+          throw error("'" + name + "[]' is not applicable to " + dlt, protocol);
+        }
+        return new Load("link", null, 0, false, index, size);
+      }
+      if (name.equals("ip")) {
+        return new Load(name, linkType(ETHERTYPE_IP), networkOffset, false, index, size);
+      }
+      if (name.equals("ip6")) {
+        return new Load(name, linkType(ETHERTYPE_IPV6), networkOffset, false, index, size);
+      }
+      if (name.equals("arp")) {
+        return new Load(name, linkType(ETHERTYPE_ARP), networkOffset, false, index, size);
+      }
+      if (name.equals("rarp")) {
+        return new Load(name, linkType(ETHERTYPE_RARP), networkOffset, false, index, size);
+      }
+      Integer number = PROTOCOLS.get(name);
+      if (
+           number != null
+        && (name.equals("tcp") || name.equals("udp") || name.equals("icmp")
+              || name.equals("igmp") || name.equals("sctp"))
+      ) {
+        Node guard = new And(ipProto(number), notFragment());
+        return new Load(name, guard, networkOffset, true, index, size);
+      }
+      throw error("'" + name + "[]' is not supported", protocol);
+    }
+
+    private Arith binary(int op, Arith left, Arith right) {
+      if (left.isConst() && right.isConst()) {
+        long a = left.value() & 0xFFFFFFFFL;
+        long b = right.value() & 0xFFFFFFFFL;
+        long value;
+        switch (op) {
+          case ADD: value = a + b; break;
+          case SUB: value = a - b; break;
+          case MUL: value = a * b; break;
+          case DIV: value = a / b; break;
+          case MOD: value = a % b; break;
+          case AND: value = a & b; break;
+          case OR: value = a | b; break;
+          case XOR: value = a ^ b; break;
+          case LSH: value = b >= 32 ? 0 : a << b; break;
+          case RSH: value = b >= 32 ? 0 : a >>> b; break;
+          default: throw new AssertionError();
+        }
+        return new Num((int) value);
+      }
+      return new Binary(op, left, right);
+    }
+
+    // literals
+
+    private static boolean isNumber(String text) {
+      if (text.startsWith("0x") || text.startsWith("0X")) {
+        return text.length() > 2 && text.substring(2).matches("[0-9a-fA-F]+");
+      }
+      return text.matches("[0-9]+");
+    }
+
+    private int parseNumber(Token token) {
+      String text = token.text;
+      if (!isNumber(text)) {
+        throw error("A number expected", token);
+      }
+      try {
+        long value;
+        if (text.startsWith("0x") || text.startsWith("0X")) {
+          value = Long.parseLong(text.substring(2), 16);
+        }
+        else if (text.length() > 1 && text.startsWith("0")) {
+          value = Long.parseLong(text.substring(1), 8);
+        }
+        else {
+          value = Long.parseLong(text);
+        }
+        if (value > 0xFFFFFFFFL) {
+          throw error("Too large number", token);
+        }
+        return (int) value;
+      } catch (NumberFormatException e) {
+        throw error("Invalid number", token);
+      }
+    }
+
+    private int parsePort(Token token) {
+      Integer port = PORTS.get(token.text);
+      int value = port != null ? port : parseNumber(token);
+      if (value < 0 || value > 65535) {
+        throw error("Invalid port", token);
+      }
+      return value;
+    }
+
+    /**
+     * @param full false to accept 1 to 4 octets, e.g. 10.1 for 10.1.0.0.
+     */
+    private int parseInet4(Token token, boolean full) {
+      String[] octets = token.text.split("\\.", -1);
+      if (octets.length > 4 || (full && octets.length != 4)) {
+        throw error(
+          isNumber(token.text) || octets.length > 1
+            ? "Invalid IPv4 address"
+            : "Host names are not supported",
+          token
+        );
+      }
+      int addr = 0;
+      for (int i = 0; i < 4; i++) {
+        int octet = 0;
+        if (i < octets.length) {
+          if (!octets[i].matches("[0-9]{1,3}") || Integer.parseInt(octets[i]) > 255) {
+            throw error(
+              octets.length == 1 && !isNumber(octets[0])
+                ? "Host names are not supported"
+                : "Invalid IPv4 address",
+              token
+            );
+          }
+          octet = Integer.parseInt(octets[i]);
+        }
+        addr = (addr << 8) | octet;
+      }
+      return addr;
+    }
+
+    private byte[] parseInet6(Token token) {
+      if (!token.text.matches("[0-9a-fA-F:.]+")) {
+        throw error("Invalid IPv6 address", token);
+      }
+      try {
+        InetAddress addr = InetAddress.getByName(token.text);
+        if (!(addr instanceof Inet6Address)) {
+          throw error("Invalid IPv6 address", token);
+        }
+        return addr.getAddress();
+      } catch (UnknownHostException e) {
+        throw error("Invalid IPv6 address", token);
+      }
+    }
+
+    private static byte[] parseMac(String text) {
+      String hex = text.replaceAll("[:.-]", "");
+      if (hex.length() != 12) {
+        StringBuilder sb = new StringBuilder(12);
+        for (String part: text.split("[:.-]")) {
+          if (part.length() == 1) {
+            sb.append('0');
+          }
+          sb.append(part);
+        }
+        hex = sb.toString();
+      }
+      return ByteArrays.parseByteArray(hex, "");
+    }
+
+    // tokens
+
+    private void tokenize() {
+      int len = expression.length();
+      int brackets = 0;
+      int i = 0;
+      while (i < len) {
+        char c = expression.charAt(i);
+        if (Character.isWhitespace(c)) {
+          i++;
+          continue;
+        }
+
+        int start = i;
+        if (isWordStart(c, brackets > 0)) {
+          i++;
+          while (i < len && isWordPart(expression.charAt(i), brackets > 0)) {
+            i++;
+          }
+          tokens.add(new Token(expression.substring(start, i), true, start));
+          continue;
+        }
+
+        String two = i + 1 < len ? expression.substring(i, i + 2) : "";
+        String text;
+        if (
+             two.equals("&&") || two.equals("||") || two.equals("==") || two.equals("!=")
+          || two.equals(">=") || two.equals("<=") || two.equals("<<") || two.equals(">>")
+        ) {
+          text = two;
+        }
+        else if ("()[]:+-*/%&|^!=<>".indexOf(c) >= 0) {
+          text = String.valueOf(c);
+          if (c == '[') {
+            brackets++;
+          }
+          else if (c == ']') {
+            brackets--;
+          }
+        }
+        else {
+          throw error("Unexpected character '" + c + "'", new Token("", false, start));
+        }
+        tokens.add(new Token(text, false, start));
+        i += text.length();
+      }
+    }
+
+    private static boolean isWordStart(char c, boolean inBrackets) {
+      return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_' || c == '\\' || c == '.'
+        || (!inBrackets && c == ':');
+    }
+
+    private static boolean isWordPart(char c, boolean inBrackets) {
+      return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_' || c == '.' || c == '-'
+        || (!inBrackets && (c == ':' || c == '/'));
+    }
+
+  }
+
+}
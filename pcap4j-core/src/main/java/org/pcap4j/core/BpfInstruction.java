@@ -0,0 +1,182 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.io.Serializable;
+
+/**
+ * An instruction of a BPF program, i.e. a struct bpf_insn.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class BpfInstruction implements Serializable {
+
+  private static final long serialVersionUID = -2707542471594391396L;
+
+  // instruction classes
+  static final int LD = 0x00;
+  static final int LDX = 0x01;
+  static final int ST = 0x02;
+  static final int STX = 0x03;
+  static final int ALU = 0x04;
+  static final int JMP = 0x05;
+  static final int RET = 0x06;
+  static final int MISC = 0x07;
+
+  // ld/ldx sizes
+  static final int W = 0x00;
+  static final int H = 0x08;
+  static final int B = 0x10;
+
+  // ld/ldx modes
+  static final int IMM = 0x00;
+  static final int ABS = 0x20;
+  static final int IND = 0x40;
+  static final int MEM = 0x60;
+  static final int LEN = 0x80;
+  static final int MSH = 0xA0;
+
+  // alu operations
+  static final int ADD = 0x00;
+  static final int SUB = 0x10;
+  static final int MUL = 0x20;
+  static final int DIV = 0x30;
+  static final int OR = 0x40;
+  static final int AND = 0x50;
+  static final int LSH = 0x60;
+  static final int RSH = 0x70;
+  static final int NEG = 0x80;
+  static final int MOD = 0x90;
+  static final int XOR = 0xA0;
+
+  // jmp operations
+  static final int JA = 0x00;
+  static final int JEQ = 0x10;
+  static final int JGT = 0x20;
+  static final int JGE = 0x30;
+  static final int JSET = 0x40;
+
+  // sources
+  static final int K = 0x00;
+  static final int X = 0x08;
+  static final int A = 0x10;
+
+  // misc operations
+  static final int TAX = 0x00;
+  static final int TXA = 0x80;
+
+  /**
+   * The number of scratch memory words.
+   */
+  static final int MEMWORDS = 16;
+
+  private final short code;
+  private final byte jt;
+  private final byte jf;
+  private final int k;
+
+  /**
+   * @param code the opcode.
+   * @param jt the offset of the instruction to jump to if a condition is true.
+   * @param jf the offset of the instruction to jump to if a condition is false.
+   * @param k the generic field.
+   */
+  public BpfInstruction(short code, byte jt, byte jf, int k) {
+    this.code = code;
+    this.jt = jt;
+    this.jf = jf;
+    this.k = k;
+  }
+
+  BpfInstruction(int code, int jt, int jf, int k) {
+    this((short) code, (byte) jt, (byte) jf, k);
+  }
+
+  /**
+   * @return code
+   */
+  public short getCode() {
+    return code;
+  }
+
+  /**
+   * @return code
+   */
+  public int getCodeAsInt() {
+    return code & 0xFFFF;
+  }
+
+  /**
+   * @return jt
+   */
+  public byte getJt() {
+    return jt;
+  }
+
+  /**
+   * @return jt
+   */
+  public int getJtAsInt() {
+    return jt & 0xFF;
+  }
+
+  /**
+   * @return jf
+   */
+  public byte getJf() {
+    return jf;
+  }
+
+  /**
+   * @return jf
+   */
+  public int getJfAsInt() {
+    return jf & 0xFF;
+  }
+
+  /**
+   * @return k
+   */
+  public int getK() {
+    return k;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) { return true; }
+    if (!this.getClass().isInstance(obj)) { return false; }
+
+    BpfInstruction other = (BpfInstruction) obj;
+    return code == other.code
+      && jt == other.jt
+      && jf == other.jf
+      && k == other.k;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 31 * result + code;
+    result = 31 * result + jt;
+    result = 31 * result + jf;
+    result = 31 * result + k;
+    return result;
+  }
+
+  /**
+   * @return a string in the format of tcpdump -dd. (e.g. { 0x28, 0, 0, 0x0000000c })
+   */
+  @Override
+  public String toString() {
+    return String.format(
+             "{ 0x%x, %d, %d, 0x%08x }", getCodeAsInt(), getJtAsInt(), getJfAsInt(), k
+           );
+  }
+
+}
@@ -0,0 +1,186 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import static org.pcap4j.core.BpfInstruction.*;
+
+/**
+ * A user-space BPF machine, which behaves like bpf_filter() of libpcap.
+ * Loads beyond the captured data and divisions by zero reject packets.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class BpfInterpreter {
+
+  private BpfInterpreter() { throw new AssertionError(); }
+
+  /**
+   * The return value of {@link #execute(BpfInstruction[], byte[], int, int)} for a program
+   * which is aborted by a load beyond the captured data or a division by zero.
+   */
+  static final long ABORTED = -1L;
+
+  /**
+   * @param insns the instructions of a program, which must be valid.
+   * @param packet packet
+   * @param wirelen the length of the original packet.
+   * @param buflen the length of the packet present in packet.
+   * @return the return value of the program. 0 if the packet is rejected.
+   */
+  static int run(BpfInstruction[] insns, byte[] packet, int wirelen, int buflen) {
+    long result = execute(insns, packet, wirelen, buflen);
+    return result == ABORTED ? 0 : (int) result;
+  }
+
+  /**
+   * @param insns the instructions of a program, which must be valid.
+   * @param packet packet
+   * @param wirelen the length of the original packet.
+   * @param buflen the length of the packet present in packet.
+   * @return the return value of the program as an unsigned int, or {@link #ABORTED}.
+   */
+  static long execute(BpfInstruction[] insns, byte[] packet, int wirelen, int buflen) {
+    int a = 0;
+    int x = 0;
+    int[] mem = null;
+    int pc = 0;
+    while (true) {
+      BpfInstruction insn = insns[pc++];
+      int code = insn.getCodeAsInt();
+      int k = insn.getK();
+      switch (code & 0x07) {
+        case LD:
+        case LDX: {
+          int mode = code & 0xE0;
+          int value;
+          switch (mode) {
+            case IMM:
+              value = k;
+              break;
+            case LEN:
+              value = wirelen;
+              break;
+            case MEM:
+              value = mem == null ? 0 : mem[k];
+              break;
+            case MSH:
+              if (k < 0 || k >= buflen) {
+                return ABORTED;
+              }
+              value = (packet[k] & 0x0F) << 2;
+              break;
+            case ABS:
+            case IND: {
+              long offset = (mode == IND ? (x & 0xFFFFFFFFL) : 0) + (k & 0xFFFFFFFFL);
+              int size = code & 0x18;
+              int length = size == W ? 4 : (size == H ? 2 : 1);
+              if (offset + length > buflen) {
+                return ABORTED;
+              }
+              int off = (int) offset;
+              switch (size) {
+                case W:
+                  value = ((packet[off] & 0xFF) << 24)
+                    | ((packet[off + 1] & 0xFF) << 16)
+                    | ((packet[off + 2] & 0xFF) << 8)
+                    | (packet[off + 3] & 0xFF);
+                  break;
+                case H:
+                  value = ((packet[off] & 0xFF) << 8) | (packet[off + 1] & 0xFF);
+                  break;
+                default:
+                  value = packet[off] & 0xFF;
+                  break;
+              }
+              break;
+            }
+            default:
+              return ABORTED;
+          }
+          if ((code & 0x07) == LD) {
+            a = value;
+          }
+          else {
+            x = value;
+          }
+          break;
+        }
+        case ST:
+        case STX:
+          if (mem == null) {
+            mem = new int[MEMWORDS];
+          }
+          mem[k] = (code & 0x07) == ST ? a : x;
+          break;
+        case ALU: {
+          int operand = (code & X) != 0 ? x : k;
+          switch (code & 0xF0) {
+            case ADD: a += operand; break;
+            case SUB: a -= operand; break;
+            case MUL: a *= operand; break;
+            case DIV:
+              if (operand == 0) {
+                return ABORTED;
+              }
+              a = (int) ((a & 0xFFFFFFFFL) / (operand & 0xFFFFFFFFL));
+              break;
+            case MOD:
+              if (operand == 0) {
+                return ABORTED;
+              }
+              a = (int) ((a & 0xFFFFFFFFL) % (operand & 0xFFFFFFFFL));
+              break;
+            case OR: a |= operand; break;
+            case AND: a &= operand; break;
+            case XOR: a ^= operand; break;
+            case LSH: a = operand >= 32 ? 0 : a << operand; break;
+            case RSH: a = operand >= 32 ? 0 : a >>> operand; break;
+            case NEG: a = -a; break;
+            default:
+              return ABORTED;
+          }
+          break;
+        }
+        case JMP: {
+          int op = code & 0xF0;
+          if (op == JA) {
+            pc += k;
+            break;
+          }
+          long lhs = a & 0xFFFFFFFFL;
+          long rhs = ((code & X) != 0 ? x : k) & 0xFFFFFFFFL;
+          boolean cond;
+          switch (op) {
+            case JEQ: cond = lhs == rhs; break;
+            case JGT: cond = lhs > rhs; break;
+            case JGE: cond = lhs >= rhs; break;
+            case JSET: cond = (lhs & rhs) != 0; break;
+            default:
+              return ABORTED;
+          }
+          pc += cond ? insn.getJtAsInt() : insn.getJfAsInt();
+          break;
+        }
+        case RET:
+          return ((code & 0x18) == A ? a : k) & 0xFFFFFFFFL;
+        case MISC:
+          if ((code & 0xF8) == TXA) {
+            a = x;
+          }
+          else {
+            x = a;
+          }
+          break;
+        default:
+          return ABORTED;
+      }
+    }
+  }
+
+}
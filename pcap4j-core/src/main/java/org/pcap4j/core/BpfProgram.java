@@ -7,6 +7,7 @@
 
 package org.pcap4j.core;
 
+import org.pcap4j.core.NativeMappings.bpf_insn;
 import org.pcap4j.core.NativeMappings.bpf_program;
 import org.pcap4j.packet.Packet;
 
@@ -16,18 +17,70 @@ import org.pcap4j.packet.Packet;
  */
 public final class BpfProgram {
 
-  private final bpf_program program;
+  private bpf_program program;
   private final String expression;
+  private volatile BpfInstruction[] instructions;
+  private final BpfProgramCache.SharedCode sharedCode;
   private volatile boolean freed = false;
   private final Object lock = new Object();
 
   BpfProgram(bpf_program program, String expression) {
     this.program = program;
     this.expression = expression;
+    this.instructions = null;
+    this.sharedCode = null;
+  }
+
+  /**
+   * Creates a program which shares code cached by a {@link BpfProgramCache}.
+   *
+   * @param sharedCode shared code with a reference for this program.
+   * @param expression expression
+   */
+  BpfProgram(BpfProgramCache.SharedCode sharedCode, String expression) {
+    this.program = sharedCode.getProgram();
+    this.expression = expression;
+    this.instructions = null;
+    this.sharedCode = sharedCode;
+  }
+
+  /**
+   * Creates a program built in Java (e.g. by {@link BpfCompiler}), which is evaluated
+   * by {@link #applyFilter(byte[], int, int)} without the native library.
+   *
+   * @param instructions instructions
+   * @param expression expression
+   */
+  BpfProgram(BpfInstruction[] instructions, String expression) {
+    this.program = null;
+    this.expression = expression;
+    this.instructions = instructions;
+    this.sharedCode = null;
   }
 
   bpf_program getProgram() {
-    return program;
+    synchronized (lock) {
+      if (program == null && instructions != null) {
+        // Lazily copied into native memory so that programs only applied in Java
+        // don't need the native library.
+        bpf_program prog = new bpf_program();
+        bpf_insn.ByReference first = new bpf_insn.ByReference();
+        bpf_insn[] insns = (bpf_insn[]) first.toArray(instructions.length);
+        for (int i = 0; i < instructions.length; i++) {
+          BpfInstruction insn = instructions[i];
+          insns[i].code = insn.getCode();
+          insns[i].jt = insn.getJt();
+          insns[i].jf = insn.getJf();
+          insns[i].k = insn.getK();
+          insns[i].write();
+        }
+        prog.bf_len = instructions.length;
+        prog.bf_insns = first;
+        prog.write();
+        program = prog;
+      }
+      return program;
+    }
   }
 
   /**
@@ -38,6 +91,32 @@ public final class BpfProgram {
     return expression;
   }
 
+  /**
+   * @return the instructions of this program.
+   * @throws IllegalStateException if this program is freed.
+   */
+  public BpfInstruction[] getInstructions() {
+    synchronized (lock) {
+      if (freed) {
+        throw new IllegalStateException("This program is already freed.");
+      }
+      if (instructions != null) {
+        return instructions.clone();
+      }
+
+      if (program.bf_insns == null) {
+        program.read();
+      }
+      bpf_insn[] insns = (bpf_insn[]) program.bf_insns.toArray(program.bf_len);
+      BpfInstruction[] result = new BpfInstruction[insns.length];
+      for (int i = 0; i < insns.length; i++) {
+        insns[i].read();
+        result[i] = new BpfInstruction(insns[i].code, insns[i].jt, insns[i].jf, insns[i].k);
+      }
+      return result;
+    }
+  }
+
   /**
    * Apply the filter on a given packet.
    * Return true if the packet given passes the filter that is built from this program.
@@ -71,6 +150,12 @@ public final class BpfProgram {
    * @return true if this program is not freed and the packet passes the filter; false otherwise.
    */
   public boolean applyFilter(byte[] packet, int orgPacketLen, int packetLen) {
+    BpfInstruction[] insns = instructions;
+    if (insns != null) {
+      // A program built in Java is immutable and can be applied concurrently.
+      return !freed && BpfInterpreter.run(insns, packet, orgPacketLen, packetLen) != 0;
+    }
+
     synchronized (lock) {
       if (freed) {
         return false;
@@ -104,7 +189,19 @@ public final class BpfProgram {
       if (freed) {
         return;
       }
-      NativeMappings.pcap_freecode(program);
+      if (instructions != null) {
+        // The native memory of a program built in Java is released by JNA.
+        freed = true;
+        instructions = null;
+        program = null;
+        return;
+      }
+      if (sharedCode != null) {
+        sharedCode.release();
+      }
+      else {
+        NativeMappings.pcap_freecode(program);
+      }
       freed = true;
     }
   }
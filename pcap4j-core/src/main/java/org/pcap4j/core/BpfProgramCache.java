@@ -0,0 +1,369 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.pcap4j.core.BpfProgram.BpfCompileMode;
+import org.pcap4j.core.NativeMappings.bpf_program;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * A bounded cache of compiled BPF programs keyed by expression, data link type, snapshot
+ * length, compile mode, and netmask, which saves compiling the same expression again
+ * under the global lock on pcap_compile().
+ * <p>
+ * {@link PcapHandle#compileFilter(String, BpfCompileMode, Inet4Address)},
+ * {@link PcapHandle#setFilter(String, BpfCompileMode, Inet4Address)}, and
+ * {@link Pcaps#compileFilter(int, DataLinkType, String, BpfCompileMode, Inet4Address)}
+ * use {@link #getDefault() the default cache}, whose capacity is given by the system property
+ * {@code org.pcap4j.core.BpfProgramCache.capacity} (64 by default, 0 to disable it).
+ * Programs compiled by live handles are cached apart from the others, because libpcap may
+ * generate different code for them (e.g. for {@code vlan} on Linux).
+ * </p>
+ * <p>
+ * Cached code is shared by reference counting: each {@link BpfProgram} got from a cache
+ * holds a reference, which its {@link BpfProgram#free() free()} releases, and the cache holds
+ * one while the code is cached. The code is freed when the last reference is released, so
+ * that the least recently used code can be evicted even while it's in use.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class BpfProgramCache {
+
+  private static final BpfProgramCache DEFAULT
+    = new BpfProgramCache(
+        Integer.getInteger(BpfProgramCache.class.getName() + ".capacity", 64)
+      );
+
+  private final int capacity;
+  private final Map<Key, SharedCode> entries;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong compileTimeNanos = new AtomicLong();
+
+  /**
+   * @return the cache used by {@link PcapHandle} and {@link Pcaps}.
+   */
+  public static BpfProgramCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @param capacity the maximum number of cached programs. 0 disables caching.
+   */
+  public BpfProgramCache(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    this.entries
+      = new LinkedHashMap<Key, SharedCode>(16, 0.75f, true) {
+
+          private static final long serialVersionUID = 4129658102753366478L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, SharedCode> eldest) {
+            if (size() > BpfProgramCache.this.capacity) {
+              eldest.getValue().release();
+              evictionCount.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+
+        };
+  }
+
+  /**
+   * Does the same as
+   * {@link Pcaps#compileFilter(int, DataLinkType, String, BpfCompileMode, Inet4Address)}
+   * but with this cache.
+   *
+   * @param snaplen snaplen
+   * @param dlt dlt
+   * @param bpfExpression bpfExpression
+   * @param mode mode
+   * @param netmask netmask
+   * @return a {@link org.pcap4j.core.BpfProgram BpfProgram} object, which should be freed
+   *         when it's no longer used.
+   * @throws PcapNativeException if an error occurs in the pcap native library.
+   */
+  public BpfProgram compileFilter(
+    final int snaplen, final DataLinkType dlt, final String bpfExpression,
+    final BpfCompileMode mode, Inet4Address netmask
+  ) throws PcapNativeException {
+    if (
+         dlt == null
+      || bpfExpression == null
+      || mode == null
+      || netmask == null
+    ) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("dlt: ").append(dlt)
+        .append(" bpfExpression: ").append(bpfExpression)
+        .append(" mode: ").append(mode)
+        .append(" netmask: ").append(netmask);
+      throw new NullPointerException(sb.toString());
+    }
+
+    final int mask = ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0);
+    Key key = new Key(bpfExpression, dlt, snaplen, mode, mask, false);
+    SharedCode code
+      = acquire(
+          key,
+          new Compiler() {
+            @Override
+            public bpf_program compile() throws PcapNativeException {
+              bpf_program prog = new bpf_program();
+              int rc;
+              synchronized (PcapHandle.compileLock) {
+                rc = NativeMappings.pcap_compile_nopcap(
+                       snaplen, dlt.value(), prog, bpfExpression, mode.getValue(), mask
+                     );
+              }
+              if (rc < 0) {
+                throw new PcapNativeException(
+                            "Failed to compile the BPF expression: " + bpfExpression,
+                            rc
+                          );
+              }
+              return prog;
+            }
+          }
+        );
+    return new BpfProgram(code, bpfExpression);
+  }
+
+  /**
+   * Gets compiled code from this cache, or compiles and caches it.
+   *
+   * @param key key
+   * @param compiler the compiler called on a miss.
+   * @return shared code with a reference for the caller, who must release it.
+   * @throws PcapNativeException if the compiler fails.
+   */
+  SharedCode acquire(Key key, Compiler compiler) throws PcapNativeException {
+    synchronized (entries) {
+      SharedCode code = entries.get(key);
+      if (code != null) {
+        code.retain();
+        hitCount.incrementAndGet();
+        return code;
+      }
+    }
+
+    missCount.incrementAndGet();
+    long start = System.nanoTime();
+    bpf_program prog = compiler.compile();
+    compileTimeNanos.addAndGet(System.nanoTime() - start);
+    prog.read();
+    SharedCode created = new SharedCode(prog);
+    if (capacity == 0) {
+      return created;
+    }
+
+    synchronized (entries) {
+      SharedCode code = entries.get(key);
+      if (code != null) {
+        // Another thread has compiled the same expression in the meantime.
+        code.retain();
+        created.release();
+        return code;
+      }
+      created.retain();
+      entries.put(key, created);
+      return created;
+    }
+  }
+
+  /**
+   * @return the maximum number of cached programs.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of cached programs.
+   */
+  public int getSize() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * @return the number of lookups which found a cached program.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return the number of lookups which compiled a program.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return the number of programs evicted to make room for others.
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * @return the total time in nanoseconds spent compiling on misses,
+   *         including waits for the global lock on pcap_compile().
+   */
+  public long getCompileTimeNanos() {
+    return compileTimeNanos.get();
+  }
+
+  /**
+   * Removes all the cached programs. Programs in use are freed when they are freed by
+   * all of their users.
+   */
+  public void clear() {
+    List<SharedCode> removed;
+    synchronized (entries) {
+      removed = new ArrayList<SharedCode>(entries.values());
+      entries.clear();
+    }
+    for (SharedCode code: removed) {
+      code.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(120);
+    sb.append("BpfProgramCache [capacity: ").append(capacity)
+      .append(", size: ").append(getSize())
+      .append(", hits: ").append(hitCount.get())
+      .append(", misses: ").append(missCount.get())
+      .append(", evictions: ").append(evictionCount.get())
+      .append(", compile time: ").append(compileTimeNanos.get() / 1000000L).append(" ms")
+      .append("]");
+    return sb.toString();
+  }
+
+  /**
+   * Compiles a program on a cache miss.
+   */
+  interface Compiler {
+
+    /**
+     * @return a compiled program.
+     * @throws PcapNativeException if compilation fails.
+     */
+    bpf_program compile() throws PcapNativeException;
+
+  }
+
+  static final class Key {
+
+    private final String expression;
+    private final DataLinkType dlt;
+    private final int snaplen;
+    private final BpfCompileMode mode;
+    private final int netmask;
+    private final boolean live;
+
+    /**
+     * @param expression expression
+     * @param dlt dlt
+     * @param snaplen snaplen
+     * @param mode mode
+     * @param netmask netmask
+     * @param live true if compiled by a live handle.
+     */
+    Key(
+      String expression, DataLinkType dlt, int snaplen,
+      BpfCompileMode mode, int netmask, boolean live
+    ) {
+      this.expression = expression;
+      this.dlt = dlt;
+      this.snaplen = snaplen;
+      this.mode = mode;
+      this.netmask = netmask;
+      this.live = live;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) { return true; }
+      if (!this.getClass().isInstance(obj)) { return false; }
+
+      Key other = (Key) obj;
+      return expression.equals(other.expression)
+        && dlt.equals(other.dlt)
+        && snaplen == other.snaplen
+        && mode == other.mode
+        && netmask == other.netmask
+        && live == other.live;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = 17;
+      result = 31 * result + expression.hashCode();
+      result = 31 * result + dlt.hashCode();
+      result = 31 * result + snaplen;
+      result = 31 * result + mode.hashCode();
+      result = 31 * result + netmask;
+      result = 31 * result + (live ? 1 : 0);
+      return result;
+    }
+
+  }
+
+  /**
+   * Compiled code shared by reference counting.
+   */
+  static final class SharedCode {
+
+    private final bpf_program program;
+    private int references = 1;
+
+    private SharedCode(bpf_program program) {
+      this.program = program;
+    }
+
+    bpf_program getProgram() {
+      return program;
+    }
+
+    synchronized void retain() {
+      references++;
+    }
+
+    synchronized void release() {
+      references--;
+      if (references == 0) {
+        NativeMappings.pcap_freecode(program);
+      }
+    }
+
+    synchronized int getReferences() {
+      return references;
+    }
+
+  }
+
+}
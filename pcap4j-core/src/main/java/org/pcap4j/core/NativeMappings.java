@@ -91,6 +91,7 @@ final class NativeMappings {
       "pcap_open_dead_with_tstamp_precision"
     );
     funcMap.put("pcap_set_tstamp_precision", "pcap_set_tstamp_precision");
+    funcMap.put("pcap_get_selectable_fd", "pcap_get_selectable_fd");
 
     NATIVE_LOAD_LIBRARY_OPTIONS.put(
       Library.OPTION_FUNCTION_MAPPER,
@@ -233,6 +234,9 @@ final class NativeMappings {
   // int pcap_snapshot(pcap_t *p)
   static native int pcap_snapshot(Pointer p);
 
+  // FILE *pcap_file(pcap_t *p)
+  static native Pointer pcap_file(Pointer p);
+
   // int pcap_is_swapped(pcap_t *p)
   static native int pcap_is_swapped(Pointer p);
 
@@ -311,6 +315,33 @@ final class NativeMappings {
     // int pcap_set_tstamp_precision(pcap_t *p, int tstamp_precision)
     int pcap_set_tstamp_precision(Pointer p, int tstamp_precision);
 
+    // int pcap_get_selectable_fd(pcap_t *p)
+    int pcap_get_selectable_fd(Pointer p);
+
+  }
+
+  interface CLibrary extends Library {
+
+    static final CLibrary INSTANCE
+      = (CLibrary)Native.loadLibrary(
+          Platform.C_LIBRARY_NAME,
+          CLibrary.class
+        );
+
+    static final short POLLIN = 0x0001;
+    static final short POLLERR = 0x0008;
+    static final short POLLHUP = 0x0010;
+    static final short POLLNVAL = 0x0020;
+    static final int POLLFD_SIZE = 8;
+    static final int POLLFD_FD_OFFSET = 0;
+    static final int POLLFD_EVENTS_OFFSET = 4;
+    static final int POLLFD_REVENTS_OFFSET = 6;
+
+    // Not available on Windows.
+
+    // int poll(struct pollfd *fds, nfds_t nfds, int timeout)
+    int poll(Pointer fds, NativeLong nfds, int timeout);
+
   }
 
   static interface pcap_handler extends Callback {
@@ -0,0 +1,815 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import static org.pcap4j.core.BpfInstruction.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * Delivers packets from one source to many subscriptions, each of which has its own
+ * tcpdump filter expression (see {@link BpfCompiler}) and queue, so that many consumers
+ * can share a single {@link PcapHandle} instead of opening one each.
+ * A fanout is a {@link RawPacketListener}; pass it to e.g.
+ * {@link PcapHandle#loop(int, RawPacketListener)}.
+ * <p>
+ * The filters are not run one by one. They are merged into a plan which is rebuilt on each
+ * {@link #subscribe(String, int) subscription} and {@link Subscription#cancel() cancellation}:
+ * </p>
+ * <ul>
+ * <li>identical tests (e.g. on the EtherType) in different filters are evaluated at most
+ *     once per packet, and so are identical loads of fields tested in different ways,</li>
+ * <li>each filter is indexed by the equality tests of which at least one must hold for
+ *     the filter to match (e.g. the source or destination address for {@code host} and
+ *     the source or destination port for {@code port}), so that for each packet only the
+ *     filters indexed by the values of its fields, and the few filters which can't be
+ *     indexed (e.g. {@code not tcp}), are evaluated.</li>
+ * </ul>
+ * <p>
+ * A subscription accepts the same packets as the program
+ * {@link BpfCompiler#compile(String, DataLinkType)} makes from its expression.
+ * A packet is put into the queue of each matching subscription as the same byte array,
+ * which therefore must not be modified. A packet which doesn't fit in a full queue is
+ * dropped for that subscription and counted.
+ * </p>
+ * <p>
+ * A fanout is thread-safe, and packets can be published on several threads.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PacketFanout implements RawPacketListener {
+
+  private static final int MAX_CLAUSES = 32;
+
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte ABORT = 3;
+
+  private final DataLinkType dlt;
+  private final Object lock = new Object();
+  private final List<Subscription> subscriptions = new ArrayList<Subscription>();
+  private volatile Plan plan = new Plan(Collections.<Subscription>emptyList());
+  private final ThreadLocal<State> states = new ThreadLocal<State>();
+
+  /**
+   * @param dlt the data link type of packets to be published.
+   * @throws IllegalArgumentException if dlt is not supported by {@link BpfCompiler}.
+   */
+  public PacketFanout(DataLinkType dlt) {
+    if (dlt == null) {
+      throw new NullPointerException("dlt must not be null.");
+    }
+    BpfCompiler.parse("", dlt);
+    this.dlt = dlt;
+  }
+
+  /**
+   * @return the data link type of packets to be published.
+   */
+  public DataLinkType getDlt() {
+    return dlt;
+  }
+
+  /**
+   * @param expression a tcpdump filter expression. An empty one matches all packets.
+   * @param capacity the capacity of the queue of the subscription.
+   * @return a new subscription.
+   * @throws IllegalArgumentException if the expression is invalid or unsupported,
+   *         or if capacity is not positive.
+   */
+  public Subscription subscribe(String expression, int capacity) {
+    if (expression == null) {
+      throw new NullPointerException("expression must not be null.");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity: " + capacity);
+    }
+
+    Subscription subscription
+      = new Subscription(this, expression, BpfCompiler.parse(expression, dlt), capacity);
+    synchronized (lock) {
+      subscriptions.add(subscription);
+      plan = new Plan(subscriptions);
+    }
+    return subscription;
+  }
+
+  private void unsubscribe(Subscription subscription) {
+    synchronized (lock) {
+      if (subscriptions.remove(subscription)) {
+        plan = new Plan(subscriptions);
+      }
+    }
+  }
+
+  /**
+   * @return the subscriptions which are not cancelled.
+   */
+  public List<Subscription> getSubscriptions() {
+    synchronized (lock) {
+      return Collections.unmodifiableList(new ArrayList<Subscription>(subscriptions));
+    }
+  }
+
+  @Override
+  public void gotPacket(byte[] packet) {
+    publish(packet, packet.length);
+  }
+
+  /**
+   * Puts a packet into the queues of the subscriptions whose filters match it.
+   *
+   * @param packet the captured data of a packet.
+   * @param originalLength the length of the packet on the wire, which is used by filters
+   *                       such as {@code len} and {@code greater}.
+   * @return the number of the queues the packet has been put into.
+   */
+  public int publish(byte[] packet, int originalLength) {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+
+    Plan current = plan;
+    State state = states.get();
+    if (state == null || state.plan != current) {
+      state = new State(current);
+      states.set(state);
+    }
+    state.next(packet, originalLength);
+
+    int delivered = 0;
+    for (Field field: current.indexedFields) {
+      long value = state.field(field);
+      if (value == BpfInterpreter.ABORTED) {
+        continue;
+      }
+      int[] candidates = field.index.get((int) value);
+      if (candidates == null) {
+        continue;
+      }
+      for (int sub: candidates) {
+        if (state.visit(sub) && state.eval(current.formulas[sub]) == TRUE) {
+          if (current.subscriptions[sub].offer(packet)) {
+            delivered++;
+          }
+        }
+      }
+    }
+    for (int sub: current.unindexed) {
+      if (state.eval(current.formulas[sub]) == TRUE) {
+        if (current.subscriptions[sub].offer(packet)) {
+          delivered++;
+        }
+      }
+    }
+    return delivered;
+  }
+
+  @Override
+  public String toString() {
+    Plan current = plan;
+    StringBuilder sb = new StringBuilder(120);
+    sb.append("PacketFanout [dlt: ").append(dlt)
+      .append(", subscriptions: ").append(current.subscriptions.length)
+      .append(", fields: ").append(current.fieldCount)
+      .append(", tests: ").append(current.atomCount)
+      .append(", unindexed subscriptions: ").append(current.unindexed.length)
+      .append("]");
+    return sb.toString();
+  }
+
+  /**
+   * A subscription of a {@link PacketFanout}, which queues packets matching its filter.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Subscription {
+
+    private final PacketFanout fanout;
+    private final String expression;
+    private final BpfCompiler.Node filter;
+    private final BlockingQueue<byte[]> queue;
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean cancelled = false;
+
+    private Subscription(
+      PacketFanout fanout, String expression, BpfCompiler.Node filter, int capacity
+    ) {
+      this.fanout = fanout;
+      this.expression = expression;
+      this.filter = filter;
+      this.queue = new ArrayBlockingQueue<byte[]>(capacity);
+    }
+
+    private boolean offer(byte[] packet) {
+      if (cancelled) {
+        return false;
+      }
+      if (queue.offer(packet)) {
+        deliveredCount.incrementAndGet();
+        return true;
+      }
+      droppedCount.incrementAndGet();
+      return false;
+    }
+
+    /**
+     * @return the filter expression.
+     */
+    public String getExpression() {
+      return expression;
+    }
+
+    /**
+     * @return the next packet, or null if the queue is empty.
+     */
+    public byte[] poll() {
+      return queue.poll();
+    }
+
+    /**
+     * @param timeout timeout
+     * @param unit unit
+     * @return the next packet, or null if none has arrived within the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+      return queue.poll(timeout, unit);
+    }
+
+    /**
+     * @return the next packet.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public byte[] take() throws InterruptedException {
+      return queue.take();
+    }
+
+    /**
+     * @param packets the collection to move queued packets into.
+     * @param maxPackets the maximum number of packets to move.
+     * @return the number of packets moved.
+     */
+    public int drainTo(Collection<? super byte[]> packets, int maxPackets) {
+      return queue.drainTo(packets, maxPackets);
+    }
+
+    /**
+     * @return the number of packets in the queue.
+     */
+    public int getQueueSize() {
+      return queue.size();
+    }
+
+    /**
+     * @return the number of packets put into the queue so far.
+     */
+    public long getDeliveredCount() {
+      return deliveredCount.get();
+    }
+
+    /**
+     * @return the number of matching packets dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+      return droppedCount.get();
+    }
+
+    /**
+     * @return true if this subscription is cancelled; false otherwise.
+     */
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * Stops delivering packets to this subscription.
+     * Packets already queued can still be taken.
+     */
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      fanout.unsubscribe(this);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(80);
+      sb.append("Subscription [expression: ").append(expression)
+        .append(", delivered: ").append(deliveredCount.get())
+        .append(", dropped: ").append(droppedCount.get())
+        .append(", queued: ").append(queue.size())
+        .append("]");
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * A sequence of loads of a value into A. Its loaded value is cached for each packet.
+   */
+  private static final class Field {
+
+    private final int id;
+    private final BpfInstruction[] program;
+    private final Map<Integer, List<Integer>> entries = new HashMap<Integer, List<Integer>>();
+    private final Set<Integer> values = new HashSet<Integer>();
+    private Map<Integer, int[]> index = null;
+
+    private Field(int id, int[] stmts) {
+      this.id = id;
+      this.program = new BpfInstruction[stmts.length / 2 + 1];
+      for (int i = 0; i < stmts.length; i += 2) {
+        program[i / 2] = new BpfInstruction(stmts[i], 0, 0, stmts[i + 1]);
+      }
+      program[program.length - 1] = new BpfInstruction(RET | A, 0, 0, 0);
+    }
+
+  }
+
+  /**
+   * A leaf of filters, whose result is cached for each packet.
+   */
+  private abstract static class Atom {
+
+    private final int id;
+
+    private Atom(int id) {
+      this.id = id;
+    }
+
+    abstract byte eval(State state);
+
+  }
+
+  private static final class TestAtom extends Atom {
+
+    private final Field field;
+    private final int jmp;
+    private final long k;
+
+    private TestAtom(int id, Field field, int jmp, int k) {
+      super(id);
+      this.field = field;
+      this.jmp = jmp;
+      this.k = k & 0xFFFFFFFFL;
+    }
+
+    @Override
+    byte eval(State state) {
+      long value = state.field(field);
+      if (value == BpfInterpreter.ABORTED) {
+        return ABORT;
+      }
+      boolean result;
+      switch (jmp) {
+        case JEQ: result = value == k; break;
+        case JGT: result = value > k; break;
+        case JGE: result = value >= k; break;
+        default: result = (value & k) != 0; break;
+      }
+      return result ? TRUE : FALSE;
+    }
+
+  }
+
+  private static final class RangeAtom extends Atom {
+
+    private final Field field;
+    private final long low;
+    private final long high;
+
+    private RangeAtom(int id, Field field, int low, int high) {
+      super(id);
+      this.field = field;
+      this.low = low & 0xFFFFFFFFL;
+      this.high = high & 0xFFFFFFFFL;
+    }
+
+    @Override
+    byte eval(State state) {
+      long value = state.field(field);
+      if (value == BpfInterpreter.ABORTED) {
+        return ABORT;
+      }
+      return value >= low && value <= high ? TRUE : FALSE;
+    }
+
+  }
+
+  /**
+   * A leaf which isn't a simple test, e.g. a comparison of arithmetic expressions,
+   * run as a program which returns 1 if true and 2 if false.
+   */
+  private static final class ProgramAtom extends Atom {
+
+    private final BpfInstruction[] program;
+
+    private ProgramAtom(int id, BpfInstruction[] program) {
+      super(id);
+      this.program = program;
+    }
+
+    @Override
+    byte eval(State state) {
+      long result
+        = BpfInterpreter.execute(program, state.packet, state.wirelen, state.packet.length);
+      if (result == BpfInterpreter.ABORTED) {
+        return ABORT;
+      }
+      return result == 1 ? TRUE : FALSE;
+    }
+
+  }
+
+  /**
+   * A filter over atoms, evaluated from left to right with short circuits as the program
+   * of the filter is, so that a load beyond the captured data aborts it in the same cases.
+   */
+  private abstract static class Formula {
+
+    abstract byte eval(State state);
+
+    /**
+     * @return sets of atoms such that at least one atom of each set is true
+     *         if this formula is true. Truncated to {@link #MAX_CLAUSES}.
+     */
+    abstract List<Set<Atom>> clauses();
+
+  }
+
+  private static final class ConstFormula extends Formula {
+
+    private final boolean value;
+
+    private ConstFormula(boolean value) {
+      this.value = value;
+    }
+
+    @Override
+    byte eval(State state) {
+      return value ? TRUE : FALSE;
+    }
+
+    @Override
+    List<Set<Atom>> clauses() {
+      return Collections.emptyList();
+    }
+
+  }
+
+  private static final class AtomFormula extends Formula {
+
+    private final Atom atom;
+
+    private AtomFormula(Atom atom) {
+      this.atom = atom;
+    }
+
+    @Override
+    byte eval(State state) {
+      return state.atom(atom);
+    }
+
+    @Override
+    List<Set<Atom>> clauses() {
+      List<Set<Atom>> clauses = new ArrayList<Set<Atom>>(1);
+      clauses.add(Collections.singleton(atom));
+      return clauses;
+    }
+
+  }
+
+  private static final class AndFormula extends Formula {
+
+    private final Formula left;
+    private final Formula right;
+
+    private AndFormula(Formula left, Formula right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    byte eval(State state) {
+      byte result = left.eval(state);
+      if (result != TRUE) {
+        return result;
+      }
+      return right.eval(state);
+    }
+
+    @Override
+    List<Set<Atom>> clauses() {
+      List<Set<Atom>> clauses = new ArrayList<Set<Atom>>(left.clauses());
+      clauses.addAll(right.clauses());
+      return clauses.size() > MAX_CLAUSES ? clauses.subList(0, MAX_CLAUSES) : clauses;
+    }
+
+  }
+
+  private static final class OrFormula extends Formula {
+
+    private final Formula left;
+    private final Formula right;
+
+    private OrFormula(Formula left, Formula right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    byte eval(State state) {
+      byte result = left.eval(state);
+      if (result != FALSE) {
+        return result;
+      }
+      return right.eval(state);
+    }
+
+    @Override
+    List<Set<Atom>> clauses() {
+      List<Set<Atom>> clauses = new ArrayList<Set<Atom>>();
+      for (Set<Atom> l: left.clauses()) {
+        for (Set<Atom> r: right.clauses()) {
+          if (clauses.size() == MAX_CLAUSES) {
+            return clauses;
+          }
+          Set<Atom> union = new HashSet<Atom>(l);
+          union.addAll(r);
+          clauses.add(union);
+        }
+      }
+      return clauses;
+    }
+
+  }
+
+  private static final class NotFormula extends Formula {
+
+    private final Formula operand;
+
+    private NotFormula(Formula operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    byte eval(State state) {
+      byte result = operand.eval(state);
+      if (result == ABORT) {
+        return ABORT;
+      }
+      return result == TRUE ? FALSE : TRUE;
+    }
+
+    @Override
+    List<Set<Atom>> clauses() {
+      return Collections.emptyList();
+    }
+
+  }
+
+  /**
+   * The merged filters of the subscriptions at a time. Immutable once built.
+   */
+  private static final class Plan {
+
+    private final Subscription[] subscriptions;
+    private final Formula[] formulas;
+    private final Field[] indexedFields;
+    private final int[] unindexed;
+    private final int fieldCount;
+    private final int atomCount;
+
+    private final Map<String, Field> fields = new HashMap<String, Field>();
+    private final Map<String, Atom> atoms = new HashMap<String, Atom>();
+
+    private Plan(List<Subscription> subscriptions) {
+      this.subscriptions = subscriptions.toArray(new Subscription[subscriptions.size()]);
+      this.formulas = new Formula[this.subscriptions.length];
+      for (int i = 0; i < formulas.length; i++) {
+        BpfCompiler.Node filter = this.subscriptions[i].filter;
+        formulas[i] = filter != null ? formula(filter) : new ConstFormula(true);
+      }
+
+      // Index each filter by the clause of equality tests on the fields with the most
+      // distinct tested values, i.e. the one expected to rule the filter out most often.
+      List<Integer> rest = new ArrayList<Integer>();
+      for (int i = 0; i < formulas.length; i++) {
+        Set<Atom> best = null;
+        int bestScore = 0;
+        for (Set<Atom> clause: formulas[i].clauses()) {
+          int score = Integer.MAX_VALUE;
+          for (Atom atom: clause) {
+            if (!(atom instanceof TestAtom) || ((TestAtom) atom).jmp != JEQ) {
+              score = 0;
+              break;
+            }
+            score = Math.min(score, ((TestAtom) atom).field.values.size());
+          }
+          if (
+               score > bestScore
+            || (score == bestScore && score > 0 && clause.size() < best.size())
+          ) {
+            best = clause;
+            bestScore = score;
+          }
+        }
+        if (best == null) {
+          rest.add(i);
+          continue;
+        }
+        for (Atom atom: best) {
+          TestAtom test = (TestAtom) atom;
+          List<Integer> subs = test.field.entries.get((int) test.k);
+          if (subs == null) {
+            subs = new ArrayList<Integer>();
+            test.field.entries.put((int) test.k, subs);
+          }
+          subs.add(i);
+        }
+      }
+
+      List<Field> indexed = new ArrayList<Field>();
+      for (Field field: fields.values()) {
+        if (field.entries.isEmpty()) {
+          continue;
+        }
+        field.index = new HashMap<Integer, int[]>();
+        for (Map.Entry<Integer, List<Integer>> entry: field.entries.entrySet()) {
+          int[] subs = new int[entry.getValue().size()];
+          for (int j = 0; j < subs.length; j++) {
+            subs[j] = entry.getValue().get(j);
+          }
+          field.index.put(entry.getKey(), subs);
+        }
+        indexed.add(field);
+      }
+      this.indexedFields = indexed.toArray(new Field[indexed.size()]);
+      this.unindexed = new int[rest.size()];
+      for (int i = 0; i < unindexed.length; i++) {
+        unindexed[i] = rest.get(i);
+      }
+      this.fieldCount = fields.size();
+      this.atomCount = atoms.size();
+    }
+
+    private Formula formula(BpfCompiler.Node node) {
+      if (node instanceof BpfCompiler.And) {
+        BpfCompiler.And and = (BpfCompiler.And) node;
+        return new AndFormula(formula(and.left), formula(and.right));
+      }
+      if (node instanceof BpfCompiler.Or) {
+        BpfCompiler.Or or = (BpfCompiler.Or) node;
+        return new OrFormula(formula(or.left), formula(or.right));
+      }
+      if (node instanceof BpfCompiler.Not) {
+        return new NotFormula(formula(((BpfCompiler.Not) node).operand));
+      }
+      if (node instanceof BpfCompiler.Const) {
+        return new ConstFormula(((BpfCompiler.Const) node).value);
+      }
+      if (node instanceof BpfCompiler.Test) {
+        BpfCompiler.Test test = (BpfCompiler.Test) node;
+        Field field = field(test.stmts);
+        String key = "T" + field.id + ":" + test.jmp + ":" + test.k;
+        Atom atom = atoms.get(key);
+        if (atom == null) {
+          atom = new TestAtom(atoms.size(), field, test.jmp, test.k);
+          atoms.put(key, atom);
+          if (test.jmp == JEQ) {
+            field.values.add(test.k);
+          }
+        }
+        return new AtomFormula(atom);
+      }
+      if (node instanceof BpfCompiler.Range) {
+        BpfCompiler.Range range = (BpfCompiler.Range) node;
+        Field field = field(range.stmts);
+        String key = "R" + field.id + ":" + range.low + ":" + range.high;
+        Atom atom = atoms.get(key);
+        if (atom == null) {
+          atom = new RangeAtom(atoms.size(), field, range.low, range.high);
+          atoms.put(key, atom);
+        }
+        return new AtomFormula(atom);
+      }
+
+      BpfInstruction[] program = BpfCompiler.assemble(node, 1, 2);
+      String key = "P" + Arrays.toString(program);
+      Atom atom = atoms.get(key);
+      if (atom == null) {
+        atom = new ProgramAtom(atoms.size(), program);
+        atoms.put(key, atom);
+      }
+      return new AtomFormula(atom);
+    }
+
+    private Field field(int[] stmts) {
+      String key = Arrays.toString(stmts);
+      Field field = fields.get(key);
+      if (field == null) {
+        field = new Field(fields.size(), stmts);
+        fields.put(key, field);
+      }
+      return field;
+    }
+
+  }
+
+  /**
+   * The caches of a thread for evaluating a plan, which are invalidated for each packet
+   * by incrementing a stamp instead of clearing them.
+   */
+  private static final class State {
+
+    private final Plan plan;
+    private final int[] fieldStamps;
+    private final long[] fieldValues;
+    private final int[] atomStamps;
+    private final byte[] atomValues;
+    private final int[] subscriptionStamps;
+    private int stamp = 0;
+    private byte[] packet;
+    private int wirelen;
+
+    private State(Plan plan) {
+      this.plan = plan;
+      this.fieldStamps = new int[plan.fieldCount];
+      this.fieldValues = new long[plan.fieldCount];
+      this.atomStamps = new int[plan.atomCount];
+      this.atomValues = new byte[plan.atomCount];
+      this.subscriptionStamps = new int[plan.subscriptions.length];
+    }
+
+    private void next(byte[] packet, int wirelen) {
+      this.packet = packet;
+      this.wirelen = wirelen;
+      stamp++;
+      if (stamp == 0) {
+        Arrays.fill(fieldStamps, 0);
+        Arrays.fill(atomStamps, 0);
+        Arrays.fill(subscriptionStamps, 0);
+        stamp = 1;
+      }
+    }
+
+    private long field(Field field) {
+      if (fieldStamps[field.id] != stamp) {
+        fieldValues[field.id]
+          = BpfInterpreter.execute(field.program, packet, wirelen, packet.length);
+        fieldStamps[field.id] = stamp;
+      }
+      return fieldValues[field.id];
+    }
+
+    private byte atom(Atom atom) {
+      if (atomStamps[atom.id] != stamp) {
+        atomValues[atom.id] = atom.eval(this);
+        atomStamps[atom.id] = stamp;
+      }
+      return atomValues[atom.id];
+    }
+
+    /**
+     * @return true if the subscription hasn't been visited for the current packet.
+     */
+    private boolean visit(int subscription) {
+      if (subscriptionStamps[subscription] == stamp) {
+        return false;
+      }
+      subscriptionStamps[subscription] = stamp;
+      return true;
+    }
+
+    private byte eval(Formula formula) {
+      return formula.eval(this);
+    }
+
+  }
+
+}
@@ -0,0 +1,330 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.FlowKey;
+
+/**
+ * A sampling stage which a {@link PcapHandle} applies to captured raw data before building
+ * {@link org.pcap4j.packet.Packet Packet} objects from it, so that packets which are sampled
+ * out cost no dissection. Set one with {@link PcapHandle#setSampler(PacketSampler)}.
+ * <p>
+ * A sampler counts the packets it has accepted and dropped. Statistics computed from the
+ * accepted packets can be scaled up by {@link #getScaleFactor()}.
+ * </p>
+ * <p>
+ * Three samplers are provided:
+ * {@link #oneInN(int)} keeps every Nth packet,
+ * {@link #flowHash(int)} keeps all or none of the packets of each flow, and
+ * {@link #rateLimit(long, long)} keeps packets up to a rate with a token bucket.
+ * The samplers are thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public abstract class PacketSampler {
+
+  private final AtomicLong acceptedCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /**
+   * @param n the sampling rate. 1 keeps all the packets.
+   * @return a sampler which keeps the first packet and then every Nth packet.
+   */
+  public static PacketSampler oneInN(int n) {
+    return new CountSampler(n);
+  }
+
+  /**
+   * @param n the sampling rate. 1 keeps all the packets.
+   * @return a sampler which keeps 1 in N flows. A flow is identified by IP addresses,
+   *         IP protocol, and TCP/UDP/SCTP ports regardless of the direction.
+   *         See {@link FlowHashSampler} for details.
+   */
+  public static PacketSampler flowHash(int n) {
+    return new FlowHashSampler(n, 0);
+  }
+
+  /**
+   * @param packetsPerSecond the rate at which tokens are added to the bucket.
+   * @param burst the size of the bucket.
+   * @return a sampler which keeps a packet if there is a token in the bucket.
+   */
+  public static PacketSampler rateLimit(long packetsPerSecond, long burst) {
+    return new RateLimitSampler(packetsPerSecond, burst);
+  }
+
+  /**
+   * Decides whether to keep a packet and counts the decision.
+   *
+   * @param packet the captured raw data of a packet.
+   * @param dlt the data link type of the packet.
+   * @return true if the packet is to be kept; false if it is to be dropped.
+   */
+  public final boolean sample(byte[] packet, DataLinkType dlt) {
+    if (accept(packet, dlt)) {
+      acceptedCount.incrementAndGet();
+      return true;
+    }
+    else {
+      droppedCount.incrementAndGet();
+      return false;
+    }
+  }
+
+  /**
+   * @param packet the captured raw data of a packet.
+   * @param dlt the data link type of the packet.
+   * @return true if the packet is to be kept; false if it is to be dropped.
+   */
+  protected abstract boolean accept(byte[] packet, DataLinkType dlt);
+
+  /**
+   * @return the number of packets accepted so far.
+   */
+  public long getAcceptedCount() {
+    return acceptedCount.get();
+  }
+
+  /**
+   * @return the number of packets sampled out so far.
+   */
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  /**
+   * @return (accepted + dropped) / accepted, by which counts of the accepted packets can be
+   *         multiplied to estimate counts of all the packets. 1.0 if no packet has been
+   *         accepted yet.
+   */
+  public double getScaleFactor() {
+    long accepted = acceptedCount.get();
+    if (accepted == 0) {
+      return 1.0;
+    }
+    return (double) (accepted + droppedCount.get()) / accepted;
+  }
+
+  /**
+   * Resets the counts.
+   */
+  public void resetCounts() {
+    acceptedCount.set(0);
+    droppedCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(80);
+    sb.append(getClass().getSimpleName())
+      .append(" [accepted: ").append(acceptedCount.get())
+      .append(", dropped: ").append(droppedCount.get())
+      .append("]");
+    return sb.toString();
+  }
+
+  /**
+   * Keeps the first packet and then every Nth packet.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class CountSampler extends PacketSampler {
+
+    private final int n;
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * @param n the sampling rate. 1 keeps all the packets.
+     */
+    public CountSampler(int n) {
+      if (n < 1) {
+        throw new IllegalArgumentException("n: " + n);
+      }
+      this.n = n;
+    }
+
+    /**
+     * @return the sampling rate.
+     */
+    public int getN() {
+      return n;
+    }
+
+    @Override
+    protected boolean accept(byte[] packet, DataLinkType dlt) {
+      return count.getAndIncrement() % n == 0;
+    }
+
+  }
+
+  /**
+   * Keeps 1 in N flows, so that either all or none of the packets of a flow are kept.
+   * The decision is made by a hash of the {@link FlowKey} of a packet with its endpoints
+   * in a canonical order, which is the same for both directions of a flow.
+   * Packets of {@link DataLinkType#EN10MB}, {@link DataLinkType#LINUX_SLL}, and
+   * {@link DataLinkType#RAW} are supported. Frames which are not IP packets are hashed
+   * as a whole. Probes which use the same seed keep the same flows.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class FlowHashSampler extends PacketSampler {
+
+    private final int n;
+    private final long seed;
+    private final ThreadLocal<FlowKey> keys
+      = new ThreadLocal<FlowKey>() {
+          @Override
+          protected FlowKey initialValue() {
+            return new FlowKey();
+          }
+        };
+
+    /**
+     * @param n the sampling rate. 1 keeps all the packets.
+     * @param seed seed
+     */
+    public FlowHashSampler(int n, long seed) {
+      if (n < 1) {
+        throw new IllegalArgumentException("n: " + n);
+      }
+      this.n = n;
+      this.seed = seed;
+    }
+
+    /**
+     * @return the sampling rate.
+     */
+    public int getN() {
+      return n;
+    }
+
+    /**
+     * @return seed
+     */
+    public long getSeed() {
+      return seed;
+    }
+
+    @Override
+    protected boolean accept(byte[] packet, DataLinkType dlt) {
+      return n == 1 || ((hash(packet, dlt) >>> 1) % n) == 0;
+    }
+
+    long hash(byte[] packet, DataLinkType dlt) {
+      FlowKey key = keys.get();
+      if (!key.parseFrame(packet, 0, packet.length, dlt)) {
+        return hashBytes(packet);
+      }
+      key.canonicalize();
+      return key.hash(seed);
+    }
+
+    private long hashBytes(byte[] packet) {
+      long h = seed;
+      for (byte b: packet) {
+        h = h * 0x9E3779B97F4A7C15L + b;
+      }
+      return mix(h);
+    }
+
+    private static long mix(long h) {
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      return h;
+    }
+
+  }
+
+  /**
+   * Keeps packets up to a rate with a token bucket: a packet is kept if the bucket has a
+   * token, which it consumes. Tokens are added at the given rate up to the bucket size.
+   * The bucket is full at first.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class RateLimitSampler extends PacketSampler {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long packetsPerSecond;
+    private final long burst;
+    private long tokens;
+    private long lastRefill;
+    private long remainder = 0;
+
+    /**
+     * @param packetsPerSecond the rate at which tokens are added to the bucket.
+     * @param burst the size of the bucket.
+     */
+    public RateLimitSampler(long packetsPerSecond, long burst) {
+      if (packetsPerSecond < 1 || burst < 1) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("packetsPerSecond: ").append(packetsPerSecond)
+          .append(" burst: ").append(burst);
+        throw new IllegalArgumentException(sb.toString());
+      }
+      this.packetsPerSecond = packetsPerSecond;
+      this.burst = burst;
+      this.tokens = burst;
+      this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * @return the rate at which tokens are added to the bucket.
+     */
+    public long getPacketsPerSecond() {
+      return packetsPerSecond;
+    }
+
+    /**
+     * @return the size of the bucket.
+     */
+    public long getBurst() {
+      return burst;
+    }
+
+    @Override
+    protected boolean accept(byte[] packet, DataLinkType dlt) {
+      return tryAcquire(System.nanoTime());
+    }
+
+    synchronized boolean tryAcquire(long now) {
+      long elapsed = now - lastRefill;
+      if (elapsed > 0) {
+        lastRefill = now;
+        if (tokens < burst) {
+          // Keep the fraction of a token so that a high packet rate doesn't lose tokens.
+          long total = remainder + (elapsed % NANOS_PER_SECOND) * packetsPerSecond;
+          long added
+            = (elapsed / NANOS_PER_SECOND) * packetsPerSecond + total / NANOS_PER_SECOND;
+          remainder = total % NANOS_PER_SECOND;
+          tokens = added >= burst - tokens ? burst : tokens + added;
+        }
+        if (tokens == burst) {
+          remainder = 0;
+        }
+      }
+      if (tokens > 0) {
+        tokens--;
+        return true;
+      }
+      return false;
+    }
+
+  }
+
+}
@@ -27,6 +27,7 @@ import org.pcap4j.core.NativeMappings.pcap_pkthdr;
 import org.pcap4j.core.NativeMappings.pcap_stat;
 import org.pcap4j.core.PcapNetworkInterface.PromiscuousMode;
 import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.DecodeDepth;
 import org.pcap4j.packet.factory.PacketFactories;
 import org.pcap4j.packet.namednumber.DataLinkType;
 import org.pcap4j.util.ByteArrays;
@@ -51,15 +52,18 @@ public final class PcapHandle implements Closeable {
   private volatile DataLinkType dlt;
   private final TimestampPrecision timestampPrecision;
   private final Pointer handle;
+  private final boolean live;
   private final ThreadLocal<Timestamp> timestamps
     = new ThreadLocal<Timestamp>();
   private final ThreadLocal<Integer> originalLengths
     = new ThreadLocal<Integer>();
   private final ReentrantReadWriteLock handleLock = new ReentrantReadWriteLock(true);
-  private static final Object compileLock = new Object();
+  static final Object compileLock = new Object();
 
   private volatile boolean open = true;
   private volatile String filteringExpression = "";
+  private volatile PacketSampler sampler = null;
+  private volatile DecodeDepth decodeDepth = null;
 
   /**
    *  The netmask used for {@link #setFilter(String, BpfProgram.BpfCompileMode, Inet4Address)}
@@ -77,9 +81,19 @@ public final class PcapHandle implements Closeable {
   }
 
   PcapHandle(Pointer handle, TimestampPrecision timestampPrecision) {
+    this(handle, timestampPrecision, false);
+  }
+
+  /**
+   * @param handle handle
+   * @param timestampPrecision timestampPrecision
+   * @param live true if the handle captures packets on a network interface.
+   */
+  PcapHandle(Pointer handle, TimestampPrecision timestampPrecision, boolean live) {
     this.handle = handle;
     this.dlt = getDltByNative();
     this.timestampPrecision = timestampPrecision;
+    this.live = live;
   }
 
   private PcapHandle(Builder builder) throws PcapNativeException {
@@ -177,6 +191,7 @@ public final class PcapHandle implements Closeable {
     }
 
     this.dlt = getDltByNative();
+    this.live = true;
   }
 
   private DataLinkType getDltByNative() {
@@ -237,6 +252,40 @@ public final class PcapHandle implements Closeable {
    */
   public String getFilteringExpression() {return filteringExpression; }
 
+  /**
+   * @return the sampler of this PcapHandle. May be null.
+   */
+  public PacketSampler getSampler() { return sampler; }
+
+  /**
+   * Sets a sampler which decides whether to keep each captured packet before it's passed to
+   * a listener of {@link #loop(int, PacketListener) loop} or
+   * {@link #dispatch(int, PacketListener) dispatch}, or returned by getNext* methods.
+   * Packets which are sampled out are not built into {@link Packet} objects.
+   * They are still counted by the packetCount of loop and dispatch.
+   * {@link #getNextPacket()} and {@link #getNextRawPacket()} return null for them, and
+   * {@link #getNextPacketEx()} and {@link #getNextRawPacketEx()} read the next packet instead.
+   *
+   * @param sampler sampler. null to keep all the packets.
+   */
+  public void setSampler(PacketSampler sampler) { this.sampler = sampler; }
+
+  /**
+   * @return the decode depth of this PcapHandle. May be null.
+   */
+  public DecodeDepth getDecodeDepth() { return decodeDepth; }
+
+  /**
+   * Sets the {@link DecodeDepth} with which {@link #getNextPacket()},
+   * {@link #getNextPacketEx()}, {@link #loop(int, PacketListener) loop}, and
+   * {@link #dispatch(int, PacketListener) dispatch} build Packet objects.
+   * E.g. with {@link DecodeDepth#TRANSPORT}, payloads of TCP and UDP packets are left as
+   * opaque {@link org.pcap4j.packet.UnknownPacket UnknownPacket}s.
+   *
+   * @param decodeDepth decodeDepth. null to use {@link DecodeDepth#getDefault()}.
+   */
+  public void setDecodeDepth(DecodeDepth decodeDepth) { this.decodeDepth = decodeDepth; }
+
   /**
    * @return Timestamp precision
    */
@@ -422,7 +471,7 @@ public final class PcapHandle implements Closeable {
       throw new NotOpenException();
     }
 
-    bpf_program prog;
+    BpfProgramCache.SharedCode code;
     if (!handleLock.readLock().tryLock()) {
       throw new NotOpenException();
     }
@@ -431,22 +480,58 @@ public final class PcapHandle implements Closeable {
         throw new NotOpenException();
       }
 
-      prog = new bpf_program();
-      int rc;
-      synchronized (compileLock) {
-        rc = NativeMappings.pcap_compile(
-               handle, prog, bpfExpression, mode.getValue(),
-               ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0)
+      code = compile(
+               bpfExpression, mode,
+               ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0), ""
              );
-      }
-      if (rc < 0) {
-        throw new PcapNativeException(getError(), rc);
-      }
     } finally {
       handleLock.readLock().unlock();
     }
 
-    return new BpfProgram(prog, bpfExpression);
+    return new BpfProgram(code, bpfExpression);
+  }
+
+  /**
+   * Compiles an expression with this handle, or gets the code compiled before from
+   * {@link BpfProgramCache#getDefault()}. Must be called holding the read lock.
+   *
+   * @param bpfExpression bpfExpression
+   * @param mode mode
+   * @param netmask netmask
+   * @param errorPrefix the prefix of the message of an exception thrown on failure.
+   * @return shared code with a reference for the caller, who must release it.
+   * @throws PcapNativeException if an error occurs in the pcap native library.
+   */
+  private BpfProgramCache.SharedCode compile(
+    final String bpfExpression, final BpfCompileMode mode, final int netmask,
+    final String errorPrefix
+  ) throws PcapNativeException {
+    BpfProgramCache.Key key
+      = new BpfProgramCache.Key(
+          bpfExpression, dlt, NativeMappings.pcap_snapshot(handle), mode, netmask, live
+        );
+    return BpfProgramCache.getDefault().acquire(
+             key,
+             new BpfProgramCache.Compiler() {
+               @Override
+               public bpf_program compile() throws PcapNativeException {
+                 bpf_program prog = new bpf_program();
+                 int rc;
+                 synchronized (compileLock) {
+                   rc = NativeMappings.pcap_compile(
+                          handle, prog, bpfExpression, mode.getValue(), netmask
+                        );
+                 }
+                 if (rc < 0) {
+                   throw new PcapNativeException(
+                               errorPrefix + NativeMappings.pcap_geterr(handle).getString(0),
+                               rc
+                             );
+                 }
+                 return prog;
+               }
+             }
+           );
   }
 
   /**
@@ -484,23 +569,14 @@ public final class PcapHandle implements Closeable {
         throw new NotOpenException();
       }
 
-      bpf_program prog = new bpf_program();
+      BpfProgramCache.SharedCode code
+        = compile(
+            bpfExpression, mode,
+            ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0),
+            "Error occured in pcap_compile: "
+          );
       try {
-        int mask = ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0);
-        int rc;
-        synchronized (compileLock) {
-          rc = NativeMappings.pcap_compile(
-                 handle, prog, bpfExpression, mode.getValue(), mask
-               );
-        }
-        if (rc < 0) {
-          throw new PcapNativeException(
-                      "Error occured in pcap_compile: " + getError(),
-                      rc
-                    );
-        }
-
-        rc = NativeMappings.pcap_setfilter(handle, prog);
+        int rc = NativeMappings.pcap_setfilter(handle, code.getProgram());
         if (rc < 0) {
           throw new PcapNativeException(
                       "Error occured in pcap_setfilger: " + getError(),
@@ -510,7 +586,7 @@ public final class PcapHandle implements Closeable {
 
         this.filteringExpression = bpfExpression;
       } finally {
-        NativeMappings.pcap_freecode(prog);
+        code.release();
       }
     } finally {
       handleLock.readLock().unlock();
@@ -636,7 +712,62 @@ public final class PcapHandle implements Closeable {
   }
 
   /**
-   * @return a Packet object created from a captured packet using the packet factory. May be null.
+   * Returns a file descriptor which can be passed to select(), poll(), or epoll to wait for
+   * packets to be ready to read. Usually used with {@link BlockingMode#NONBLOCKING}.
+   *
+   * @return the file descriptor, or -1 if this PcapHandle doesn't have one
+   *         (e.g. on Windows).
+   * @throws NotOpenException if this PcapHandle is not open.
+   */
+  public int getSelectableFd() throws NotOpenException {
+    if (Platform.isWindows()) {
+      return -1;
+    }
+    if (!open) {
+      throw new NotOpenException();
+    }
+
+    if (!handleLock.readLock().tryLock()) {
+      throw new NotOpenException();
+    }
+    try {
+      if (!open) {
+        throw new NotOpenException();
+      }
+      return PcapLibrary.INSTANCE.pcap_get_selectable_fd(handle);
+    } catch (UnsatisfiedLinkError e) {
+      logger.error("Failed to instantiate PcapLibrary.", e);
+      return -1;
+    } finally {
+      handleLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return true if this PcapHandle reads a savefile; false otherwise.
+   * @throws NotOpenException if this PcapHandle is not open.
+   */
+  boolean isOffline() throws NotOpenException {
+    if (!open) {
+      throw new NotOpenException();
+    }
+
+    if (!handleLock.readLock().tryLock()) {
+      throw new NotOpenException();
+    }
+    try {
+      if (!open) {
+        throw new NotOpenException();
+      }
+      return NativeMappings.pcap_file(handle) != null;
+    } finally {
+      handleLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return a Packet object created from a captured packet using the packet factory.
+   *         May be null, e.g. if the packet has been sampled out by {@link #getSampler()}.
    * @throws NotOpenException if this PcapHandle is not open.
    */
   public Packet getNextPacket() throws NotOpenException {
@@ -645,13 +776,13 @@ public final class PcapHandle implements Closeable {
       return null;
     }
 
-    return PacketFactories.getFactory(Packet.class, DataLinkType.class)
-             .newInstance(ba, 0, ba.length, dlt);
+    return decode(ba, dlt);
   }
 
   /**
    *
-   * @return a captured packet. May be null.
+   * @return a captured packet. May be null, e.g. if the packet has been sampled out by
+   *         {@link #getSampler()}.
    * @throws NotOpenException if this PcapHandle is not open.
    */
   public byte[] getNextRawPacket() throws NotOpenException {
@@ -676,9 +807,14 @@ public final class PcapHandle implements Closeable {
 
     if (packet != null) {
       Pointer headerP = header.getPointer();
+      byte[] ba = packet.getByteArray(0, pcap_pkthdr.getCaplen(headerP));
+      PacketSampler s = sampler;
+      if (s != null && !s.sample(ba, dlt)) {
+        return null;
+      }
       timestamps.set(buildTimestamp(headerP));
       originalLengths.set(pcap_pkthdr.getLen(headerP));
-      return packet.getByteArray(0, pcap_pkthdr.getCaplen(headerP));
+      return ba;
     }
     else {
       return null;
@@ -697,8 +833,7 @@ public final class PcapHandle implements Closeable {
   public Packet getNextPacketEx()
   throws PcapNativeException, EOFException, TimeoutException, NotOpenException {
     byte[] ba = getNextRawPacketEx();
-    return PacketFactories.getFactory(Packet.class, DataLinkType.class)
-             .newInstance(ba, 0, ba.length, dlt);
+    return decode(ba, dlt);
   }
 
   /**
@@ -712,6 +847,17 @@ public final class PcapHandle implements Closeable {
    * @throws NotOpenException if this PcapHandle is not open.
    */
   public byte[] getNextRawPacketEx()
+  throws PcapNativeException, EOFException, TimeoutException, NotOpenException {
+    while (true) {
+      byte[] ba = readNextRawPacketEx();
+      PacketSampler s = sampler;
+      if (s == null || s.sample(ba, dlt)) {
+        return ba;
+      }
+    }
+  }
+
+  private byte[] readNextRawPacketEx()
   throws PcapNativeException, EOFException, TimeoutException, NotOpenException {
     if (!open) {
       throw new NotOpenException();
@@ -1020,6 +1166,19 @@ public final class PcapHandle implements Closeable {
 
   private int doDispatch(
     int packetCount, NativeMappings.pcap_handler handler
+  ) throws PcapNativeException, InterruptedException, NotOpenException {
+    logger.info("Starting dispatch.");
+    int rc = dispatch(packetCount, handler);
+    logger.info("Finish dispatch.");
+    return rc;
+  }
+
+  /**
+   * Calls pcap_dispatch() without logging, so that {@link PcapHandleMultiplexer} can call this
+   * for every burst. The handler can be reused across calls.
+   */
+  int dispatch(
+    int packetCount, NativeMappings.pcap_handler handler
   ) throws PcapNativeException, InterruptedException, NotOpenException {
     if (!open) {
       throw new NotOpenException();
@@ -1034,7 +1193,6 @@ public final class PcapHandle implements Closeable {
         throw new NotOpenException();
       }
 
-      logger.info("Starting dispatch.");
       rc = NativeMappings.pcap_dispatch(
              handle,
              packetCount,
@@ -1062,10 +1220,17 @@ public final class PcapHandle implements Closeable {
       handleLock.readLock().unlock();
     }
 
-    logger.info("Finish dispatch.");
     return rc;
   }
 
+  NativeMappings.pcap_handler newPacketHandler(RawPacketListener listener) {
+    return new GotRawPacketFuncExecutor(listener, SimpleExecutor.getInstance());
+  }
+
+  NativeMappings.pcap_handler newPacketHandler(PacketListener listener) {
+    return new GotPacketFuncExecutor(listener, dlt, SimpleExecutor.getInstance());
+  }
+
   /**
    *
    * @param filePath "-" means stdout.
@@ -1454,6 +1619,10 @@ public final class PcapHandle implements Closeable {
       final Timestamp ts = buildTimestamp(header);
       final int len = pcap_pkthdr.getLen(header);
       final byte[] ba = packet.getByteArray(0, pcap_pkthdr.getCaplen(header));
+      PacketSampler s = sampler;
+      if (s != null && !s.sample(ba, dlt)) {
+        return;
+      }
 
       try {
         executor.execute(
@@ -1462,10 +1631,7 @@ public final class PcapHandle implements Closeable {
             public void run() {
               timestamps.set(ts);
               originalLengths.set(len);
-              listener.gotPacket(
-                PacketFactories.getFactory(Packet.class, DataLinkType.class)
-                  .newInstance(ba, 0, ba.length, dlt)
-              );
+              listener.gotPacket(decode(ba, dlt));
             }
           }
         );
@@ -1495,6 +1661,10 @@ public final class PcapHandle implements Closeable {
       final Timestamp ts = buildTimestamp(header);
       final int len = pcap_pkthdr.getLen(header);
       final byte[] ba = packet.getByteArray(0, pcap_pkthdr.getCaplen(header));
+      PacketSampler s = sampler;
+      if (s != null && !s.sample(ba, dlt)) {
+        return;
+      }
 
       try {
         executor.execute(
@@ -1514,6 +1684,22 @@ public final class PcapHandle implements Closeable {
 
   }
 
+  private Packet decode(byte[] ba, DataLinkType dlt) {
+    DecodeDepth depth = decodeDepth;
+    if (depth == null) {
+      return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+               .newInstance(ba, 0, ba.length, dlt);
+    }
+
+    DecodeDepth previous = DecodeDepth.setCurrent(depth);
+    try {
+      return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+               .newInstance(ba, 0, ba.length, dlt);
+    } finally {
+      DecodeDepth.setCurrent(previous);
+    }
+  }
+
   private Timestamp buildTimestamp(Pointer header) {
     Timestamp ts = new Timestamp(pcap_pkthdr.getTvSec(header).longValue() * 1000L);
     switch (timestampPrecision) {
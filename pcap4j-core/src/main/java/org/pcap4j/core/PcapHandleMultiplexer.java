@@ -0,0 +1,555 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.pcap4j.core.NativeMappings.CLibrary;
+import org.pcap4j.core.PcapHandle.BlockingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.sun.jna.Memory;
+import com.sun.jna.NativeLong;
+
+/**
+ * Captures packets from many {@link PcapHandle}s on a few event loop threads
+ * instead of one {@link PcapHandle#loop(int, PacketListener) loop} thread per handle.
+ * <p>
+ * A registered handle is put into {@link BlockingMode#NONBLOCKING non-blocking mode}.
+ * Each event loop waits on the {@link PcapHandle#getSelectableFd() selectable file descriptors}
+ * of its handles with poll() and drains each ready handle with a
+ * {@link PcapHandle#dispatch(int, PacketListener) dispatch} call bounded by the burst size,
+ * starting from a different handle every round so that a busy handle can't starve the others.
+ * A listener which can't keep up can {@link Registration#pause() pause} its handle;
+ * packets then queue up in the kernel buffer of the handle until it's
+ * {@link Registration#resume() resumed}.
+ * </p>
+ * <p>
+ * Handles without a selectable file descriptor (e.g. on Windows) and handles which read a
+ * savefile are treated as always ready. A handle which reads a savefile is unregistered when
+ * it reaches the end of the file. A handle which fails or is closed is unregistered, too.
+ * Listeners are called on the event loop threads.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PcapHandleMultiplexer implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PcapHandleMultiplexer.class);
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int burstSize;
+  private final int pollTimeoutMillis;
+  private final EventLoop[] loops;
+  private final Thread[] threads;
+  private final AtomicInteger nextLoop = new AtomicInteger();
+  private volatile boolean open = true;
+
+  private PcapHandleMultiplexer(Builder builder) {
+    if (builder.threads < 1) {
+      throw new IllegalArgumentException("threads: " + builder.threads);
+    }
+    if (builder.burstSize < 1) {
+      throw new IllegalArgumentException("burstSize: " + builder.burstSize);
+    }
+    if (builder.pollTimeoutMillis < 1) {
+      throw new IllegalArgumentException("pollTimeoutMillis: " + builder.pollTimeoutMillis);
+    }
+
+    this.burstSize = builder.burstSize;
+    this.pollTimeoutMillis = builder.pollTimeoutMillis;
+    this.loops = new EventLoop[builder.threads];
+    this.threads = new Thread[builder.threads];
+
+    ThreadFactory threadFactory
+      = builder.threadFactory != null ? builder.threadFactory : new DefaultThreadFactory();
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new EventLoop();
+      threads[i] = threadFactory.newThread(loops[i]);
+      loops[i].thread = threads[i];
+    }
+    for (Thread thread: threads) {
+      thread.start();
+    }
+  }
+
+  /**
+   * @return the number of event loop threads.
+   */
+  public int getThreads() {
+    return loops.length;
+  }
+
+  /**
+   * @return the maximum number of packets processed by a dispatch call.
+   */
+  public int getBurstSize() {
+    return burstSize;
+  }
+
+  /**
+   * @return the maximum time in milliseconds an event loop waits in a poll() call.
+   */
+  public int getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
+  /**
+   * @return true if this multiplexer is not closed; false otherwise.
+   */
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Registers a handle. The handle must not be registered more than once and
+   * should not be read by others while it's registered.
+   *
+   * @param handle handle
+   * @param listener listener
+   * @return a registration.
+   * @throws PcapNativeException if an error occurs in the pcap native library.
+   * @throws NotOpenException if the handle is not open.
+   * @throws IllegalStateException if this multiplexer is closed.
+   */
+  public Registration register(
+    PcapHandle handle, RawPacketListener listener
+  ) throws PcapNativeException, NotOpenException {
+    if (handle == null || listener == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("handle: ").append(handle)
+        .append(" listener: ").append(listener);
+      throw new NullPointerException(sb.toString());
+    }
+    return register(handle, handle.newPacketHandler(listener));
+  }
+
+  /**
+   * Registers a handle. The handle must not be registered more than once and
+   * should not be read by others while it's registered.
+   *
+   * @param handle handle
+   * @param listener listener
+   * @return a registration.
+   * @throws PcapNativeException if an error occurs in the pcap native library.
+   * @throws NotOpenException if the handle is not open.
+   * @throws IllegalStateException if this multiplexer is closed.
+   */
+  public Registration register(
+    PcapHandle handle, PacketListener listener
+  ) throws PcapNativeException, NotOpenException {
+    if (handle == null || listener == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("handle: ").append(handle)
+        .append(" listener: ").append(listener);
+      throw new NullPointerException(sb.toString());
+    }
+    return register(handle, handle.newPacketHandler(listener));
+  }
+
+  private Registration register(
+    PcapHandle handle, NativeMappings.pcap_handler handler
+  ) throws PcapNativeException, NotOpenException {
+    if (!open) {
+      throw new IllegalStateException("This multiplexer is closed.");
+    }
+
+    boolean offline = handle.isOffline();
+    int fd = -1;
+    if (!offline) {
+      handle.setBlockingMode(BlockingMode.NONBLOCKING);
+      fd = handle.getSelectableFd();
+    }
+
+    EventLoop loop = loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+    Registration registration = new Registration(handle, handler, loop, fd, offline);
+    loop.pending.add(registration);
+    LockSupport.unpark(loop.thread);
+    if (!open) {
+      // close() may have drained the loop before the registration was added.
+      registration.finish();
+    }
+    return registration;
+  }
+
+  /**
+   * Stops the event loops and waits for them to finish.
+   * All the registrations are finished but the handles are not closed.
+   */
+  @Override
+  public void close() {
+    if (!open) {
+      return;
+    }
+    open = false;
+
+    for (Thread thread: threads) {
+      LockSupport.unpark(thread);
+    }
+    boolean interrupted = false;
+    for (Thread thread: threads) {
+      if (thread == Thread.currentThread()) {
+        continue;
+      }
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A handle registered with a {@link PcapHandleMultiplexer}.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Registration {
+
+    private final PcapHandle handle;
+    private final NativeMappings.pcap_handler handler;
+    private final EventLoop loop;
+    private final int fd;
+    private final boolean offline;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean registered = true;
+    private volatile boolean paused = false;
+    private volatile long packetCount = 0;
+    private int pollIndex = -1;
+
+    private Registration(
+      PcapHandle handle,
+      NativeMappings.pcap_handler handler,
+      EventLoop loop,
+      int fd,
+      boolean offline
+    ) {
+      this.handle = handle;
+      this.handler = handler;
+      this.loop = loop;
+      this.fd = fd;
+      this.offline = offline;
+    }
+
+    /**
+     * @return handle
+     */
+    public PcapHandle getHandle() {
+      return handle;
+    }
+
+    /**
+     * @return the number of packets dispatched from the handle so far.
+     */
+    public long getPacketCount() {
+      return packetCount;
+    }
+
+    /**
+     * Stops reading the handle until {@link #resume()} is called.
+     */
+    public void pause() {
+      paused = true;
+    }
+
+    /**
+     * Resumes reading the handle.
+     */
+    public void resume() {
+      paused = false;
+      LockSupport.unpark(loop.thread);
+    }
+
+    /**
+     * @return true if the handle is paused; false otherwise.
+     */
+    public boolean isPaused() {
+      return paused;
+    }
+
+    /**
+     * Unregisters the handle. The handle is not read after its current burst is done,
+     * which can be waited for by {@link #await(long, TimeUnit)}. The handle is not closed.
+     */
+    public void unregister() {
+      registered = false;
+      LockSupport.unpark(loop.thread);
+    }
+
+    /**
+     * @return true if the handle hasn't been unregistered yet; false otherwise.
+     */
+    public boolean isRegistered() {
+      return finished.getCount() != 0;
+    }
+
+    /**
+     * Waits for the handle to be unregistered, which happens when {@link #unregister()} is
+     * called, the handle reaches the end of its savefile, the handle fails or is closed,
+     * or the multiplexer is closed.
+     *
+     * @param timeout timeout
+     * @param unit unit
+     * @return true if the handle has been unregistered; false if the timeout elapsed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+      return finished.await(timeout, unit);
+    }
+
+    private void finish() {
+      registered = false;
+      finished.countDown();
+    }
+
+  }
+
+  private final class EventLoop implements Runnable {
+
+    private final Queue<Registration> pending = new ConcurrentLinkedQueue<Registration>();
+    private final List<Registration> registrations = new ArrayList<Registration>();
+    private volatile Thread thread;
+    private Memory pollFds = null;
+    private boolean pollAvailable = true;
+    private int start = 0;
+
+    @Override
+    public void run() {
+      try {
+        while (open) {
+          runOnce();
+        }
+      } catch (RuntimeException e) {
+        logger.error("An event loop has stopped.", e);
+      } finally {
+        for (Registration registration: registrations) {
+          registration.finish();
+        }
+        registrations.clear();
+        Registration registration;
+        while ((registration = pending.poll()) != null) {
+          registration.finish();
+        }
+      }
+    }
+
+    private void runOnce() {
+      Registration registration;
+      while ((registration = pending.poll()) != null) {
+        registrations.add(registration);
+      }
+      for (Iterator<Registration> itr = registrations.iterator(); itr.hasNext();) {
+        registration = itr.next();
+        if (!registration.registered) {
+          itr.remove();
+          registration.finish();
+        }
+      }
+
+      int size = registrations.size();
+      if (pollFds == null || pollFds.size() < (long) size * CLibrary.POLLFD_SIZE) {
+        pollFds = new Memory((long) Math.max(size, 8) * CLibrary.POLLFD_SIZE);
+      }
+      int nfds = 0;
+      boolean alwaysReady = false;
+      for (int i = 0; i < size; i++) {
+        Registration r = registrations.get(i);
+        r.pollIndex = -1;
+        if (r.paused) {
+          continue;
+        }
+        if (r.fd < 0 || !pollAvailable) {
+          alwaysReady = true;
+          continue;
+        }
+        long offset = (long) nfds * CLibrary.POLLFD_SIZE;
+        pollFds.setInt(offset + CLibrary.POLLFD_FD_OFFSET, r.fd);
+        pollFds.setShort(offset + CLibrary.POLLFD_EVENTS_OFFSET, CLibrary.POLLIN);
+        pollFds.setShort(offset + CLibrary.POLLFD_REVENTS_OFFSET, (short) 0);
+        r.pollIndex = nfds;
+        nfds++;
+      }
+
+      if (nfds != 0) {
+        try {
+          int rc = CLibrary.INSTANCE.poll(
+                     pollFds, new NativeLong(nfds), alwaysReady ? 0 : pollTimeoutMillis
+                   );
+          if (rc < 0) {
+            // Interrupted by a signal (EINTR) or out of memory. Just try again.
+            logger.debug("poll() failed: {}", rc);
+            return;
+          }
+        } catch (UnsatisfiedLinkError e) {
+          logger.warn("poll() is not available. Falls back on busy polling.", e);
+          pollAvailable = false;
+          return;
+        }
+      }
+      else if (!alwaysReady) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(pollTimeoutMillis));
+        return;
+      }
+
+      int dispatched = 0;
+      for (int i = 0; i < size && open; i++) {
+        Registration r = registrations.get((start + i) % size);
+        if (!r.registered || r.paused) {
+          continue;
+        }
+        if (r.pollIndex >= 0) {
+          short revents
+            = pollFds.getShort(
+                (long) r.pollIndex * CLibrary.POLLFD_SIZE + CLibrary.POLLFD_REVENTS_OFFSET
+              );
+          if (revents == 0) {
+            continue;
+          }
+        }
+        else if (r.fd >= 0 && pollAvailable) {
+          // Resumed after poll() was called.
+          continue;
+        }
+        dispatched += dispatch(r);
+      }
+      if (size != 0) {
+        start = (start + 1) % size;
+      }
+
+      if (alwaysReady && dispatched == 0) {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+    }
+
+    private int dispatch(Registration r) {
+      try {
+        int rc = r.handle.dispatch(burstSize, r.handler);
+        if (rc > 0) {
+          r.packetCount += rc;
+          return rc;
+        }
+        if (rc == 0 && r.offline) {
+          logger.debug("Reached the end of the savefile of {}.", r.handle);
+          r.registered = false;
+        }
+      } catch (InterruptedException e) {
+        // breakLoop() was called. Just go on.
+      } catch (NotOpenException e) {
+        logger.debug("{} has been closed.", r.handle);
+        r.registered = false;
+      } catch (PcapNativeException e) {
+        logger.error("Failed to dispatch packets from " + r.handle + ".", e);
+        r.registered = false;
+      }
+      return 0;
+    }
+
+  }
+
+  private static final class DefaultThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger multiplexerNumber = new AtomicInteger();
+
+    private final int number = multiplexerNumber.incrementAndGet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread
+        = new Thread(
+            r,
+            "pcap4j-multiplexer-" + number + "-" + threadNumber.incrementAndGet()
+          );
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private int threads = 1;
+    private int burstSize = 64;
+    private int pollTimeoutMillis = 100;
+    private ThreadFactory threadFactory = null;
+
+    /**
+     *
+     */
+    public Builder() {}
+
+    /**
+     * @param threads the number of event loop threads. 1 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * @param burstSize the maximum number of packets processed by a dispatch call.
+     *                  64 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder burstSize(int burstSize) {
+      this.burstSize = burstSize;
+      return this;
+    }
+
+    /**
+     * @param pollTimeoutMillis the maximum time in milliseconds an event loop waits in a poll()
+     *                          call, which bounds the delay for a new registration or a
+     *                          resumed handle to be picked up. 100 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder pollTimeoutMillis(int pollTimeoutMillis) {
+      this.pollTimeoutMillis = pollTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @param threadFactory the factory of event loop threads.
+     *                      By default, daemon threads are created.
+     * @return this Builder object for method chaining.
+     */
+    public Builder threadFactory(ThreadFactory threadFactory) {
+      this.threadFactory = threadFactory;
+      return this;
+    }
+
+    /**
+     * @return a new PcapHandleMultiplexer object, whose event loops are already running.
+     */
+    public PcapHandleMultiplexer build() {
+      return new PcapHandleMultiplexer(this);
+    }
+
+  }
+
+}
@@ -283,7 +283,7 @@ public final class PcapNetworkInterface {
       }
     }
 
-    return new PcapHandle(handle, TimestampPrecision.MICRO);
+    return new PcapHandle(handle, TimestampPrecision.MICRO, true);
   }
 
   private MacAddress getMacAddress(String nifName) {
@@ -0,0 +1,344 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Inflater;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.PacketCodec.Record;
+
+/**
+ * Receives packets streamed by a {@link PcapStreamServer}.
+ * Packets are read in the same way as from a {@link PcapHandle} which reads a savefile:
+ * by {@link #getNextPacketEx()}, {@link #getNextRawPacketEx()}, or
+ * {@link #loop(int, PacketListener)}, with {@link #getTimestamp()} and
+ * {@link #getOriginalLength()} of the last packet read.
+ * An {@link EOFException} is thrown when the server has sent all the packets
+ * (e.g. when its handle reads a savefile and has reached its end).
+ * This class is not thread-safe except for {@link #breakLoop()} and {@link #close()}.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PcapStreamClient implements Closeable {
+
+  private final SocketChannel channel;
+  private final Inflater inflater;
+  private final DataLinkType dlt;
+  private final int snaplen;
+  private final String filter;
+  private final ByteBuffer[] buffers = new ByteBuffer[2];
+  private final ByteBuffer small = ByteBuffer.allocate(4);
+  private List<Record> batch = Collections.emptyList();
+  private int next = 0;
+  private Record current = null;
+  private boolean ended = false;
+  private volatile boolean breakRequested = false;
+
+  private PcapStreamClient(Builder builder) throws IOException {
+    this.filter = builder.filter;
+    this.inflater = builder.compression ? new Inflater() : null;
+    this.channel = SocketChannel.open();
+    try {
+      channel.socket().setTcpNoDelay(true);
+      channel.socket().connect(builder.address, builder.connectTimeoutMillis);
+      PcapStreamProtocol.writeRequest(channel, builder.compression, builder.filter);
+
+      ByteBuffer header = ByteBuffer.allocate(6);
+      PcapStreamProtocol.readFully(channel, header);
+      if (
+           header.getInt(0) != PcapStreamProtocol.MAGIC
+        || header.get(4) != PcapStreamProtocol.VERSION
+      ) {
+        throw new IOException("Not a pcap stream server: " + builder.address);
+      }
+      if (header.get(5) != PcapStreamProtocol.STATUS_OK) {
+        throw new IOException(
+                "Rejected by " + builder.address + ": "
+                  + PcapStreamProtocol.readMessage(channel, small)
+              );
+      }
+
+      ByteBuffer params = ByteBuffer.allocate(8);
+      PcapStreamProtocol.readFully(channel, params);
+      this.dlt = DataLinkType.getInstance(params.getInt(0));
+      this.snaplen = params.getInt(4);
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the data link type of the packets.
+   */
+  public DataLinkType getDlt() {
+    return dlt;
+  }
+
+  /**
+   * @return the snapshot length of the handle on the server.
+   */
+  public int getSnapshot() {
+    return snaplen;
+  }
+
+  /**
+   * @return the BPF expression applied on the server. May be empty.
+   */
+  public String getFilteringExpression() {
+    return filter;
+  }
+
+  /**
+   * @return true if this client is not closed; false otherwise.
+   */
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  /**
+   * @return the timestamp of the last packet read. May be null.
+   */
+  public Timestamp getTimestamp() {
+    return current != null ? current.getTimestamp() : null;
+  }
+
+  /**
+   * @return the original length of the last packet read. May be null.
+   */
+  public Integer getOriginalLength() {
+    return current != null ? current.getOriginalLength() : null;
+  }
+
+  /**
+   * @return a Packet object created from the next packet using the packet factory.
+   *         Not null.
+   * @throws EOFException if the server has sent all the packets.
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   */
+  public Packet getNextPacketEx() throws IOException {
+    getNextRawPacketEx();
+    return current.getPacket();
+  }
+
+  /**
+   * @return the next packet. Not null.
+   * @throws EOFException if the server has sent all the packets.
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   */
+  public byte[] getNextRawPacketEx() throws IOException {
+    while (next == batch.size()) {
+      if (ended) {
+        throw new EOFException();
+      }
+      readFrame();
+    }
+    current = batch.get(next++);
+    return current.getRawData();
+  }
+
+  /**
+   * @return a Packet object created from the next packet using the packet factory,
+   *         or null if the server has sent all the packets.
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   */
+  public Packet getNextPacket() throws IOException {
+    byte[] packet = getNextRawPacket();
+    return packet != null ? current.getPacket() : null;
+  }
+
+  /**
+   * @return the next packet, or null if the server has sent all the packets.
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   */
+  public byte[] getNextRawPacket() throws IOException {
+    try {
+      return getNextRawPacketEx();
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param packetCount the number of packets to read. -1 to read until the end of the stream.
+   * @param listener listener
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   * @throws InterruptedException if {@link #breakLoop()} is called.
+   */
+  public void loop(int packetCount, PacketListener listener)
+  throws IOException, InterruptedException {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null.");
+    }
+    for (int i = 0; packetCount < 0 || i < packetCount; i++) {
+      checkBreak();
+      Packet packet = getNextPacket();
+      if (packet == null) {
+        return;
+      }
+      listener.gotPacket(packet);
+    }
+  }
+
+  /**
+   * @param packetCount the number of packets to read. -1 to read until the end of the stream.
+   * @param listener listener
+   * @throws IOException if an I/O error occurs or the server reports an error.
+   * @throws InterruptedException if {@link #breakLoop()} is called.
+   */
+  public void loop(int packetCount, RawPacketListener listener)
+  throws IOException, InterruptedException {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null.");
+    }
+    for (int i = 0; packetCount < 0 || i < packetCount; i++) {
+      checkBreak();
+      byte[] packet = getNextRawPacket();
+      if (packet == null) {
+        return;
+      }
+      listener.gotPacket(packet);
+    }
+  }
+
+  /**
+   * Breaks a loop. The loop returns after the packet being processed or,
+   * if it's waiting for packets, when the next batch arrives.
+   */
+  public void breakLoop() {
+    breakRequested = true;
+  }
+
+  private void checkBreak() throws InterruptedException {
+    if (breakRequested) {
+      breakRequested = false;
+      throw new InterruptedException();
+    }
+  }
+
+  private void readFrame() throws IOException {
+    small.clear().limit(1);
+    PcapStreamProtocol.readFully(channel, small);
+    int type = small.get(0);
+    switch (type) {
+      case PcapStreamProtocol.FRAME_BATCH:
+        batch = PcapStreamProtocol.readBatch(channel, buffers);
+        break;
+      case PcapStreamProtocol.FRAME_DEFLATED_BATCH:
+        if (inflater == null) {
+          throw new IOException("Got a deflated batch without asking for it.");
+        }
+        batch = PcapStreamProtocol.inflate(channel, inflater, buffers);
+        break;
+      case PcapStreamProtocol.FRAME_END:
+        batch = Collections.emptyList();
+        ended = true;
+        break;
+      case PcapStreamProtocol.FRAME_ERROR:
+        batch = Collections.emptyList();
+        ended = true;
+        throw new IOException(
+                "The server reported an error: "
+                  + PcapStreamProtocol.readMessage(channel, small)
+              );
+      default:
+        throw new IOException("Unknown frame type: " + type);
+    }
+    next = 0;
+  }
+
+  /**
+   * Disconnects from the server.
+   */
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // ignore
+    }
+    if (inflater != null) {
+      inflater.end();
+    }
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private final InetSocketAddress address;
+    private String filter = "";
+    private boolean compression = false;
+    private int connectTimeoutMillis = 10000;
+
+    /**
+     * @param address the address of a {@link PcapStreamServer}.
+     */
+    public Builder(InetSocketAddress address) {
+      if (address == null) {
+        throw new NullPointerException("address must not be null.");
+      }
+      this.address = address;
+    }
+
+    /**
+     * @param filter a BPF expression applied to the handle on the server.
+     *               Empty by default, which means all packets.
+     * @return this Builder object for method chaining.
+     */
+    public Builder filter(String filter) {
+      if (filter == null) {
+        throw new NullPointerException("filter must not be null.");
+      }
+      this.filter = filter;
+      return this;
+    }
+
+    /**
+     * @param compression true to have the server deflate batches; false otherwise.
+     *                    false by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder compression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * @param connectTimeoutMillis the timeout in milliseconds to connect to the server.
+     *                             0 for no timeout. 10000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder connectTimeoutMillis(int connectTimeoutMillis) {
+      this.connectTimeoutMillis = connectTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @return a new PcapStreamClient object connected to the server.
+     * @throws IOException if it fails to connect or is rejected by the server.
+     */
+    public PcapStreamClient build() throws IOException {
+      return new PcapStreamClient(this);
+    }
+
+  }
+
+}
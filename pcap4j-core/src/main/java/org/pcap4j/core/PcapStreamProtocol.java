@@ -0,0 +1,264 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.pcap4j.util.PacketCodec;
+import org.pcap4j.util.PacketCodec.Record;
+
+/**
+ * The wire protocol between {@link PcapStreamServer} and {@link PcapStreamClient}.
+ * <p>
+ * A client sends a request: the magic number, the version, a flags byte, and
+ * the length and UTF-8 bytes of a BPF expression, which may be empty.
+ * The server responds with the magic number, the version, and a status byte,
+ * followed by the data link type and the snapshot length if the status is {@link #STATUS_OK}
+ * or by a message if it's {@link #STATUS_ERROR}.
+ * Then the server sends frames, each of which starts with a type byte.
+ * A {@link #FRAME_BATCH} frame carries a {@link PacketCodec} batch as is.
+ * A {@link #FRAME_DEFLATED_BATCH} frame carries the lengths of the deflated and the inflated
+ * batch followed by the deflated batch.
+ * The last frame is a {@link #FRAME_END} frame or a {@link #FRAME_ERROR} frame
+ * followed by a message. Integers are big-endian.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class PcapStreamProtocol {
+
+  /**
+   * "P4JS"
+   */
+  static final int MAGIC = 0x50344A53;
+  static final int VERSION = 1;
+
+  static final int FLAG_COMPRESSION = 0x01;
+
+  static final int STATUS_OK = 0;
+  static final int STATUS_ERROR = 1;
+
+  static final int FRAME_BATCH = 1;
+  static final int FRAME_DEFLATED_BATCH = 2;
+  static final int FRAME_END = 3;
+  static final int FRAME_ERROR = 4;
+
+  static final int MAX_MESSAGE_LENGTH = 64 * 1024;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private PcapStreamProtocol() { throw new AssertionError(); }
+
+  static void writeRequest(
+    WritableByteChannel ch, boolean compression, String filter
+  ) throws IOException {
+    byte[] filterBytes = filter.getBytes(UTF_8);
+    ByteBuffer buf = ByteBuffer.allocate(10 + filterBytes.length);
+    buf.putInt(MAGIC)
+       .put((byte) VERSION)
+       .put((byte) (compression ? FLAG_COMPRESSION : 0))
+       .putInt(filterBytes.length)
+       .put(filterBytes)
+       .flip();
+    writeFully(ch, buf);
+  }
+
+  static void writeOkResponse(WritableByteChannel ch, int dlt, int snaplen) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(14);
+    buf.putInt(MAGIC)
+       .put((byte) VERSION)
+       .put((byte) STATUS_OK)
+       .putInt(dlt)
+       .putInt(snaplen)
+       .flip();
+    writeFully(ch, buf);
+  }
+
+  static void writeErrorResponse(WritableByteChannel ch, String message) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(5);
+    buf.putInt(MAGIC).put((byte) VERSION).flip();
+    writeFully(ch, buf);
+    writeMessage(ch, STATUS_ERROR, message);
+  }
+
+  static void writeBatch(
+    WritableByteChannel ch, List<Record> records, Deflater deflater, ByteBuffer[] buffers
+  ) throws IOException {
+    int length = PacketCodec.encodedLength(records);
+    ByteBuffer batch = ensureCapacity(buffers, 0, length + 1);
+    batch.put((byte) FRAME_BATCH);
+    PacketCodec.encodeBatch(records, batch);
+    batch.flip();
+
+    if (deflater == null) {
+      writeFully(ch, batch);
+      return;
+    }
+
+    deflater.reset();
+    deflater.setInput(batch.array(), 1, length);
+    deflater.finish();
+    ByteBuffer deflated = ensureCapacity(buffers, 1, length + length / 8 + 64);
+    deflated.put((byte) FRAME_DEFLATED_BATCH).putInt(0).putInt(length);
+    while (!deflater.finished()) {
+      if (!deflated.hasRemaining()) {
+        ByteBuffer larger = ByteBuffer.allocate(deflated.capacity() * 2);
+        deflated.flip();
+        larger.put(deflated);
+        buffers[1] = deflated = larger;
+      }
+      int n = deflater.deflate(
+                deflated.array(),
+                deflated.position(),
+                deflated.remaining()
+              );
+      deflated.position(deflated.position() + n);
+    }
+    deflated.putInt(1, deflated.position() - 9);
+    deflated.flip();
+    writeFully(ch, deflated);
+  }
+
+  static void writeEnd(WritableByteChannel ch) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(1);
+    buf.put((byte) FRAME_END).flip();
+    writeFully(ch, buf);
+  }
+
+  static void writeError(WritableByteChannel ch, String message) throws IOException {
+    writeMessage(ch, FRAME_ERROR, message);
+  }
+
+  private static void writeMessage(
+    WritableByteChannel ch, int type, String message
+  ) throws IOException {
+    byte[] bytes = String.valueOf(message).getBytes(UTF_8);
+    int length = Math.min(bytes.length, MAX_MESSAGE_LENGTH);
+    ByteBuffer buf = ByteBuffer.allocate(5 + length);
+    buf.put((byte) type).putInt(length).put(bytes, 0, length).flip();
+    writeFully(ch, buf);
+  }
+
+  static String readMessage(ReadableByteChannel ch, ByteBuffer buf) throws IOException {
+    buf.clear().limit(4);
+    readFully(ch, buf);
+    int length = buf.getInt(0);
+    if (length < 0 || length > MAX_MESSAGE_LENGTH) {
+      throw new IOException("Illegal message length: " + length);
+    }
+    ByteBuffer message = ByteBuffer.allocate(length);
+    readFully(ch, message);
+    return new String(message.array(), UTF_8);
+  }
+
+  static String readFilter(ReadableByteChannel ch) throws IOException {
+    return readMessage(ch, ByteBuffer.allocate(4));
+  }
+
+  static List<Record> inflate(
+    ReadableByteChannel ch, Inflater inflater, ByteBuffer[] buffers
+  ) throws IOException {
+    ByteBuffer lengths = ByteBuffer.allocate(8);
+    readFully(ch, lengths);
+    int deflatedLength = lengths.getInt(0);
+    int inflatedLength = lengths.getInt(4);
+    if (
+         deflatedLength < 0
+      || deflatedLength > PacketCodec.MAX_BATCH_LENGTH
+      || inflatedLength < 4
+      || inflatedLength > PacketCodec.MAX_BATCH_LENGTH + 4
+    ) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("Illegal deflated batch. deflatedLength: ").append(deflatedLength)
+        .append(" inflatedLength: ").append(inflatedLength);
+      throw new IOException(sb.toString());
+    }
+
+    ByteBuffer deflated = ensureCapacity(buffers, 0, deflatedLength);
+    deflated.limit(deflatedLength);
+    readFully(ch, deflated);
+    // One spare byte lets the inflater reach the end of the stream in a single call.
+    ByteBuffer inflated = ensureCapacity(buffers, 1, inflatedLength + 1);
+    inflater.reset();
+    inflater.setInput(deflated.array(), 0, deflatedLength);
+    try {
+      int n = inflater.inflate(inflated.array(), 0, inflatedLength + 1);
+      if (n != inflatedLength || !inflater.finished()) {
+        throw new IOException("Corrupt deflated batch.");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt deflated batch.", e);
+    }
+    inflated.limit(inflatedLength);
+    return decode(inflated);
+  }
+
+  static List<Record> readBatch(ReadableByteChannel ch, ByteBuffer[] buffers) throws IOException {
+    ByteBuffer length = ByteBuffer.allocate(4);
+    readFully(ch, length);
+    int batchLength = length.getInt(0);
+    if (batchLength < 1 || batchLength > PacketCodec.MAX_BATCH_LENGTH) {
+      throw new IOException("Illegal batch length: " + batchLength);
+    }
+    ByteBuffer batch = ensureCapacity(buffers, 1, batchLength + 4);
+    batch.putInt(batchLength).limit(batchLength + 4);
+    readFully(ch, batch);
+    batch.flip();
+    return decode(batch);
+  }
+
+  private static List<Record> decode(ByteBuffer batch) throws IOException {
+    try {
+      List<Record> records = PacketCodec.decodeBatch(batch);
+      if (batch.hasRemaining()) {
+        throw new IOException(batch.remaining() + " bytes left after the batch.");
+      }
+      return records;
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated batch.", e);
+    }
+  }
+
+  private static ByteBuffer ensureCapacity(ByteBuffer[] buffers, int index, int capacity) {
+    ByteBuffer buf = buffers[index];
+    if (buf == null || buf.capacity() < capacity) {
+      int size = buf == null ? capacity : Math.max(capacity, buf.capacity() * 2);
+      buf = ByteBuffer.allocate(size);
+      buffers[index] = buf;
+    }
+    buf.clear();
+    return buf;
+  }
+
+  static void readFully(ReadableByteChannel ch, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      if (ch.read(buf) < 0) {
+        throw new EOFException();
+      }
+    }
+  }
+
+  static void writeFully(WritableByteChannel ch, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      ch.write(buf);
+    }
+  }
+
+}
@@ -0,0 +1,513 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.core;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import org.pcap4j.core.BpfProgram.BpfCompileMode;
+import org.pcap4j.util.PacketCodec;
+import org.pcap4j.util.PacketCodec.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams packets captured by {@link PcapHandle}s to {@link PcapStreamClient}s over TCP,
+ * e.g. from capture probes to a central analyzer.
+ * <p>
+ * For each client, the server opens a handle by its {@link HandleOpener}, applies the
+ * BPF expression given by the client to the handle by
+ * {@link PcapHandle#setFilter(String, BpfCompileMode) setFilter()} so that packets
+ * the client doesn't want never leave the server, and sends the captured packets
+ * in {@link org.pcap4j.util.PacketCodec PacketCodec} batches, deflated if the client asks.
+ * A batch is sent when it reaches the maximum number of records or bytes, or when the
+ * oldest packet in it has waited for the flush interval.
+ * </p>
+ * <p>
+ * Each client is served by its own thread which reads its handle and writes to a blocking
+ * socket channel. A client which can't keep up slows its thread down by TCP flow control;
+ * packets then queue up in the kernel buffer of the handle and are dropped by the kernel
+ * if it overflows, which is counted in {@link PcapHandle#getStats()}.
+ * Live handles should have a read timeout (e.g. {@link PcapHandle.Builder#timeoutMillis(int)})
+ * so that pending batches are flushed and the thread notices the server being closed
+ * even if no packets arrive.
+ * A client which doesn't send its request within the handshake timeout
+ * ({@link Builder#handshakeTimeoutMillis(int)}) is disconnected, so that it doesn't hold
+ * a session forever.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PcapStreamServer implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PcapStreamServer.class);
+
+  private final HandleOpener opener;
+  private final int maxBatchRecords;
+  private final int maxBatchBytes;
+  private final long flushIntervalNanos;
+  private final int maxSessions;
+  private final int handshakeTimeoutMillis;
+  private final ThreadFactory threadFactory;
+  private final ServerSocketChannel serverChannel;
+  private final Set<Session> sessions
+    = Collections.newSetFromMap(new ConcurrentHashMap<Session, Boolean>());
+  private volatile boolean open = true;
+
+  private PcapStreamServer(Builder builder) throws IOException {
+    if (
+         builder.maxBatchRecords < 1
+      || builder.maxBatchBytes < 1
+      || builder.maxBatchBytes > PacketCodec.MAX_BATCH_LENGTH / 2
+      || builder.flushIntervalMillis < 0
+      || builder.maxSessions < 1
+      || builder.handshakeTimeoutMillis < 0
+    ) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("builder.maxBatchRecords: ").append(builder.maxBatchRecords)
+        .append(" builder.maxBatchBytes: ").append(builder.maxBatchBytes)
+        .append(" builder.flushIntervalMillis: ").append(builder.flushIntervalMillis)
+        .append(" builder.maxSessions: ").append(builder.maxSessions)
+        .append(" builder.handshakeTimeoutMillis: ").append(builder.handshakeTimeoutMillis);
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.opener = builder.opener;
+    this.maxBatchRecords = builder.maxBatchRecords;
+    this.maxBatchBytes = builder.maxBatchBytes;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.flushIntervalMillis);
+    this.maxSessions = builder.maxSessions;
+    this.handshakeTimeoutMillis = builder.handshakeTimeoutMillis;
+    this.threadFactory
+      = builder.threadFactory != null ? builder.threadFactory : new DefaultThreadFactory();
+
+    this.serverChannel = ServerSocketChannel.open();
+    try {
+      serverChannel.socket().setReuseAddress(true);
+      serverChannel.socket().bind(builder.address);
+    } catch (IOException e) {
+      serverChannel.close();
+      throw e;
+    }
+
+    threadFactory.newThread(new Acceptor()).start();
+  }
+
+  /**
+   * @return the address this server is listening on.
+   */
+  public InetSocketAddress getLocalAddress() {
+    return (InetSocketAddress) serverChannel.socket().getLocalSocketAddress();
+  }
+
+  /**
+   * @return the number of clients being served.
+   */
+  public int getSessionCount() {
+    return sessions.size();
+  }
+
+  /**
+   * @return true if this server is not closed; false otherwise.
+   */
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Stops accepting clients and disconnects the current ones.
+   * The handles of the clients are closed by their threads,
+   * which may take up to the read timeout of the handles.
+   */
+  @Override
+  public void close() {
+    if (!open) {
+      return;
+    }
+    open = false;
+
+    try {
+      serverChannel.close();
+    } catch (IOException e) {
+      logger.warn("Failed to close the server socket.", e);
+    }
+    for (Session session: sessions) {
+      session.disconnect();
+    }
+  }
+
+  /**
+   * Opens a {@link PcapHandle} for a client.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public interface HandleOpener {
+
+    /**
+     * @return a new handle, which is closed by the server when the client disconnects.
+     * @throws PcapNativeException if an error occurs in the pcap native library.
+     */
+    public PcapHandle open() throws PcapNativeException;
+
+  }
+
+  private final class Acceptor implements Runnable {
+
+    @Override
+    public void run() {
+      while (open) {
+        SocketChannel channel;
+        try {
+          channel = serverChannel.accept();
+        } catch (ClosedChannelException e) {
+          break;
+        } catch (IOException e) {
+          if (open) {
+            logger.error("Failed to accept a client.", e);
+          }
+          continue;
+        }
+
+        Session session = new Session(channel);
+        if (!open || sessions.size() >= maxSessions) {
+          session.reject(open ? "Too many clients." : "The server is closed.");
+          continue;
+        }
+        sessions.add(session);
+        try {
+          threadFactory.newThread(session).start();
+        } catch (RuntimeException e) {
+          sessions.remove(session);
+          session.reject("Failed to start a thread.");
+          logger.error("Failed to start a thread for a client.", e);
+        }
+      }
+    }
+
+  }
+
+  private final class Session implements Runnable {
+
+    private final SocketChannel channel;
+    private final List<Record> pending = new ArrayList<Record>();
+    private final ByteBuffer[] buffers = new ByteBuffer[2];
+    private int pendingBytes = 0;
+    private long pendingSince = 0;
+
+    private Session(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public void run() {
+      Deflater deflater = null;
+      try {
+        ReadableByteChannel request = channel;
+        if (handshakeTimeoutMillis != 0) {
+          request = new HandshakeChannel(System.nanoTime() + handshakeTimeoutMillis * 1000000L);
+        }
+        ByteBuffer header = ByteBuffer.allocate(6);
+        PcapStreamProtocol.readFully(request, header);
+        if (
+             header.getInt(0) != PcapStreamProtocol.MAGIC
+          || header.get(4) != PcapStreamProtocol.VERSION
+        ) {
+          reject("Unsupported request.");
+          return;
+        }
+        if ((header.get(5) & PcapStreamProtocol.FLAG_COMPRESSION) != 0) {
+          deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        String filter = PcapStreamProtocol.readFilter(request);
+
+        PcapHandle handle;
+        try {
+          handle = opener.open();
+        } catch (PcapNativeException e) {
+          reject("Failed to open a handle: " + e.getMessage());
+          return;
+        }
+        try {
+          serve(handle, filter, deflater);
+        } finally {
+          handle.close();
+        }
+      } catch (IOException e) {
+        if (open) {
+          logger.info("Disconnected from {}: {}", channel.socket().getRemoteSocketAddress(), e);
+        }
+      } catch (RuntimeException e) {
+        logger.error("A session has stopped.", e);
+      } finally {
+        if (deflater != null) {
+          deflater.end();
+        }
+        sessions.remove(this);
+        disconnect();
+      }
+    }
+
+    private void serve(
+      PcapHandle handle, String filter, Deflater deflater
+    ) throws IOException {
+      try {
+        if (filter.length() != 0) {
+          handle.setFilter(filter, BpfCompileMode.OPTIMIZE);
+        }
+        PcapStreamProtocol.writeOkResponse(
+          channel, handle.getDlt().value(), handle.getSnapshot()
+        );
+      } catch (PcapNativeException e) {
+        PcapStreamProtocol.writeErrorResponse(channel, e.getMessage());
+        return;
+      } catch (NotOpenException e) {
+        PcapStreamProtocol.writeErrorResponse(channel, "The handle has been closed.");
+        return;
+      }
+
+      try {
+        while (open) {
+          try {
+            byte[] packet = handle.getNextRawPacketEx();
+            if (pending.isEmpty()) {
+              pendingSince = System.nanoTime();
+            }
+            pending.add(
+              new Record(
+                handle.getDlt(), handle.getTimestamp(), handle.getOriginalLength(), packet
+              )
+            );
+            pendingBytes += packet.length;
+          } catch (TimeoutException e) {
+            // No packets. Flush the pending ones if they're old enough.
+          }
+
+          if (
+               pending.size() >= maxBatchRecords
+            || pendingBytes >= maxBatchBytes
+            || (!pending.isEmpty() && System.nanoTime() - pendingSince >= flushIntervalNanos)
+          ) {
+            flush(deflater);
+          }
+        }
+      } catch (EOFException e) {
+        flush(deflater);
+        PcapStreamProtocol.writeEnd(channel);
+      } catch (PcapNativeException e) {
+        flush(deflater);
+        PcapStreamProtocol.writeError(channel, e.getMessage());
+      } catch (NotOpenException e) {
+        flush(deflater);
+        PcapStreamProtocol.writeError(channel, "The handle has been closed.");
+      }
+    }
+
+    private void flush(Deflater deflater) throws IOException {
+      if (pending.isEmpty()) {
+        return;
+      }
+      PcapStreamProtocol.writeBatch(channel, pending, deflater, buffers);
+      pending.clear();
+      pendingBytes = 0;
+    }
+
+    private void reject(String message) {
+      try {
+        PcapStreamProtocol.writeErrorResponse(channel, message);
+      } catch (IOException e) {
+        logger.debug("Failed to send an error to a client.", e);
+      }
+      disconnect();
+    }
+
+    private void disconnect() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.debug("Failed to close a socket.", e);
+      }
+    }
+
+    /**
+     * Reads the request of the client until the deadline.
+     * The SO_TIMEOUT of a socket applies only to reads through its stream,
+     * not to reads on its channel.
+     */
+    private final class HandshakeChannel implements ReadableByteChannel {
+
+      private final long deadline;
+      private final ReadableByteChannel in;
+
+      private HandshakeChannel(long deadline) throws IOException {
+        this.deadline = deadline;
+        this.in = Channels.newChannel(channel.socket().getInputStream());
+      }
+
+      @Override
+      public int read(ByteBuffer dst) throws IOException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          throw new SocketTimeoutException("The request was not received in time.");
+        }
+        channel.socket().setSoTimeout((int) Math.min(remaining, Integer.MAX_VALUE));
+        return in.read(dst);
+      }
+
+      @Override
+      public boolean isOpen() {
+        return channel.isOpen();
+      }
+
+      @Override
+      public void close() throws IOException {
+        channel.close();
+      }
+
+    }
+
+  }
+
+  private static final class DefaultThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger serverNumber = new AtomicInteger();
+
+    private final int number = serverNumber.incrementAndGet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread
+        = new Thread(
+            r,
+            "pcap4j-stream-server-" + number + "-" + threadNumber.incrementAndGet()
+          );
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private final InetSocketAddress address;
+    private final HandleOpener opener;
+    private int maxBatchRecords = 256;
+    private int maxBatchBytes = 256 * 1024;
+    private int flushIntervalMillis = 100;
+    private int maxSessions = 16;
+    private int handshakeTimeoutMillis = 10000;
+    private ThreadFactory threadFactory = null;
+
+    /**
+     * @param address the address to listen on. Its port may be 0 to use an ephemeral port.
+     * @param opener the opener of a handle for each client.
+     */
+    public Builder(InetSocketAddress address, HandleOpener opener) {
+      if (address == null || opener == null) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("address: ").append(address)
+          .append(" opener: ").append(opener);
+        throw new NullPointerException(sb.toString());
+      }
+      this.address = address;
+      this.opener = opener;
+    }
+
+    /**
+     * @param maxBatchRecords the maximum number of packets in a batch. 256 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxBatchRecords(int maxBatchRecords) {
+      this.maxBatchRecords = maxBatchRecords;
+      return this;
+    }
+
+    /**
+     * @param maxBatchBytes the approximate maximum number of bytes of packets in a batch.
+     *                      256 KiB by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxBatchBytes(int maxBatchBytes) {
+      this.maxBatchBytes = maxBatchBytes;
+      return this;
+    }
+
+    /**
+     * @param flushIntervalMillis the maximum time in milliseconds a packet waits for its
+     *                            batch to fill up. 100 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder flushIntervalMillis(int flushIntervalMillis) {
+      this.flushIntervalMillis = flushIntervalMillis;
+      return this;
+    }
+
+    /**
+     * @param maxSessions the maximum number of clients served at a time. 16 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxSessions(int maxSessions) {
+      this.maxSessions = maxSessions;
+      return this;
+    }
+
+    /**
+     * @param handshakeTimeoutMillis the time in milliseconds a client has to send its request
+     *                               after connecting. 0 for no timeout. 10000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder handshakeTimeoutMillis(int handshakeTimeoutMillis) {
+      this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @param threadFactory the factory of the threads which accept and serve clients.
+     *                      By default, daemon threads are created.
+     * @return this Builder object for method chaining.
+     */
+    public Builder threadFactory(ThreadFactory threadFactory) {
+      this.threadFactory = threadFactory;
+      return this;
+    }
+
+    /**
+     * @return a new PcapStreamServer object, which is already listening.
+     * @throws IOException if the server socket can't be bound.
+     */
+    public PcapStreamServer build() throws IOException {
+      return new PcapStreamServer(this);
+    }
+
+  }
+
+}
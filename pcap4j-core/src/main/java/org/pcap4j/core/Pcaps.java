@@ -15,11 +15,9 @@ import java.util.List;
 import org.pcap4j.core.BpfProgram.BpfCompileMode;
 import org.pcap4j.core.NativeMappings.PcapErrbuf;
 import org.pcap4j.core.NativeMappings.PcapLibrary;
-import org.pcap4j.core.NativeMappings.bpf_program;
 import org.pcap4j.core.NativeMappings.pcap_if;
 import org.pcap4j.core.PcapHandle.TimestampPrecision;
 import org.pcap4j.packet.namednumber.DataLinkType;
-import org.pcap4j.util.ByteArrays;
 import org.pcap4j.util.Inet4NetworkAddress;
 import org.pcap4j.util.MacAddress;
 import org.slf4j.Logger;
@@ -323,7 +321,8 @@ public final class Pcaps {
    * @param bpfExpression bpfExpression
    * @param mode mode
    * @param netmask netmask
-   * @return a {@link org.pcap4j.core.BpfProgram BpfProgram} object.
+   * @return a {@link org.pcap4j.core.BpfProgram BpfProgram} object,
+   *         which may share code with others by {@link BpfProgramCache#getDefault()}.
    * @throws PcapNativeException if an error occurs in the pcap native library.
    */
   public static BpfProgram compileFilter(
@@ -344,18 +343,9 @@ public final class Pcaps {
       throw new NullPointerException(sb.toString());
     }
 
-    bpf_program prog = new bpf_program();
-    int rc = NativeMappings.pcap_compile_nopcap(
-               snaplen, dlt.value(), prog, bpfExpression, mode.getValue(),
-               ByteArrays.getInt(ByteArrays.toByteArray(netmask), 0)
-             );
-    if (rc < 0) {
-      throw new PcapNativeException(
-                  "Failed to compile the BPF expression: " + bpfExpression,
-                  rc
-                );
-    }
-    return new BpfProgram(prog, bpfExpression);
+    return BpfProgramCache.getDefault().compileFilter(
+             snaplen, dlt, bpfExpression, mode, netmask
+           );
   }
 
   /**
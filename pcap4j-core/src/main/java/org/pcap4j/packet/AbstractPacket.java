@@ -11,8 +11,6 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import org.pcap4j.util.ByteArrays;
-import org.pcap4j.util.LazyValue;
-import org.pcap4j.util.LazyValue.BuildValueCommand;
 
 /**
  * Abstract immutable packet class.
@@ -31,62 +29,20 @@ public abstract class AbstractPacket implements Packet {
    */
   private static final long serialVersionUID = -3016622134481071576L;
 
-  private final LazyValue<Integer> lengthCache;
-  private final LazyValue<byte[]> rawDataCache;
-  private final LazyValue<String> hexStringCache;
-  private final LazyValue<String> stringCache;
-  private final LazyValue<Integer> hashCodeCache;
+  // Memoized values. They are built on demand with the racy single-check idiom;
+  // a value may be built more than once by concurrent threads, which is harmless
+  // since it's always the same. 0 means "not built yet" for the int values.
+  private transient int lengthMemo;
+  private transient volatile byte[] rawDataMemo;
+  private transient volatile String hexStringMemo;
+  private transient volatile String stringMemo;
+  private transient int hashCodeMemo;
+  private transient volatile LayerIndex layerIndexMemo;
 
   /**
    *
    */
-  public AbstractPacket() {
-    this.lengthCache
-      = new LazyValue<Integer>(
-          new BuildValueCommand<Integer>() {
-            @Override
-            public Integer buildValue() {
-              return calcLength();
-            }
-          }
-        );
-    this.rawDataCache
-      = new LazyValue<byte[]>(
-          new BuildValueCommand<byte[]>() {
-            @Override
-            public byte[] buildValue() {
-              return buildRawData();
-            }
-          }
-        );
-    this.hexStringCache
-      = new LazyValue<String>(
-          new BuildValueCommand<String>() {
-            @Override
-            public String buildValue() {
-              return buildHexString();
-            }
-          }
-        );
-    this.stringCache
-      = new LazyValue<String>(
-          new BuildValueCommand<String>() {
-            @Override
-            public String buildValue() {
-              return buildString();
-            }
-          }
-        );
-    this.hashCodeCache
-      = new LazyValue<Integer>(
-          new BuildValueCommand<Integer>() {
-            @Override
-            public Integer buildValue() {
-              return calcHashCode();
-            }
-          }
-        );
-  }
+  public AbstractPacket() {}
 
   /**
    * Returns the Header object representing this packet's header.
@@ -133,7 +89,12 @@ public abstract class AbstractPacket implements Packet {
    */
   @Override
   public int length() {
-    return lengthCache.getValue();
+    int len = lengthMemo;
+    if (len == 0) {
+      len = calcLength();
+      lengthMemo = len;
+    }
+    return len;
   }
 
   /**
@@ -176,7 +137,11 @@ public abstract class AbstractPacket implements Packet {
    */
   @Override
   public byte[] getRawData() {
-    byte[] rawData = rawDataCache.getValue();
+    byte[] rawData = rawDataMemo;
+    if (rawData == null) {
+      rawData = buildRawData();
+      rawDataMemo = rawData;
+    }
 
     byte[] copy = new byte[rawData.length];
     System.arraycopy(rawData, 0, copy, 0, copy.length);
@@ -188,29 +153,40 @@ public abstract class AbstractPacket implements Packet {
     return new PacketIterator(this);
   }
 
+  /**
+   * Returns the index of the layers of this packet, which is built when this method is called
+   * for the first time and cached. With the index, {@link #get(Class) get},
+   * {@link #getOuterOf(Class) getOuterOf}, and {@link #contains(Class) contains}
+   * rule out a missing class with a bitmask test and don't create an iterator.
+   *
+   * @return the layer index.
+   */
+  private LayerIndex getLayerIndex() {
+    LayerIndex index = layerIndexMemo;
+    if (index == null) {
+      index = new LayerIndex(this);
+      layerIndexMemo = index;
+    }
+    return index;
+  }
+
   @Override
   public <T extends Packet> T get(Class<T> clazz) {
-    for (Packet p: this) {
-      if (clazz.isInstance(p)) {
-        return clazz.cast(p);
-      }
-    }
-    return null;
+    LayerIndex index = getLayerIndex();
+    int i = index.indexOf(clazz, 0);
+    return i < 0 ? null : clazz.cast(index.layers[i]);
   }
 
   @Override
   public Packet getOuterOf(Class<? extends Packet> clazz) {
-    for (Packet p: this) {
-      if (clazz.isInstance(p.getPayload())) {
-        return p;
-      }
-    }
-    return null;
+    LayerIndex index = getLayerIndex();
+    int i = index.indexOf(clazz, 1);
+    return i < 0 ? null : index.layers[i - 1];
   }
 
   @Override
   public <T extends Packet> boolean contains(Class<T> clazz) {
-    return get(clazz) != null;
+    return getLayerIndex().indexOf(clazz, 0) >= 0;
   }
 
   @Override
@@ -236,9 +212,14 @@ public abstract class AbstractPacket implements Packet {
    *
    * @return a hex string representation of this object
    */
- public String toHexString() {
-   return hexStringCache.getValue();
- }
+  public String toHexString() {
+    String hex = hexStringMemo;
+    if (hex == null) {
+      hex = buildHexString();
+      hexStringMemo = hex;
+    }
+    return hex;
+  }
 
   /**
    * This method builds the value {@link #toString toString()} will return by
@@ -269,7 +250,12 @@ public abstract class AbstractPacket implements Packet {
    */
   @Override
   public String toString() {
-    return stringCache.getValue();
+    String str = stringMemo;
+    if (str == null) {
+      str = buildString();
+      stringMemo = str;
+    }
+    return str;
   }
 
   /**
@@ -337,7 +323,53 @@ public abstract class AbstractPacket implements Packet {
    */
   @Override
   public int hashCode() {
-    return hashCodeCache.getValue();
+    int hash = hashCodeMemo;
+    if (hash == 0) {
+      hash = calcHashCode();
+      hashCodeMemo = hash;
+    }
+    return hash;
+  }
+
+  private static final class LayerIndex {
+
+    // this packet and its payloads, outermost first
+    private final Packet[] layers;
+    private final long[] bits;
+    private final long mask;
+
+    private LayerIndex(Packet packet) {
+      int depth = 0;
+      for (Packet p = packet; p != null; p = p.getPayload()) {
+        depth++;
+      }
+
+      this.layers = new Packet[depth];
+      this.bits = new long[depth];
+      long m = 0;
+      int i = 0;
+      for (Packet p = packet; p != null; p = p.getPayload()) {
+        layers[i] = p;
+        bits[i] = PacketClassIndex.bitOf(p.getClass());
+        m |= bits[i];
+        i++;
+      }
+      this.mask = m;
+    }
+
+    private int indexOf(Class<?> clazz, int from) {
+      long query = PacketClassIndex.maskOf(clazz);
+      if ((mask & query) == 0) {
+        return -1;
+      }
+      for (int i = from; i < layers.length; i++) {
+        if ((bits[i] & query) != 0 && clazz.isInstance(layers[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
   }
 
   /**
@@ -399,62 +431,17 @@ public abstract class AbstractPacket implements Packet {
      */
     private static final long serialVersionUID = -8916517326403680608L;
 
-    private final LazyValue<Integer> lengthCache;
-    private final LazyValue<byte[]> rawDataCache;
-    private final LazyValue<String> hexStringCache;
-    private final LazyValue<String> stringCache;
-    private final LazyValue<Integer> hashCodeCache;
+    // Memoized values. See AbstractPacket.
+    private transient int lengthMemo;
+    private transient volatile byte[] rawDataMemo;
+    private transient volatile String hexStringMemo;
+    private transient volatile String stringMemo;
+    private transient int hashCodeMemo;
 
     /**
      *
      */
-    protected AbstractHeader() {
-      this.lengthCache
-        = new LazyValue<Integer>(
-            new BuildValueCommand<Integer>() {
-              @Override
-              public Integer buildValue() {
-                return calcLength();
-              }
-            }
-          );
-      this.rawDataCache
-        = new LazyValue<byte[]>(
-            new BuildValueCommand<byte[]>() {
-              @Override
-              public byte[] buildValue() {
-                return buildRawData();
-              }
-            }
-          );
-      this.hexStringCache
-        = new LazyValue<String>(
-            new BuildValueCommand<String>() {
-              @Override
-              public String buildValue() {
-                return buildHexString();
-              }
-            }
-          );
-      this.stringCache
-        = new LazyValue<String>(
-            new BuildValueCommand<String>() {
-              @Override
-              public String buildValue() {
-                return buildString();
-              }
-            }
-          );
-      this.hashCodeCache
-        = new LazyValue<Integer>(
-            new BuildValueCommand<Integer>() {
-              @Override
-              public Integer buildValue() {
-                return calcHashCode();
-              }
-            }
-          );
-    }
+    protected AbstractHeader() {}
 
     /**
      * Returns a list of byte arrays which represents this header's fields.
@@ -488,7 +475,12 @@ public abstract class AbstractPacket implements Packet {
      */
     @Override
     public int length() {
-      return lengthCache.getValue();
+      int len = lengthMemo;
+      if (len == 0) {
+        len = calcLength();
+        lengthMemo = len;
+      }
+      return len;
     }
 
     /**
@@ -512,7 +504,11 @@ public abstract class AbstractPacket implements Packet {
      */
     @Override
     public byte[] getRawData() {
-      byte[] rawData = rawDataCache.getValue();
+      byte[] rawData = rawDataMemo;
+      if (rawData == null) {
+        rawData = buildRawData();
+        rawDataMemo = rawData;
+      }
 
       byte[] copy = new byte[rawData.length];
       System.arraycopy(rawData, 0, copy, 0, copy.length);
@@ -540,7 +536,12 @@ public abstract class AbstractPacket implements Packet {
      * @return a hex string representation of this object
      */
     public String toHexString() {
-      return hexStringCache.getValue();
+      String hex = hexStringMemo;
+      if (hex == null) {
+        hex = buildHexString();
+        hexStringMemo = hex;
+      }
+      return hex;
     }
 
     /**
@@ -571,7 +572,12 @@ public abstract class AbstractPacket implements Packet {
      */
     @Override
     public String toString() {
-      return stringCache.getValue();
+      String str = stringMemo;
+      if (str == null) {
+        str = buildString();
+        stringMemo = str;
+      }
+      return str;
     }
 
 
@@ -607,7 +613,12 @@ public abstract class AbstractPacket implements Packet {
      */
     @Override
     public int hashCode() {
-      return hashCodeCache.getValue();
+      int hash = hashCodeMemo;
+      if (hash == 0) {
+        hash = calcHashCode();
+        hashCodeMemo = hash;
+      }
+      return hash;
     }
 
   }
@@ -8,6 +8,10 @@
 package org.pcap4j.packet;
 
 import static org.pcap4j.util.ByteArrays.*;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -117,9 +121,9 @@ public final class ArpPacket extends AbstractPacket {
       this.protocolAddrLength = packet.header.protocolAddrLength;
       this.operation = packet.header.operation;
       this.srcHardwareAddr = packet.header.srcHardwareAddr;
-      this.srcProtocolAddr = packet.header.srcProtocolAddr;
+      this.srcProtocolAddr = packet.header.getSrcProtocolAddr();
       this.dstHardwareAddr = packet.header.dstHardwareAddr;
-      this.dstProtocolAddr = packet.header.dstProtocolAddr;
+      this.dstProtocolAddr = packet.header.getDstProtocolAddr();
     }
 
     /**
@@ -309,9 +313,12 @@ public final class ArpPacket extends AbstractPacket {
     private final byte protocolAddrLength;
     private final ArpOperation operation;
     private final MacAddress srcHardwareAddr;
-    private final InetAddress srcProtocolAddr;
+    // InetAddress objects are created on demand and kept for the serialized form.
+    private InetAddress srcProtocolAddr;
     private final MacAddress dstHardwareAddr;
-    private final InetAddress dstProtocolAddr;
+    private InetAddress dstProtocolAddr;
+    private transient int srcProtocolAddrAsInt;
+    private transient int dstProtocolAddrAsInt;
 
     private ArpHeader(byte[] rawData, int offset, int length) throws IllegalRawDataException {
       if (length < ARP_HEADER_SIZE) {
@@ -319,7 +326,7 @@ public final class ArpPacket extends AbstractPacket {
         sb.append("The data is too short to build an ARP header(")
           .append(ARP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -342,23 +349,37 @@ public final class ArpPacket extends AbstractPacket {
             .getInstance(ByteArrays.getShort(rawData, OPERATION_OFFSET + offset));
       this.srcHardwareAddr
         = ByteArrays.getMacAddress(rawData, SRC_HARDWARE_ADDR_OFFSET + offset);
-      this.srcProtocolAddr
-        = ByteArrays.getInet4Address(rawData, SRC_PROTOCOL_ADDR_OFFSET + offset);
+      this.srcProtocolAddrAsInt
+        = ByteArrays.getInt(rawData, SRC_PROTOCOL_ADDR_OFFSET + offset);
       this.dstHardwareAddr
         = ByteArrays.getMacAddress(rawData, DST_HARDWARE_ADDR_OFFSET + offset);
-      this.dstProtocolAddr
-        = ByteArrays.getInet4Address(rawData, DST_PROTOCOL_ADDR_OFFSET + offset);
+      this.dstProtocolAddrAsInt
+        = ByteArrays.getInt(rawData, DST_PROTOCOL_ADDR_OFFSET + offset);
     }
 
     private ArpHeader(Builder builder) {
+      if (
+           !(builder.srcProtocolAddr instanceof Inet4Address)
+        || !(builder.dstProtocolAddr instanceof Inet4Address)
+      ) {
+        StringBuilder sb = new StringBuilder(100);
+        sb.append("Only IPv4 protocol addresses are supported. srcProtocolAddr: ")
+          .append(builder.srcProtocolAddr)
+          .append(" dstProtocolAddr: ")
+          .append(builder.dstProtocolAddr);
+        throw new IllegalArgumentException(sb.toString());
+      }
+
       this.hardwareType = builder.hardwareType;
       this.protocolType = builder.protocolType;
       this.hardwareAddrLength = builder.hardwareAddrLength;
       this.protocolAddrLength = builder.protocolAddrLength;
       this.operation = builder.operation;
       this.srcHardwareAddr = builder.srcHardwareAddr;
-      this.srcProtocolAddr = builder.srcProtocolAddr;
+      this.srcProtocolAddrAsInt = ByteArrays.getInt(builder.srcProtocolAddr.getAddress(), 0);
       this.dstHardwareAddr = builder.dstHardwareAddr;
+      this.dstProtocolAddrAsInt = ByteArrays.getInt(builder.dstProtocolAddr.getAddress(), 0);
+      this.srcProtocolAddr = builder.srcProtocolAddr;
       this.dstProtocolAddr = builder.dstProtocolAddr;
     }
 
@@ -431,7 +452,21 @@ public final class ArpPacket extends AbstractPacket {
      * @return srcProtocolAddr
      */
     public InetAddress getSrcProtocolAddr() {
-      return srcProtocolAddr;
+      InetAddress addr = srcProtocolAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet4Address(srcProtocolAddrAsInt);
+        srcProtocolAddr = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getSrcProtocolAddr()}, this method doesn't create an object.
+     *
+     * @return srcProtocolAddr as a big-endian int value.
+     */
+    public int getSrcProtocolAddrAsInt() {
+      return srcProtocolAddrAsInt;
     }
 
     /**
@@ -447,7 +482,21 @@ public final class ArpPacket extends AbstractPacket {
      * @return dstProtocolAddr
      */
     public InetAddress getDstProtocolAddr() {
-      return dstProtocolAddr;
+      InetAddress addr = dstProtocolAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet4Address(dstProtocolAddrAsInt);
+        dstProtocolAddr = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getDstProtocolAddr()}, this method doesn't create an object.
+     *
+     * @return dstProtocolAddr as a big-endian int value.
+     */
+    public int getDstProtocolAddrAsInt() {
+      return dstProtocolAddrAsInt;
     }
 
     @Override
@@ -459,9 +508,9 @@ public final class ArpPacket extends AbstractPacket {
       rawFields.add(ByteArrays.toByteArray(protocolAddrLength));
       rawFields.add(ByteArrays.toByteArray(operation.value()));
       rawFields.add(ByteArrays.toByteArray(srcHardwareAddr));
-      rawFields.add(ByteArrays.toByteArray(srcProtocolAddr));
+      rawFields.add(ByteArrays.toByteArray(getSrcProtocolAddr()));
       rawFields.add(ByteArrays.toByteArray(dstHardwareAddr));
-      rawFields.add(ByteArrays.toByteArray(dstProtocolAddr));
+      rawFields.add(ByteArrays.toByteArray(getDstProtocolAddr()));
       return rawFields;
     }
 
@@ -498,13 +547,13 @@ public final class ArpPacket extends AbstractPacket {
         .append(srcHardwareAddr)
         .append(ls);
       sb.append("  Source protocol address: ")
-        .append(srcProtocolAddr)
+        .append(getSrcProtocolAddr())
         .append(ls);
       sb.append("  Destination hardware address: ")
         .append(dstHardwareAddr)
         .append(ls);
       sb.append("  Destination protocol address: ")
-        .append(dstProtocolAddr)
+        .append(getDstProtocolAddr())
         .append(ls);
 
       return sb.toString();
@@ -519,9 +568,9 @@ public final class ArpPacket extends AbstractPacket {
       return
            operation.equals(other.getOperation())
         && srcHardwareAddr.equals(other.srcHardwareAddr)
-        && srcProtocolAddr.equals(other.srcProtocolAddr)
+        && srcProtocolAddrAsInt == other.srcProtocolAddrAsInt
         && dstHardwareAddr.equals(other.dstHardwareAddr)
-        && dstProtocolAddr.equals(other.dstProtocolAddr)
+        && dstProtocolAddrAsInt == other.dstProtocolAddrAsInt
         && hardwareType.equals(other.hardwareType)
         && protocolType.equals(other.protocolType)
         && hardwareAddrLength == other.hardwareAddrLength
@@ -537,12 +586,24 @@ public final class ArpPacket extends AbstractPacket {
       result = 31 * result + protocolAddrLength;
       result = 31 * result + operation.hashCode();
       result = 31 * result + srcHardwareAddr.hashCode();
-      result = 31 * result + srcProtocolAddr.hashCode();
+      result = 31 * result + srcProtocolAddrAsInt;
       result = 31 * result + dstHardwareAddr.hashCode();
-      result = 31 * result + dstProtocolAddr.hashCode();
+      result = 31 * result + dstProtocolAddrAsInt;
       return result;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      getSrcProtocolAddr();
+      getDstProtocolAddr();
+      out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      srcProtocolAddrAsInt = ByteArrays.getInt(srcProtocolAddr.getAddress(), 0);
+      dstProtocolAddrAsInt = ByteArrays.getInt(dstProtocolAddr.getAddress(), 0);
+    }
+
   }
 
 }
@@ -184,7 +184,7 @@ public final class BsdLoopbackPacket extends AbstractPacket {
         sb.append("The data is too short to build a BSD loopback header(")
           .append(BSD_LOOPBACK_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -48,6 +48,12 @@ public final class DnsDomainName implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(DnsDomainName.class);
 
+  private static final int MAX_NAME_LENGTH = 255;
+  private static final int MAX_POINTERS = 64;
+  private static final int COPY = 0;
+  private static final int COPY_LOWER_CASE = 1;
+  private static final int COMPARE_LOWER_CASE = 2;
+
   /**
    * The root domain (zero)
    */
@@ -103,7 +109,7 @@ public final class DnsDomainName implements Serializable {
         if (length - cursor < len) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build a DnsDomainName. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -121,7 +127,7 @@ public final class DnsDomainName implements Serializable {
         if (length - cursor < SHORT_SIZE_IN_BYTES) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build a DnsDomainName. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -138,7 +144,7 @@ public final class DnsDomainName implements Serializable {
       else {
         StringBuilder sb = new StringBuilder(200);
         sb.append("A label must start with 00 or 11. data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -151,7 +157,7 @@ public final class DnsDomainName implements Serializable {
     if (!terminated) {
       StringBuilder sb = new StringBuilder(200);
       sb.append("No null termination nor pointer. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -287,6 +293,150 @@ public final class DnsDomainName implements Serializable {
     }
   }
 
+  /**
+   * Resolves the domain name at the given offset in a DNS message, following compression
+   * pointers, into an uncompressed, byte-encoded name (a sequence of labels terminated by
+   * a zero length octet), which can be passed to
+   * {@link #newInstance(byte[], int, int)} to get a DnsDomainName without a pointer.
+   *
+   * @param message a byte array which contains the DNS message (i.e. the DNS header).
+   * @param messageOffset the offset of the DNS message in the array.
+   * @param messageLength the length of the DNS message.
+   * @param nameOffset the offset of the domain name from the start of the DNS message.
+   * @return a new byte array of the resolved name.
+   * @throws IllegalRawDataException if the name is malformed, too long, or a pointer loop
+   *                                 is detected.
+   */
+  public static byte[] resolve(
+    byte[] message, int messageOffset, int messageLength, int nameOffset
+  ) throws IllegalRawDataException {
+    int len = (int) scan(message, messageOffset, messageLength, nameOffset);
+    byte[] resolved = new byte[len];
+    walk(message, messageOffset, nameOffset, resolved, COPY);
+    return resolved;
+  }
+
+  /**
+   * Scans a name and returns (hash &lt;&lt; 32) | (resolved length).
+   * The hash is calculated over the lower-cased resolved name.
+   */
+  private static long scan(
+    byte[] message, int messageOffset, int messageLength, int nameOffset
+  ) throws IllegalRawDataException {
+    if (message == null) {
+      throw new NullPointerException("message must not be null.");
+    }
+    if (
+         messageOffset < 0
+      || messageLength < 0
+      || messageOffset + messageLength > message.length
+      || nameOffset < 0
+    ) {
+      StringBuilder sb = new StringBuilder(100);
+      sb.append("message.length: ").append(message.length)
+        .append(", messageOffset: ").append(messageOffset)
+        .append(", messageLength: ").append(messageLength)
+        .append(", nameOffset: ").append(nameOffset);
+      throw new ArrayIndexOutOfBoundsException(sb.toString());
+    }
+
+    int hash = 1;
+    int len = 0;
+    int pointers = 0;
+    int cursor = nameOffset;
+    while (true) {
+      if (cursor >= messageLength) {
+        throw new IllegalRawDataException(
+                "The data is too short to resolve a DnsDomainName. cursor: " + cursor
+              );
+      }
+      int labelLen = message[messageOffset + cursor] & 0xFF;
+      int flag = labelLen & 0xC0;
+      if (flag == 0xC0) {
+        if (cursor + 1 >= messageLength) {
+          throw new IllegalRawDataException(
+                  "The data is too short to resolve a pointer. cursor: " + cursor
+                );
+        }
+        if (++pointers > MAX_POINTERS) {
+          throw new IllegalRawDataException(
+                  "Too many pointers, possibly a loop. nameOffset: " + nameOffset
+                );
+        }
+        cursor = getShort(message, messageOffset + cursor) & 0x3FFF;
+        continue;
+      }
+      else if (flag != 0x00) {
+        throw new IllegalRawDataException(
+                "A label must start with 00 or 11. cursor: " + cursor
+              );
+      }
+
+      len += labelLen + 1;
+      if (len > MAX_NAME_LENGTH) {
+        throw new IllegalRawDataException(
+                "The name is too long. nameOffset: " + nameOffset
+              );
+      }
+      hash = 31 * hash + labelLen;
+      if (labelLen == 0) {
+        return ((long) hash << 32) | len;
+      }
+      if (cursor + 1 + labelLen > messageLength) {
+        throw new IllegalRawDataException(
+                "The data is too short to resolve a label. cursor: " + cursor
+              );
+      }
+      for (int i = messageOffset + cursor + 1, end = i + labelLen; i < end; i++) {
+        hash = 31 * hash + toLowerCase(message[i]);
+      }
+      cursor += labelLen + 1;
+    }
+  }
+
+  /**
+   * Walks a name which has been validated by {@link #scan(byte[], int, int, int)},
+   * copying it to or comparing it with the target.
+   */
+  private static boolean walk(
+    byte[] message, int messageOffset, int nameOffset, byte[] target, int mode
+  ) {
+    int cursor = nameOffset;
+    int t = 0;
+    while (true) {
+      int labelLen = message[messageOffset + cursor] & 0xFF;
+      if ((labelLen & 0xC0) == 0xC0) {
+        cursor = getShort(message, messageOffset + cursor) & 0x3FFF;
+        continue;
+      }
+      int end = messageOffset + cursor + 1 + labelLen;
+      for (int i = messageOffset + cursor; i < end; i++) {
+        byte b = message[i];
+        switch (mode) {
+          case COPY:
+            target[t++] = b;
+            break;
+          case COPY_LOWER_CASE:
+            target[t++] = toLowerCase(b);
+            break;
+          default:
+            if (target[t++] != toLowerCase(b)) {
+              return false;
+            }
+            break;
+        }
+      }
+      if (labelLen == 0) {
+        return true;
+      }
+      cursor += labelLen + 1;
+    }
+  }
+
+  private static byte toLowerCase(byte b) {
+    return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+  }
+
   /**
    *
    * @return a new Builder object populated with this object's fields.
@@ -422,6 +572,203 @@ public final class DnsDomainName implements Serializable {
     return true;
   }
 
+  /**
+   * A bounded LRU cache of canonical (lower-cased and dotted, e.g. "www.example.com")
+   * domain names, keyed by their resolved byte-encoded forms.
+   * {@link #get(byte[], int, int, int) get()} resolves a name in a DNS message and returns
+   * the String cached for it, so that a repeated name costs a scan and a hash probe
+   * without allocating any objects.
+   * <p>
+   * This class is thread-safe.
+   * </p>
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class NameCache {
+
+    private final int capacity;
+    private final int mask;
+    // the index of the first entry + 1 in each bucket, or 0.
+    private final int[] buckets;
+    private final int[] chains;
+    private final int[] hashes;
+    private final byte[][] keys;
+    private final String[] names;
+    // doubly linked LRU list; head is the most recently used.
+    private final int[] prevs;
+    private final int[] nexts;
+    private int head = -1;
+    private int tail = -1;
+    private int size = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * @param capacity the maximum number of names to cache.
+     */
+    public NameCache(int capacity) {
+      if (capacity <= 0 || capacity > (1 << 28)) {
+        throw new IllegalArgumentException("capacity: " + capacity);
+      }
+      this.capacity = capacity;
+      int bucketCount = Integer.highestOneBit(capacity) << 1;
+      this.mask = bucketCount - 1;
+      this.buckets = new int[bucketCount];
+      this.chains = new int[capacity];
+      this.hashes = new int[capacity];
+      this.keys = new byte[capacity][];
+      this.names = new String[capacity];
+      this.prevs = new int[capacity];
+      this.nexts = new int[capacity];
+    }
+
+    /**
+     * @param message a byte array which contains the DNS message (i.e. the DNS header).
+     * @param messageOffset the offset of the DNS message in the array.
+     * @param messageLength the length of the DNS message.
+     * @param nameOffset the offset of the domain name from the start of the DNS message.
+     * @return the canonical name. An empty string for the root domain.
+     * @throws IllegalRawDataException if the name is malformed, too long, or a pointer loop
+     *                                 is detected.
+     */
+    public synchronized String get(
+      byte[] message, int messageOffset, int messageLength, int nameOffset
+    ) throws IllegalRawDataException {
+      long scanned = scan(message, messageOffset, messageLength, nameOffset);
+      int hash = (int) (scanned >>> 32);
+      int len = (int) scanned;
+
+      for (int idx = buckets[hash & mask] - 1; idx >= 0; idx = chains[idx] - 1) {
+        if (
+             hashes[idx] == hash
+          && keys[idx].length == len
+          && walk(message, messageOffset, nameOffset, keys[idx], COMPARE_LOWER_CASE)
+        ) {
+          hitCount++;
+          moveToHead(idx);
+          return names[idx];
+        }
+      }
+
+      missCount++;
+      byte[] key = new byte[len];
+      walk(message, messageOffset, nameOffset, key, COPY_LOWER_CASE);
+      int idx;
+      if (size < capacity) {
+        idx = size++;
+      }
+      else {
+        idx = tail;
+        unlink(idx);
+        removeFromBucket(idx);
+      }
+      hashes[idx] = hash;
+      keys[idx] = key;
+      names[idx] = toName(key);
+      int bucket = hash & mask;
+      chains[idx] = buckets[bucket];
+      buckets[bucket] = idx + 1;
+      linkAtHead(idx);
+      return names[idx];
+    }
+
+    private static String toName(byte[] key) {
+      if (key.length == 1) {
+        return "";
+      }
+      char[] chars = new char[key.length - 2];
+      int c = 0;
+      int cursor = 0;
+      while (true) {
+        int labelLen = key[cursor] & 0xFF;
+        if (labelLen == 0) {
+          break;
+        }
+        if (c != 0) {
+          chars[c++] = '.';
+        }
+        for (int i = cursor + 1; i <= cursor + labelLen; i++) {
+          chars[c++] = (char) (key[i] & 0xFF);
+        }
+        cursor += labelLen + 1;
+      }
+      return new String(chars, 0, c);
+    }
+
+    private void removeFromBucket(int idx) {
+      int bucket = hashes[idx] & mask;
+      if (buckets[bucket] == idx + 1) {
+        buckets[bucket] = chains[idx];
+        return;
+      }
+      for (int i = buckets[bucket] - 1; i >= 0; i = chains[i] - 1) {
+        if (chains[i] == idx + 1) {
+          chains[i] = chains[idx];
+          return;
+        }
+      }
+    }
+
+    private void moveToHead(int idx) {
+      if (idx != head) {
+        unlink(idx);
+        linkAtHead(idx);
+      }
+    }
+
+    private void unlink(int idx) {
+      int prev = prevs[idx];
+      int next = nexts[idx];
+      if (prev >= 0) {
+        nexts[prev] = next;
+      }
+      else {
+        head = next;
+      }
+      if (next >= 0) {
+        prevs[next] = prev;
+      }
+      else {
+        tail = prev;
+      }
+    }
+
+    private void linkAtHead(int idx) {
+      prevs[idx] = -1;
+      nexts[idx] = head;
+      if (head >= 0) {
+        prevs[head] = idx;
+      }
+      head = idx;
+      if (tail < 0) {
+        tail = idx;
+      }
+    }
+
+    /**
+     * @return the number of names cached.
+     */
+    public synchronized int size() {
+      return size;
+    }
+
+    /**
+     * @return the number of lookups which found their names in this cache.
+     */
+    public synchronized long getHitCount() {
+      return hitCount;
+    }
+
+    /**
+     * @return the number of lookups which didn't find their names in this cache.
+     */
+    public synchronized long getMissCount() {
+      return missCount;
+    }
+
+  }
+
   /**
    * @author Kaito Yamada
    * @since pcap4j 1.7.1
@@ -412,7 +412,7 @@ public final class DnsPacket extends AbstractPacket {
         sb.append("The data is too short to build a DnsHeader (")
           .append(DNS_MIN_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -452,7 +452,7 @@ public final class DnsPacket extends AbstractPacket {
         if (remainingLen == 0) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build a question in DnsHeader. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -471,7 +471,7 @@ public final class DnsPacket extends AbstractPacket {
         if (remainingLen == 0) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build an answer in DnsHeader. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -490,7 +490,7 @@ public final class DnsPacket extends AbstractPacket {
         if (remainingLen == 0) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build an authority in DnsHeader. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -509,7 +509,7 @@ public final class DnsPacket extends AbstractPacket {
         if (remainingLen == 0) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("The data is too short to build additional info in DnsHeader. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
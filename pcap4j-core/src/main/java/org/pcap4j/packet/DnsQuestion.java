@@ -75,7 +75,7 @@ public final class DnsQuestion implements Serializable {
     if (length - cursor < SHORT_SIZE_IN_BYTES * 2) {
       StringBuilder sb = new StringBuilder(200);
       sb.append("The data is too short to build qType an qClass of DnsQuestion. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -66,7 +66,7 @@ public final class DnsRDataA implements DnsRData {
       sb.append("The data is too short to build a DnsRDataA (Min: ")
         .append(INET4_ADDRESS_SIZE_IN_BYTES)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -88,7 +88,7 @@ public final class DnsRDataA implements DnsRData {
         sb.append("Couldn't get an Inet4Address from ")
           .append(addr)
           .append(". data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -64,7 +64,7 @@ public final class DnsRDataAaaa implements DnsRData {
       sb.append("The data is too short to build a DnsRDataAaaa (")
         .append(INET6_ADDRESS_SIZE_IN_BYTES)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -74,7 +74,7 @@ public final class DnsRDataCaa implements DnsRData {
       sb.append("The data is too short to build a DnsRDataCaa (Min: ")
         .append(CAA_RR_MIN_LEN)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -96,7 +96,7 @@ public final class DnsRDataCaa implements DnsRData {
       sb.append("The data is too short to build a DnsRDataCaa (Tag Length: ")
         .append(tagLen)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -66,7 +66,7 @@ public final class DnsRDataHInfo implements DnsRData {
     if (cpuLen + 1 > length - cursor) {
       StringBuilder sb = new StringBuilder(200);
       sb.append("The data is too short to build cpu and os in DnsRDataHInfo. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -85,7 +85,7 @@ public final class DnsRDataHInfo implements DnsRData {
       sb.append("The data is too short to build os in DnsRDataHInfo (")
         .append(osLen)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -77,7 +77,7 @@ public final class DnsRDataMInfo implements DnsRData {
     if (rMailBxLen == length) {
       StringBuilder sb = new StringBuilder(200);
       sb.append("The data is too short to build eMailBx in DnsRDataMInfo. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
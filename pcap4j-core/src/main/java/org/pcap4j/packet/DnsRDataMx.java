@@ -71,7 +71,7 @@ public final class DnsRDataMx implements DnsRData {
       sb.append("The data is too short to build a DnsRDataMx (")
         .append(SHORT_SIZE_IN_BYTES + 1)
         .append(" bytes at least). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -110,7 +110,7 @@ public final class DnsRDataSoa implements DnsRData {
     if (cursor == length) {
       StringBuilder sb = new StringBuilder(200);
       sb.append("The data is too short to build rName in DnsRDataSoa. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -129,7 +129,7 @@ public final class DnsRDataSoa implements DnsRData {
            "The data is too short to build serial, refresh, retry, expire, and minimum"
              + "in DnsRDataSoa. data: "
          )
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -66,7 +66,7 @@ public final class DnsRDataTxt implements DnsRData {
       if (txtLen > length - cursor) {
         StringBuilder sb = new StringBuilder(200);
         sb.append("The data is too short to build a txt in DnsRDataTxt. data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
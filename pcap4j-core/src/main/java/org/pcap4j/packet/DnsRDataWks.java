@@ -84,7 +84,7 @@ public final class DnsRDataWks implements DnsRData {
       sb.append("The data is too short to build a DnsRDataWks (")
         .append(INET4_ADDRESS_SIZE_IN_BYTES + BYTE_SIZE_IN_BYTES)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -91,7 +91,7 @@ public final class DnsResourceRecord implements Serializable {
            "The data is too short to build type, class, ttl, and rdlength of DnsResourceRecord. "
              + "data: "
          )
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -120,7 +120,7 @@ public final class DnsResourceRecord implements Serializable {
       sb.append("The data is too short to build rData of DnsResourceRecord (")
         .append(rdLen)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
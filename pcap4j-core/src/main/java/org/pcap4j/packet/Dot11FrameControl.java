@@ -73,7 +73,7 @@ public final class Dot11FrameControl implements Serializable {
       sb.append("The data is too short to build a Dot11FrameControl (")
         .append(2)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
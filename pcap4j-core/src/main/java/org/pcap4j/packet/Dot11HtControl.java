@@ -82,7 +82,7 @@ public final class Dot11HtControl implements Serializable {
       sb.append("The data is too short to build a Dot11HtControl (")
         .append(2)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
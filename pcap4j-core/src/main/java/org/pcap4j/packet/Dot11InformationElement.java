@@ -10,7 +10,6 @@ package org.pcap4j.packet;
 import java.io.Serializable;
 
 import org.pcap4j.packet.namednumber.Dot11InformationElementId;
-import org.pcap4j.util.ByteArrays;
 
 /**
  * IEEE802.11 Information element
@@ -49,7 +48,7 @@ public abstract class Dot11InformationElement implements Serializable {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -63,7 +62,7 @@ public abstract class Dot11InformationElement implements Serializable {
         .append(" but is actually ")
         .append(rawData[offset])
         .append(". rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -79,7 +78,7 @@ public abstract class Dot11InformationElement implements Serializable {
       sb.append("rawData is too short. length field: ")
         .append(lenAsInt)
         .append(", rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
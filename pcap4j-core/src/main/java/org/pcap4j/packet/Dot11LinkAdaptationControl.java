@@ -74,7 +74,7 @@ public final class Dot11LinkAdaptationControl implements Serializable {
       sb.append("The data is too short to build a Dot11LinkAdaptationControl (")
         .append(2)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
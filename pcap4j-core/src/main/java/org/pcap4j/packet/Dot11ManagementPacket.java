@@ -351,7 +351,7 @@ public abstract class Dot11ManagementPacket extends AbstractPacket {
         sb.append("The data is too short to build a Dot11ManagementHeader (")
           .append(DOT11_HEADER_MIN_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -378,7 +378,7 @@ public abstract class Dot11ManagementPacket extends AbstractPacket {
           sb.append("The data is too short to build a Dot11ManagementHeader (")
             .append(DOT11_HEADER_MIN_SIZE + HT_CONTROL_SIZE)
             .append(" bytes). data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -65,7 +65,7 @@ public final class Dot11SequenceControl implements Serializable {
       sb.append("The data is too short to build a Dot11SequenceControl (")
         .append(2)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
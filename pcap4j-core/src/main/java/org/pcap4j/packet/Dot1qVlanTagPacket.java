@@ -220,7 +220,7 @@ public final class Dot1qVlanTagPacket extends AbstractPacket {
         sb.append("The data is too short to build an IEEE802.1Q Tag header(")
           .append(DOT1Q_TAG_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -386,7 +386,7 @@ public final class EthernetPacket extends AbstractPacket {
         sb.append("The data is too short to build an Ethernet header(")
           .append(ETHERNET_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
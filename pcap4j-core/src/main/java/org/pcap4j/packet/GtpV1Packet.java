@@ -404,7 +404,7 @@ public final class GtpV1Packet extends AbstractPacket {
         sb.append("The data is too short to build a GTPv1 header(")
           .append(GTP_V1_HEADER_MIM_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -430,7 +430,7 @@ public final class GtpV1Packet extends AbstractPacket {
           sb.append("The data is too short to build a GTPv1 header(")
             .append(GTP_V1_HEADER_MAX_SIZE)
             .append(" bytes). data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -180,7 +180,7 @@ public class HdlcPppPacket extends AbstractPppPacket {
         sb.append("The data is too short to build an HDLC PPP header(")
           .append(HDLC_PPP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
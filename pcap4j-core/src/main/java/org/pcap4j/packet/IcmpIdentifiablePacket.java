@@ -118,7 +118,7 @@ abstract class IcmpIdentifiablePacket extends AbstractPacket {
           .append("(")
           .append(ICMP_IDENTIFIABLE_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
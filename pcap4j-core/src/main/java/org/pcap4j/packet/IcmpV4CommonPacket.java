@@ -246,7 +246,7 @@ public final class IcmpV4CommonPacket extends AbstractPacket {
         sb.append("The data is too short to build an ICMPv4 common header(")
           .append(ICMPV4_COMMON_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -171,7 +171,7 @@ public final class IcmpV4ParameterProblemPacket extends IcmpV4InvokingPacketPack
            )
           .append(ICMPV4_PARAMETER_PROBLEM_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -165,7 +165,7 @@ public final class IcmpV4RedirectPacket extends IcmpV4InvokingPacketPacket {
         sb.append("The data is too short to build an ICMPv4 Redirect Header(")
           .append(ICMPV4_REDIRECT_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
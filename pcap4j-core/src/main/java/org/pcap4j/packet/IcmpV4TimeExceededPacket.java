@@ -158,7 +158,7 @@ public final class IcmpV4TimeExceededPacket extends IcmpV4InvokingPacketPacket {
         sb.append("The data is too short to build an ICMPv4 Time Exceeded Header(")
           .append(ICMPV4_TIME_EXCEEDED_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -190,7 +190,7 @@ public final class IcmpV4TimestampPacket extends IcmpIdentifiablePacket {
           .append("(")
           .append(ICMPV4_TIMESTAMP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -304,7 +304,7 @@ public final class IcmpV6CommonPacket extends AbstractPacket {
         sb.append("The data is too short to build an ICMPv6 common header(")
           .append(ICMPV6_COMMON_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
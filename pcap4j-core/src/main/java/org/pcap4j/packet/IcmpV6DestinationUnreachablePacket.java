@@ -160,7 +160,7 @@ extends IcmpV6InvokingPacketPacket {
         sb.append("The data is too short to build an ICMPv6 Destination Unreachable Header(")
           .append(ICMPV6_DESTINATION_UNREACHABLE_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
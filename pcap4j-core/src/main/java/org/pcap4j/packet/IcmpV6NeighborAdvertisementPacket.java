@@ -8,6 +8,9 @@
 package org.pcap4j.packet;
 
 import static org.pcap4j.util.ByteArrays.*;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.Inet6Address;
 import java.util.ArrayList;
 import java.util.List;
@@ -102,7 +105,7 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
       this.solicitedFlag = packet.header.solicitedFlag; // S field
       this.overrideFlag = packet.header.overrideFlag; // O field
       this.reserved = packet.header.reserved;
-      this.targetAddress = packet.header.targetAddress;
+      this.targetAddress = packet.header.getTargetAddress();
       this.options = packet.header.options;
     }
 
@@ -219,7 +222,10 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
     private final boolean solicitedFlag; // S field
     private final boolean overrideFlag; // O field
     private final int reserved;
-    private final Inet6Address targetAddress;
+    // The Inet6Address object is created on demand and kept for the serialized form.
+    private Inet6Address targetAddress;
+    private transient long targetAddressHigh;
+    private transient long targetAddressLow;
     private final List<IpV6NeighborDiscoveryOption> options;
 
     private IcmpV6NeighborAdvertisementHeader(
@@ -230,7 +236,7 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
         sb.append("The raw data must be more than ")
           .append(OPTIONS_OFFSET - 1).append("bytes")
           .append(" to build this header. raw data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -243,7 +249,8 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
       this.solicitedFlag = (tmp & 0x40000000) != 0;
       this.overrideFlag = (tmp & 0x20000000) != 0;
       this.reserved = 0x1FFFFFFF & tmp;
-      this.targetAddress = ByteArrays.getInet6Address(rawData, TARGET_ADDRESS_OFFSET + offset);
+      this.targetAddressHigh = ByteArrays.getLong(rawData, TARGET_ADDRESS_OFFSET + offset);
+      this.targetAddressLow = ByteArrays.getLong(rawData, TARGET_ADDRESS_OFFSET + 8 + offset);
       this.options = new ArrayList<IpV6NeighborDiscoveryOption>();
       int currentOffsetInHeader = OPTIONS_OFFSET;
       while (currentOffsetInHeader < length) {
@@ -282,6 +289,9 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
       this.solicitedFlag = builder.solicitedFlag;
       this.overrideFlag = builder.overrideFlag;
       this.reserved = builder.reserved;
+      byte[] target = builder.targetAddress.getAddress();
+      this.targetAddressHigh = ByteArrays.getLong(target, 0);
+      this.targetAddressLow = ByteArrays.getLong(target, 8);
       this.targetAddress = builder.targetAddress;
       this.options = new ArrayList<IpV6NeighborDiscoveryOption>(builder.options);
     }
@@ -323,7 +333,30 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
      * @return targetAddress
      */
     public Inet6Address getTargetAddress() {
-      return targetAddress;
+      Inet6Address addr = targetAddress;
+      if (addr == null) {
+        addr = ByteArrays.toInet6Address(targetAddressHigh, targetAddressLow);
+        targetAddress = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getTargetAddress()}, this method doesn't create an object.
+     *
+     * @return the upper 64 bits of targetAddress.
+     */
+    public long getTargetAddressHigh() {
+      return targetAddressHigh;
+    }
+
+    /**
+     * Unlike {@link #getTargetAddress()}, this method doesn't create an object.
+     *
+     * @return the lower 64 bits of targetAddress.
+     */
+    public long getTargetAddressLow() {
+      return targetAddressLow;
     }
 
     /**
@@ -348,7 +381,8 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
         tmp |= 0x20000000;
       }
       rawFields.add(ByteArrays.toByteArray(tmp));
-      rawFields.add(ByteArrays.toByteArray(targetAddress));
+      rawFields.add(ByteArrays.toByteArray(targetAddressHigh));
+      rawFields.add(ByteArrays.toByteArray(targetAddressLow));
       for (IpV6NeighborDiscoveryOption o: options) {
         rawFields.add(o.getRawData());
       }
@@ -386,7 +420,7 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
         .append(reserved)
         .append(ls);
       sb.append("  Target Address: ")
-        .append(targetAddress)
+        .append(getTargetAddress())
         .append(ls);
       for (IpV6NeighborDiscoveryOption opt: options) {
         sb.append("  Option: ")
@@ -404,7 +438,8 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
 
       IcmpV6NeighborAdvertisementHeader other = (IcmpV6NeighborAdvertisementHeader)obj;
       return
-           targetAddress.equals(other.targetAddress)
+           targetAddressHigh == other.targetAddressHigh
+        && targetAddressLow == other.targetAddressLow
         && routerFlag == other.routerFlag
         && solicitedFlag == other.solicitedFlag
         && overrideFlag == other.overrideFlag
@@ -419,11 +454,24 @@ public final class IcmpV6NeighborAdvertisementPacket extends AbstractPacket {
       result = 31 * result + (solicitedFlag ? 1231 : 1237);
       result = 31 * result + (overrideFlag ? 1231 : 1237);
       result = 31 * result + reserved;
-      result = 31 * result + targetAddress.hashCode();
+      result = 31 * result + (int) (targetAddressHigh ^ (targetAddressHigh >>> 32));
+      result = 31 * result + (int) (targetAddressLow ^ (targetAddressLow >>> 32));
       result = 31 * result + options.hashCode();
       return result;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      getTargetAddress();
+      out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      byte[] target = targetAddress.getAddress();
+      targetAddressHigh = ByteArrays.getLong(target, 0);
+      targetAddressLow = ByteArrays.getLong(target, 8);
+    }
+
   }
 
 }
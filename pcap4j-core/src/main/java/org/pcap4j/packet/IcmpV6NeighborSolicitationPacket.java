@@ -8,6 +8,9 @@
 package org.pcap4j.packet;
 
 import static org.pcap4j.util.ByteArrays.*;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.Inet6Address;
 import java.util.ArrayList;
 import java.util.List;
@@ -96,7 +99,7 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
 
     private Builder(IcmpV6NeighborSolicitationPacket packet) {
       this.reserved = packet.header.reserved;
-      this.targetAddress = packet.header.targetAddress;
+      this.targetAddress = packet.header.getTargetAddress();
       this.options = packet.header.options;
     }
 
@@ -180,7 +183,10 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
       = TARGET_ADDRESS_OFFSET + TARGET_ADDRESS_SIZE;
 
     private final int reserved;
-    private final Inet6Address targetAddress;
+    // The Inet6Address object is created on demand and kept for the serialized form.
+    private Inet6Address targetAddress;
+    private transient long targetAddressHigh;
+    private transient long targetAddressLow;
     private final List<IpV6NeighborDiscoveryOption> options;
 
     private IcmpV6NeighborSolicitationHeader(
@@ -191,7 +197,7 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
         sb.append("The raw data must be more than ")
           .append(OPTIONS_OFFSET - 1).append("bytes")
           .append(" to build this header. raw data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -200,7 +206,8 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
       }
 
       this.reserved = ByteArrays.getInt(rawData, RESERVED_OFFSET + offset);
-      this.targetAddress = ByteArrays.getInet6Address(rawData, TARGET_ADDRESS_OFFSET + offset);
+      this.targetAddressHigh = ByteArrays.getLong(rawData, TARGET_ADDRESS_OFFSET + offset);
+      this.targetAddressLow = ByteArrays.getLong(rawData, TARGET_ADDRESS_OFFSET + 8 + offset);
       this.options = new ArrayList<IpV6NeighborDiscoveryOption>();
       int currentOffsetInHeader = OPTIONS_OFFSET;
       while (currentOffsetInHeader < length) {
@@ -230,6 +237,9 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
 
     private IcmpV6NeighborSolicitationHeader(Builder builder) {
       this.reserved = builder.reserved;
+      byte[] target = builder.targetAddress.getAddress();
+      this.targetAddressHigh = ByteArrays.getLong(target, 0);
+      this.targetAddressLow = ByteArrays.getLong(target, 8);
       this.targetAddress = builder.targetAddress;
       this.options = new ArrayList<IpV6NeighborDiscoveryOption>(builder.options);
     }
@@ -247,7 +257,30 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
      * @return targetAddress
      */
     public Inet6Address getTargetAddress() {
-      return targetAddress;
+      Inet6Address addr = targetAddress;
+      if (addr == null) {
+        addr = ByteArrays.toInet6Address(targetAddressHigh, targetAddressLow);
+        targetAddress = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getTargetAddress()}, this method doesn't create an object.
+     *
+     * @return the upper 64 bits of targetAddress.
+     */
+    public long getTargetAddressHigh() {
+      return targetAddressHigh;
+    }
+
+    /**
+     * Unlike {@link #getTargetAddress()}, this method doesn't create an object.
+     *
+     * @return the lower 64 bits of targetAddress.
+     */
+    public long getTargetAddressLow() {
+      return targetAddressLow;
     }
 
     /**
@@ -262,7 +295,8 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
     protected List<byte[]> getRawFields() {
       List<byte[]> rawFields = new ArrayList<byte[]>();
       rawFields.add(ByteArrays.toByteArray(reserved));
-      rawFields.add(ByteArrays.toByteArray(targetAddress));
+      rawFields.add(ByteArrays.toByteArray(targetAddressHigh));
+      rawFields.add(ByteArrays.toByteArray(targetAddressLow));
       for (IpV6NeighborDiscoveryOption o: options) {
         rawFields.add(o.getRawData());
       }
@@ -291,7 +325,7 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
         .append(reserved)
         .append(ls);
       sb.append("  Target Address: ")
-        .append(targetAddress)
+        .append(getTargetAddress())
         .append(ls);
       for (IpV6NeighborDiscoveryOption opt: options) {
         sb.append("  Option: ")
@@ -309,7 +343,8 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
 
       IcmpV6NeighborSolicitationHeader other = (IcmpV6NeighborSolicitationHeader)obj;
       return
-           targetAddress.equals(other.targetAddress)
+           targetAddressHigh == other.targetAddressHigh
+        && targetAddressLow == other.targetAddressLow
         && reserved == other.reserved
         && options.equals(other.options);
     }
@@ -318,11 +353,24 @@ public final class IcmpV6NeighborSolicitationPacket extends AbstractPacket {
     protected int calcHashCode() {
       int result = 17;
       result = 31 * result + reserved;
-      result = 31 * result + targetAddress.hashCode();
+      result = 31 * result + (int) (targetAddressHigh ^ (targetAddressHigh >>> 32));
+      result = 31 * result + (int) (targetAddressLow ^ (targetAddressLow >>> 32));
       result = 31 * result + options.hashCode();
       return result;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      getTargetAddress();
+      out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      byte[] target = targetAddress.getAddress();
+      targetAddressHigh = ByteArrays.getLong(target, 0);
+      targetAddressLow = ByteArrays.getLong(target, 8);
+    }
+
   }
 
 }
@@ -158,7 +158,7 @@ public final class IcmpV6PacketTooBigPacket extends IcmpV6InvokingPacketPacket {
         sb.append("The data is too short to build an ICMPv6 Packet Too Big Header(")
           .append(ICMPV6_PACKET_TOO_BIG_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -160,7 +160,7 @@ extends IcmpV6InvokingPacketPacket {
         sb.append("The data is too short to build an ICMPv6 Parameter Problem Header(")
           .append(ICMPV6_PARAMETER_PROBLEM_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -218,7 +218,7 @@ public final class IcmpV6RedirectPacket extends AbstractPacket {
         sb.append("The raw data must be more than ")
           .append(OPTIONS_OFFSET - 1).append("bytes")
           .append(" to build this header. raw data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -7,7 +7,10 @@
 
 package org.pcap4j.packet;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import org.pcap4j.util.ByteArrays;
 
 /**
@@ -21,7 +24,10 @@ public final class IllegalPacket extends AbstractPacket {
    */
   private static final long serialVersionUID = -8028013257441150031L;
 
+  // Shared with the caller in zero-copy mode. See SimplePacket.
   private final byte[] rawData;
+  private transient int rawDataOffset;
+  private transient int rawDataLength;
 
   /**
    * A static factory method.
@@ -39,8 +45,15 @@ public final class IllegalPacket extends AbstractPacket {
   }
 
   private IllegalPacket(byte[] rawData, int offset, int length) {
-    this.rawData = new byte[length];
-    System.arraycopy(rawData, offset, this.rawData, 0, length);
+    if (SimplePacket.isZeroCopyPayload()) {
+      this.rawData = rawData;
+      this.rawDataOffset = offset;
+    }
+    else {
+      this.rawData = new byte[length];
+      System.arraycopy(rawData, offset, this.rawData, 0, length);
+    }
+    this.rawDataLength = length;
   }
 
   private IllegalPacket(Builder builder) {
@@ -55,18 +68,28 @@ public final class IllegalPacket extends AbstractPacket {
     System.arraycopy(
       builder.rawData, 0, this.rawData, 0, builder.rawData.length
     );
+    this.rawDataLength = rawData.length;
   }
 
   @Override
-  public int length() { return rawData.length; }
+  public int length() { return rawDataLength; }
 
   @Override
   public byte[] getRawData() {
-    byte[] copy = new byte[rawData.length];
-    System.arraycopy(rawData, 0, copy, 0, copy.length);
+    byte[] copy = new byte[rawDataLength];
+    System.arraycopy(rawData, rawDataOffset, copy, 0, copy.length);
     return copy;
   }
 
+  /**
+   * Unlike {@link #getRawData()}, this method doesn't copy the raw data.
+   *
+   * @return a read-only ByteBuffer which wraps the raw data of this packet.
+   */
+  public ByteBuffer getRawDataBuffer() {
+    return ByteBuffer.wrap(rawData, rawDataOffset, rawDataLength).slice().asReadOnlyBuffer();
+  }
+
   /**
    *
    */
@@ -85,7 +108,7 @@ public final class IllegalPacket extends AbstractPacket {
       .append(" bytes)]")
       .append(ls);
     sb.append("  Hex stream: ")
-      .append(ByteArrays.toHexString(rawData, " "))
+      .append(ByteArrays.toHexString(rawData, " ", rawDataOffset, rawDataLength))
       .append(ls);
 
     return sb.toString();
@@ -96,12 +119,27 @@ public final class IllegalPacket extends AbstractPacket {
     if (obj == this) { return true; }
     if (!this.getClass().isInstance(obj)) { return false; }
     IllegalPacket other = (IllegalPacket)obj;
-    return Arrays.equals(rawData, other.rawData);
+    return rawDataLength == other.rawDataLength
+      && ByteArrays.equals(
+           rawData, rawDataOffset, other.rawData, other.rawDataOffset, rawDataLength
+         );
   }
 
   @Override
   protected int calcHashCode() {
-    return Arrays.hashCode(rawData);
+    return ByteArrays.hashCode(rawData, rawDataOffset, rawDataLength);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("rawData", getRawData());
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    rawDataOffset = 0;
+    rawDataLength = rawData.length;
   }
 
   /**
@@ -118,7 +156,7 @@ public final class IllegalPacket extends AbstractPacket {
     public Builder() {}
 
     private Builder(IllegalPacket packet) {
-      rawData = packet.rawData;
+      rawData = packet.getRawData();
     }
 
     /**
@@ -7,7 +7,20 @@
 
 package org.pcap4j.packet;
 
+import org.pcap4j.Pcap4jPropertiesLoader;
+import org.pcap4j.util.ByteArrays;
+
 /**
+ * Thrown when raw data can't be dissected.
+ * <p>
+ * Under traffic with many malformed frames, capturing a stack trace and hex-dumping the whole
+ * frame for each of these exceptions is far more expensive than the dissection itself.
+ * In fast-fail decoding mode (see {@link #setFastFailDecoding(boolean)} and
+ * {@link Pcap4jPropertiesLoader#FAST_FAIL_DECODING_KEY}) this exception doesn't capture a
+ * stack trace and the messages built by packet classes include only the size of the raw data
+ * instead of a hex dump.
+ * </p>
+ *
  * @author Kaito Yamada
  * @since pcap4j 0.9.11
  */
@@ -18,6 +31,9 @@ public final class IllegalRawDataException extends Exception {
    */
   private static final long serialVersionUID = -6426401494142677707L;
 
+  private static volatile boolean fastFailDecoding
+    = Pcap4jPropertiesLoader.getInstance().getFastFailDecoding();
+
   /**
    *
    */
@@ -50,4 +66,45 @@ public final class IllegalRawDataException extends Exception {
       super(cause);
   }
 
+  /**
+   * @return true if fast-fail decoding mode is enabled; false otherwise.
+   * @since pcap4j 1.7.3
+   */
+  public static boolean isFastFailDecoding() {
+    return fastFailDecoding;
+  }
+
+  /**
+   * Enables or disables fast-fail decoding mode.
+   * This overrides the value of {@link Pcap4jPropertiesLoader#FAST_FAIL_DECODING_KEY}.
+   *
+   * @param fastFailDecoding fastFailDecoding
+   * @since pcap4j 1.7.3
+   */
+  public static void setFastFailDecoding(boolean fastFailDecoding) {
+    IllegalRawDataException.fastFailDecoding = fastFailDecoding;
+  }
+
+  /**
+   * Formats raw data to be included in an exception message.
+   *
+   * @param rawData rawData
+   * @return a hex dump of rawData, or only its size in fast-fail decoding mode.
+   * @since pcap4j 1.7.3
+   */
+  public static String toHexString(byte[] rawData) {
+    if (fastFailDecoding) {
+      return new StringBuilder(16).append('[').append(rawData.length).append(" bytes]").toString();
+    }
+    return ByteArrays.toHexString(rawData, " ");
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    if (fastFailDecoding) {
+      return this;
+    }
+    return super.fillInStackTrace();
+  }
+
 }
@@ -73,7 +73,7 @@ public final class IpV4InternetTimestampOption implements IpV4Option {
     if (length < 4) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 3. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -85,7 +85,7 @@ public final class IpV4InternetTimestampOption implements IpV4Option {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -100,7 +100,7 @@ public final class IpV4InternetTimestampOption implements IpV4Option {
       sb.append("The raw data is too short to build this option(")
         .append(getLengthAsInt())
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -73,7 +73,7 @@ implements IpV4InternetTimestampOptionData {
           "The raw data length must be an integer multiple of 4 octets long."
             + " rawData: "
         )
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
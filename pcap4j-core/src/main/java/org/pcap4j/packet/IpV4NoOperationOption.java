@@ -63,7 +63,7 @@ public final class IpV4NoOperationOption implements IpV4Option {
       sb.append("The type must be: ")
         .append(type.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
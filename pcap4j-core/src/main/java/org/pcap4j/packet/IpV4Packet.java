@@ -9,6 +9,9 @@ package org.pcap4j.packet;
 
 import static org.pcap4j.util.ByteArrays.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.Inet4Address;
 import java.util.ArrayList;
@@ -190,8 +193,8 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
       this.ttl = packet.header.ttl;
       this.protocol = packet.header.protocol;
       this.headerChecksum = packet.header.headerChecksum;
-      this.srcAddr = packet.header.srcAddr;
-      this.dstAddr = packet.header.dstAddr;
+      this.srcAddr = packet.header.getSrcAddr();
+      this.dstAddr = packet.header.getDstAddr();
       this.options = packet.header.options;
       this.padding = packet.header.padding;
       this.payloadBuilder = packet.payload != null ? packet.payload.getBuilder() : null;
@@ -485,8 +488,11 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
     private final byte ttl;
     private final IpNumber protocol;
     private final short headerChecksum;
-    private final Inet4Address srcAddr;
-    private final Inet4Address dstAddr;
+    // InetAddress objects are created on demand and kept for the serialized form.
+    private Inet4Address srcAddr;
+    private Inet4Address dstAddr;
+    private transient int srcAddrAsInt;
+    private transient int dstAddrAsInt;
     private final List<IpV4Option> options;
     private final byte[] padding;
 
@@ -497,7 +503,7 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
           .append("It must be at least ")
           .append(MIN_IPV4_HEADER_SIZE)
           .append(" bytes. data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -517,12 +523,12 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
             IpV4Tos.class, NotApplicable.class
           ).newInstance(rawData, TOS_OFFSET + offset, BYTE_SIZE_IN_BYTES);
       this.totalLength
-        = ByteArrays.getShort(rawData, TOTAL_LENGTH_OFFSET + offset);
+        = ByteArrays.getShortUnchecked(rawData, TOTAL_LENGTH_OFFSET + offset);
       this.identification
-        = ByteArrays.getShort(rawData, IDENTIFICATION_OFFSET + offset);
+        = ByteArrays.getShortUnchecked(rawData, IDENTIFICATION_OFFSET + offset);
 
       short flagsAndFragmentOffset
-        = ByteArrays.getShort(rawData, FLAGS_AND_FRAGMENT_OFFSET_OFFSET + offset);
+        = ByteArrays.getShortUnchecked(rawData, FLAGS_AND_FRAGMENT_OFFSET_OFFSET + offset);
       this.reservedFlag = (flagsAndFragmentOffset & 0x8000) != 0;
       this.dontFragmentFlag = (flagsAndFragmentOffset & 0x4000) != 0;
       this.moreFragmentFlag = (flagsAndFragmentOffset & 0x2000) != 0;
@@ -534,11 +540,11 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
         = IpNumber
             .getInstance(ByteArrays.getByte(rawData, PROTOCOL_OFFSET + offset));
       this.headerChecksum
-        = ByteArrays.getShort(rawData, HEADER_CHECKSUM_OFFSET + offset);
-      this.srcAddr
-        = ByteArrays.getInet4Address(rawData, SRC_ADDR_OFFSET + offset);
-      this.dstAddr
-        = ByteArrays.getInet4Address(rawData, DST_ADDR_OFFSET + offset);
+        = ByteArrays.getShortUnchecked(rawData, HEADER_CHECKSUM_OFFSET + offset);
+      this.srcAddrAsInt
+        = ByteArrays.getIntUnchecked(rawData, SRC_ADDR_OFFSET + offset);
+      this.dstAddrAsInt
+        = ByteArrays.getIntUnchecked(rawData, DST_ADDR_OFFSET + offset);
 
       int headerLength = getIhlAsInt() * 4;
       if (length < headerLength) {
@@ -546,7 +552,7 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
         sb.append("The data is too short to build an IPv4 header(")
           .append(headerLength)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -614,6 +620,8 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
       this.fragmentOffset = builder.fragmentOffset;
       this.ttl = builder.ttl;
       this.protocol = builder.protocol;
+      this.srcAddrAsInt = ByteArrays.getInt(builder.srcAddr.getAddress(), 0);
+      this.dstAddrAsInt = ByteArrays.getInt(builder.dstAddr.getAddress(), 0);
       this.srcAddr = builder.srcAddr;
       this.dstAddr = builder.dstAddr;
       if (builder.options != null) {
@@ -801,12 +809,40 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
 
     @Override
     public Inet4Address getSrcAddr() {
-      return srcAddr;
+      Inet4Address addr = srcAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet4Address(srcAddrAsInt);
+        srcAddr = addr;
+      }
+      return addr;
     }
 
     @Override
     public Inet4Address getDstAddr() {
-      return dstAddr;
+      Inet4Address addr = dstAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet4Address(dstAddrAsInt);
+        dstAddr = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getSrcAddr()}, this method doesn't create an object.
+     *
+     * @return srcAddr as a big-endian int value.
+     */
+    public int getSrcAddrAsInt() {
+      return srcAddrAsInt;
+    }
+
+    /**
+     * Unlike {@link #getDstAddr()}, this method doesn't create an object.
+     *
+     * @return dstAddr as a big-endian int value.
+     */
+    public int getDstAddrAsInt() {
+      return dstAddrAsInt;
     }
 
     /**
@@ -866,8 +902,8 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
       rawFields.add(ByteArrays.toByteArray(ttl));
       rawFields.add(ByteArrays.toByteArray(protocol.value()));
       rawFields.add(ByteArrays.toByteArray(zeroInsteadOfChecksum ? (short) 0 : headerChecksum));
-      rawFields.add(ByteArrays.toByteArray(srcAddr));
-      rawFields.add(ByteArrays.toByteArray(dstAddr));
+      rawFields.add(ByteArrays.toByteArray(srcAddrAsInt));
+      rawFields.add(ByteArrays.toByteArray(dstAddrAsInt));
       for (IpV4Option o: options) {
         rawFields.add(o.getRawData());
       }
@@ -944,10 +980,10 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
         .append(ByteArrays.toHexString(headerChecksum, ""))
         .append(ls);
       sb.append("  Source address: ")
-        .append(srcAddr)
+        .append(getSrcAddr())
         .append(ls);
       sb.append("  Destination address: ")
-        .append(dstAddr)
+        .append(getDstAddr())
         .append(ls);
       for (IpV4Option opt: options) {
         sb.append("  Option: ")
@@ -972,8 +1008,8 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
       return
            identification == other.identification
         && headerChecksum == other.headerChecksum
-        && srcAddr.equals(other.srcAddr)
-        && dstAddr.equals(other.dstAddr)
+        && srcAddrAsInt == other.srcAddrAsInt
+        && dstAddrAsInt == other.dstAddrAsInt
         && totalLength == other.totalLength
         && protocol.equals(other.protocol)
         && ttl == other.ttl
@@ -1003,13 +1039,25 @@ public final class IpV4Packet extends AbstractPacket implements IpPacket {
       result = 31 * result + ttl;
       result = 31 * result + protocol.hashCode();
       result = 31 * result + headerChecksum;
-      result = 31 * result + srcAddr.hashCode();
-      result = 31 * result + dstAddr.hashCode();
+      result = 31 * result + srcAddrAsInt;
+      result = 31 * result + dstAddrAsInt;
       result = 31 * result + Arrays.hashCode(padding);
       result = 31 * result + options.hashCode();
       return result;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      getSrcAddr();
+      getDstAddr();
+      out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      srcAddrAsInt = ByteArrays.getInt(srcAddr.getAddress(), 0);
+      dstAddrAsInt = ByteArrays.getInt(dstAddr.getAddress(), 0);
+    }
+
   }
 
   /**
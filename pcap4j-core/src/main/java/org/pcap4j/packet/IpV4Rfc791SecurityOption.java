@@ -70,7 +70,7 @@ public final class IpV4Rfc791SecurityOption implements IpV4Option {
     if (length < 11) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 10. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -82,7 +82,7 @@ public final class IpV4Rfc791SecurityOption implements IpV4Option {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -36,7 +36,7 @@ abstract class IpV4RouteOption implements IpV4Option {
     if (length < 3) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 2. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -48,7 +48,7 @@ abstract class IpV4RouteOption implements IpV4Option {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -63,7 +63,7 @@ abstract class IpV4RouteOption implements IpV4Option {
       sb.append("The raw data is too short to build this option(")
         .append(lengthFieldAsInt)
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -260,7 +260,7 @@ public final class IpV6ExtFragmentPacket extends AbstractPacket {
         sb.append("The data is too short to build an IPv6 fragment header(")
           .append(IPV6_EXT_FRAGMENT_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
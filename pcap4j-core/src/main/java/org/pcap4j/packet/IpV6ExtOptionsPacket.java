@@ -235,7 +235,7 @@ public abstract class IpV6ExtOptionsPacket extends AbstractPacket {
         sb.append("The data length of ")
           .append(getHeaderName())
           .append(" is must be more than 1. data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -257,7 +257,7 @@ public abstract class IpV6ExtOptionsPacket extends AbstractPacket {
           .append("(")
           .append(headerLength)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -289,7 +289,7 @@ public final class IpV6ExtRoutingPacket extends AbstractPacket {
         sb.append(
             "The data length of IPv6 routing header is must be more than 3. data: "
            )
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -309,7 +309,7 @@ public final class IpV6ExtRoutingPacket extends AbstractPacket {
         sb.append("The data is too short to build an IPv6 routing header(")
           .append(headerLength)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -254,7 +254,7 @@ public final class IpV6ExtUnknownPacket extends AbstractPacket {
         sb.append(
             "The data length of this header is must be more than 3. data: "
            )
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -274,7 +274,7 @@ public final class IpV6ExtUnknownPacket extends AbstractPacket {
         sb.append("The data is too short to build this header(")
           .append(headerLength)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -84,7 +84,7 @@ implements IpV6NeighborDiscoveryOption {
     if (length < IPV6_NEIGHBOR_DISCOVERY_MTU_OPTION_SIZE) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 7. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -96,7 +96,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
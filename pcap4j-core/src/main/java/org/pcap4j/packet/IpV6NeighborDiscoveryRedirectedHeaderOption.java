@@ -88,7 +88,7 @@ implements IpV6NeighborDiscoveryOption {
     if (length < IP_HEADER_OFFSET + 40) { // IP_HEADER_OFFSET + IPv6 Header
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 47. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -100,7 +100,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -115,7 +115,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The raw data is too short to build this option. ")
         .append(lengthInByte)
         .append(" bytes data is needed. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -70,7 +70,7 @@ implements IpV6NeighborDiscoveryOption {
     if (length < 8) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 7. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -82,7 +82,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The type must be: ")
         .append(getType().valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -97,7 +97,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The raw data is too short to build this option. ")
         .append(lengthInByte)
         .append(" bytes data is needed. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
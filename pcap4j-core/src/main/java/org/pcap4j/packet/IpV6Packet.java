@@ -9,6 +9,9 @@ package org.pcap4j.packet;
 
 import static org.pcap4j.util.ByteArrays.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.Inet6Address;
 import java.util.ArrayList;
@@ -188,8 +191,8 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
       this.payloadLength = packet.header.payloadLength;
       this.nextHeader = packet.header.nextHeader;
       this.hopLimit = packet.header.hopLimit;
-      this.srcAddr = packet.header.srcAddr;
-      this.dstAddr = packet.header.dstAddr;
+      this.srcAddr = packet.header.getSrcAddr();
+      this.dstAddr = packet.header.getDstAddr();
       this.payloadBuilder = packet.payload != null ? packet.payload.getBuilder() : null;
     }
 
@@ -367,8 +370,13 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
     private final short payloadLength;
     private final IpNumber nextHeader;
     private final byte hopLimit;
-    private final Inet6Address srcAddr;
-    private final Inet6Address dstAddr;
+    // InetAddress objects are created on demand and kept for the serialized form.
+    private Inet6Address srcAddr;
+    private Inet6Address dstAddr;
+    private transient long srcAddrHigh;
+    private transient long srcAddrLow;
+    private transient long dstAddrHigh;
+    private transient long dstAddrLow;
 
     private IpV6Header(byte[] rawData, int offset, int length) throws IllegalRawDataException {
       if (length < IPV6_HEADER_SIZE) {
@@ -376,7 +384,7 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
         sb.append("The data is too short to build an IPv6 header(")
           .append(IPV6_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -413,10 +421,10 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
             .getInstance(ByteArrays.getByte(rawData, NEXT_HEADER_OFFSET + offset));
       this.hopLimit
         = ByteArrays.getByte(rawData, HOP_LIMIT_OFFSET + offset);
-      this.srcAddr
-        = ByteArrays.getInet6Address(rawData, SRC_ADDR_OFFSET + offset);
-      this.dstAddr
-        = ByteArrays.getInet6Address(rawData, DST_ADDR_OFFSET + offset);
+      this.srcAddrHigh = ByteArrays.getLongUnchecked(rawData, SRC_ADDR_OFFSET + offset);
+      this.srcAddrLow = ByteArrays.getLongUnchecked(rawData, SRC_ADDR_OFFSET + 8 + offset);
+      this.dstAddrHigh = ByteArrays.getLongUnchecked(rawData, DST_ADDR_OFFSET + offset);
+      this.dstAddrLow = ByteArrays.getLongUnchecked(rawData, DST_ADDR_OFFSET + 8 + offset);
     }
 
     private IpV6Header(Builder builder, Packet payload) {
@@ -425,6 +433,12 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
       this.flowLabel = builder.flowLabel;
       this.nextHeader = builder.nextHeader;
       this.hopLimit = builder.hopLimit;
+      byte[] src = builder.srcAddr.getAddress();
+      byte[] dst = builder.dstAddr.getAddress();
+      this.srcAddrHigh = ByteArrays.getLong(src, 0);
+      this.srcAddrLow = ByteArrays.getLong(src, 8);
+      this.dstAddrHigh = ByteArrays.getLong(dst, 0);
+      this.dstAddrLow = ByteArrays.getLong(dst, 8);
       this.srcAddr = builder.srcAddr;
       this.dstAddr = builder.dstAddr;
 
@@ -509,12 +523,58 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
 
     @Override
     public Inet6Address getSrcAddr() {
-      return srcAddr;
+      Inet6Address addr = srcAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet6Address(srcAddrHigh, srcAddrLow);
+        srcAddr = addr;
+      }
+      return addr;
     }
 
     @Override
     public Inet6Address getDstAddr() {
-      return dstAddr;
+      Inet6Address addr = dstAddr;
+      if (addr == null) {
+        addr = ByteArrays.toInet6Address(dstAddrHigh, dstAddrLow);
+        dstAddr = addr;
+      }
+      return addr;
+    }
+
+    /**
+     * Unlike {@link #getSrcAddr()}, this method doesn't create an object.
+     *
+     * @return the upper 64 bits of srcAddr.
+     */
+    public long getSrcAddrHigh() {
+      return srcAddrHigh;
+    }
+
+    /**
+     * Unlike {@link #getSrcAddr()}, this method doesn't create an object.
+     *
+     * @return the lower 64 bits of srcAddr.
+     */
+    public long getSrcAddrLow() {
+      return srcAddrLow;
+    }
+
+    /**
+     * Unlike {@link #getDstAddr()}, this method doesn't create an object.
+     *
+     * @return the upper 64 bits of dstAddr.
+     */
+    public long getDstAddrHigh() {
+      return dstAddrHigh;
+    }
+
+    /**
+     * Unlike {@link #getDstAddr()}, this method doesn't create an object.
+     *
+     * @return the lower 64 bits of dstAddr.
+     */
+    public long getDstAddrLow() {
+      return dstAddrLow;
     }
 
     @Override
@@ -528,8 +588,10 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
       rawFields.add(ByteArrays.toByteArray(payloadLength));
       rawFields.add(ByteArrays.toByteArray(nextHeader.value()));
       rawFields.add(ByteArrays.toByteArray(hopLimit));
-      rawFields.add(ByteArrays.toByteArray(srcAddr));
-      rawFields.add(ByteArrays.toByteArray(dstAddr));
+      rawFields.add(ByteArrays.toByteArray(srcAddrHigh));
+      rawFields.add(ByteArrays.toByteArray(srcAddrLow));
+      rawFields.add(ByteArrays.toByteArray(dstAddrHigh));
+      rawFields.add(ByteArrays.toByteArray(dstAddrLow));
       return rawFields;
     }
 
@@ -567,10 +629,10 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
         .append(getHopLimitAsInt())
         .append(ls);
       sb.append("  Source address: ")
-        .append(srcAddr)
+        .append(getSrcAddr())
         .append(ls);
       sb.append("  Destination address: ")
-        .append(dstAddr)
+        .append(getDstAddr())
         .append(ls);
 
       return sb.toString();
@@ -583,8 +645,10 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
 
       IpV6Header other = (IpV6Header)obj;
       return
-           srcAddr.equals(other.srcAddr)
-        && dstAddr.equals(other.dstAddr)
+           srcAddrHigh == other.srcAddrHigh
+        && srcAddrLow == other.srcAddrLow
+        && dstAddrHigh == other.dstAddrHigh
+        && dstAddrLow == other.dstAddrLow
         && payloadLength == other.payloadLength
         && hopLimit == other.hopLimit
         && nextHeader.equals(other.nextHeader)
@@ -602,11 +666,29 @@ public final class IpV6Packet extends AbstractPacket implements IpPacket {
       result = 31 * result + payloadLength;
       result = 31 * result + nextHeader.hashCode();
       result = 31 * result + hopLimit;
-      result = 31 * result + srcAddr.hashCode();
-      result = 31 * result + dstAddr.hashCode();
+      result = 31 * result + (int) (srcAddrHigh ^ (srcAddrHigh >>> 32));
+      result = 31 * result + (int) (srcAddrLow ^ (srcAddrLow >>> 32));
+      result = 31 * result + (int) (dstAddrHigh ^ (dstAddrHigh >>> 32));
+      result = 31 * result + (int) (dstAddrLow ^ (dstAddrLow >>> 32));
       return result;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      getSrcAddr();
+      getDstAddr();
+      out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      byte[] src = srcAddr.getAddress();
+      byte[] dst = dstAddr.getAddress();
+      srcAddrHigh = ByteArrays.getLong(src, 0);
+      srcAddrLow = ByteArrays.getLong(src, 8);
+      dstAddrHigh = ByteArrays.getLong(dst, 0);
+      dstAddrLow = ByteArrays.getLong(dst, 8);
+    }
+
   }
 
   /**
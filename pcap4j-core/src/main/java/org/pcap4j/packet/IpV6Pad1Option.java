@@ -63,7 +63,7 @@ public final class IpV6Pad1Option implements IpV6Option {
       sb.append("The type must be: ")
         .append(type.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "));
+        .append(IllegalRawDataException.toHexString(rawData));
       throw new IllegalRawDataException(sb.toString());
     }
     return INSTANCE;
@@ -53,7 +53,7 @@ public final class IpV6RoutingSourceRouteData implements IpV6RoutingData {
     if (length < 4) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("rawData length must be more than 3. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -64,7 +64,7 @@ public final class IpV6RoutingSourceRouteData implements IpV6RoutingData {
       StringBuilder sb = new StringBuilder(100);
       sb.append("(length -4 ) % ").append(INET6_ADDRESS_SIZE_IN_BYTES)
         .append(" must be 0. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -248,7 +248,7 @@ public final class LinuxSllPacket extends AbstractPacket {
         sb.append("The data is too short to build a Linux SLL header(")
           .append(LINUX_SLL_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
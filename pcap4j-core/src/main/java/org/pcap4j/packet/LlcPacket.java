@@ -222,7 +222,7 @@ public final class LlcPacket extends AbstractPacket {
         sb.append("The data is too short to build an LLC header(")
           .append(CONTROL_OFFSET + 1)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -243,7 +243,7 @@ public final class LlcPacket extends AbstractPacket {
           sb.append("The data is too short to build an LLC header(")
             .append(CONTROL_OFFSET + 2)
             .append(" bytes). data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -0,0 +1,86 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.packet;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns a small ID to each concrete packet class so that the set of classes in a packet
+ * chain can be held in a long bitmask. The 64th and subsequent classes share the last bit,
+ * which callers must confirm with {@link Class#isInstance(Object)}.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class PacketClassIndex {
+
+  private static final int MAX_ID = 63;
+
+  private static final ConcurrentMap<Class<?>, Integer> ids
+    = new ConcurrentHashMap<Class<?>, Integer>();
+  private static volatile Class<?>[] classes = new Class<?>[0];
+
+  // query class -> { mask, the number of classes when the mask was computed }
+  private static final ConcurrentMap<Class<?>, long[]> queryMasks
+    = new ConcurrentHashMap<Class<?>, long[]>();
+
+  private PacketClassIndex() { throw new AssertionError(); }
+
+  /**
+   * @param packetClass the concrete class of a packet.
+   * @return the bit of the class.
+   */
+  static long bitOf(Class<?> packetClass) {
+    Integer id = ids.get(packetClass);
+    if (id == null) {
+      id = register(packetClass);
+    }
+    return bit(id);
+  }
+
+  /**
+   * @param queryClass a class or an interface given to {@link Packet#get(Class)} and so on.
+   * @return the bits of the registered classes which are assignable to the query class.
+   */
+  static long maskOf(Class<?> queryClass) {
+    Class<?>[] cs = classes;
+    long[] entry = queryMasks.get(queryClass);
+    if (entry != null && entry[1] == cs.length) {
+      return entry[0];
+    }
+
+    long mask = 0;
+    for (int i = 0; i < cs.length; i++) {
+      if (queryClass.isAssignableFrom(cs[i])) {
+        mask |= bit(i);
+      }
+    }
+    queryMasks.put(queryClass, new long[] { mask, cs.length });
+    return mask;
+  }
+
+  private static synchronized int register(Class<?> packetClass) {
+    Integer id = ids.get(packetClass);
+    if (id != null) {
+      return id;
+    }
+
+    Class<?>[] cs = new Class<?>[classes.length + 1];
+    System.arraycopy(classes, 0, cs, 0, classes.length);
+    cs[classes.length] = packetClass;
+    classes = cs;
+    ids.put(packetClass, classes.length - 1);
+    return classes.length - 1;
+  }
+
+  private static long bit(int id) {
+    return 1L << Math.min(id, MAX_ID);
+  }
+
+}
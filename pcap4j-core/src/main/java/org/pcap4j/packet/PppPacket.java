@@ -131,7 +131,7 @@ public class PppPacket extends AbstractPppPacket {
         sb.append("The data is too short to build an PPP header(")
           .append(PPP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -73,7 +73,7 @@ public final class RadiotapDataAMpduStatus implements RadiotapData {
       sb.append("The data is too short to build a RadiotapAMpduStatus (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -54,7 +54,7 @@ public final class RadiotapDataAntenna implements RadiotapData {
       sb.append("The data is too short to build a RadiotapRate (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
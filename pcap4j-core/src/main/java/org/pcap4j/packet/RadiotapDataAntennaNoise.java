@@ -57,7 +57,7 @@ public final class RadiotapDataAntennaNoise implements RadiotapData {
       sb.append("The data is too short to build a RadiotapAntennaNoise (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
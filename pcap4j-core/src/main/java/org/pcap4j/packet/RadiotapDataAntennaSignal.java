@@ -57,7 +57,7 @@ public final class RadiotapDataAntennaSignal implements RadiotapData {
       sb.append("The data is too short to build a RadiotapAntennaSignal (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -71,7 +71,7 @@ public final class RadiotapDataChannel implements RadiotapData {
       sb.append("The data is too short to build a RadiotapChannel (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -54,7 +54,7 @@ public final class RadiotapDataFhss implements RadiotapData {
       sb.append("The data is too short to build a RadiotapFhss (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
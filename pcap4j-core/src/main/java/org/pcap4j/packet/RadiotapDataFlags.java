@@ -60,7 +60,7 @@ public final class RadiotapDataFlags implements RadiotapData {
       sb.append("The data is too short to build a RadiotapFlags (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
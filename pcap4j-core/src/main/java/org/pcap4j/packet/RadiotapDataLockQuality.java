@@ -59,7 +59,7 @@ public final class RadiotapDataLockQuality implements RadiotapData {
       sb.append("The data is too short to build a RadiotapLockQuality (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -67,7 +67,7 @@ public final class RadiotapDataMcs implements RadiotapData {
       sb.append("The data is too short to build a RadiotapMcs (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
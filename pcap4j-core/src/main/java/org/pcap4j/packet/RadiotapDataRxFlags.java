@@ -68,7 +68,7 @@ public final class RadiotapDataRxFlags implements RadiotapData {
       sb.append("The data is too short to build a RadiotapRxFlags (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
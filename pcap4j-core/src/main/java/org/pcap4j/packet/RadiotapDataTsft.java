@@ -57,7 +57,7 @@ public final class RadiotapDataTsft implements RadiotapData {
       sb.append("The data is too short to build a RadiotapTsft (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -56,7 +56,7 @@ public final class RadiotapDataTxAttenuation implements RadiotapData {
       sb.append("The data is too short to build a RadiotapTxAttenuation (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -86,7 +86,7 @@ public final class RadiotapDataVht implements RadiotapData {
       sb.append("The data is too short to build a RadiotapVht (")
         .append(LENGTH)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -267,7 +267,7 @@ public final class RadiotapPacket extends AbstractPacket {
         sb.append("The data is too short to build a RadiotapHeader (")
           .append(MIN_RADIOTAP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -285,7 +285,7 @@ public final class RadiotapPacket extends AbstractPacket {
         sb.append("The data is too short to build a RadiotapHeader (")
           .append(getLengthAsInt())
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -297,7 +297,7 @@ public final class RadiotapPacket extends AbstractPacket {
         sb.append("The value of the length field is too small to build a RadiotapHeader (")
           .append(MIN_RADIOTAP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -313,7 +313,7 @@ public final class RadiotapPacket extends AbstractPacket {
         if (remainingLength < INT_SIZE_IN_BYTES) {
           StringBuilder sb = new StringBuilder(200);
           sb.append("Something went wrong during parsing present bitmasks. data: ")
-            .append(ByteArrays.toHexString(rawData, " "))
+            .append(IllegalRawDataException.toHexString(rawData))
             .append(", offset: ")
             .append(offset)
             .append(", length: ")
@@ -363,7 +363,7 @@ public final class RadiotapPacket extends AbstractPacket {
               if (remainingLength < padSize) {
                 StringBuilder sb = new StringBuilder(200);
                 sb.append("Not enough length for a RadiotapDataPad: ")
-                  .append(ByteArrays.toHexString(rawData, " "))
+                  .append(IllegalRawDataException.toHexString(rawData))
                   .append(", offset: ")
                   .append(offset)
                   .append(", length: ")
@@ -381,7 +381,7 @@ public final class RadiotapPacket extends AbstractPacket {
             if (remainingLength <= 0) {
               StringBuilder sb = new StringBuilder(200);
               sb.append("No data is remaining for a RadiotapDataField: ")
-                .append(ByteArrays.toHexString(rawData, " "))
+                .append(IllegalRawDataException.toHexString(rawData))
                 .append(", offset: ")
                 .append(offset)
                 .append(", length: ")
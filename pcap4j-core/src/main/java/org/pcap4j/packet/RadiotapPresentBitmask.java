@@ -81,7 +81,7 @@ public final class RadiotapPresentBitmask implements Serializable {
       sb.append("The data is too short to build a RadiotapPresentBitmask (")
         .append(ByteArrays.INT_SIZE_IN_BYTES)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
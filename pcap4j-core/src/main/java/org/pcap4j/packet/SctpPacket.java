@@ -271,7 +271,7 @@ public final class SctpPacket extends AbstractPacket {
         sb.append("The data is too short to build a SCTP header(")
           .append(CHUNKS_OFFSET)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
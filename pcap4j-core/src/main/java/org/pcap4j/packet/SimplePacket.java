@@ -7,7 +7,11 @@
 
 package org.pcap4j.packet;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import org.pcap4j.Pcap4jPropertiesLoader;
 import org.pcap4j.util.ByteArrays;
 
 /**
@@ -21,11 +25,25 @@ abstract class SimplePacket extends AbstractPacket {
    */
   private static final long serialVersionUID = -1565433651791063490L;
 
+  private static volatile boolean zeroCopyPayload
+    = Pcap4jPropertiesLoader.getInstance().getZeroCopyPayload();
+
+  // In zero-copy mode, rawData is the array given to the factory method and
+  // only [rawDataOffset, rawDataOffset + rawDataLength) of it belongs to this packet.
   private final byte[] rawData;
+  private transient int rawDataOffset;
+  private transient int rawDataLength;
 
   protected SimplePacket(byte[] rawData, int offset, int length) {
-    this.rawData = new byte[length];
-    System.arraycopy(rawData, offset, this.rawData, 0, length);
+    if (zeroCopyPayload) {
+      this.rawData = rawData;
+      this.rawDataOffset = offset;
+    }
+    else {
+      this.rawData = new byte[length];
+      System.arraycopy(rawData, offset, this.rawData, 0, length);
+    }
+    this.rawDataLength = length;
   }
 
   protected SimplePacket(Builder builder) {
@@ -43,18 +61,50 @@ abstract class SimplePacket extends AbstractPacket {
     System.arraycopy(
       builder.rawData, 0, this.rawData, 0, builder.rawData.length
     );
+    this.rawDataLength = rawData.length;
+  }
+
+  /**
+   * @return true if zero-copy payload mode is enabled; false otherwise.
+   * @since pcap4j 1.7.3
+   */
+  public static boolean isZeroCopyPayload() {
+    return zeroCopyPayload;
+  }
+
+  /**
+   * Enables or disables zero-copy payload mode.
+   * This overrides the value of {@link Pcap4jPropertiesLoader#ZERO_COPY_PAYLOAD_KEY}.
+   * Since this class is not public, call this method through a subclass,
+   * e.g. {@code UnknownPacket.setZeroCopyPayload(true)}.
+   * Don't enable this mode if the arrays passed to the factories are reused.
+   *
+   * @param zeroCopyPayload zeroCopyPayload
+   * @since pcap4j 1.7.3
+   */
+  public static void setZeroCopyPayload(boolean zeroCopyPayload) {
+    SimplePacket.zeroCopyPayload = zeroCopyPayload;
   }
 
   @Override
-  public int length() { return rawData.length; }
+  public int length() { return rawDataLength; }
 
   @Override
   public byte[] getRawData() {
-    byte[] copy = new byte[rawData.length];
-    System.arraycopy(rawData, 0, copy, 0, copy.length);
+    byte[] copy = new byte[rawDataLength];
+    System.arraycopy(rawData, rawDataOffset, copy, 0, copy.length);
     return copy;
   }
 
+  /**
+   * Unlike {@link #getRawData()}, this method doesn't copy the raw data.
+   *
+   * @return a read-only ByteBuffer which wraps the raw data of this packet.
+   */
+  public ByteBuffer getRawDataBuffer() {
+    return ByteBuffer.wrap(rawData, rawDataOffset, rawDataLength).slice().asReadOnlyBuffer();
+  }
+
   @Override
   protected String buildString() {
     StringBuilder sb = new StringBuilder();
@@ -67,7 +117,7 @@ abstract class SimplePacket extends AbstractPacket {
       .append(" bytes)]")
       .append(ls);
     sb.append("  Hex stream: ")
-      .append(ByteArrays.toHexString(rawData, " "))
+      .append(ByteArrays.toHexString(rawData, " ", rawDataOffset, rawDataLength))
       .append(ls);
 
     return sb.toString();
@@ -81,12 +131,27 @@ abstract class SimplePacket extends AbstractPacket {
     if (!this.getClass().isInstance(obj)) { return false; }
 
     SimplePacket other = (SimplePacket)obj;
-    return Arrays.equals(rawData, other.rawData);
+    return rawDataLength == other.rawDataLength
+      && ByteArrays.equals(
+           rawData, rawDataOffset, other.rawData, other.rawDataOffset, rawDataLength
+         );
   }
 
   @Override
   protected int calcHashCode() {
-    return Arrays.hashCode(rawData);
+    return ByteArrays.hashCode(rawData, rawDataOffset, rawDataLength);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("rawData", getRawData());
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    rawDataOffset = 0;
+    rawDataLength = rawData.length;
   }
 
   /**
@@ -103,7 +168,7 @@ abstract class SimplePacket extends AbstractPacket {
     public Builder() {}
 
     protected Builder(SimplePacket packet) {
-      rawData = packet.rawData;
+      rawData = packet.getRawData();
     }
 
     /**
@@ -211,7 +211,7 @@ public final class SnapPacket extends AbstractPacket {
         sb.append("The data is too short to build a SNAP header(")
           .append(SNAP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -461,7 +461,7 @@ public final class Ssh2BinaryPacket extends AbstractPacket {
         sb.append("The data is too short to build an SSH2 Binary header(")
           .append(SSH2_BINARY_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
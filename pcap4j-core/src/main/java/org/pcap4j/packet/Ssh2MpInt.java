@@ -56,7 +56,7 @@ public final class Ssh2MpInt implements Serializable, Comparable<Ssh2MpInt> {
     if (length < 4) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The rawData length must be more than 3. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -76,7 +76,7 @@ public final class Ssh2MpInt implements Serializable, Comparable<Ssh2MpInt> {
       sb.append("The data is too short to build an Ssh2MpInt (")
         .append(this.length + 4)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
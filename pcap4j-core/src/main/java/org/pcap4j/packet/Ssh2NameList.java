@@ -82,7 +82,7 @@ public final class Ssh2NameList implements Serializable {
     if (length < 4) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The rawData length must be more than 3. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -102,7 +102,7 @@ public final class Ssh2NameList implements Serializable {
       sb.append("The data is too short to build an Ssh2NameList (")
         .append(this.length + 4)
         .append(" bytes). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
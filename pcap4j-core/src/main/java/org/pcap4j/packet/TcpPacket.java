@@ -610,7 +610,7 @@ public final class TcpPacket extends AbstractPacket {
         sb.append("The data is too short to build this header(")
           .append(MIN_TCP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -619,16 +619,18 @@ public final class TcpPacket extends AbstractPacket {
       }
 
       this.srcPort
-        = TcpPort.getInstance(ByteArrays.getShort(rawData, SRC_PORT_OFFSET + offset));
+        = TcpPort.getInstance(ByteArrays.getShortUnchecked(rawData, SRC_PORT_OFFSET + offset));
       this.dstPort
-        = TcpPort.getInstance(ByteArrays.getShort(rawData, DST_PORT_OFFSET + offset));
+        = TcpPort.getInstance(ByteArrays.getShortUnchecked(rawData, DST_PORT_OFFSET + offset));
       this.sequenceNumber
-        = ByteArrays.getInt(rawData, SEQUENCE_NUMBER_OFFSET + offset);
+        = ByteArrays.getIntUnchecked(rawData, SEQUENCE_NUMBER_OFFSET + offset);
       this.acknowledgmentNumber
-        = ByteArrays.getInt(rawData, ACKNOWLEDGMENT_NUMBER_OFFSET + offset);
+        = ByteArrays.getIntUnchecked(rawData, ACKNOWLEDGMENT_NUMBER_OFFSET + offset);
 
       short dataOffsetAndReservedAndControlBits
-        = ByteArrays.getShort(rawData, DATA_OFFSET_AND_RESERVED_AND_CONTROL_BITS_OFFSET + offset);
+        = ByteArrays.getShortUnchecked(
+            rawData, DATA_OFFSET_AND_RESERVED_AND_CONTROL_BITS_OFFSET + offset
+          );
 
       this.dataOffset = (byte)((dataOffsetAndReservedAndControlBits & 0xF000) >> 12);
       this.reserved = (byte)((dataOffsetAndReservedAndControlBits & 0x0FC0) >> 6);
@@ -639,9 +641,9 @@ public final class TcpPacket extends AbstractPacket {
       this.syn = (dataOffsetAndReservedAndControlBits & 0x0002) != 0;
       this.fin = (dataOffsetAndReservedAndControlBits & 0x0001) != 0;
 
-      this.window = ByteArrays.getShort(rawData, WINDOW_OFFSET + offset);
-      this.checksum = ByteArrays.getShort(rawData, CHECKSUM_OFFSET + offset);
-      this.urgentPointer = ByteArrays.getShort(rawData, URGENT_POINTER_OFFSET + offset);
+      this.window = ByteArrays.getShortUnchecked(rawData, WINDOW_OFFSET + offset);
+      this.checksum = ByteArrays.getShortUnchecked(rawData, CHECKSUM_OFFSET + offset);
+      this.urgentPointer = ByteArrays.getShortUnchecked(rawData, URGENT_POINTER_OFFSET + offset);
 
       int headerLength = getDataOffsetAsInt() * 4;
       if (length < headerLength) {
@@ -649,7 +651,7 @@ public final class TcpPacket extends AbstractPacket {
         sb.append("The data is too short to build this header(")
           .append(headerLength)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -72,7 +72,7 @@ public final class TcpSackOption implements TcpOption {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -84,7 +84,7 @@ public final class TcpSackOption implements TcpOption {
       sb.append("The kind must be: ")
         .append(kind.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -113,7 +113,7 @@ public final class TcpSackOption implements TcpOption {
       sb.append("rawData is too short. length field: ")
         .append(lengthFieldAsInt)
         .append(", rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
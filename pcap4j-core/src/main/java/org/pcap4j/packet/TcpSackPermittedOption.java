@@ -64,7 +64,7 @@ public final class TcpSackPermittedOption implements TcpOption {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -76,7 +76,7 @@ public final class TcpSackPermittedOption implements TcpOption {
       sb.append("The kind must be: ")
         .append(kind.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
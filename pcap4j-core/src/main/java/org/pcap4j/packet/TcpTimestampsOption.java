@@ -60,7 +60,7 @@ public final class TcpTimestampsOption implements TcpOption {
     if (length < 10) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 9. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -72,7 +72,7 @@ public final class TcpTimestampsOption implements TcpOption {
       sb.append("The kind must be: ")
         .append(kind.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -59,7 +59,7 @@ public final class TcpWindowScaleOption implements TcpOption {
     if (length < 3) {
       StringBuilder sb = new StringBuilder(50);
       sb.append("The raw data length must be more than 2. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -71,7 +71,7 @@ public final class TcpWindowScaleOption implements TcpOption {
       sb.append("The kind must be: ")
         .append(kind.valueAsString())
         .append(" rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -403,7 +403,7 @@ public final class UdpPacket extends AbstractPacket {
         sb.append("The data is too short to build a UDP header(")
           .append(UCP_HEADER_SIZE)
           .append(" bytes). data: ")
-          .append(ByteArrays.toHexString(rawData, " "))
+          .append(IllegalRawDataException.toHexString(rawData))
           .append(", offset: ")
           .append(offset)
           .append(", length: ")
@@ -412,11 +412,11 @@ public final class UdpPacket extends AbstractPacket {
       }
 
       this.srcPort
-        = UdpPort.getInstance(ByteArrays.getShort(rawData, SRC_PORT_OFFSET + offset));
+        = UdpPort.getInstance(ByteArrays.getShortUnchecked(rawData, SRC_PORT_OFFSET + offset));
       this.dstPort
-        = UdpPort.getInstance(ByteArrays.getShort(rawData, DST_PORT_OFFSET + offset));
-      this.length = ByteArrays.getShort(rawData, LENGTH_OFFSET + offset);
-      this.checksum = ByteArrays.getShort(rawData, CHECKSUM_OFFSET + offset);
+        = UdpPort.getInstance(ByteArrays.getShortUnchecked(rawData, DST_PORT_OFFSET + offset));
+      this.length = ByteArrays.getShortUnchecked(rawData, LENGTH_OFFSET + offset);
+      this.checksum = ByteArrays.getShortUnchecked(rawData, CHECKSUM_OFFSET + offset);
     }
 
     private UdpHeader(Builder builder, byte[] payload) {
@@ -52,7 +52,7 @@ public final class UnknownIpV4Option implements IpV4Option {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -68,7 +68,7 @@ public final class UnknownIpV4Option implements IpV4Option {
       sb.append("The raw data is too short to build this option (")
         .append(lengthFieldAsInt)
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -52,7 +52,7 @@ implements IpV6NeighborDiscoveryOption {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -67,7 +67,7 @@ implements IpV6NeighborDiscoveryOption {
       sb.append("The raw data is too short to build this option(")
         .append(this.length * 8)
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -52,7 +52,7 @@ public final class UnknownIpV6Option implements IpV6Option {
     if (length < 2) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 1. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -67,7 +67,7 @@ public final class UnknownIpV6Option implements IpV6Option {
       sb.append("The raw data is too short to build this option(")
         .append(this.dataLen + 2)
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -69,7 +69,7 @@ public final class UnknownSctpChunk implements SctpChunk {
     if (length < 4) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The raw data length must be more than 3. rawData: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -86,7 +86,7 @@ public final class UnknownSctpChunk implements SctpChunk {
       sb.append("The raw data is too short to build this option (")
         .append(lengthAsInt)
         .append("). data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -96,7 +96,7 @@ public final class UnknownSctpChunk implements SctpChunk {
     if (lengthAsInt < 4) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("The value of the length field must be more than 3. data: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
@@ -0,0 +1,306 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.packet.factory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.pcap4j.Pcap4jPropertiesLoader;
+import org.pcap4j.packet.ArpPacket;
+import org.pcap4j.packet.BsdLoopbackPacket;
+import org.pcap4j.packet.Dot1qVlanTagPacket;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.HdlcPppPacket;
+import org.pcap4j.packet.IcmpV4CommonPacket;
+import org.pcap4j.packet.IcmpV6CommonPacket;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV6ExtDestinationOptionsPacket;
+import org.pcap4j.packet.IpV6ExtFragmentPacket;
+import org.pcap4j.packet.IpV6ExtHopByHopOptionsPacket;
+import org.pcap4j.packet.IpV6ExtRoutingPacket;
+import org.pcap4j.packet.IpV6Packet;
+import org.pcap4j.packet.LinuxSllPacket;
+import org.pcap4j.packet.LlcPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.PppPacket;
+import org.pcap4j.packet.SctpPacket;
+import org.pcap4j.packet.SnapPacket;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.UdpPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A limit on how deep packet factories dissect a packet.
+ * A decode depth is a set of packet classes after which dissection stops:
+ * the payload of a packet of one of the classes becomes a single opaque
+ * {@link org.pcap4j.packet.UnknownPacket UnknownPacket} unless the payload is itself of
+ * one of the classes (e.g. a VLAN tag after an Ethernet header, or an IPv6 extension header
+ * after an IPv6 header). With a small snaplen, this avoids dissecting truncated upper layers
+ * into {@link org.pcap4j.packet.IllegalPacket IllegalPacket}s, and it skips the most expensive
+ * layers (e.g. DNS, SSH, and GTP) entirely.
+ * <p>
+ * A decode depth applies to packets built by packet factories. A packet built directly by
+ * its static factory method (e.g. {@code EthernetPacket.newPacket()}) is not checked itself,
+ * so decode a frame with the factory for {@link org.pcap4j.packet.namednumber.DataLinkType
+ * DataLinkType}, as {@code PcapHandle} does, to stop right after its outermost header.
+ * </p>
+ * <p>
+ * The default decode depth is given by {@link Pcap4jPropertiesLoader#DECODE_DEPTH_KEY}
+ * and can be changed by {@link #setDefault(DecodeDepth)}. It can be overridden for the
+ * current thread by {@link #setCurrent(DecodeDepth)}, which is how
+ * {@code PcapHandle.setDecodeDepth()} applies a decode depth to a single handle.
+ * </p>
+ * <p>
+ * Packet factory implementations honor a decode depth by calling {@link #isLimited()},
+ * {@link #isDecoded(Class)}, {@link #enter(Class)}, and {@link #exit(boolean)}
+ * around the instantiation of a packet.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class DecodeDepth {
+
+  private static final Logger logger = LoggerFactory.getLogger(DecodeDepth.class);
+
+  /**
+   * Dissects packets fully.
+   */
+  public static final DecodeDepth FULL
+    = new DecodeDepth("FULL", Collections.<Class<? extends Packet>>emptySet());
+
+  /**
+   * Stops after data link layer headers.
+   */
+  public static final DecodeDepth DATA_LINK
+    = new DecodeDepth(
+        "DATA_LINK",
+        classes(
+          EthernetPacket.class,
+          Dot1qVlanTagPacket.class,
+          LlcPacket.class,
+          SnapPacket.class,
+          LinuxSllPacket.class,
+          BsdLoopbackPacket.class,
+          PppPacket.class,
+          HdlcPppPacket.class
+        )
+      );
+
+  /**
+   * Stops after network layer headers, including IPv6 extension headers.
+   */
+  public static final DecodeDepth NETWORK
+    = new DecodeDepth(
+        "NETWORK",
+        classes(
+          IpV4Packet.class,
+          IpV6Packet.class,
+          IpV6ExtHopByHopOptionsPacket.class,
+          IpV6ExtRoutingPacket.class,
+          IpV6ExtFragmentPacket.class,
+          IpV6ExtDestinationOptionsPacket.class,
+          ArpPacket.class
+        )
+      );
+
+  /**
+   * Stops after transport layer headers.
+   * The bodies of ICMP messages become opaque, too.
+   */
+  public static final DecodeDepth TRANSPORT
+    = new DecodeDepth(
+        "TRANSPORT",
+        classes(
+          TcpPacket.class,
+          UdpPacket.class,
+          SctpPacket.class,
+          IcmpV4CommonPacket.class,
+          IcmpV6CommonPacket.class
+        )
+      );
+
+  private static volatile DecodeDepth defaultDepth
+    = valueOf(Pcap4jPropertiesLoader.getInstance().getDecodeDepth());
+  private static volatile boolean limited = defaultDepth != FULL;
+
+  private static final ThreadLocal<State> states
+    = new ThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+          return new State();
+        }
+      };
+
+  private final String name;
+  private final Set<Class<? extends Packet>> packetClasses;
+
+  private DecodeDepth(String name, Set<Class<? extends Packet>> packetClasses) {
+    this.name = name;
+    this.packetClasses = packetClasses;
+  }
+
+  /**
+   * @param packetClasses the classes of packets whose payloads are not to be dissected.
+   * @return a DecodeDepth object which stops after packets of the given classes.
+   */
+  public static DecodeDepth after(Class<?>... packetClasses) {
+    if (packetClasses == null) {
+      throw new NullPointerException("packetClasses must not be null.");
+    }
+    Set<Class<? extends Packet>> set = classes(packetClasses);
+    if (set.isEmpty()) {
+      return FULL;
+    }
+    return new DecodeDepth("after " + set, set);
+  }
+
+  private static Set<Class<? extends Packet>> classes(Class<?>... packetClasses) {
+    Set<Class<? extends Packet>> set = new HashSet<Class<? extends Packet>>();
+    for (Class<?> clazz: packetClasses) {
+      set.add(clazz.asSubclass(Packet.class));
+    }
+    return Collections.unmodifiableSet(set);
+  }
+
+  /**
+   * @param name FULL, DATA_LINK, NETWORK, or TRANSPORT
+   * @return the DecodeDepth object of the name. FULL if the name is unknown.
+   */
+  public static DecodeDepth valueOf(String name) {
+    for (DecodeDepth depth: Arrays.asList(FULL, DATA_LINK, NETWORK, TRANSPORT)) {
+      if (depth.name.equalsIgnoreCase(name.trim())) {
+        return depth;
+      }
+    }
+    logger.warn("Unknown decode depth: {}. Use FULL.", name);
+    return FULL;
+  }
+
+  /**
+   * @return the default decode depth.
+   */
+  public static DecodeDepth getDefault() {
+    return defaultDepth;
+  }
+
+  /**
+   * Sets the default decode depth.
+   * This overrides the value of {@link Pcap4jPropertiesLoader#DECODE_DEPTH_KEY}.
+   *
+   * @param depth depth
+   */
+  public static void setDefault(DecodeDepth depth) {
+    if (depth == null) {
+      throw new NullPointerException("depth must not be null.");
+    }
+    if (depth != FULL) {
+      limited = true;
+    }
+    defaultDepth = depth;
+  }
+
+  /**
+   * @return the decode depth for the current thread.
+   */
+  public static DecodeDepth getCurrent() {
+    DecodeDepth depth = states.get().depth;
+    return depth != null ? depth : defaultDepth;
+  }
+
+  /**
+   * Sets the decode depth for the current thread.
+   * Callers should restore the previous one when they're done, e.g. in a finally block.
+   *
+   * @param depth depth. null to use the default one.
+   * @return the previous decode depth set for the current thread. May be null.
+   */
+  public static DecodeDepth setCurrent(DecodeDepth depth) {
+    if (depth != null && depth != FULL) {
+      limited = true;
+    }
+    State state = states.get();
+    DecodeDepth previous = state.depth;
+    state.depth = depth;
+    return previous;
+  }
+
+  /**
+   * @return true if a decode depth other than {@link #FULL} has ever been set;
+   *         false otherwise. If false, packet factories can skip the other checks.
+   */
+  public static boolean isLimited() {
+    return limited;
+  }
+
+  /**
+   * @param packetClass the class of a packet which a packet factory is about to build.
+   * @return true if the packet is to be built; false if its raw data is to be an opaque
+   *         {@link org.pcap4j.packet.UnknownPacket UnknownPacket}.
+   */
+  public static boolean isDecoded(Class<? extends Packet> packetClass) {
+    State state = states.get();
+    return !state.stopped || state.getDepth().stopsAfter(packetClass);
+  }
+
+  /**
+   * Called by a packet factory before it builds a packet of the given class.
+   *
+   * @param packetClass the class of a packet which a packet factory is about to build.
+   * @return a value to be passed to {@link #exit(boolean)} after the packet is built.
+   */
+  public static boolean enter(Class<? extends Packet> packetClass) {
+    State state = states.get();
+    boolean outer = state.stopped;
+    state.stopped = state.getDepth().stopsAfter(packetClass);
+    return outer;
+  }
+
+  /**
+   * Called by a packet factory after it has built a packet, typically in a finally block.
+   *
+   * @param outer the value returned by {@link #enter(Class)}.
+   */
+  public static void exit(boolean outer) {
+    states.get().stopped = outer;
+  }
+
+  /**
+   * @param packetClass packetClass
+   * @return true if dissection stops after packets of the given class; false otherwise.
+   */
+  public boolean stopsAfter(Class<?> packetClass) {
+    return packetClasses.contains(packetClass);
+  }
+
+  /**
+   * @return the classes of packets after which dissection stops.
+   */
+  public Set<Class<? extends Packet>> getPacketClasses() {
+    return packetClasses;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  private static final class State {
+
+    private DecodeDepth depth = null;
+    private boolean stopped = false;
+
+    private DecodeDepth getDepth() {
+      return depth != null ? depth : defaultDepth;
+    }
+
+  }
+
+}
@@ -0,0 +1,179 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The format of files written by {@link BlockCompressedPcapWriter}.
+ * <p>
+ * A file is a series of gzip members, so that gzip tools decompress it into a plain pcap
+ * savefile. The first member holds the pcap global header, and each of the others holds
+ * whole pcap records, so that members can be decompressed independently.
+ * The header of each member has an extra subfield with the ID "P4" which holds, in little
+ * endian like the other gzip fields, the length of the member, the length of its
+ * decompressed data, the number of its records, and the earliest and latest timestamps of
+ * the records in nanoseconds since the epoch. A reader builds a block index by hopping from
+ * member header to member header without decompressing anything.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class BlockCompressedPcap {
+
+  static final int HEADER_LENGTH = 44;
+  static final int TRAILER_LENGTH = 8;
+
+  private static final int XLEN = 32;
+  private static final int SUBFIELD_LENGTH = 28;
+  private static final byte FLG_FEXTRA = 0x04;
+  private static final byte OS_UNKNOWN = (byte) 0xFF;
+
+  private BlockCompressedPcap() { throw new AssertionError(); }
+
+  /**
+   * @param data data
+   * @param length length
+   * @param recordCount recordCount
+   * @param minTimestamp minTimestamp
+   * @param maxTimestamp maxTimestamp
+   * @param deflater a reset deflater which makes raw deflate data (nowrap).
+   * @return a gzip member.
+   */
+  static byte[] compress(
+    byte[] data, int length, int recordCount,
+    long minTimestamp, long maxTimestamp, Deflater deflater
+  ) {
+    deflater.setInput(data, 0, length);
+    deflater.finish();
+    byte[] buf = new byte[HEADER_LENGTH + length + length / 8 + 64 + TRAILER_LENGTH];
+    int pos = HEADER_LENGTH;
+    while (!deflater.finished()) {
+      if (pos == buf.length - TRAILER_LENGTH) {
+        byte[] larger = new byte[buf.length * 2];
+        System.arraycopy(buf, 0, larger, 0, pos);
+        buf = larger;
+      }
+      pos += deflater.deflate(buf, pos, buf.length - TRAILER_LENGTH - pos);
+    }
+    int memberLength = pos + TRAILER_LENGTH;
+
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, length);
+    ByteBuffer bb = ByteBuffer.wrap(buf, 0, memberLength).order(ByteOrder.LITTLE_ENDIAN);
+    bb.put((byte) 0x1F).put((byte) 0x8B).put((byte) 8).put(FLG_FEXTRA)
+      .putInt(0).put((byte) 0).put(OS_UNKNOWN)
+      .putShort((short) XLEN)
+      .put((byte) 'P').put((byte) '4').putShort((short) SUBFIELD_LENGTH)
+      .putInt(memberLength)
+      .putInt(length)
+      .putInt(recordCount)
+      .putLong(minTimestamp)
+      .putLong(maxTimestamp);
+    bb.position(pos);
+    bb.putInt((int) crc.getValue()).putInt(length);
+
+    byte[] member = new byte[memberLength];
+    System.arraycopy(buf, 0, member, 0, memberLength);
+    return member;
+  }
+
+  /**
+   * The header of a member.
+   */
+  static final class Header {
+
+    final int memberLength;
+    final int dataLength;
+    final int recordCount;
+    final long minTimestamp;
+    final long maxTimestamp;
+
+    /**
+     * @param header the first {@link #HEADER_LENGTH} bytes of a member.
+     * @param offset the file offset of the member, for error messages.
+     * @throws IOException if the header is not one of a member written by
+     *                     {@link BlockCompressedPcapWriter}.
+     */
+    Header(ByteBuffer header, long offset) throws IOException {
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (
+           header.get(0) != 0x1F
+        || header.get(1) != (byte) 0x8B
+        || header.get(2) != 8
+        || header.get(3) != FLG_FEXTRA
+        || header.getShort(10) != XLEN
+        || header.get(12) != 'P'
+        || header.get(13) != '4'
+        || header.getShort(14) != SUBFIELD_LENGTH
+      ) {
+        throw new IOException("Not a block compressed pcap member at " + offset);
+      }
+      this.memberLength = header.getInt(16);
+      this.dataLength = header.getInt(20);
+      this.recordCount = header.getInt(24);
+      this.minTimestamp = header.getLong(28);
+      this.maxTimestamp = header.getLong(36);
+      if (
+           memberLength < HEADER_LENGTH + TRAILER_LENGTH
+        || dataLength < 0
+        || recordCount < 0
+      ) {
+        throw new IOException("Corrupt member header at " + offset);
+      }
+    }
+
+  }
+
+  /**
+   * @param member a whole member.
+   * @param header the header of the member.
+   * @param offset the file offset of the member, for error messages.
+   * @return the decompressed data.
+   * @throws IOException if the member is corrupt.
+   */
+  static byte[] decompress(byte[] member, Header header, long offset) throws IOException {
+    byte[] data = new byte[header.dataLength];
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(member, HEADER_LENGTH, member.length - HEADER_LENGTH - TRAILER_LENGTH);
+      int n = 0;
+      while (n < data.length) {
+        int count = inflater.inflate(data, n, data.length - n);
+        if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        n += count;
+      }
+      if (n != data.length) {
+        throw new IOException("Truncated member at " + offset);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt member at " + offset, e);
+    } finally {
+      inflater.end();
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    ByteBuffer trailer = ByteBuffer.wrap(member, member.length - TRAILER_LENGTH, TRAILER_LENGTH)
+                           .order(ByteOrder.LITTLE_ENDIAN);
+    if (trailer.getInt() != (int) crc.getValue()) {
+      throw new IOException("CRC mismatch in the member at " + offset);
+    }
+    return data;
+  }
+
+}
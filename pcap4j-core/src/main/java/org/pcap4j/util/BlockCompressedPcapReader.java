@@ -0,0 +1,530 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.pcap4j.core.PacketListener;
+import org.pcap4j.core.RawPacketListener;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads files written by {@link BlockCompressedPcapWriter}.
+ * Packets are read in the same way as from a {@link org.pcap4j.core.PcapHandle PcapHandle}
+ * which reads a savefile: by {@link #getNextPacketEx()}, {@link #getNextRawPacketEx()},
+ * or {@link #loop(int, PacketListener)}, with {@link #getTimestamp()} and
+ * {@link #getOriginalLength()} of the last packet read.
+ * <p>
+ * A block index is built from the member headers when a file is opened, which lets
+ * {@link #seekToRecord(long)} and {@link #seekToTime(Timestamp)} jump to the block of the
+ * record without decompressing the blocks before it. The blocks after the current one are
+ * decompressed ahead in parallel on a thread pool.
+ * A trailing block which is truncated, e.g. because the writer was killed, is ignored.
+ * </p>
+ * <p>
+ * This class is not thread-safe except for {@link #breakLoop()}.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class BlockCompressedPcapReader implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BlockCompressedPcapReader.class);
+
+  private static final int MAGIC_MICROS = 0xA1B2C3D4;
+  private static final int MAGIC_NANOS = 0xA1B23C4D;
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+  private final long[] offsets;
+  private final BlockCompressedPcap.Header[] headers;
+  private final long[] firstRecords;
+  private final long recordCount;
+  private final DataLinkType dlt;
+  private final int snaplen;
+  private final boolean swapped;
+  private final boolean nanos;
+  private final int readAhead;
+  private final ExecutorService executor;
+  private final LinkedList<Future<byte[]>> ahead = new LinkedList<Future<byte[]>>();
+
+  private int nextBlock = 1;
+  private int aheadBlock = 1;
+  private byte[] data = new byte[0];
+  private int position = 0;
+  private Timestamp timestamp = null;
+  private Integer originalLength = null;
+  private volatile boolean breakRequested = false;
+
+  /**
+   * Decompresses blocks on as many threads as the available processors.
+   *
+   * @param file file
+   * @throws IOException if an I/O error occurs or the file is not written by
+   *                     {@link BlockCompressedPcapWriter}.
+   */
+  public BlockCompressedPcapReader(File file) throws IOException {
+    this(file, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @param file file
+   * @param threads the number of decompression threads, which is also the number of blocks
+   *                decompressed ahead.
+   * @throws IOException if an I/O error occurs or the file is not written by
+   *                     {@link BlockCompressedPcapWriter}.
+   */
+  public BlockCompressedPcapReader(File file, int threads) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("file must not be null.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads: " + threads);
+    }
+
+    this.file = new RandomAccessFile(file, "r");
+    this.channel = this.file.getChannel();
+    try {
+      List<Long> offsetList = new ArrayList<Long>();
+      List<BlockCompressedPcap.Header> headerList = new ArrayList<BlockCompressedPcap.Header>();
+      long size = channel.size();
+      long offset = 0;
+      ByteBuffer buf = ByteBuffer.allocate(BlockCompressedPcap.HEADER_LENGTH);
+      while (offset < size) {
+        if (size - offset < BlockCompressedPcap.HEADER_LENGTH) {
+          logger.warn("Ignored a truncated block at {} in {}.", offset, file);
+          break;
+        }
+        buf.clear();
+        readFully(buf, offset);
+        buf.flip();
+        BlockCompressedPcap.Header header = new BlockCompressedPcap.Header(buf, offset);
+        if (offset + header.memberLength > size) {
+          logger.warn("Ignored a truncated block at {} in {}.", offset, file);
+          break;
+        }
+        offsetList.add(offset);
+        headerList.add(header);
+        offset += header.memberLength;
+      }
+      if (headerList.isEmpty()) {
+        throw new IOException("No global header in " + file);
+      }
+
+      int blockCount = headerList.size();
+      this.offsets = new long[blockCount];
+      this.headers = headerList.toArray(new BlockCompressedPcap.Header[blockCount]);
+      this.firstRecords = new long[blockCount + 1];
+      for (int i = 0; i < blockCount; i++) {
+        offsets[i] = offsetList.get(i);
+        firstRecords[i + 1] = firstRecords[i] + headers[i].recordCount;
+      }
+      this.recordCount = firstRecords[blockCount];
+
+      byte[] global = readBlock(0);
+      if (global.length < 24) {
+        throw new IOException("Illegal global header in " + file);
+      }
+      int magic = ByteArrays.getInt(global, 0);
+      if (magic == MAGIC_MICROS || magic == MAGIC_NANOS) {
+        this.swapped = false;
+      }
+      else if (
+           Integer.reverseBytes(magic) == MAGIC_MICROS
+        || Integer.reverseBytes(magic) == MAGIC_NANOS
+      ) {
+        this.swapped = true;
+        magic = Integer.reverseBytes(magic);
+      }
+      else {
+        throw new IOException("Illegal global header in " + file);
+      }
+      this.nanos = magic == MAGIC_NANOS;
+      this.snaplen = getInt(global, 16);
+      this.dlt = DataLinkType.getInstance(getInt(global, 20) & 0x0FFFFFFF);
+    } catch (IOException e) {
+      this.file.close();
+      throw e;
+    } catch (RuntimeException e) {
+      this.file.close();
+      throw e;
+    }
+
+    this.readAhead = threads;
+    this.executor = Executors.newFixedThreadPool(threads, new DefaultThreadFactory());
+  }
+
+  /**
+   * @return the data link type of the packets.
+   */
+  public DataLinkType getDlt() {
+    return dlt;
+  }
+
+  /**
+   * @return the snapshot length written in the global header.
+   */
+  public int getSnapshot() {
+    return snaplen;
+  }
+
+  /**
+   * @return the number of blocks of records.
+   */
+  public int getBlockCount() {
+    return headers.length - 1;
+  }
+
+  /**
+   * @return the number of records in the file.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * @return the timestamp of the last packet read. May be null.
+   */
+  public Timestamp getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * @return the original length of the last packet read. May be null.
+   */
+  public Integer getOriginalLength() {
+    return originalLength;
+  }
+
+  /**
+   * @return a Packet object created from the next packet using the packet factory.
+   *         Not null.
+   * @throws EOFException if there are no more packets.
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public Packet getNextPacketEx() throws IOException {
+    byte[] packet = getNextRawPacketEx();
+    return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+             .newInstance(packet, 0, packet.length, dlt);
+  }
+
+  /**
+   * @return the next packet. Not null.
+   * @throws EOFException if there are no more packets.
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public byte[] getNextRawPacketEx() throws IOException {
+    while (position == data.length) {
+      if (nextBlock == headers.length) {
+        throw new EOFException();
+      }
+      data = takeBlock();
+      position = 0;
+    }
+
+    if (data.length - position < 16) {
+      throw new IOException("Truncated record in block " + (nextBlock - 1));
+    }
+    long seconds = getInt(data, position) & 0xFFFFFFFFL;
+    int fraction = getInt(data, position + 4);
+    int capturedLength = getInt(data, position + 8);
+    int length = getInt(data, position + 12);
+    position += 16;
+    if (capturedLength < 0 || capturedLength > data.length - position) {
+      throw new IOException("Truncated record in block " + (nextBlock - 1));
+    }
+
+    byte[] packet = new byte[capturedLength];
+    System.arraycopy(data, position, packet, 0, capturedLength);
+    position += capturedLength;
+
+    Timestamp ts = new Timestamp(seconds * 1000L);
+    ts.setNanos(nanos ? fraction : fraction * 1000);
+    this.timestamp = ts;
+    this.originalLength = length;
+    return packet;
+  }
+
+  /**
+   * @return a Packet object created from the next packet using the packet factory,
+   *         or null if there are no more packets.
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public Packet getNextPacket() throws IOException {
+    try {
+      return getNextPacketEx();
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the next packet, or null if there are no more packets.
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public byte[] getNextRawPacket() throws IOException {
+    try {
+      return getNextRawPacketEx();
+    } catch (EOFException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param packetCount the number of packets to read. -1 to read until the end of the file.
+   * @param listener listener
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   * @throws InterruptedException if {@link #breakLoop()} is called.
+   */
+  public void loop(int packetCount, PacketListener listener)
+  throws IOException, InterruptedException {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null.");
+    }
+    for (int i = 0; packetCount < 0 || i < packetCount; i++) {
+      checkBreak();
+      Packet packet = getNextPacket();
+      if (packet == null) {
+        return;
+      }
+      listener.gotPacket(packet);
+    }
+  }
+
+  /**
+   * @param packetCount the number of packets to read. -1 to read until the end of the file.
+   * @param listener listener
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   * @throws InterruptedException if {@link #breakLoop()} is called.
+   */
+  public void loop(int packetCount, RawPacketListener listener)
+  throws IOException, InterruptedException {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null.");
+    }
+    for (int i = 0; packetCount < 0 || i < packetCount; i++) {
+      checkBreak();
+      byte[] packet = getNextRawPacket();
+      if (packet == null) {
+        return;
+      }
+      listener.gotPacket(packet);
+    }
+  }
+
+  /**
+   * Breaks a loop. The loop returns after the packet being processed.
+   */
+  public void breakLoop() {
+    breakRequested = true;
+  }
+
+  private void checkBreak() throws InterruptedException {
+    if (breakRequested) {
+      breakRequested = false;
+      throw new InterruptedException();
+    }
+  }
+
+  /**
+   * Moves to a record so that the next packet read is the record.
+   *
+   * @param index the index of the record, starting from 0.
+   *              {@link #getRecordCount()} to move to the end.
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public void seekToRecord(long index) throws IOException {
+    if (index < 0 || index > recordCount) {
+      throw new IndexOutOfBoundsException("index: " + index + " recordCount: " + recordCount);
+    }
+
+    int block = Arrays.binarySearch(firstRecords, 1, headers.length, index);
+    if (block < 0) {
+      block = -block - 2;
+    }
+    else {
+      // Skip empty blocks.
+      while (block + 1 < headers.length && firstRecords[block + 1] == index) {
+        block++;
+      }
+    }
+    moveTo(block);
+    for (long i = firstRecords[block]; i < index; i++) {
+      getNextRawPacketEx();
+    }
+  }
+
+  /**
+   * Moves to the first record in the first block which has a record at or after the given
+   * time, skipping the records before the time at the beginning of the block, so that the
+   * next packet read is at or after the time if the records are in time order.
+   *
+   * @param time time
+   * @throws IOException if an I/O error occurs or the file is corrupt.
+   */
+  public void seekToTime(Timestamp time) throws IOException {
+    if (time == null) {
+      throw new NullPointerException("time must not be null.");
+    }
+
+    long target = EpochNanos.fromTimestamp(time);
+
+    int block = 1;
+    while (
+         block < headers.length
+      && (headers[block].recordCount == 0 || headers[block].maxTimestamp < target)
+    ) {
+      block++;
+    }
+    moveTo(block);
+    if (block == headers.length) {
+      return;
+    }
+
+    data = takeBlock();
+    position = 0;
+    while (position < data.length) {
+      int saved = position;
+      getNextRawPacketEx();
+      if (EpochNanos.fromTimestamp(timestamp) >= target) {
+        position = saved;
+        return;
+      }
+    }
+  }
+
+  private void moveTo(int block) {
+    cancelAhead();
+    nextBlock = block;
+    aheadBlock = block;
+    data = new byte[0];
+    position = 0;
+  }
+
+  private void cancelAhead() {
+    for (Future<byte[]> future: ahead) {
+      future.cancel(false);
+    }
+    ahead.clear();
+  }
+
+  private byte[] takeBlock() throws IOException {
+    while (aheadBlock < headers.length && aheadBlock - nextBlock < readAhead) {
+      final int block = aheadBlock++;
+      ahead.add(
+        executor.submit(
+          new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+              return readBlock(block);
+            }
+          }
+        )
+      );
+    }
+
+    Future<byte[]> future = ahead.poll();
+    nextBlock++;
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to decompress block " + (nextBlock - 1), cause);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private byte[] readBlock(int block) throws IOException {
+    BlockCompressedPcap.Header header = headers[block];
+    ByteBuffer member = ByteBuffer.allocate(header.memberLength);
+    readFully(member, offsets[block]);
+    return BlockCompressedPcap.decompress(member.array(), header, offsets[block]);
+  }
+
+  private void readFully(ByteBuffer buf, long offset) throws IOException {
+    long pos = offset;
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, pos);
+      if (n < 0) {
+        throw new EOFException("Unexpected end of file at " + pos);
+      }
+      pos += n;
+    }
+  }
+
+  private int getInt(byte[] array, int offset) {
+    int value = ByteArrays.getInt(array, offset);
+    return swapped ? Integer.reverseBytes(value) : value;
+  }
+
+  /**
+   * Closes the file and stops the decompression threads.
+   */
+  @Override
+  public void close() throws IOException {
+    cancelAhead();
+    executor.shutdownNow();
+    file.close();
+  }
+
+  private static final class DefaultThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger readerNumber = new AtomicInteger();
+
+    private final int number = readerNumber.incrementAndGet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread
+        = new Thread(
+            r,
+            "pcap4j-compressed-reader-" + number + "-" + threadNumber.incrementAndGet()
+          );
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+}
@@ -0,0 +1,422 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * Writes packets in the pcap savefile format compressed in independent blocks,
+ * which {@link BlockCompressedPcapReader} reads with random access by record or by time,
+ * and gzip tools decompress into a plain pcap savefile (e.g. {@code zcat file | tcpdump -r -}).
+ * See {@link BlockCompressedPcap} for the format.
+ * <p>
+ * Records are buffered until a block is full and the block is deflated on a thread pool
+ * while the next one is being filled. Blocks are written in order by the threads which call
+ * the dump methods; when too many blocks are being compressed, the dump methods wait for the
+ * oldest one, so that the memory in use is bounded.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class BlockCompressedPcapWriter implements Closeable, Flushable {
+
+  private static final int RECORD_HEADER_LENGTH = 16;
+
+  private final OutputStream out;
+  private final int snaplen;
+  private final int blockSize;
+  private final int level;
+  private final boolean nanosecondPrecision;
+  private final int maxPendingBlocks;
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+
+  private byte[] block;
+  private int blockLength = 0;
+  private int recordCount = 0;
+  private long minTimestamp;
+  private long maxTimestamp;
+  private long bytesWritten = 0;
+  private boolean open = true;
+
+  private BlockCompressedPcapWriter(Builder builder) throws IOException {
+    if (
+         builder.snaplen < 1
+      || builder.blockSize < 1024
+      || builder.level < Deflater.NO_COMPRESSION
+      || builder.level > Deflater.BEST_COMPRESSION
+      || builder.threads < 1
+    ) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("builder.snaplen: ").append(builder.snaplen)
+        .append(" builder.blockSize: ").append(builder.blockSize)
+        .append(" builder.level: ").append(builder.level)
+        .append(" builder.threads: ").append(builder.threads);
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.out = builder.out;
+    this.snaplen = builder.snaplen;
+    this.blockSize = builder.blockSize;
+    this.level = builder.level;
+    this.nanosecondPrecision = builder.nanosecondPrecision;
+    this.block = new byte[blockSize];
+    this.maxPendingBlocks = builder.threads * 2;
+    if (builder.executor != null) {
+      this.executor = builder.executor;
+      this.ownExecutor = false;
+    }
+    else {
+      this.executor = Executors.newFixedThreadPool(builder.threads, new DefaultThreadFactory());
+      this.ownExecutor = true;
+    }
+    byte[] header = new byte[24];
+    System.arraycopy(
+      ByteArrays.toByteArray(nanosecondPrecision ? 0xA1B23C4D : 0xA1B2C3D4), 0, header, 0, 4
+    );
+    System.arraycopy(ByteArrays.toByteArray((short) 2), 0, header, 4, 2);
+    System.arraycopy(ByteArrays.toByteArray((short) 4), 0, header, 6, 2);
+    System.arraycopy(ByteArrays.toByteArray(snaplen), 0, header, 16, 4);
+    System.arraycopy(ByteArrays.toByteArray(builder.dlt.value()), 0, header, 20, 4);
+    Deflater deflater = new Deflater(level, true);
+    try {
+      byte[] member = BlockCompressedPcap.compress(header, header.length, 0, 0, 0, deflater);
+      out.write(member);
+      bytesWritten += member.length;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * @param packet packet
+   * @param timestamp timestamp
+   * @throws IOException if an I/O error occurs.
+   */
+  public void dump(Packet packet, Timestamp timestamp) throws IOException {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+    dumpRaw(packet.getRawData(), timestamp);
+  }
+
+  /**
+   * @param packet packet
+   * @param timestamp timestamp
+   * @throws IOException if an I/O error occurs.
+   */
+  public void dumpRaw(byte[] packet, Timestamp timestamp) throws IOException {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+    dumpRaw(packet, timestamp, packet.length);
+  }
+
+  /**
+   * @param packet the captured data of a packet. Truncated to the snapshot length.
+   * @param timestamp timestamp
+   * @param originalLength the length of the packet on the wire.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void dumpRaw(byte[] packet, Timestamp timestamp, int originalLength) throws IOException {
+    if (packet == null || timestamp == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" timestamp: ").append(timestamp);
+      throw new NullPointerException(sb.toString());
+    }
+    if (!open) {
+      throw new IOException("Already closed.");
+    }
+
+    int capturedLength = Math.min(packet.length, snaplen);
+    int recordLength = RECORD_HEADER_LENGTH + capturedLength;
+    if (blockLength != 0 && blockLength + recordLength > blockSize) {
+      submitBlock();
+    }
+    if (block.length < recordLength) {
+      block = new byte[recordLength];
+    }
+
+    long epochNanos = EpochNanos.fromTimestamp(timestamp);
+    int nanos = timestamp.getNanos();
+    if (!nanosecondPrecision) {
+      // Drops the sub-microsecond digits, which aren't written.
+      epochNanos -= nanos % 1000;
+      nanos -= nanos % 1000;
+    }
+    long seconds = (epochNanos - nanos) / EpochNanos.NANOS_PER_SECOND;
+    if (recordCount == 0) {
+      minTimestamp = epochNanos;
+      maxTimestamp = epochNanos;
+    }
+    else {
+      minTimestamp = Math.min(minTimestamp, epochNanos);
+      maxTimestamp = Math.max(maxTimestamp, epochNanos);
+    }
+
+    putInt((int) seconds);
+    putInt(nanosecondPrecision ? nanos : nanos / 1000);
+    putInt(capturedLength);
+    putInt(Math.max(originalLength, capturedLength));
+    System.arraycopy(packet, 0, block, blockLength, capturedLength);
+    blockLength += capturedLength;
+    recordCount++;
+  }
+
+  private void putInt(int value) {
+    block[blockLength] = (byte) (value >> 24);
+    block[blockLength + 1] = (byte) (value >> 16);
+    block[blockLength + 2] = (byte) (value >> 8);
+    block[blockLength + 3] = (byte) value;
+    blockLength += 4;
+  }
+
+  private void submitBlock() throws IOException {
+    if (recordCount == 0) {
+      return;
+    }
+
+    final byte[] data = block;
+    final int length = blockLength;
+    final int count = recordCount;
+    final long min = minTimestamp;
+    final long max = maxTimestamp;
+    pending.add(
+      executor.submit(
+        new Callable<byte[]>() {
+          @Override
+          public byte[] call() {
+            // A Deflater per block rather than per thread, so that its native memory
+            // is released here even if the executor was given by the user.
+            Deflater deflater = new Deflater(level, true);
+            try {
+              return BlockCompressedPcap.compress(data, length, count, min, max, deflater);
+            } finally {
+              deflater.end();
+            }
+          }
+        }
+      )
+    );
+    block = new byte[blockSize];
+    blockLength = 0;
+    recordCount = 0;
+
+    while (!pending.isEmpty() && (pending.size() > maxPendingBlocks || pending.peek().isDone())) {
+      writeOldest();
+    }
+  }
+
+  private void writeOldest() throws IOException {
+    Future<byte[]> future = pending.poll();
+    byte[] member;
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          member = future.get();
+          break;
+        } catch (InterruptedException e) {
+          // Blocks must be written in order. Keep waiting and restore the flag later.
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to compress a block.", e.getCause());
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    out.write(member);
+    bytesWritten += member.length;
+  }
+
+  /**
+   * @return the number of compressed bytes written to the stream so far.
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Compresses the buffered records into a block, even if it's not full,
+   * writes all the blocks, and flushes the stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    submitBlock();
+    while (!pending.isEmpty()) {
+      writeOldest();
+    }
+    out.flush();
+  }
+
+  /**
+   * Flushes and closes the stream.
+   * The thread pool is shut down unless it was given by {@link Builder#executor(ExecutorService)}.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      open = false;
+      if (ownExecutor) {
+        executor.shutdown();
+      }
+      out.close();
+    }
+  }
+
+  private static final class DefaultThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger writerNumber = new AtomicInteger();
+
+    private final int number = writerNumber.incrementAndGet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread thread
+        = new Thread(
+            r,
+            "pcap4j-compressed-writer-" + number + "-" + threadNumber.incrementAndGet()
+          );
+      thread.setDaemon(true);
+      return thread;
+    }
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private final OutputStream out;
+    private final DataLinkType dlt;
+    private int snaplen = 65536;
+    private int blockSize = 64 * 1024;
+    private int level = Deflater.BEST_SPEED;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean nanosecondPrecision = false;
+    private ExecutorService executor = null;
+
+    /**
+     * @param out the stream to write to. Closed by {@link BlockCompressedPcapWriter#close()}.
+     * @param dlt the data link type of the packets.
+     */
+    public Builder(OutputStream out, DataLinkType dlt) {
+      if (out == null || dlt == null) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("out: ").append(out)
+          .append(" dlt: ").append(dlt);
+        throw new NullPointerException(sb.toString());
+      }
+      this.out = out;
+      this.dlt = dlt;
+    }
+
+    /**
+     * @param snaplen the snapshot length written in the global header,
+     *                to which packets are truncated. 65536 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder snaplen(int snaplen) {
+      this.snaplen = snaplen;
+      return this;
+    }
+
+    /**
+     * @param blockSize the size of decompressed blocks in bytes. A block which
+     *                  holds a single larger record can be larger. 64 KiB by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder blockSize(int blockSize) {
+      this.blockSize = blockSize;
+      return this;
+    }
+
+    /**
+     * @param level the compression level of {@link Deflater}.
+     *              {@link Deflater#BEST_SPEED} by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder level(int level) {
+      this.level = level;
+      return this;
+    }
+
+    /**
+     * @param threads the number of compression threads.
+     *                The number of available processors by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * @param nanosecondPrecision true to write timestamps in nanoseconds;
+     *                            false to write them in microseconds. false by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder nanosecondPrecision(boolean nanosecondPrecision) {
+      this.nanosecondPrecision = nanosecondPrecision;
+      return this;
+    }
+
+    /**
+     * @param executor the executor to compress blocks on instead of a thread pool owned
+     *                 by the writer. {@link #threads(int)} then only bounds the number of
+     *                 blocks being compressed at a time.
+     * @return this Builder object for method chaining.
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * @return a new BlockCompressedPcapWriter object, which has written the global header.
+     * @throws IOException if an I/O error occurs.
+     */
+    public BlockCompressedPcapWriter build() throws IOException {
+      return new BlockCompressedPcapWriter(this);
+    }
+
+  }
+
+}
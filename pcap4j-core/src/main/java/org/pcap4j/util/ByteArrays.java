@@ -13,11 +13,13 @@ import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.zip.Adler32;
 import java.util.zip.CRC32;
+import org.pcap4j.packet.IllegalRawDataException;
 
 /**
  * @author Kaito Yamada
@@ -785,6 +787,34 @@ public final class ByteArrays {
     }
   }
 
+  /**
+   * @param value an IPv4 address as a big-endian int value.
+   * @return a new Inet4Address object.
+   */
+  public static Inet4Address toInet4Address(int value) {
+    try {
+      return (Inet4Address) InetAddress.getByAddress(toByteArray(value));
+    } catch (UnknownHostException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * @param high the upper 64 bits of an IPv6 address.
+   * @param low the lower 64 bits of an IPv6 address.
+   * @return a new Inet6Address object.
+   */
+  public static Inet6Address toInet6Address(long high, long low) {
+    byte[] addr = new byte[INET6_ADDRESS_SIZE_IN_BYTES];
+    putLongUnchecked(addr, 0, high);
+    putLongUnchecked(addr, LONG_SIZE_IN_BYTES, low);
+    try {
+      return Inet6Address.getByAddress(null, addr, -1);
+    } catch (UnknownHostException e) {
+      throw new AssertionError(e);
+    }
+  }
+
   /**
    *
    * @param value value
@@ -1062,7 +1092,7 @@ public final class ByteArrays {
       sb.append("length is zero. offset: ")
         .append(offset)
         .append(", arr: ")
-        .append(toHexString(arr, ""));
+        .append(toHexStringForMessage(arr));
       throw new IllegalArgumentException(sb.toString());
     }
     if (offset < 0 || len < 0 || offset + len > arr.length) {
@@ -1074,11 +1104,18 @@ public final class ByteArrays {
         .append(", len: ")
         .append(len)
         .append(", arr: ")
-        .append(toHexString(arr, ""));
+        .append(toHexStringForMessage(arr));
       throw new ArrayIndexOutOfBoundsException(sb.toString());
     }
   }
 
+  private static String toHexStringForMessage(byte[] arr) {
+    if (IllegalRawDataException.isFastFailDecoding()) {
+      return IllegalRawDataException.toHexString(arr);
+    }
+    return toHexString(arr, "");
+  }
+
   /**
    * @param arr1 arr1
    * @param arr2 arr2
@@ -1138,4 +1175,376 @@ public final class ByteArrays {
     return result;
   }
 
+  /**
+   * Compares a range of an array with a range of another array.
+   *
+   * @param arr1 arr1
+   * @param offset1 offset in arr1
+   * @param arr2 arr2
+   * @param offset2 offset in arr2
+   * @param length length of the ranges
+   * @return true if the two ranges have the same bytes; false otherwise.
+   */
+  public static boolean equals(byte[] arr1, int offset1, byte[] arr2, int offset2, int length) {
+    if (arr1 == arr2 && offset1 == offset2) {
+      return true;
+    }
+    for (int i = 0; i < length; i++) {
+      if (arr1[offset1 + i] != arr2[offset2 + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Calculates a hash code of a range of an array in the same way as
+   * {@link java.util.Arrays#hashCode(byte[])}.
+   *
+   * @param array array
+   * @param offset offset
+   * @param length length
+   * @return the hash code of the range.
+   */
+  public static int hashCode(byte[] array, int offset, int length) {
+    int result = 1;
+    for (int i = offset; i < offset + length; i++) {
+      result = 31 * result + array[i];
+    }
+    return result;
+  }
+
+  /*
+   * Unchecked accessors.
+   *
+   * The following methods don't validate their arguments so that a decoder can validate
+   * the bounds of a whole header once (e.g. by validateBounds()) and then read or write
+   * its fields with no further checks than the JVM's own array bounds checks.
+   */
+
+  /**
+   * Reads a big-endian short value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @return short value.
+   */
+  public static short getShortUnchecked(byte[] array, int offset) {
+    return (short) ((array[offset] << 8) | (array[offset + 1] & 0xFF));
+  }
+
+  /**
+   * Reads a short value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param bo bo
+   * @return short value.
+   */
+  public static short getShortUnchecked(byte[] array, int offset, ByteOrder bo) {
+    short value = getShortUnchecked(array, offset);
+    return bo == LITTLE_ENDIAN ? Short.reverseBytes(value) : value;
+  }
+
+  /**
+   * Reads a big-endian int value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @return int value.
+   */
+  public static int getIntUnchecked(byte[] array, int offset) {
+    return (array[offset] << 24)
+         | ((array[offset + 1] & 0xFF) << 16)
+         | ((array[offset + 2] & 0xFF) << 8)
+         | (array[offset + 3] & 0xFF);
+  }
+
+  /**
+   * Reads an int value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param bo bo
+   * @return int value.
+   */
+  public static int getIntUnchecked(byte[] array, int offset, ByteOrder bo) {
+    int value = getIntUnchecked(array, offset);
+    return bo == LITTLE_ENDIAN ? Integer.reverseBytes(value) : value;
+  }
+
+  /**
+   * Reads a big-endian long value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @return long value.
+   */
+  public static long getLongUnchecked(byte[] array, int offset) {
+    return ((long) getIntUnchecked(array, offset) << 32)
+         | (getIntUnchecked(array, offset + 4) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Reads a long value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param bo bo
+   * @return long value.
+   */
+  public static long getLongUnchecked(byte[] array, int offset, ByteOrder bo) {
+    long value = getLongUnchecked(array, offset);
+    return bo == LITTLE_ENDIAN ? Long.reverseBytes(value) : value;
+  }
+
+  /**
+   * Reads an IPv4 address without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @return a new Inet4Address object.
+   */
+  public static Inet4Address getInet4AddressUnchecked(byte[] array, int offset) {
+    try {
+      return (Inet4Address) InetAddress.getByAddress(
+               new byte[] {
+                 array[offset], array[offset + 1], array[offset + 2], array[offset + 3]
+               }
+             );
+    } catch (UnknownHostException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Writes a big-endian short value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   */
+  public static void putShortUnchecked(byte[] array, int offset, short value) {
+    array[offset] = (byte) (value >> 8);
+    array[offset + 1] = (byte) value;
+  }
+
+  /**
+   * Writes a short value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   * @param bo bo
+   */
+  public static void putShortUnchecked(byte[] array, int offset, short value, ByteOrder bo) {
+    putShortUnchecked(array, offset, bo == LITTLE_ENDIAN ? Short.reverseBytes(value) : value);
+  }
+
+  /**
+   * Writes a big-endian int value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   */
+  public static void putIntUnchecked(byte[] array, int offset, int value) {
+    array[offset] = (byte) (value >> 24);
+    array[offset + 1] = (byte) (value >> 16);
+    array[offset + 2] = (byte) (value >> 8);
+    array[offset + 3] = (byte) value;
+  }
+
+  /**
+   * Writes an int value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   * @param bo bo
+   */
+  public static void putIntUnchecked(byte[] array, int offset, int value, ByteOrder bo) {
+    putIntUnchecked(array, offset, bo == LITTLE_ENDIAN ? Integer.reverseBytes(value) : value);
+  }
+
+  /**
+   * Writes a big-endian long value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   */
+  public static void putLongUnchecked(byte[] array, int offset, long value) {
+    putIntUnchecked(array, offset, (int) (value >> 32));
+    putIntUnchecked(array, offset + 4, (int) value);
+  }
+
+  /**
+   * Writes a long value without validating the arguments.
+   *
+   * @param array array
+   * @param offset offset
+   * @param value value
+   * @param bo bo
+   */
+  public static void putLongUnchecked(byte[] array, int offset, long value, ByteOrder bo) {
+    putLongUnchecked(array, offset, bo == LITTLE_ENDIAN ? Long.reverseBytes(value) : value);
+  }
+
+  /*
+   * ByteBuffer overloads.
+   *
+   * The following methods read values at absolute offsets in a ByteBuffer, which may be a
+   * direct or mapped buffer, regardless of its position, limit, and order. They never
+   * modify the buffer. The bounds are checked by the buffer itself, which throws
+   * IndexOutOfBoundsException.
+   */
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return byte value.
+   */
+  public static byte getByte(ByteBuffer buffer, int offset) {
+    return buffer.get(offset);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return short value.
+   */
+  public static short getShort(ByteBuffer buffer, int offset) {
+    return getShort(buffer, offset, ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @param bo bo
+   * @return short value.
+   */
+  public static short getShort(ByteBuffer buffer, int offset, ByteOrder bo) {
+    if (bo == null) {
+      throw new NullPointerException(" bo: " + bo);
+    }
+    short value = buffer.getShort(offset);
+    return buffer.order() == bo ? value : Short.reverseBytes(value);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return int value.
+   */
+  public static int getInt(ByteBuffer buffer, int offset) {
+    return getInt(buffer, offset, ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @param bo bo
+   * @return int value.
+   */
+  public static int getInt(ByteBuffer buffer, int offset, ByteOrder bo) {
+    if (bo == null) {
+      throw new NullPointerException(" bo: " + bo);
+    }
+    int value = buffer.getInt(offset);
+    return buffer.order() == bo ? value : Integer.reverseBytes(value);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return long value.
+   */
+  public static long getLong(ByteBuffer buffer, int offset) {
+    return getLong(buffer, offset, ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @param bo bo
+   * @return long value.
+   */
+  public static long getLong(ByteBuffer buffer, int offset, ByteOrder bo) {
+    if (bo == null) {
+      throw new NullPointerException(" bo: " + bo);
+    }
+    long value = buffer.getLong(offset);
+    return buffer.order() == bo ? value : Long.reverseBytes(value);
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @param length length
+   * @return a new array containing specified range of the buffer.
+   */
+  public static byte[] getSubArray(ByteBuffer buffer, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+      StringBuilder sb = new StringBuilder(80);
+      sb.append("buffer.limit(): ")
+        .append(buffer.limit())
+        .append(", offset: ")
+        .append(offset)
+        .append(", length: ")
+        .append(length);
+      throw new IndexOutOfBoundsException(sb.toString());
+    }
+
+    byte[] subArray = new byte[length];
+    if (buffer.hasArray()) {
+      System.arraycopy(buffer.array(), buffer.arrayOffset() + offset, subArray, 0, length);
+    }
+    else {
+      ByteBuffer dup = buffer.duplicate();
+      dup.position(offset);
+      dup.get(subArray);
+    }
+    return subArray;
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return a new MacAddress object.
+   */
+  public static MacAddress getMacAddress(ByteBuffer buffer, int offset) {
+    return MacAddress.getByAddress(getSubArray(buffer, offset, MacAddress.SIZE_IN_BYTES));
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return a new Inet4Address object.
+   */
+  public static Inet4Address getInet4Address(ByteBuffer buffer, int offset) {
+    try {
+      return (Inet4Address) InetAddress.getByAddress(
+               getSubArray(buffer, offset, INET4_ADDRESS_SIZE_IN_BYTES)
+             );
+    } catch (UnknownHostException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * @param buffer buffer
+   * @param offset offset
+   * @return a new Inet6Address object.
+   */
+  public static Inet6Address getInet6Address(ByteBuffer buffer, int offset) {
+    try {
+      return Inet6Address.getByAddress(
+               null, getSubArray(buffer, offset, INET6_ADDRESS_SIZE_IN_BYTES), -1
+             );
+    } catch (UnknownHostException e) {
+      throw new AssertionError(e);
+    }
+  }
+
 }
@@ -0,0 +1,1031 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.DecodeDepth;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.DisplayFilterField.FrameField;
+import org.pcap4j.util.DisplayFilterField.Type;
+import org.pcap4j.util.DisplayFilterField.Values;
+
+/**
+ * A display filter, i.e. a Wireshark-style filter expression compiled into a tree of
+ * predicates which read fields of dissected packets. Unlike a BPF filter, a display filter
+ * can look into protocols which pcap4j dissects, such as DNS, GTP, SSH, and IEEE 802.11.
+ * <pre>
+ * DisplayFilter filter
+ *   = DisplayFilter.compile(
+ *       "tcp.flags.syn &amp;&amp; ip.src == 10.0.0.0/8 || dns.qry.name contains \"example\""
+ *     );
+ * if (filter.matches(rawData, DataLinkType.EN10MB)) { ... }
+ * </pre>
+ * <p>
+ * An expression consists of:
+ * </p>
+ * <ul>
+ * <li>a field name alone, e.g. {@code tcp} or {@code dns.a}, which is true if the packet has
+ *     the field. A boolean field alone, e.g. {@code tcp.flags.syn}, is true if it is set.</li>
+ * <li>comparisons {@code ==}, {@code !=}, {@code >}, {@code >=}, {@code <}, and {@code <=}
+ *     (or {@code eq}, {@code ne}, {@code gt}, {@code ge}, {@code lt}, and {@code le}).
+ *     A comparison is true if any value of the field satisfies it, except {@code !=},
+ *     which is true if the field has values and none of them is equal.
+ *     A comparison of a field which the packet doesn't have is false.</li>
+ * <li>{@code field in {80 443 8000..8080}}, which is true if any value of the field equals
+ *     any of the set elements or falls in any of the ranges.</li>
+ * <li>{@code field contains "text"} for string fields, and
+ *     {@code protocol contains "text"} or {@code protocol contains 16:03:01} to search the
+ *     raw data of a protocol layer (e.g. {@code tcp}, {@code frame}).</li>
+ * <li>{@code field matches "regex"} for string fields. Matching is case insensitive.</li>
+ * <li>{@code &&}, {@code ||}, and {@code !} (or {@code and}, {@code or}, and {@code not}),
+ *     and parentheses.</li>
+ * </ul>
+ * <p>
+ * Literals are parsed according to the type of the field: integers in decimal or hex
+ * (0x...), IPv4 and IPv6 addresses with an optional prefix length (e.g. 10.0.0.0/8),
+ * MAC addresses (e.g. 00:11:22:33:44:55), and strings in double quotes.
+ * Host names are not resolved. Fields refer to the outermost layer of their protocol,
+ * e.g. {@code ip.src} is the source address of the outer header of a tunneled packet.
+ * The names of the available fields are given by {@link #getFieldNames()}.
+ * </p>
+ * <p>
+ * The operands of {@code &&} and {@code ||} are reordered so that conditions which need
+ * less dissection are evaluated first, which is safe because evaluation has no side
+ * effects. {@link #matches(byte[], DataLinkType)} dissects raw data lazily: conditions on
+ * frames are evaluated without dissection, conditions on headers up to the transport layer
+ * dissect only those headers (see {@link DecodeDepth#TRANSPORT}), and the packet is fully
+ * dissected only if a condition on an application protocol is reached. Thus, in
+ * {@code udp.port == 53 && dns.flags.rcode != 0}, a TCP packet is rejected before DNS is
+ * dissected.
+ * </p>
+ * <p>
+ * DisplayFilter objects are immutable and thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class DisplayFilter {
+
+  private final String expression;
+  private final Node root;
+
+  private DisplayFilter(String expression, Node root) {
+    this.expression = expression;
+    this.root = root;
+  }
+
+  /**
+   * @param expression a display filter expression.
+   * @return a new DisplayFilter object.
+   * @throws IllegalArgumentException if the expression is invalid.
+   */
+  public static DisplayFilter compile(String expression) {
+    if (expression == null) {
+      throw new NullPointerException("expression must not be null.");
+    }
+    return new DisplayFilter(expression, new Parser(expression).parse());
+  }
+
+  /**
+   * @return the names of the fields which expressions can refer to.
+   */
+  public static Set<String> getFieldNames() {
+    return DisplayFilterField.names();
+  }
+
+  /**
+   * @return the expression from which this filter was compiled.
+   */
+  public String getExpression() {
+    return expression;
+  }
+
+  /**
+   * @return the shallowest decode depth with which packets have all the fields which
+   *         this filter refers to. Packets given to {@link #matches(Packet)} can be
+   *         dissected with this, e.g. by {@code PcapHandle.setDecodeDepth()}.
+   */
+  public DecodeDepth getDecodeDepth() {
+    switch (root.level) {
+      case DisplayFilterField.FRAME:
+      case DisplayFilterField.DATA_LINK:
+        return DecodeDepth.DATA_LINK;
+      case DisplayFilterField.NETWORK:
+        return DecodeDepth.NETWORK;
+      case DisplayFilterField.TRANSPORT:
+        return DecodeDepth.TRANSPORT;
+      default:
+        return DecodeDepth.FULL;
+    }
+  }
+
+  /**
+   * @param packet a dissected packet.
+   * @return true if the packet matches this filter; false otherwise.
+   */
+  public boolean matches(Packet packet) {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+    return root.eval(new Context(packet));
+  }
+
+  /**
+   * Evaluates this filter on raw data, dissecting it only as deeply as the conditions
+   * which are reached need.
+   *
+   * @param rawData the raw data of a frame.
+   * @param dlt the data link type of the frame.
+   * @return true if the frame matches this filter; false otherwise.
+   */
+  public boolean matches(byte[] rawData, DataLinkType dlt) {
+    if (rawData == null || dlt == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("rawData: ").append(rawData)
+        .append(" dlt: ").append(dlt);
+      throw new NullPointerException(sb.toString());
+    }
+    return root.eval(new Context(rawData, dlt));
+  }
+
+  @Override
+  public String toString() {
+    return expression;
+  }
+
+  private static final class Context {
+
+    private final byte[] rawData;
+    private final DataLinkType dlt;
+    private final Values values = new Values();
+    private Packet packet;
+    private int decodedLevel;
+
+    private Context(Packet packet) {
+      this.rawData = null;
+      this.dlt = null;
+      this.packet = packet;
+      this.decodedLevel = DisplayFilterField.APPLICATION;
+    }
+
+    private Context(byte[] rawData, DataLinkType dlt) {
+      this.rawData = rawData;
+      this.dlt = dlt;
+      this.packet = null;
+      this.decodedLevel = -1;
+    }
+
+    private Packet packet(int level) {
+      if (decodedLevel < level) {
+        // Headers up to the transport layer are cheap to dissect, so they are dissected
+        // at once rather than layer by layer.
+        DecodeDepth depth;
+        if (level <= DisplayFilterField.TRANSPORT) {
+          depth = DecodeDepth.TRANSPORT;
+          decodedLevel = DisplayFilterField.TRANSPORT;
+        }
+        else {
+          depth = DecodeDepth.FULL;
+          decodedLevel = DisplayFilterField.APPLICATION;
+        }
+        DecodeDepth previous = DecodeDepth.setCurrent(depth);
+        try {
+          packet = PacketFactories.getFactory(Packet.class, DataLinkType.class)
+                     .newInstance(rawData, 0, rawData.length, dlt);
+        } finally {
+          DecodeDepth.setCurrent(previous);
+        }
+      }
+      return packet;
+    }
+
+    private Packet layer(DisplayFilterField field) {
+      return field.find(packet(field.level));
+    }
+
+    private Values values(DisplayFilterField field) {
+      values.clear();
+      if (field instanceof FrameField && rawData != null) {
+        ((FrameField) field).extract(rawData, values);
+        return values;
+      }
+
+      Packet layer = layer(field);
+      if (layer != null) {
+        field.extract(layer, values);
+      }
+      return values;
+    }
+
+  }
+
+  private abstract static class Node {
+
+    /**
+     * How deep packets must be dissected to evaluate this node.
+     */
+    final int level;
+
+    Node(int level) {
+      this.level = level;
+    }
+
+    abstract boolean eval(Context ctx);
+
+  }
+
+  private static final Comparator<Node> LEVEL_ORDER
+    = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+          return n1.level < n2.level ? -1 : (n1.level == n2.level ? 0 : 1);
+        }
+      };
+
+  private static int maxLevel(List<Node> nodes) {
+    int level = DisplayFilterField.FRAME;
+    for (Node node: nodes) {
+      level = Math.max(level, node.level);
+    }
+    return level;
+  }
+
+  private static final class And extends Node {
+
+    private final Node[] operands;
+
+    And(List<Node> operands) {
+      super(maxLevel(operands));
+      List<Node> sorted = new ArrayList<Node>(operands);
+      Collections.sort(sorted, LEVEL_ORDER);
+      this.operands = sorted.toArray(new Node[sorted.size()]);
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      for (Node operand: operands) {
+        if (!operand.eval(ctx)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+  private static final class Or extends Node {
+
+    private final Node[] operands;
+
+    Or(List<Node> operands) {
+      super(maxLevel(operands));
+      List<Node> sorted = new ArrayList<Node>(operands);
+      Collections.sort(sorted, LEVEL_ORDER);
+      this.operands = sorted.toArray(new Node[sorted.size()]);
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      for (Node operand: operands) {
+        if (operand.eval(ctx)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  private static final class Not extends Node {
+
+    private final Node operand;
+
+    Not(Node operand) {
+      super(operand.level);
+      this.operand = operand;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      return !operand.eval(ctx);
+    }
+
+  }
+
+  private static final class Exists extends Node {
+
+    private final DisplayFilterField field;
+
+    Exists(DisplayFilterField field) {
+      super(field.level);
+      this.field = field;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      switch (field.type) {
+        case PROTOCOL:
+          return field instanceof FrameField || ctx.layer(field) != null;
+        case BOOLEAN:
+          Values values = ctx.values(field);
+          for (int i = 0; i < values.size; i++) {
+            if (values.longs[i] != 0) {
+              return true;
+            }
+          }
+          return false;
+        default:
+          return ctx.values(field).size != 0;
+      }
+    }
+
+  }
+
+  /**
+   * A set element: a value, a range of values, or a network for IP address fields.
+   */
+  private static final class Literal {
+
+    private final long low;
+    private final long high;
+    private final long mask;
+    private final long low2;
+    private final long mask2;
+    private final String string;
+
+    private Literal(long low, long high, long mask, long low2, long mask2, String string) {
+      this.low = low;
+      this.high = high;
+      this.mask = mask;
+      this.low2 = low2;
+      this.mask2 = mask2;
+      this.string = string;
+    }
+
+    static Literal value(long value) {
+      return new Literal(value, value, -1L, 0, 0, null);
+    }
+
+    static Literal range(long low, long high) {
+      return new Literal(low, high, -1L, 0, 0, null);
+    }
+
+    static Literal network(long addr, long mask) {
+      return new Literal(addr & mask, addr & mask, mask, 0, 0, null);
+    }
+
+    static Literal network(long high, long low, long highMask, long lowMask) {
+      return new Literal(high & highMask, high & highMask, highMask, low & lowMask, lowMask, null);
+    }
+
+    static Literal string(String string) {
+      return new Literal(0, 0, 0, 0, 0, string);
+    }
+
+    boolean matches(Values values, int i, Type type) {
+      switch (type) {
+        case IPV6:
+          return (values.longs[i] & mask) == low && (values.longs[i + 1] & mask2) == low2;
+        case STRING:
+          return string.equals(values.objects[i]);
+        default:
+          long value = values.longs[i] & mask;
+          return value >= low && value <= high;
+      }
+    }
+
+  }
+
+  private static final class In extends Node {
+
+    private final DisplayFilterField field;
+    private final Literal[] literals;
+    private final boolean negated;
+
+    In(DisplayFilterField field, List<Literal> literals, boolean negated) {
+      super(field.level);
+      this.field = field;
+      this.literals = literals.toArray(new Literal[literals.size()]);
+      this.negated = negated;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      Values values = ctx.values(field);
+      if (values.size == 0) {
+        return false;
+      }
+      int step = field.type == Type.IPV6 ? 2 : 1;
+      for (int i = 0; i < values.size; i += step) {
+        for (Literal literal: literals) {
+          if (literal.matches(values, i, field.type)) {
+            return !negated;
+          }
+        }
+      }
+      return negated;
+    }
+
+  }
+
+  private static final class Relation extends Node {
+
+    private final DisplayFilterField field;
+    private final int op;
+    private final long operand;
+
+    Relation(DisplayFilterField field, int op, long operand) {
+      super(field.level);
+      this.field = field;
+      this.op = op;
+      this.operand = operand;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      Values values = ctx.values(field);
+      for (int i = 0; i < values.size; i++) {
+        long value = values.longs[i];
+        switch (op) {
+          case Token.GT:
+            if (value > operand) {
+              return true;
+            }
+            break;
+          case Token.GE:
+            if (value >= operand) {
+              return true;
+            }
+            break;
+          case Token.LT:
+            if (value < operand) {
+              return true;
+            }
+            break;
+          case Token.LE:
+            if (value <= operand) {
+              return true;
+            }
+            break;
+          default:
+            throw new AssertionError();
+        }
+      }
+      return false;
+    }
+
+  }
+
+  private static final class Contains extends Node {
+
+    private final DisplayFilterField field;
+    private final byte[] bytes;
+    private final String string;
+
+    Contains(DisplayFilterField field, byte[] bytes, String string) {
+      super(field.level);
+      this.field = field;
+      this.bytes = bytes;
+      this.string = string;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      Values values = ctx.values(field);
+      for (int i = 0; i < values.size; i++) {
+        if (string != null) {
+          if (((String) values.objects[i]).contains(string)) {
+            return true;
+          }
+        }
+        else if (indexOf((byte[]) values.objects[i], bytes) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int indexOf(byte[] data, byte[] target) {
+      if (target.length == 0) {
+        return 0;
+      }
+      byte first = target[0];
+      int last = data.length - target.length;
+      outer:
+      for (int i = 0; i <= last; i++) {
+        if (data[i] != first) {
+          continue;
+        }
+        for (int j = 1; j < target.length; j++) {
+          if (data[i + j] != target[j]) {
+            continue outer;
+          }
+        }
+        return i;
+      }
+      return -1;
+    }
+
+  }
+
+  private static final class Matches extends Node {
+
+    private final DisplayFilterField field;
+    private final Pattern pattern;
+
+    Matches(DisplayFilterField field, Pattern pattern) {
+      super(field.level);
+      this.field = field;
+      this.pattern = pattern;
+    }
+
+    @Override
+    boolean eval(Context ctx) {
+      Values values = ctx.values(field);
+      for (int i = 0; i < values.size; i++) {
+        if (pattern.matcher((String) values.objects[i]).find()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+  }
+
+  private static final class Token {
+
+    static final int EOF = 0;
+    static final int WORD = 1;
+    static final int STRING = 2;
+    static final int LPAREN = 3;
+    static final int RPAREN = 4;
+    static final int LBRACE = 5;
+    static final int RBRACE = 6;
+    static final int COMMA = 7;
+    static final int AND = 8;
+    static final int OR = 9;
+    static final int NOT = 10;
+    static final int EQ = 11;
+    static final int NE = 12;
+    static final int GT = 13;
+    static final int GE = 14;
+    static final int LT = 15;
+    static final int LE = 16;
+    static final int CONTAINS = 17;
+    static final int MATCHES = 18;
+    static final int IN = 19;
+
+    final int kind;
+    final String text;
+    final int position;
+
+    Token(int kind, String text, int position) {
+      this.kind = kind;
+      this.text = text;
+      this.position = position;
+    }
+
+  }
+
+  private static final class SyntaxError extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 2385734928377210364L;
+
+    SyntaxError(String message) {
+      super(message);
+    }
+
+  }
+
+  private static final class Parser {
+
+    private final String expression;
+    private final List<Token> tokens = new ArrayList<Token>();
+    private int next = 0;
+
+    Parser(String expression) {
+      this.expression = expression;
+      tokenize();
+    }
+
+    Node parse() {
+      Node node = parseOr();
+      if (peek().kind != Token.EOF) {
+        throw error("Unexpected '" + peek().text + "'", peek());
+      }
+      return node;
+    }
+
+    private SyntaxError error(String message, Token token) {
+      StringBuilder sb = new StringBuilder(100);
+      sb.append(message)
+        .append(" at position ")
+        .append(token.position)
+        .append(" in: ")
+        .append(expression);
+      return new SyntaxError(sb.toString());
+    }
+
+    private Token peek() {
+      return tokens.get(next);
+    }
+
+    private Token take() {
+      return tokens.get(next++);
+    }
+
+    private Token expect(int kind, String what) {
+      Token token = take();
+      if (token.kind != kind) {
+        throw error(what + " expected", token);
+      }
+      return token;
+    }
+
+    private Node parseOr() {
+      List<Node> operands = new ArrayList<Node>();
+      operands.add(parseAnd());
+      while (peek().kind == Token.OR) {
+        take();
+        operands.add(parseAnd());
+      }
+      return operands.size() == 1 ? operands.get(0) : new Or(operands);
+    }
+
+    private Node parseAnd() {
+      List<Node> operands = new ArrayList<Node>();
+      operands.add(parseNot());
+      while (peek().kind == Token.AND) {
+        take();
+        operands.add(parseNot());
+      }
+      return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    private Node parseNot() {
+      if (peek().kind == Token.NOT) {
+        take();
+        return new Not(parseNot());
+      }
+      return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+      Token token = take();
+      if (token.kind == Token.LPAREN) {
+        Node node = parseOr();
+        expect(Token.RPAREN, "')'");
+        return node;
+      }
+      if (token.kind != Token.WORD) {
+        throw error("A field name expected", token);
+      }
+
+      DisplayFilterField field = DisplayFilterField.get(token.text);
+      if (field == null) {
+        throw error("Unknown field '" + token.text + "'", token);
+      }
+
+      Token op = peek();
+      switch (op.kind) {
+        case Token.EQ:
+        case Token.NE:
+          take();
+          if (field.type == Type.PROTOCOL) {
+            throw error("'" + op.text + "' is not applicable to " + field, op);
+          }
+          return new In(
+                   field,
+                   Collections.singletonList(parseLiteral(field, take(), false)),
+                   op.kind == Token.NE
+                 );
+        case Token.GT:
+        case Token.GE:
+        case Token.LT:
+        case Token.LE:
+          take();
+          if (field.type != Type.UINT) {
+            throw error("'" + op.text + "' is not applicable to " + field, op);
+          }
+          return new Relation(field, op.kind, parseLiteral(field, take(), false).low);
+        case Token.IN:
+          take();
+          if (field.type == Type.PROTOCOL) {
+            throw error("'in' is not applicable to " + field, op);
+          }
+          expect(Token.LBRACE, "'{'");
+          List<Literal> literals = new ArrayList<Literal>();
+          while (peek().kind != Token.RBRACE) {
+            if (peek().kind == Token.COMMA && !literals.isEmpty()) {
+              take();
+            }
+            literals.add(parseLiteral(field, take(), true));
+          }
+          take();
+          if (literals.isEmpty()) {
+            throw error("An empty set", op);
+          }
+          return new In(field, literals, false);
+        case Token.CONTAINS:
+          take();
+          return parseContains(field, take());
+        case Token.MATCHES:
+          take();
+          if (field.type != Type.STRING) {
+            throw error("'matches' is not applicable to " + field, op);
+          }
+          Token regex = take();
+          if (regex.kind != Token.STRING) {
+            throw error("A quoted regular expression expected", regex);
+          }
+          try {
+            return new Matches(field, Pattern.compile(regex.text, Pattern.CASE_INSENSITIVE));
+          } catch (PatternSyntaxException e) {
+            throw error("Invalid regular expression: " + e.getDescription(), regex);
+          }
+        default:
+          return new Exists(field);
+      }
+    }
+
+    private Node parseContains(DisplayFilterField field, Token token) {
+      switch (field.type) {
+        case STRING:
+          if (token.kind != Token.STRING && token.kind != Token.WORD) {
+            throw error("A string expected", token);
+          }
+          return new Contains(field, null, token.text);
+        case PROTOCOL:
+          byte[] bytes;
+          if (token.kind == Token.STRING) {
+            try {
+              bytes = token.text.getBytes("UTF-8");
+            } catch (UnsupportedEncodingException e) {
+              throw new AssertionError(e);
+            }
+          }
+          else if (token.kind == Token.WORD) {
+            try {
+              bytes = ByteArrays.parseByteArray(token.text, ":");
+            } catch (IllegalArgumentException e) {
+              throw error("Bytes such as 16:03:01 expected", token);
+            }
+          }
+          else {
+            throw error("A string or bytes expected", token);
+          }
+          return new Contains(field, bytes, null);
+        default:
+          throw error("'contains' is not applicable to " + field, token);
+      }
+    }
+
+    private Literal parseLiteral(DisplayFilterField field, Token token, boolean inSet) {
+      if (token.kind == Token.STRING && field.type == Type.STRING) {
+        return Literal.string(token.text);
+      }
+      if (token.kind != Token.WORD) {
+        throw error("A value of " + field + " expected", token);
+      }
+
+      String text = token.text;
+      try {
+        switch (field.type) {
+          case STRING:
+            return Literal.string(text);
+          case BOOLEAN:
+            if (text.equals("1") || text.equalsIgnoreCase("true")) {
+              return Literal.value(1);
+            }
+            if (text.equals("0") || text.equalsIgnoreCase("false")) {
+              return Literal.value(0);
+            }
+            throw error("1, 0, true, or false expected", token);
+          case UINT:
+            int dots = text.indexOf("..");
+            if (dots >= 0) {
+              if (!inSet) {
+                throw error("A range is allowed only in a set", token);
+              }
+              return Literal.range(
+                       parseUint(text.substring(0, dots)), parseUint(text.substring(dots + 2))
+                     );
+            }
+            return Literal.value(parseUint(text));
+          case IPV4: {
+            int slash = text.indexOf('/');
+            String addr = slash < 0 ? text : text.substring(0, slash);
+            int prefix = slash < 0 ? 32 : Integer.parseInt(text.substring(slash + 1));
+            if (prefix < 0 || prefix > 32) {
+              throw error("Invalid prefix length", token);
+            }
+            long value = ByteArrays.getInt(ByteArrays.parseInet4Address(addr), 0) & 0xFFFFFFFFL;
+            long mask = prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+            return Literal.network(value, mask);
+          }
+          case IPV6: {
+            int slash = text.indexOf('/');
+            String addr = slash < 0 ? text : text.substring(0, slash);
+            int prefix = slash < 0 ? 128 : Integer.parseInt(text.substring(slash + 1));
+            if (prefix < 0 || prefix > 128 || addr.indexOf(':') < 0) {
+              throw error("An IPv6 address expected", token);
+            }
+            InetAddress inet = InetAddress.getByName(addr);
+            if (!(inet instanceof Inet6Address)) {
+              throw error("An IPv6 address expected", token);
+            }
+            byte[] bytes = inet.getAddress();
+            long highMask = prefix == 0 ? 0 : -1L << (64 - Math.min(prefix, 64));
+            long lowMask = prefix <= 64 ? 0 : -1L << (128 - prefix);
+            return Literal.network(
+                     ByteArrays.getLong(bytes, 0), ByteArrays.getLong(bytes, 8),
+                     highMask, lowMask
+                   );
+          }
+          case ETHER: {
+            byte[] bytes = MacAddress.getByName(text).getAddress();
+            if (bytes.length != MacAddress.SIZE_IN_BYTES) {
+              throw error("A MAC address expected", token);
+            }
+            long value = 0;
+            for (byte b: bytes) {
+              value = (value << 8) | (b & 0xFF);
+            }
+            return Literal.value(value);
+          }
+          default:
+            throw error("A value is not applicable to " + field, token);
+        }
+      } catch (NumberFormatException e) {
+        throw error("Invalid value '" + text + "' for " + field, token);
+      } catch (UnknownHostException e) {
+        throw error("Invalid value '" + text + "' for " + field, token);
+      } catch (SyntaxError e) {
+        throw e;
+      } catch (IllegalArgumentException e) {
+        throw error("Invalid value '" + text + "' for " + field, token);
+      } catch (IllegalStateException e) {
+        // thrown by MacAddress.getByName() if text has no separator
+        throw error("Invalid value '" + text + "' for " + field, token);
+      }
+    }
+
+    private static long parseUint(String text) {
+      long value = Long.decode(text);
+      if (value < 0) {
+        throw new NumberFormatException(text);
+      }
+      return value;
+    }
+
+    private void tokenize() {
+      int i = 0;
+      int len = expression.length();
+      while (i < len) {
+        char c = expression.charAt(i);
+        if (Character.isWhitespace(c)) {
+          i++;
+          continue;
+        }
+
+        int start = i;
+        if (isWordChar(c)) {
+          while (i < len && isWordChar(expression.charAt(i))) {
+            i++;
+          }
+          String word = expression.substring(start, i);
+          tokens.add(new Token(keyword(word), word, start));
+          continue;
+        }
+
+        if (c == '"') {
+          StringBuilder sb = new StringBuilder();
+          i++;
+          while (true) {
+            if (i == len) {
+              throw error("Unterminated string", new Token(Token.STRING, "", start));
+            }
+            c = expression.charAt(i++);
+            if (c == '"') {
+              break;
+            }
+            if (c == '\\' && i < len) {
+              c = expression.charAt(i++);
+            }
+            sb.append(c);
+          }
+          tokens.add(new Token(Token.STRING, sb.toString(), start));
+          continue;
+        }
+
+        String two = i + 1 < len ? expression.substring(i, i + 2) : "";
+        int kind;
+        if (two.equals("&&")) {
+          kind = Token.AND;
+        }
+        else if (two.equals("||")) {
+          kind = Token.OR;
+        }
+        else if (two.equals("==")) {
+          kind = Token.EQ;
+        }
+        else if (two.equals("!=")) {
+          kind = Token.NE;
+        }
+        else if (two.equals(">=")) {
+          kind = Token.GE;
+        }
+        else if (two.equals("<=")) {
+          kind = Token.LE;
+        }
+        else {
+          two = null;
+          switch (c) {
+            case '(': kind = Token.LPAREN; break;
+            case ')': kind = Token.RPAREN; break;
+            case '{': kind = Token.LBRACE; break;
+            case '}': kind = Token.RBRACE; break;
+            case ',': kind = Token.COMMA; break;
+            case '!': kind = Token.NOT; break;
+            case '>': kind = Token.GT; break;
+            case '<': kind = Token.LT; break;
+            default:
+              throw error("Unexpected character '" + c + "'", new Token(Token.EOF, "", start));
+          }
+        }
+        String text = two != null ? two : String.valueOf(c);
+        tokens.add(new Token(kind, text, start));
+        i += text.length();
+      }
+      tokens.add(new Token(Token.EOF, "end of expression", len));
+    }
+
+    private static boolean isWordChar(char c) {
+      return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_' || c == '.' || c == ':' || c == '/' || c == '-';
+    }
+
+    private static int keyword(String word) {
+      String lower = word.toLowerCase();
+      if (lower.equals("and")) {
+        return Token.AND;
+      }
+      if (lower.equals("or")) {
+        return Token.OR;
+      }
+      if (lower.equals("not")) {
+        return Token.NOT;
+      }
+      if (lower.equals("eq")) {
+        return Token.EQ;
+      }
+      if (lower.equals("ne")) {
+        return Token.NE;
+      }
+      if (lower.equals("gt")) {
+        return Token.GT;
+      }
+      if (lower.equals("ge")) {
+        return Token.GE;
+      }
+      if (lower.equals("lt")) {
+        return Token.LT;
+      }
+      if (lower.equals("le")) {
+        return Token.LE;
+      }
+      if (lower.equals("contains")) {
+        return Token.CONTAINS;
+      }
+      if (lower.equals("matches")) {
+        return Token.MATCHES;
+      }
+      if (lower.equals("in")) {
+        return Token.IN;
+      }
+      return Token.WORD;
+    }
+
+  }
+
+}
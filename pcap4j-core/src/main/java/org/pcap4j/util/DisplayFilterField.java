@@ -0,0 +1,967 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.pcap4j.packet.ArpPacket;
+import org.pcap4j.packet.DnsDomainName;
+import org.pcap4j.packet.DnsPacket;
+import org.pcap4j.packet.DnsPacket.DnsHeader;
+import org.pcap4j.packet.DnsQuestion;
+import org.pcap4j.packet.DnsRDataA;
+import org.pcap4j.packet.DnsRDataAaaa;
+import org.pcap4j.packet.DnsResourceRecord;
+import org.pcap4j.packet.Dot11ManagementPacket;
+import org.pcap4j.packet.Dot11ProbeRequestPacket;
+import org.pcap4j.packet.Dot11SsidElement;
+import org.pcap4j.packet.Dot1qVlanTagPacket;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.GtpV1Packet;
+import org.pcap4j.packet.IcmpV4CommonPacket;
+import org.pcap4j.packet.IcmpV6CommonPacket;
+import org.pcap4j.packet.IllegalRawDataException;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Packet.IpV4Header;
+import org.pcap4j.packet.IpV6Packet;
+import org.pcap4j.packet.IpV6Packet.IpV6Header;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.SctpPacket;
+import org.pcap4j.packet.Ssh2BinaryPacket;
+import org.pcap4j.packet.Ssh2VersionExchangePacket;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.TcpPacket.TcpHeader;
+import org.pcap4j.packet.UdpPacket;
+import org.pcap4j.packet.namednumber.NamedNumber;
+
+/**
+ * A field which {@link DisplayFilter} expressions refer to by name, e.g. {@code ip.src}.
+ * A field reads zero or more values from the outermost layer of its packet class.
+ * Values of {@link Type#BOOLEAN}, {@link Type#UINT}, {@link Type#IPV4}, and
+ * {@link Type#ETHER} fields are longs, those of {@link Type#IPV6} fields are pairs of longs
+ * (the high and low 64 bits), those of {@link Type#STRING} fields are Strings, and those of
+ * {@link Type#PROTOCOL} fields are the raw data of the layers.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+abstract class DisplayFilterField {
+
+  /**
+   * The type of a field, which decides how literals are parsed and which operators apply.
+   */
+  enum Type { PROTOCOL, BOOLEAN, UINT, IPV4, IPV6, ETHER, STRING }
+
+  // Levels, i.e. how deep a packet must be dissected to read a field.
+  static final int FRAME = 0;
+  static final int DATA_LINK = 1;
+  static final int NETWORK = 2;
+  static final int TRANSPORT = 3;
+  static final int APPLICATION = 4;
+
+  private static final Map<String, DisplayFilterField> fields
+    = new LinkedHashMap<String, DisplayFilterField>();
+
+  final String name;
+  final Type type;
+  final int level;
+  final Class<? extends Packet> packetClass;
+
+  private DisplayFilterField(
+    String name, Type type, int level, Class<? extends Packet> packetClass
+  ) {
+    this.name = name;
+    this.type = type;
+    this.level = level;
+    this.packetClass = packetClass;
+  }
+
+  /**
+   * @param name name
+   * @return the field of the name, or null if there is no such field.
+   */
+  static DisplayFilterField get(String name) {
+    return fields.get(name);
+  }
+
+  /**
+   * @return the names of all the fields.
+   */
+  static Set<String> names() {
+    return Collections.unmodifiableSet(fields.keySet());
+  }
+
+  /**
+   * @param packet a dissected packet.
+   * @return the layer of the packet which this field reads, or null if there is none.
+   */
+  Packet find(Packet packet) {
+    return packet.get(packetClass);
+  }
+
+  /**
+   * @param layer the layer returned by {@link #find(Packet)}.
+   * @param out the values of this field in the layer are added to this.
+   */
+  abstract void extract(Packet layer, Values out);
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * A field of a whole frame, which is read from its raw data without dissection.
+   */
+  abstract static class FrameField extends DisplayFilterField {
+
+    private FrameField(String name, Type type) {
+      super(name, type, FRAME, Packet.class);
+    }
+
+    @Override
+    Packet find(Packet packet) {
+      return packet;
+    }
+
+    @Override
+    void extract(Packet layer, Values out) {
+      extract(layer.getRawData(), out);
+    }
+
+    /**
+     * @param rawData the raw data of a frame.
+     * @param out the value of this field is added to this.
+     */
+    abstract void extract(byte[] rawData, Values out);
+
+  }
+
+  /**
+   * A reusable buffer for the values of a field.
+   */
+  static final class Values {
+
+    long[] longs = new long[8];
+    Object[] objects = new Object[4];
+    int size;
+
+    void clear() {
+      size = 0;
+    }
+
+    void add(long value) {
+      if (size == longs.length) {
+        long[] larger = new long[size * 2];
+        System.arraycopy(longs, 0, larger, 0, size);
+        longs = larger;
+      }
+      longs[size++] = value;
+    }
+
+    void add(long high, long low) {
+      add(high);
+      add(low);
+    }
+
+    void add(Object value) {
+      if (value == null) {
+        return;
+      }
+      if (size == objects.length) {
+        Object[] larger = new Object[size * 2];
+        System.arraycopy(objects, 0, larger, 0, size);
+        objects = larger;
+      }
+      objects[size++] = value;
+    }
+
+  }
+
+  private static void register(DisplayFilterField field) {
+    fields.put(field.name, field);
+  }
+
+  private static void protocol(String name, int level, Class<? extends Packet> packetClass) {
+    register(
+      new DisplayFilterField(name, Type.PROTOCOL, level, packetClass) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(layer.getRawData());
+        }
+      }
+    );
+  }
+
+  private static long unsigned(NamedNumber<?, ?> number) {
+    Number value = number.value();
+    if (value instanceof Byte) {
+      return value.byteValue() & 0xFFL;
+    }
+    if (value instanceof Short) {
+      return value.shortValue() & 0xFFFFL;
+    }
+    if (value instanceof Integer) {
+      return value.intValue() & 0xFFFFFFFFL;
+    }
+    return value.longValue();
+  }
+
+  private static long toLong(MacAddress addr) {
+    byte[] bytes = addr.getAddress();
+    long value = 0;
+    for (byte b: bytes) {
+      value = (value << 8) | (b & 0xFF);
+    }
+    return value;
+  }
+
+  private static void addName(DnsDomainName name, byte[] dnsRawData, Values out) {
+    try {
+      String decompressed = name.decompress(dnsRawData);
+      // decompress() puts a dot before the target of a bare pointer.
+      out.add(decompressed.startsWith(".") ? decompressed.substring(1) : decompressed);
+    } catch (IllegalRawDataException e) {
+      // A circular reference. Such a name has no value.
+    } catch (IllegalArgumentException e) {
+      // A pointer out of bounds.
+    }
+  }
+
+  private static void addRecords(
+    List<DnsResourceRecord> records, int what, byte[] dnsRawData, Values out
+  ) {
+    for (DnsResourceRecord rr: records) {
+      switch (what) {
+        case 0:
+          addName(rr.getName(), dnsRawData, out);
+          break;
+        case 1:
+          out.add(unsigned(rr.getDataType()));
+          break;
+        case 2:
+          out.add(rr.getTtlAsLong());
+          break;
+        case 3:
+          if (rr.getRData() instanceof DnsRDataA) {
+            Inet4Address addr = ((DnsRDataA) rr.getRData()).getAddress();
+            out.add(ByteArrays.getInt(addr.getAddress(), 0) & 0xFFFFFFFFL);
+          }
+          break;
+        case 4:
+          if (rr.getRData() instanceof DnsRDataAaaa) {
+            Inet6Address addr = ((DnsRDataAaaa) rr.getRData()).getAddress();
+            byte[] bytes = addr.getAddress();
+            out.add(ByteArrays.getLong(bytes, 0), ByteArrays.getLong(bytes, 8));
+          }
+          break;
+        default:
+          throw new AssertionError();
+      }
+    }
+  }
+
+  static {
+    register(
+      new FrameField("frame", Type.PROTOCOL) {
+        @Override
+        void extract(byte[] rawData, Values out) {
+          out.add(rawData);
+        }
+      }
+    );
+    register(
+      new FrameField("frame.len", Type.UINT) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(layer.length());
+        }
+        @Override
+        void extract(byte[] rawData, Values out) {
+          out.add(rawData.length);
+        }
+      }
+    );
+
+    protocol("eth", DATA_LINK, EthernetPacket.class);
+    register(
+      new DisplayFilterField("eth.src", Type.ETHER, DATA_LINK, EthernetPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((EthernetPacket) layer).getHeader().getSrcAddr()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("eth.dst", Type.ETHER, DATA_LINK, EthernetPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((EthernetPacket) layer).getHeader().getDstAddr()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("eth.addr", Type.ETHER, DATA_LINK, EthernetPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((EthernetPacket) layer).getHeader().getSrcAddr()));
+          out.add(toLong(((EthernetPacket) layer).getHeader().getDstAddr()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("eth.type", Type.UINT, DATA_LINK, EthernetPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((EthernetPacket) layer).getHeader().getType()));
+        }
+      }
+    );
+
+    protocol("vlan", DATA_LINK, Dot1qVlanTagPacket.class);
+    register(
+      new DisplayFilterField("vlan.id", Type.UINT, DATA_LINK, Dot1qVlanTagPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((Dot1qVlanTagPacket) layer).getHeader().getVidAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("vlan.priority", Type.UINT, DATA_LINK, Dot1qVlanTagPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((Dot1qVlanTagPacket) layer).getHeader().getPriority() & 0xFF);
+        }
+      }
+    );
+
+    protocol("wlan", DATA_LINK, Dot11ManagementPacket.class);
+    register(
+      new DisplayFilterField("wlan.da", Type.ETHER, DATA_LINK, Dot11ManagementPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((Dot11ManagementPacket) layer).getHeader().getAddress1()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("wlan.sa", Type.ETHER, DATA_LINK, Dot11ManagementPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((Dot11ManagementPacket) layer).getHeader().getAddress2()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("wlan.bssid", Type.ETHER, DATA_LINK, Dot11ManagementPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((Dot11ManagementPacket) layer).getHeader().getAddress3()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("wlan.ssid", Type.STRING, DATA_LINK, Dot11ProbeRequestPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          Dot11SsidElement ssid = ((Dot11ProbeRequestPacket) layer).getHeader().getSsid();
+          if (ssid != null) {
+            out.add(ssid.getSsid());
+          }
+        }
+      }
+    );
+
+    protocol("arp", NETWORK, ArpPacket.class);
+    register(
+      new DisplayFilterField("arp.opcode", Type.UINT, NETWORK, ArpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((ArpPacket) layer).getHeader().getOperation()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("arp.src.hw_mac", Type.ETHER, NETWORK, ArpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((ArpPacket) layer).getHeader().getSrcHardwareAddr()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("arp.dst.hw_mac", Type.ETHER, NETWORK, ArpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(toLong(((ArpPacket) layer).getHeader().getDstHardwareAddr()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("arp.src.proto_ipv4", Type.IPV4, NETWORK, ArpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((ArpPacket) layer).getHeader().getSrcProtocolAddrAsInt() & 0xFFFFFFFFL);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("arp.dst.proto_ipv4", Type.IPV4, NETWORK, ArpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((ArpPacket) layer).getHeader().getDstProtocolAddrAsInt() & 0xFFFFFFFFL);
+        }
+      }
+    );
+
+    protocol("ip", NETWORK, IpV4Packet.class);
+    register(
+      new DisplayFilterField("ip.src", Type.IPV4, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getSrcAddrAsInt() & 0xFFFFFFFFL);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.dst", Type.IPV4, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getDstAddrAsInt() & 0xFFFFFFFFL);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.addr", Type.IPV4, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          IpV4Header header = ((IpV4Packet) layer).getHeader();
+          out.add(header.getSrcAddrAsInt() & 0xFFFFFFFFL);
+          out.add(header.getDstAddrAsInt() & 0xFFFFFFFFL);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.proto", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IpV4Packet) layer).getHeader().getProtocol()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.ttl", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getTtlAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.len", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getTotalLengthAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.id", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getIdentificationAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.dsfield", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getTos().value() & 0xFF);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.flags.df", Type.BOOLEAN, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getDontFragmentFlag() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.flags.mf", Type.BOOLEAN, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getMoreFragmentFlag() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ip.frag_offset", Type.UINT, NETWORK, IpV4Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV4Packet) layer).getHeader().getFragmentOffset() & 0x1FFF);
+        }
+      }
+    );
+
+    protocol("ipv6", NETWORK, IpV6Packet.class);
+    register(
+      new DisplayFilterField("ipv6.src", Type.IPV6, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          IpV6Header header = ((IpV6Packet) layer).getHeader();
+          out.add(header.getSrcAddrHigh(), header.getSrcAddrLow());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.dst", Type.IPV6, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          IpV6Header header = ((IpV6Packet) layer).getHeader();
+          out.add(header.getDstAddrHigh(), header.getDstAddrLow());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.addr", Type.IPV6, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          IpV6Header header = ((IpV6Packet) layer).getHeader();
+          out.add(header.getSrcAddrHigh(), header.getSrcAddrLow());
+          out.add(header.getDstAddrHigh(), header.getDstAddrLow());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.nxt", Type.UINT, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IpV6Packet) layer).getHeader().getNextHeader()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.hlim", Type.UINT, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV6Packet) layer).getHeader().getHopLimitAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.plen", Type.UINT, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV6Packet) layer).getHeader().getPayloadLengthAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ipv6.flow", Type.UINT, NETWORK, IpV6Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((IpV6Packet) layer).getHeader().getFlowLabel().value() & 0xFFFFFL);
+        }
+      }
+    );
+
+    protocol("icmp", TRANSPORT, IcmpV4CommonPacket.class);
+    register(
+      new DisplayFilterField("icmp.type", Type.UINT, TRANSPORT, IcmpV4CommonPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IcmpV4CommonPacket) layer).getHeader().getType()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("icmp.code", Type.UINT, TRANSPORT, IcmpV4CommonPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IcmpV4CommonPacket) layer).getHeader().getCode()));
+        }
+      }
+    );
+    protocol("icmpv6", TRANSPORT, IcmpV6CommonPacket.class);
+    register(
+      new DisplayFilterField("icmpv6.type", Type.UINT, TRANSPORT, IcmpV6CommonPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IcmpV6CommonPacket) layer).getHeader().getType()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("icmpv6.code", Type.UINT, TRANSPORT, IcmpV6CommonPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((IcmpV6CommonPacket) layer).getHeader().getCode()));
+        }
+      }
+    );
+
+    protocol("tcp", TRANSPORT, TcpPacket.class);
+    register(
+      new DisplayFilterField("tcp.srcport", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getSrcPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.dstport", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.port", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          TcpHeader header = ((TcpPacket) layer).getHeader();
+          out.add(header.getSrcPort().valueAsInt());
+          out.add(header.getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.seq", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getSequenceNumberAsLong());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.ack", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getAcknowledgmentNumberAsLong());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.window_size_value", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getWindowAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.len", Type.UINT, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          Packet payload = layer.getPayload();
+          out.add(payload != null ? payload.length() : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.syn", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getSyn() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.ack", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getAck() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.fin", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getFin() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.reset", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getRst() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.push", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getPsh() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("tcp.flags.urg", Type.BOOLEAN, TRANSPORT, TcpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((TcpPacket) layer).getHeader().getUrg() ? 1 : 0);
+        }
+      }
+    );
+
+    protocol("udp", TRANSPORT, UdpPacket.class);
+    register(
+      new DisplayFilterField("udp.srcport", Type.UINT, TRANSPORT, UdpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((UdpPacket) layer).getHeader().getSrcPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("udp.dstport", Type.UINT, TRANSPORT, UdpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((UdpPacket) layer).getHeader().getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("udp.port", Type.UINT, TRANSPORT, UdpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((UdpPacket) layer).getHeader().getSrcPort().valueAsInt());
+          out.add(((UdpPacket) layer).getHeader().getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("udp.length", Type.UINT, TRANSPORT, UdpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((UdpPacket) layer).getHeader().getLengthAsInt());
+        }
+      }
+    );
+
+    protocol("sctp", TRANSPORT, SctpPacket.class);
+    register(
+      new DisplayFilterField("sctp.srcport", Type.UINT, TRANSPORT, SctpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((SctpPacket) layer).getHeader().getSrcPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("sctp.dstport", Type.UINT, TRANSPORT, SctpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((SctpPacket) layer).getHeader().getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("sctp.port", Type.UINT, TRANSPORT, SctpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((SctpPacket) layer).getHeader().getSrcPort().valueAsInt());
+          out.add(((SctpPacket) layer).getHeader().getDstPort().valueAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("sctp.verification_tag", Type.UINT, TRANSPORT, SctpPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((SctpPacket) layer).getHeader().getVerificationTag() & 0xFFFFFFFFL);
+        }
+      }
+    );
+
+    protocol("dns", APPLICATION, DnsPacket.class);
+    register(
+      new DisplayFilterField("dns.id", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((DnsPacket) layer).getHeader().getId() & 0xFFFF);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.flags.response", Type.BOOLEAN, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((DnsPacket) layer).getHeader().isResponse() ? 1 : 0);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.flags.opcode", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((DnsPacket) layer).getHeader().getOpCode()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.flags.rcode", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((DnsPacket) layer).getHeader().getrCode()));
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.count.queries", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((DnsPacket) layer).getHeader().getQdCountAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.count.answers", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((DnsPacket) layer).getHeader().getAnCountAsInt());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.qry.name", Type.STRING, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          DnsHeader header = ((DnsPacket) layer).getHeader();
+          byte[] rawData = header.getRawData();
+          for (DnsQuestion question: header.getQuestions()) {
+            addName(question.getQName(), rawData, out);
+          }
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.qry.type", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          for (DnsQuestion question: ((DnsPacket) layer).getHeader().getQuestions()) {
+            out.add(unsigned(question.getQType()));
+          }
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.resp.name", Type.STRING, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          DnsHeader header = ((DnsPacket) layer).getHeader();
+          addRecords(header.getAnswers(), 0, header.getRawData(), out);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.resp.type", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          addRecords(((DnsPacket) layer).getHeader().getAnswers(), 1, null, out);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.resp.ttl", Type.UINT, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          addRecords(((DnsPacket) layer).getHeader().getAnswers(), 2, null, out);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.a", Type.IPV4, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          addRecords(((DnsPacket) layer).getHeader().getAnswers(), 3, null, out);
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("dns.aaaa", Type.IPV6, APPLICATION, DnsPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          addRecords(((DnsPacket) layer).getHeader().getAnswers(), 4, null, out);
+        }
+      }
+    );
+
+    protocol("gtp", APPLICATION, GtpV1Packet.class);
+    register(
+      new DisplayFilterField("gtp.teid", Type.UINT, APPLICATION, GtpV1Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(((GtpV1Packet) layer).getHeader().getTeidAsLong());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("gtp.message", Type.UINT, APPLICATION, GtpV1Packet.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(unsigned(((GtpV1Packet) layer).getHeader().getMessageType()));
+        }
+      }
+    );
+
+    register(
+      new DisplayFilterField("ssh", Type.PROTOCOL, APPLICATION, Ssh2BinaryPacket.class) {
+        @Override
+        Packet find(Packet packet) {
+          Packet layer = packet.get(Ssh2VersionExchangePacket.class);
+          return layer != null ? layer : packet.get(Ssh2BinaryPacket.class);
+        }
+        @Override
+        void extract(Packet layer, Values out) {
+          out.add(layer.getRawData());
+        }
+      }
+    );
+    register(
+      new DisplayFilterField(
+        "ssh.protocol", Type.STRING, APPLICATION, Ssh2VersionExchangePacket.class
+      ) {
+        @Override
+        void extract(Packet layer, Values out) {
+          for (String message: ((Ssh2VersionExchangePacket) layer).getHeader().getMessages()) {
+            if (message.startsWith("SSH-")) {
+              out.add(message);
+            }
+          }
+        }
+      }
+    );
+    register(
+      new DisplayFilterField("ssh.message_code", Type.UINT, APPLICATION, Ssh2BinaryPacket.class) {
+        @Override
+        void extract(Packet layer, Values out) {
+          Packet payload = layer.getPayload();
+          if (payload != null && payload.length() > 0) {
+            out.add(payload.getRawData()[0] & 0xFF);
+          }
+        }
+      }
+    );
+  }
+
+}
@@ -0,0 +1,799 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.pcap4j.packet.DnsDomainName.NameCache;
+import org.pcap4j.packet.DnsPacket;
+import org.pcap4j.packet.IllegalRawDataException;
+import org.pcap4j.packet.IpPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.UdpPacket;
+import org.pcap4j.packet.namednumber.DnsRCode;
+
+/**
+ * A DNS analyzer which computes the top queried names, response codes,
+ * and query/response latency from DNS messages.
+ * <p>
+ * Only the header and the first question of each message are parsed, directly from the raw
+ * data, unless a {@link ResponseListener} is given. QNAMEs are resolved by a
+ * {@link NameCache} per partition, so that names queried again cost no allocation.
+ * Queries are matched to responses by (client address, client port, ID, QNAME) in a
+ * concurrent table. Counters, including
+ * the heavy hitter names which are kept by the Space-Saving algorithm, are partitioned
+ * per thread so that the threads analyzing messages in parallel don't contend,
+ * and are merged by {@link #getStatistics(boolean)}, which should be called periodically.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class DnsAnalyzer {
+
+  private static final int HEADER_LENGTH = 12;
+  private static final int DNS_PORT = 53;
+  private static final int MDNS_PORT = 5353;
+
+  /**
+   * The number of buckets in the latency histogram. Bucket i counts the latencies
+   * less than 2^i microseconds which aren't counted by bucket i - 1.
+   */
+  public static final int LATENCY_HISTOGRAM_SIZE = 32;
+
+  private final int topNameCapacity;
+  private final long queryTimeoutMicros;
+  private final int maxPendingQueries;
+  private final ResponseListener responseListener;
+  private final Partition[] partitions;
+  private final AtomicInteger nextPartition = new AtomicInteger();
+  private final ThreadLocal<Partition> partition
+    = new ThreadLocal<Partition>() {
+        @Override
+        protected Partition initialValue() {
+          int idx = (nextPartition.getAndIncrement() & Integer.MAX_VALUE) % partitions.length;
+          return partitions[idx];
+        }
+      };
+  private final ConcurrentHashMap<QueryKey, Long> pendingQueries
+    = new ConcurrentHashMap<QueryKey, Long>();
+  private final AtomicInteger pendingQueryCount = new AtomicInteger();
+  private final AtomicLong timedOutQueryCount = new AtomicLong();
+  private final AtomicLong droppedQueryCount = new AtomicLong();
+
+  private DnsAnalyzer(Builder builder) {
+    if (
+         builder == null
+      || builder.topNameCapacity <= 0
+      || builder.queryTimeoutMillis <= 0
+      || builder.maxPendingQueries <= 0
+      || builder.partitions <= 0
+    ) {
+      StringBuilder sb = new StringBuilder(150);
+      sb.append("builder: ").append(builder);
+      if (builder != null) {
+        sb.append(" builder.topNameCapacity: ").append(builder.topNameCapacity)
+          .append(" builder.queryTimeoutMillis: ").append(builder.queryTimeoutMillis)
+          .append(" builder.maxPendingQueries: ").append(builder.maxPendingQueries)
+          .append(" builder.partitions: ").append(builder.partitions);
+      }
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.topNameCapacity = builder.topNameCapacity;
+    this.queryTimeoutMicros = builder.queryTimeoutMillis * 1000L;
+    this.maxPendingQueries = builder.maxPendingQueries;
+    this.responseListener = builder.responseListener;
+    this.partitions = new Partition[builder.partitions];
+    for (int i = 0; i < partitions.length; i++) {
+      partitions[i] = new Partition(topNameCapacity);
+    }
+  }
+
+  /**
+   * Analyzes the DNS message in the given packet, if any.
+   *
+   * The UDP payload is analyzed as a DNS message if it has been dissected as a
+   * {@link DnsPacket} or the source or destination port is 53 (DNS) or 5353 (mDNS).
+   * Other packets are ignored and not counted as malformed.
+   *
+   * @param packet a packet which contains IP, UDP, and DNS.
+   * @param timestamp the time the packet was captured at.
+   * @return true if the packet contained a DNS message and it was analyzed; false otherwise.
+   */
+  public boolean addPacket(Packet packet, Timestamp timestamp) {
+    if (packet == null || timestamp == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" timestamp: ").append(timestamp);
+      throw new NullPointerException(sb.toString());
+    }
+
+    IpPacket ip = packet.get(IpPacket.class);
+    UdpPacket udp = packet.get(UdpPacket.class);
+    if (ip == null || udp == null || udp.getPayload() == null) {
+      return false;
+    }
+    int srcPort = udp.getHeader().getSrcPort().valueAsInt();
+    int dstPort = udp.getHeader().getDstPort().valueAsInt();
+    if (packet.get(DnsPacket.class) == null && !isDnsPort(srcPort) && !isDnsPort(dstPort)) {
+      return false;
+    }
+    byte[] message = udp.getPayload().getRawData();
+    long micros = (timestamp.getTime() / 1000L) * 1000000L + timestamp.getNanos() / 1000;
+    return addMessage(
+             message, 0, message.length,
+             ip.getHeader().getSrcAddr(), srcPort,
+             ip.getHeader().getDstAddr(), dstPort,
+             micros
+           );
+  }
+
+  private static boolean isDnsPort(int port) {
+    return port == DNS_PORT || port == MDNS_PORT;
+  }
+
+  /**
+   * Analyzes a DNS message.
+   *
+   * @param message a byte array which contains the DNS message.
+   * @param offset the offset of the DNS message in the array.
+   * @param length the length of the DNS message.
+   * @param srcAddr the source address of the message.
+   * @param srcPort the source port of the message.
+   * @param dstAddr the destination address of the message.
+   * @param dstPort the destination port of the message.
+   * @param timestampMicros the time the message was captured at in microseconds.
+   * @return true if the message was analyzed; false if it was malformed.
+   */
+  public boolean addMessage(
+    byte[] message, int offset, int length,
+    InetAddress srcAddr, int srcPort, InetAddress dstAddr, int dstPort,
+    long timestampMicros
+  ) {
+    if (message == null || srcAddr == null || dstAddr == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("message: ").append(message)
+        .append(" srcAddr: ").append(srcAddr)
+        .append(" dstAddr: ").append(dstAddr);
+      throw new NullPointerException(sb.toString());
+    }
+
+    Partition p = partition.get();
+    if (
+         offset < 0
+      || length < HEADER_LENGTH
+      || offset + length > message.length
+      || ByteArrays.getShort(message, offset + 4) == 0 // QDCOUNT
+    ) {
+      p.addMalformed();
+      return false;
+    }
+
+    String qname;
+    try {
+      qname = p.qnames.get(message, offset, length, HEADER_LENGTH);
+    } catch (IllegalRawDataException e) {
+      p.addMalformed();
+      return false;
+    }
+
+    short id = ByteArrays.getShort(message, offset);
+    int flags = ByteArrays.getShort(message, offset + 2) & 0xFFFF;
+    if ((flags & 0x8000) == 0) {
+      QueryKey key = new QueryKey(srcAddr, srcPort, id, qname);
+      if (pendingQueryCount.get() < maxPendingQueries) {
+        if (pendingQueries.putIfAbsent(key, timestampMicros) == null) {
+          pendingQueryCount.incrementAndGet();
+        }
+      }
+      else {
+        droppedQueryCount.incrementAndGet();
+      }
+      p.addQuery(qname);
+    }
+    else {
+      QueryKey key = new QueryKey(dstAddr, dstPort, id, qname);
+      Long queryTime = pendingQueries.remove(key);
+      long latency = -1L;
+      if (queryTime != null) {
+        pendingQueryCount.decrementAndGet();
+        latency = timestampMicros - queryTime;
+        if (latency < 0) {
+          latency = 0;
+        }
+      }
+      p.addResponse(flags & 0x0F, latency);
+
+      if (responseListener != null) {
+        DnsPacket dns;
+        try {
+          dns = DnsPacket.newPacket(message, offset, length);
+        } catch (IllegalRawDataException e) {
+          p.addMalformed();
+          return false;
+        }
+        responseListener.gotResponse(dns, latency);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Removes the queries which haven't been answered within the query timeout.
+   * Call this periodically.
+   *
+   * @param nowMicros the current time in microseconds, in the same clock as the timestamps
+   *                  of the messages.
+   * @return the number of queries removed.
+   */
+  public int expire(long nowMicros) {
+    int removed = 0;
+    for (Iterator<Map.Entry<QueryKey, Long>> itr = pendingQueries.entrySet().iterator();
+         itr.hasNext();) {
+      Map.Entry<QueryKey, Long> entry = itr.next();
+      if (nowMicros - entry.getValue() >= queryTimeoutMicros) {
+        if (pendingQueries.remove(entry.getKey(), entry.getValue())) {
+          pendingQueryCount.decrementAndGet();
+          removed++;
+        }
+      }
+    }
+    timedOutQueryCount.addAndGet(removed);
+    return removed;
+  }
+
+  /**
+   * @return the number of queries waiting for their responses.
+   */
+  public int getPendingQueryCount() {
+    return pendingQueryCount.get();
+  }
+
+  /**
+   * Merges the partitioned counters into a snapshot.
+   *
+   * @param reset if true, the counters are reset after merged.
+   * @return the statistics.
+   */
+  public Statistics getStatistics(boolean reset) {
+    Statistics stats = new Statistics();
+    Map<String, NameCount> names = new HashMap<String, NameCount>();
+    for (Partition p: partitions) {
+      p.mergeInto(stats, names, reset);
+    }
+    stats.timedOutQueryCount
+      = reset ? timedOutQueryCount.getAndSet(0) : timedOutQueryCount.get();
+    stats.droppedQueryCount
+      = reset ? droppedQueryCount.getAndSet(0) : droppedQueryCount.get();
+
+    List<NameCount> top = new ArrayList<NameCount>(names.values());
+    Collections.sort(
+      top,
+      new Comparator<NameCount>() {
+        @Override
+        public int compare(NameCount o1, NameCount o2) {
+          if (o1.count != o2.count) {
+            return o1.count > o2.count ? -1 : 1;
+          }
+          return o1.name.compareTo(o2.name);
+        }
+      }
+    );
+    if (top.size() > topNameCapacity) {
+      top = new ArrayList<NameCount>(top.subList(0, topNameCapacity));
+    }
+    stats.topNames = Collections.unmodifiableList(top);
+    return stats;
+  }
+
+  private static final class Partition {
+
+    private final SpaceSaving names;
+    private final NameCache qnames;
+    private long queryCount = 0;
+    private long responseCount = 0;
+    private long malformedCount = 0;
+    private long unmatchedResponseCount = 0;
+    private final long[] rCodeCounts = new long[16];
+    private long latencyCount = 0;
+    private long latencySum = 0;
+    private long latencyMax = 0;
+    private final long[] latencyHistogram = new long[LATENCY_HISTOGRAM_SIZE];
+
+    private Partition(int topNameCapacity) {
+      this.names = new SpaceSaving(topNameCapacity);
+      this.qnames = new NameCache(topNameCapacity);
+    }
+
+    private synchronized void addMalformed() {
+      malformedCount++;
+    }
+
+    private synchronized void addQuery(String qname) {
+      queryCount++;
+      names.offer(qname);
+    }
+
+    private synchronized void addResponse(int rCode, long latency) {
+      responseCount++;
+      rCodeCounts[rCode]++;
+      if (latency < 0) {
+        unmatchedResponseCount++;
+        return;
+      }
+      latencyCount++;
+      latencySum += latency;
+      if (latency > latencyMax) {
+        latencyMax = latency;
+      }
+      int bucket = 64 - Long.numberOfLeadingZeros(latency);
+      latencyHistogram[Math.min(bucket, LATENCY_HISTOGRAM_SIZE - 1)]++;
+    }
+
+    private synchronized void mergeInto(
+      Statistics stats, Map<String, NameCount> merged, boolean reset
+    ) {
+      stats.queryCount += queryCount;
+      stats.responseCount += responseCount;
+      stats.malformedCount += malformedCount;
+      stats.unmatchedResponseCount += unmatchedResponseCount;
+      for (int i = 0; i < rCodeCounts.length; i++) {
+        stats.rCodeCounts[i] += rCodeCounts[i];
+      }
+      stats.latencyCount += latencyCount;
+      stats.latencySum += latencySum;
+      if (latencyMax > stats.latencyMax) {
+        stats.latencyMax = latencyMax;
+      }
+      for (int i = 0; i < latencyHistogram.length; i++) {
+        stats.latencyHistogram[i] += latencyHistogram[i];
+      }
+      names.mergeInto(merged);
+
+      if (reset) {
+        queryCount = 0;
+        responseCount = 0;
+        malformedCount = 0;
+        unmatchedResponseCount = 0;
+        Arrays.fill(rCodeCounts, 0L);
+        latencyCount = 0;
+        latencySum = 0;
+        latencyMax = 0;
+        Arrays.fill(latencyHistogram, 0L);
+        names.clear();
+      }
+    }
+
+  }
+
+  /**
+   * The Space-Saving algorithm (Metwally et al.) with a min-heap of the counters.
+   */
+  private static final class SpaceSaving {
+
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size = 0;
+
+    private SpaceSaving(int capacity) {
+      this.counters = new HashMap<String, Counter>(capacity * 2);
+      this.heap = new Counter[capacity];
+    }
+
+    private void offer(String name) {
+      Counter c = counters.get(name);
+      if (c != null) {
+        c.count++;
+        siftDown(c.index);
+        return;
+      }
+
+      if (size < heap.length) {
+        c = new Counter();
+        c.name = name;
+        c.count = 1;
+        c.index = size;
+        heap[size++] = c;
+        siftUp(c.index);
+      }
+      else {
+        // Replace the minimum.
+        c = heap[0];
+        counters.remove(c.name);
+        c.name = name;
+        c.error = c.count;
+        c.count++;
+        siftDown(0);
+      }
+      counters.put(name, c);
+    }
+
+    private void siftUp(int idx) {
+      Counter c = heap[idx];
+      while (idx > 0) {
+        int parent = (idx - 1) >>> 1;
+        if (heap[parent].count <= c.count) {
+          break;
+        }
+        heap[idx] = heap[parent];
+        heap[idx].index = idx;
+        idx = parent;
+      }
+      heap[idx] = c;
+      c.index = idx;
+    }
+
+    private void siftDown(int idx) {
+      Counter c = heap[idx];
+      while (true) {
+        int child = idx * 2 + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+          child++;
+        }
+        if (c.count <= heap[child].count) {
+          break;
+        }
+        heap[idx] = heap[child];
+        heap[idx].index = idx;
+        idx = child;
+      }
+      heap[idx] = c;
+      c.index = idx;
+    }
+
+    private void mergeInto(Map<String, NameCount> merged) {
+      for (int i = 0; i < size; i++) {
+        Counter c = heap[i];
+        NameCount nc = merged.get(c.name);
+        if (nc == null) {
+          merged.put(c.name, new NameCount(c.name, c.count, c.error));
+        }
+        else {
+          nc.count += c.count;
+          nc.error += c.error;
+        }
+      }
+    }
+
+    private void clear() {
+      counters.clear();
+      Arrays.fill(heap, null);
+      size = 0;
+    }
+
+  }
+
+  private static final class Counter {
+    private String name;
+    private long count;
+    private long error;
+    private int index;
+  }
+
+  private static final class QueryKey {
+
+    private final InetAddress clientAddr;
+    private final int clientPort;
+    private final short id;
+    private final String qname;
+    private final int hashCode;
+
+    private QueryKey(InetAddress clientAddr, int clientPort, short id, String qname) {
+      this.clientAddr = clientAddr;
+      this.clientPort = clientPort;
+      this.id = id;
+      this.qname = qname;
+      int result = 17;
+      result = 31 * result + clientAddr.hashCode();
+      result = 31 * result + clientPort;
+      result = 31 * result + id;
+      result = 31 * result + qname.hashCode();
+      this.hashCode = result;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) { return true; }
+      if (!(obj instanceof QueryKey)) { return false; }
+      QueryKey other = (QueryKey) obj;
+      return id == other.id
+          && clientPort == other.clientPort
+          && qname.equals(other.qname)
+          && clientAddr.equals(other.clientAddr);
+    }
+
+  }
+
+  /**
+   * The listener to receive fully decoded responses.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public interface ResponseListener {
+
+    /**
+     * Called by the thread which called
+     * {@link DnsAnalyzer#addMessage(byte[], int, int, InetAddress, int, InetAddress, int, long)
+     * addMessage} for a response.
+     *
+     * @param response response
+     * @param latencyMicros the latency from the query in microseconds,
+     *                      or -1 if the query wasn't seen.
+     */
+    public void gotResponse(DnsPacket response, long latencyMicros);
+
+  }
+
+  /**
+   * A name and its estimated query count.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class NameCount {
+
+    private final String name;
+    private long count;
+    private long error;
+
+    private NameCount(String name, long count, long error) {
+      this.name = name;
+      this.count = count;
+      this.error = error;
+    }
+
+    /**
+     * @return the lower-case query name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the estimated count, which may be over the true count by up to {@link #getError()}.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return the maximum overestimation of the count.
+     */
+    public long getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(name).append(": ").append(count);
+      if (error != 0) {
+        sb.append(" (error: ").append(error).append(")");
+      }
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * A snapshot of the statistics.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Statistics {
+
+    private long queryCount = 0;
+    private long responseCount = 0;
+    private long malformedCount = 0;
+    private long unmatchedResponseCount = 0;
+    private long timedOutQueryCount = 0;
+    private long droppedQueryCount = 0;
+    private final long[] rCodeCounts = new long[16];
+    private long latencyCount = 0;
+    private long latencySum = 0;
+    private long latencyMax = 0;
+    private final long[] latencyHistogram = new long[LATENCY_HISTOGRAM_SIZE];
+    private List<NameCount> topNames;
+
+    private Statistics() {}
+
+    /**
+     * @return the number of queries.
+     */
+    public long getQueryCount() { return queryCount; }
+
+    /**
+     * @return the number of responses.
+     */
+    public long getResponseCount() { return responseCount; }
+
+    /**
+     * @return the number of malformed messages.
+     */
+    public long getMalformedCount() { return malformedCount; }
+
+    /**
+     * @return the number of responses whose queries weren't seen.
+     */
+    public long getUnmatchedResponseCount() { return unmatchedResponseCount; }
+
+    /**
+     * @return the number of queries which weren't answered within the query timeout.
+     */
+    public long getTimedOutQueryCount() { return timedOutQueryCount; }
+
+    /**
+     * @return the number of queries not tracked because the table of pending queries was full.
+     */
+    public long getDroppedQueryCount() { return droppedQueryCount; }
+
+    /**
+     * @param rCode rCode
+     * @return the number of responses with the given RCODE.
+     */
+    public long getRCodeCount(DnsRCode rCode) {
+      return rCodeCounts[rCode.value() & 0x0F];
+    }
+
+    /**
+     * @return the ratio of NXDOMAIN responses to all the responses. 0 if no responses.
+     */
+    public double getNxDomainRate() {
+      if (responseCount == 0) {
+        return 0;
+      }
+      return (double) getRCodeCount(DnsRCode.NX_DOMAIN) / responseCount;
+    }
+
+    /**
+     * @return the number of responses matched to queries.
+     */
+    public long getLatencyCount() { return latencyCount; }
+
+    /**
+     * @return the average latency in microseconds. 0 if no responses were matched.
+     */
+    public double getAverageLatencyMicros() {
+      return latencyCount == 0 ? 0 : (double) latencySum / latencyCount;
+    }
+
+    /**
+     * @return the maximum latency in microseconds.
+     */
+    public long getMaxLatencyMicros() { return latencyMax; }
+
+    /**
+     * @return a new array of the latency histogram.
+     * @see DnsAnalyzer#LATENCY_HISTOGRAM_SIZE
+     */
+    public long[] getLatencyHistogram() { return latencyHistogram.clone(); }
+
+    /**
+     * @return the top queried names in descending order of their counts.
+     */
+    public List<NameCount> getTopNames() { return topNames; }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(200);
+      sb.append("[queries: ").append(queryCount)
+        .append(", responses: ").append(responseCount)
+        .append(", malformed: ").append(malformedCount)
+        .append(", NXDOMAIN rate: ").append(getNxDomainRate())
+        .append(", average latency: ").append(getAverageLatencyMicros())
+        .append(" us, max latency: ").append(latencyMax)
+        .append(" us, timed out: ").append(timedOutQueryCount)
+        .append(", top names: ").append(topNames)
+        .append("]");
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private int topNameCapacity = 1000;
+    private long queryTimeoutMillis = 5000L;
+    private int maxPendingQueries = 1 << 20;
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    private ResponseListener responseListener;
+
+    /**
+     *
+     */
+    public Builder() {}
+
+    /**
+     * @param topNameCapacity the number of names each partition counts. 1000 by default.
+     *                        Names queried more than 1/topNameCapacity of all the queries
+     *                        are guaranteed to be counted.
+     * @return this Builder object for method chaining.
+     */
+    public Builder topNameCapacity(int topNameCapacity) {
+      this.topNameCapacity = topNameCapacity;
+      return this;
+    }
+
+    /**
+     * @param queryTimeoutMillis queries not answered within this period are removed by
+     *                           {@link DnsAnalyzer#expire(long)}. 5000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder queryTimeoutMillis(long queryTimeoutMillis) {
+      this.queryTimeoutMillis = queryTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @param maxPendingQueries the maximum number of queries waiting for their responses.
+     *                          1048576 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxPendingQueries(int maxPendingQueries) {
+      this.maxPendingQueries = maxPendingQueries;
+      return this;
+    }
+
+    /**
+     * @param partitions the number of counter partitions.
+     *                   The number of available processors by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder partitions(int partitions) {
+      this.partitions = partitions;
+      return this;
+    }
+
+    /**
+     * @param responseListener if set, responses are fully decoded and passed to this listener.
+     * @return this Builder object for method chaining.
+     */
+    public Builder responseListener(ResponseListener responseListener) {
+      this.responseListener = responseListener;
+      return this;
+    }
+
+    /**
+     * @return a new DnsAnalyzer object.
+     */
+    public DnsAnalyzer build() {
+      return new DnsAnalyzer(this);
+    }
+
+  }
+
+}
@@ -0,0 +1,55 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.sql.Timestamp;
+
+/**
+ * Conversions between {@link Timestamp} and nanoseconds since the epoch.
+ * Seconds are floored, because {@link Timestamp#getNanos()} is the non-negative fraction
+ * of the second even before the epoch.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class EpochNanos {
+
+  static final long NANOS_PER_SECOND = 1000000000L;
+
+  private EpochNanos() { throw new AssertionError(); }
+
+  /**
+   * @param timestamp timestamp
+   * @return nanoseconds since the epoch.
+   */
+  static long fromTimestamp(Timestamp timestamp) {
+    long millis = timestamp.getTime();
+    long seconds = millis / 1000L;
+    if (millis % 1000L < 0) {
+      seconds--;
+    }
+    return seconds * NANOS_PER_SECOND + timestamp.getNanos();
+  }
+
+  /**
+   * @param nanos nanoseconds since the epoch.
+   * @return a new Timestamp.
+   */
+  static Timestamp toTimestamp(long nanos) {
+    long seconds = nanos / NANOS_PER_SECOND;
+    long fraction = nanos % NANOS_PER_SECOND;
+    if (fraction < 0) {
+      seconds--;
+      fraction += NANOS_PER_SECOND;
+    }
+    Timestamp timestamp = new Timestamp(seconds * 1000L);
+    timestamp.setNanos((int) fraction);
+    return timestamp;
+  }
+
+}
@@ -0,0 +1,725 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.pcap4j.packet.IpPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.FlowTable.FlowRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A flow exporter which aggregates packets into flows by a {@link FlowTable} and exports
+ * the expired flows in NetFlow v5, NetFlow v9 (RFC 3954), or IPFIX (RFC 7011) format
+ * to a collector over UDP or to an {@link OutputStream}.
+ * <p>
+ * Packets are given to {@link #addPacket(Packet, Timestamp)} or
+ * {@link #addFrame(byte[], int, int, DataLinkType, long)} by a capture thread.
+ * The flow table is checked for expired flows on the capture thread at most once per
+ * expiry interval of packet time, and the expired flows are handed over in a batch
+ * to an exporter thread, which encodes them into as few messages as possible.
+ * So, the methods to add packets, {@link #expire(long)}, and {@link #close()}
+ * must be called by a single thread.
+ * </p>
+ * <p>
+ * Times in the messages are in packet time: the system uptime of NetFlow messages counts
+ * from the timestamp of the first packet, and the export time in a message header is
+ * the packet time the flows in it were expired at, so that flows from an offline capture
+ * are exported as they happened.
+ * </p>
+ * <p>
+ * NetFlow v5 can't carry IPv6 flows; they are counted by {@link #getDroppedRecordCount()}.
+ * NetFlow v9 and IPFIX messages carry the templates in the first message and
+ * every template refresh interval messages.
+ * Messages written to an OutputStream are simply concatenated,
+ * which is the IPFIX file format (RFC 5655) when the format is IPFIX.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class FlowExporter implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(FlowExporter.class);
+
+  private static final int V5_HEADER_LENGTH = 24;
+  private static final int V5_RECORD_LENGTH = 48;
+  private static final int V5_MAX_RECORDS = 30;
+  private static final int V9_HEADER_LENGTH = 20;
+  private static final int IPFIX_HEADER_LENGTH = 16;
+  private static final int SET_HEADER_LENGTH = 4;
+  private static final int IPV4_TEMPLATE_ID = 256;
+  private static final int IPV6_TEMPLATE_ID = 257;
+
+  // pairs of (information element ID, length)
+  private static final int[] V9_IPV4_FIELDS
+    = { 1, 8, 2, 8, 4, 1, 6, 1, 7, 2, 8, 4, 11, 2, 12, 4, 22, 4, 21, 4 };
+  private static final int[] V9_IPV6_FIELDS
+    = { 1, 8, 2, 8, 4, 1, 6, 1, 7, 2, 27, 16, 11, 2, 28, 16, 22, 4, 21, 4 };
+  private static final int[] IPFIX_IPV4_FIELDS
+    = { 1, 8, 2, 8, 4, 1, 6, 1, 7, 2, 8, 4, 11, 2, 12, 4, 152, 8, 153, 8, 136, 1 };
+  private static final int[] IPFIX_IPV6_FIELDS
+    = { 1, 8, 2, 8, 4, 1, 6, 1, 7, 2, 27, 16, 11, 2, 28, 16, 152, 8, 153, 8, 136, 1 };
+
+  private static final Batch END = new Batch(new ArrayList<FlowRecord>(0), 0L);
+  private static final long END_OFFER_INTERVAL_MILLIS = 100L;
+
+  private final FlowTable table;
+  private final Format format;
+  private final InetSocketAddress collector;
+  private final DatagramSocket socket;
+  private final OutputStream outputStream;
+  private final int observationDomainId;
+  private final int templateRefreshInterval;
+  private final long expiryIntervalMillis;
+  private final BlockingQueue<Batch> queue;
+  private final Thread exporterThread;
+  private final AtomicLong exportedRecordCount = new AtomicLong();
+  private final AtomicLong exportedMessageCount = new AtomicLong();
+  private final AtomicLong droppedRecordCount = new AtomicLong();
+
+  // used only by the capture thread
+  private long lastExpiry = Long.MIN_VALUE;
+  private long lastTime = Long.MIN_VALUE;
+  private boolean closed = false;
+
+  // set by the capture thread before the first batch is queued, and read by the exporter thread
+  private long bootTime = Long.MIN_VALUE;
+
+  // used only by the exporter thread
+  private final ByteBuffer buf;
+  private long sequence = 0;
+  private int messagesSinceTemplates = 0;
+
+  private FlowExporter(Builder builder) throws SocketException {
+    if (
+         builder == null
+      || builder.format == null
+      || (builder.collector == null) == (builder.outputStream == null)
+    ) {
+      StringBuilder sb = new StringBuilder(120);
+      sb.append("builder: ").append(builder);
+      if (builder != null) {
+        sb.append(" builder.format: ").append(builder.format)
+          .append(" builder.collector: ").append(builder.collector)
+          .append(" builder.outputStream: ").append(builder.outputStream);
+      }
+      throw new NullPointerException(sb.toString());
+    }
+    if (
+         builder.maxMessageSize < 256
+      || builder.maxMessageSize > 65507
+      || builder.templateRefreshInterval <= 0
+      || builder.expiryIntervalMillis <= 0
+      || builder.queueCapacity <= 0
+    ) {
+      StringBuilder sb = new StringBuilder(150);
+      sb.append("builder.maxMessageSize: ").append(builder.maxMessageSize)
+        .append(" builder.templateRefreshInterval: ").append(builder.templateRefreshInterval)
+        .append(" builder.expiryIntervalMillis: ").append(builder.expiryIntervalMillis)
+        .append(" builder.queueCapacity: ").append(builder.queueCapacity);
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.table = builder.flowTable != null ? builder.flowTable : new FlowTable.Builder().build();
+    this.format = builder.format;
+    this.collector = builder.collector;
+    this.outputStream = builder.outputStream;
+    this.socket = collector != null ? new DatagramSocket() : null;
+    this.observationDomainId = builder.observationDomainId;
+    this.templateRefreshInterval = builder.templateRefreshInterval;
+    this.expiryIntervalMillis = builder.expiryIntervalMillis;
+    this.buf = ByteBuffer.allocate(builder.maxMessageSize);
+    this.queue = new ArrayBlockingQueue<Batch>(builder.queueCapacity);
+
+    this.exporterThread = new Thread(new Exporter(), "FlowExporter");
+    exporterThread.setDaemon(true);
+    exporterThread.start();
+  }
+
+  /**
+   * Accounts the IP packet in the given packet.
+   *
+   * @param packet packet
+   * @param timestamp the time the packet was captured at.
+   * @return true if the packet was accounted; false otherwise.
+   */
+  public boolean addPacket(Packet packet, Timestamp timestamp) {
+    if (packet == null || timestamp == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" timestamp: ").append(timestamp);
+      throw new NullPointerException(sb.toString());
+    }
+
+    IpPacket ip = packet.get(IpPacket.class);
+    if (ip == null) {
+      return false;
+    }
+    byte[] rawData = ip.getRawData();
+    long now = timestamp.getTime();
+    boolean accounted = table.addIpPacket(rawData, 0, rawData.length, now);
+    expireIfDue(now);
+    return accounted;
+  }
+
+  /**
+   * Accounts a captured frame.
+   *
+   * @param frame frame
+   * @param offset offset
+   * @param length length
+   * @param dlt dlt
+   * @param timestamp the time the frame was captured at in milliseconds.
+   * @return true if the frame was accounted; false otherwise.
+   * @see FlowTable#addFrame(byte[], int, int, DataLinkType, long)
+   */
+  public boolean addFrame(byte[] frame, int offset, int length, DataLinkType dlt, long timestamp) {
+    boolean accounted = table.addFrame(frame, offset, length, dlt, timestamp);
+    expireIfDue(timestamp);
+    return accounted;
+  }
+
+  private void expireIfDue(long now) {
+    updateTime(now);
+    if (lastExpiry == Long.MIN_VALUE) {
+      lastExpiry = now;
+      return;
+    }
+    if (now - lastExpiry >= expiryIntervalMillis || now < lastExpiry) {
+      expire(now);
+    }
+  }
+
+  /**
+   * Exports the flows expired at the given time.
+   * Call this periodically if packets may stop arriving.
+   *
+   * @param now the current time in milliseconds, in the same clock as the packet timestamps.
+   */
+  public void expire(long now) {
+    if (closed) {
+      throw new IllegalStateException("Already closed.");
+    }
+    updateTime(now);
+    lastExpiry = now;
+    enqueue(table.expire(now), now);
+  }
+
+  private void updateTime(long now) {
+    if (bootTime == Long.MIN_VALUE) {
+      bootTime = now;
+    }
+    lastTime = now;
+  }
+
+  private void enqueue(List<FlowRecord> records, long now) {
+    if (records.isEmpty()) {
+      return;
+    }
+    if (!queue.offer(new Batch(records, now))) {
+      droppedRecordCount.addAndGet(records.size());
+    }
+  }
+
+  /**
+   * Exports all the flows in the flow table, waits for the exporter thread to finish,
+   * and closes the socket. The OutputStream given to the builder is flushed but not closed.
+   * If the exporter thread has died, the flows left in the queue are counted as dropped.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (lastTime == Long.MIN_VALUE) {
+      // No packets have been added; the table may have been filled by someone else.
+      updateTime(System.currentTimeMillis());
+    }
+    enqueue(table.expireAll(), lastTime);
+    try {
+      // The queue may be full and never be taken from if the exporter thread has died.
+      while (!queue.offer(END, END_OFFER_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (!exporterThread.isAlive()) {
+          break;
+        }
+      }
+      exporterThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!exporterThread.isAlive()) {
+      for (Batch batch = queue.poll(); batch != null; batch = queue.poll()) {
+        droppedRecordCount.addAndGet(batch.records.size());
+      }
+    }
+    if (socket != null) {
+      socket.close();
+    }
+  }
+
+  /**
+   * @return the flow table.
+   */
+  public FlowTable getFlowTable() {
+    return table;
+  }
+
+  /**
+   * @return the number of flow records exported.
+   */
+  public long getExportedRecordCount() {
+    return exportedRecordCount.get();
+  }
+
+  /**
+   * @return the number of messages exported.
+   */
+  public long getExportedMessageCount() {
+    return exportedMessageCount.get();
+  }
+
+  /**
+   * @return the number of flow records dropped because the queue to the exporter thread
+   *         was full, they couldn't be encoded in the format, or sending them failed.
+   */
+  public long getDroppedRecordCount() {
+    return droppedRecordCount.get();
+  }
+
+  private void export(List<FlowRecord> records, long now) throws IOException {
+    switch (format) {
+      case NETFLOW_V5:
+        exportV5(records, now);
+        break;
+      case NETFLOW_V9:
+      case IPFIX:
+        exportTemplated(records, 4, now);
+        exportTemplated(records, 6, now);
+        break;
+      default:
+        throw new AssertionError("Never get here.");
+    }
+    if (outputStream != null) {
+      outputStream.flush();
+    }
+  }
+
+  private void exportV5(List<FlowRecord> records, long now) throws IOException {
+    int idx = 0;
+    while (idx < records.size()) {
+      buf.clear();
+      buf.position(V5_HEADER_LENGTH);
+      int count = 0;
+      while (
+           idx < records.size()
+        && count < V5_MAX_RECORDS
+        && buf.remaining() >= V5_RECORD_LENGTH
+      ) {
+        FlowRecord r = records.get(idx++);
+        if (r.getIpVersion() != 4) {
+          droppedRecordCount.incrementAndGet();
+          continue;
+        }
+        buf.put(r.getRawSrcAddr())
+           .put(r.getRawDstAddr())
+           .putInt(0) // nexthop
+           .putShort((short) 0) // input
+           .putShort((short) 0) // output
+           .putInt((int) r.getPackets())
+           .putInt((int) r.getBytes())
+           .putInt(uptime(r.getFirstSeen()))
+           .putInt(uptime(r.getLastSeen()))
+           .putShort((short) r.getSrcPort())
+           .putShort((short) r.getDstPort())
+           .put((byte) 0) // pad1
+           .put((byte) r.getTcpFlags())
+           .put((byte) r.getProtocol())
+           .put((byte) 0) // tos
+           .putLong(0L); // src_as, dst_as, src_mask, dst_mask, pad2
+        count++;
+      }
+      if (count == 0) {
+        return;
+      }
+
+      buf.putShort(0, (short) 5)
+         .putShort(2, (short) count)
+         .putInt(4, uptime(now))
+         .putInt(8, (int) (now / 1000))
+         .putInt(12, (int) (now % 1000 * 1000000))
+         .putInt(16, (int) sequence)
+         .put(20, (byte) 0)
+         .put(21, (byte) observationDomainId)
+         .putShort(22, (short) 0);
+      sequence += count;
+      send(count);
+    }
+  }
+
+  private void exportTemplated(List<FlowRecord> records, int version, long now)
+  throws IOException {
+    boolean ipfix = format == Format.IPFIX;
+    int[] fields;
+    if (version == 4) {
+      fields = ipfix ? IPFIX_IPV4_FIELDS : V9_IPV4_FIELDS;
+    }
+    else {
+      fields = ipfix ? IPFIX_IPV6_FIELDS : V9_IPV6_FIELDS;
+    }
+    int recordLength = 0;
+    for (int i = 1; i < fields.length; i += 2) {
+      recordLength += fields[i];
+    }
+
+    int idx = 0;
+    while (idx < records.size()) {
+      buf.clear();
+      buf.position(ipfix ? IPFIX_HEADER_LENGTH : V9_HEADER_LENGTH);
+      int templateCount = 0;
+      if (messagesSinceTemplates == 0) {
+        putTemplates(ipfix);
+        templateCount = 2;
+      }
+
+      int setStart = buf.position();
+      buf.position(setStart + SET_HEADER_LENGTH);
+      int count = 0;
+      // Keep room for the padding at the end of the set.
+      int limit = buf.capacity() - 3;
+      while (idx < records.size() && buf.position() + recordLength <= limit) {
+        FlowRecord r = records.get(idx++);
+        if (r.getIpVersion() != version) {
+          continue;
+        }
+        for (int i = 0; i < fields.length; i += 2) {
+          putField(fields[i], r);
+        }
+        count++;
+      }
+      if (count == 0) {
+        return;
+      }
+      while ((buf.position() - setStart) % 4 != 0) {
+        buf.put((byte) 0);
+      }
+      buf.putShort(setStart, (short) (version == 4 ? IPV4_TEMPLATE_ID : IPV6_TEMPLATE_ID))
+         .putShort(setStart + 2, (short) (buf.position() - setStart));
+
+      if (ipfix) {
+        buf.putShort(0, (short) 10)
+           .putShort(2, (short) buf.position())
+           .putInt(4, (int) (now / 1000))
+           .putInt(8, (int) sequence)
+           .putInt(12, observationDomainId);
+        sequence += count;
+      }
+      else {
+        buf.putShort(0, (short) 9)
+           .putShort(2, (short) (templateCount + count))
+           .putInt(4, uptime(now))
+           .putInt(8, (int) (now / 1000))
+           .putInt(12, (int) sequence)
+           .putInt(16, observationDomainId);
+        sequence++;
+      }
+      send(count);
+
+      messagesSinceTemplates++;
+      if (messagesSinceTemplates >= templateRefreshInterval) {
+        messagesSinceTemplates = 0;
+      }
+    }
+  }
+
+  private void putTemplates(boolean ipfix) {
+    int setStart = buf.position();
+    buf.putShort((short) (ipfix ? 2 : 0))
+       .putShort((short) 0);
+    putTemplate(IPV4_TEMPLATE_ID, ipfix ? IPFIX_IPV4_FIELDS : V9_IPV4_FIELDS);
+    putTemplate(IPV6_TEMPLATE_ID, ipfix ? IPFIX_IPV6_FIELDS : V9_IPV6_FIELDS);
+    buf.putShort(setStart + 2, (short) (buf.position() - setStart));
+  }
+
+  private void putTemplate(int templateId, int[] fields) {
+    buf.putShort((short) templateId)
+       .putShort((short) (fields.length / 2));
+    for (int field: fields) {
+      buf.putShort((short) field);
+    }
+  }
+
+  private void putField(int id, FlowRecord r) {
+    switch (id) {
+      case 1:
+        buf.putLong(r.getBytes());
+        break;
+      case 2:
+        buf.putLong(r.getPackets());
+        break;
+      case 4:
+        buf.put((byte) r.getProtocol());
+        break;
+      case 6:
+        buf.put((byte) r.getTcpFlags());
+        break;
+      case 7:
+        buf.putShort((short) r.getSrcPort());
+        break;
+      case 8:
+      case 27:
+        buf.put(r.getRawSrcAddr());
+        break;
+      case 11:
+        buf.putShort((short) r.getDstPort());
+        break;
+      case 12:
+      case 28:
+        buf.put(r.getRawDstAddr());
+        break;
+      case 21:
+        buf.putInt(uptime(r.getLastSeen()));
+        break;
+      case 22:
+        buf.putInt(uptime(r.getFirstSeen()));
+        break;
+      case 136:
+        buf.put((byte) r.getEndReason().getValue());
+        break;
+      case 152:
+        buf.putLong(r.getFirstSeen());
+        break;
+      case 153:
+        buf.putLong(r.getLastSeen());
+        break;
+      default:
+        throw new AssertionError("Never get here.");
+    }
+  }
+
+  /**
+   * Returns the milliseconds since the first packet, which wrap around
+   * like sysUpTime after about 49.7 days.
+   */
+  private int uptime(long time) {
+    return (int) (time - bootTime);
+  }
+
+  private void send(int recordCount) throws IOException {
+    if (socket != null) {
+      socket.send(new DatagramPacket(buf.array(), 0, buf.position(), collector));
+    }
+    else {
+      outputStream.write(buf.array(), 0, buf.position());
+    }
+    exportedMessageCount.incrementAndGet();
+    exportedRecordCount.addAndGet(recordCount);
+  }
+
+  private final class Exporter implements Runnable {
+
+    @Override
+    public void run() {
+      while (true) {
+        Batch batch;
+        try {
+          batch = queue.take();
+        } catch (InterruptedException e) {
+          logger.warn("Interrupted.", e);
+          return;
+        }
+        if (batch == END) {
+          return;
+        }
+
+        try {
+          export(batch.records, batch.time);
+        } catch (IOException e) {
+          logger.error("Failed to export flow records.", e);
+          droppedRecordCount.addAndGet(batch.records.size());
+        }
+      }
+    }
+
+  }
+
+  private static final class Batch {
+
+    private final List<FlowRecord> records;
+    private final long time;
+
+    private Batch(List<FlowRecord> records, long time) {
+      this.records = records;
+      this.time = time;
+    }
+
+  }
+
+  /**
+   * Export format.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static enum Format {
+
+    /**
+     * NetFlow version 5
+     */
+    NETFLOW_V5,
+
+    /**
+     * NetFlow version 9 (RFC 3954)
+     */
+    NETFLOW_V9,
+
+    /**
+     * IPFIX (RFC 7011)
+     */
+    IPFIX,
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private Format format = Format.IPFIX;
+    private InetSocketAddress collector;
+    private OutputStream outputStream;
+    private FlowTable flowTable;
+    private int observationDomainId = 0;
+    private int maxMessageSize = 1400;
+    private int templateRefreshInterval = 20;
+    private long expiryIntervalMillis = 1000L;
+    private int queueCapacity = 1024;
+
+    /**
+     *
+     */
+    public Builder() {}
+
+    /**
+     * @param format {@link Format#IPFIX} by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder format(Format format) {
+      this.format = format;
+      return this;
+    }
+
+    /**
+     * Either this or {@link #outputStream(OutputStream)} must be set.
+     *
+     * @param collector the address of the collector to send messages to over UDP.
+     * @return this Builder object for method chaining.
+     */
+    public Builder collector(InetSocketAddress collector) {
+      this.collector = collector;
+      return this;
+    }
+
+    /**
+     * Either this or {@link #collector(InetSocketAddress)} must be set.
+     *
+     * @param outputStream the stream to write messages to.
+     * @return this Builder object for method chaining.
+     */
+    public Builder outputStream(OutputStream outputStream) {
+      this.outputStream = outputStream;
+      return this;
+    }
+
+    /**
+     * @param flowTable the flow table to aggregate packets by.
+     *                  A FlowTable built with the default settings is used if not set.
+     * @return this Builder object for method chaining.
+     */
+    public Builder flowTable(FlowTable flowTable) {
+      this.flowTable = flowTable;
+      return this;
+    }
+
+    /**
+     * @param observationDomainId the observation domain ID for IPFIX, the source ID for
+     *                            NetFlow v9, or the engine ID for NetFlow v5. 0 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder observationDomainId(int observationDomainId) {
+      this.observationDomainId = observationDomainId;
+      return this;
+    }
+
+    /**
+     * @param maxMessageSize the maximum size of a message in bytes. 1400 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxMessageSize(int maxMessageSize) {
+      this.maxMessageSize = maxMessageSize;
+      return this;
+    }
+
+    /**
+     * @param templateRefreshInterval the number of messages after which the templates are
+     *                                sent again. 20 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder templateRefreshInterval(int templateRefreshInterval) {
+      this.templateRefreshInterval = templateRefreshInterval;
+      return this;
+    }
+
+    /**
+     * @param expiryIntervalMillis the interval of packet time to check the flow table for
+     *                             expired flows at. 1000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder expiryIntervalMillis(long expiryIntervalMillis) {
+      this.expiryIntervalMillis = expiryIntervalMillis;
+      return this;
+    }
+
+    /**
+     * @param queueCapacity the number of batches of expired flows which can wait for
+     *                      the exporter thread. 1024 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder queueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /**
+     * @return a new FlowExporter object, whose exporter thread has been started.
+     * @throws SocketException if a socket to send messages couldn't be opened.
+     */
+    public FlowExporter build() throws SocketException {
+      return new FlowExporter(this);
+    }
+
+  }
+
+}
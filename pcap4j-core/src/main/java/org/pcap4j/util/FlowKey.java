@@ -0,0 +1,321 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import static org.pcap4j.util.ByteArrays.*;
+
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * The flow key of an IP packet, which is extracted directly from raw bytes without building
+ * {@link org.pcap4j.packet.Packet Packet} objects: IP version, source/destination addresses,
+ * source/destination ports, and IP protocol. For ICMP and ICMPv6, the destination port holds
+ * (type * 256 + code). Ports are 0 for non-first fragments and protocols without ports.
+ * <p>
+ * Frames of {@link DataLinkType#EN10MB} (with any number of 802.1Q and 802.1ad tags),
+ * {@link DataLinkType#LINUX_SLL}, and {@link DataLinkType#RAW} are supported.
+ * IPv6 extension headers are skipped to find the upper layer protocol.
+ * </p>
+ * <p>
+ * A FlowKey object is meant to be reused for packet after packet, so that extracting a key
+ * allocates nothing. This class is not thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class FlowKey {
+
+  private static final int ETHER_TYPE_IPV4 = 0x0800;
+  private static final int ETHER_TYPE_IPV6 = 0x86DD;
+  private static final int ETHER_TYPE_DOT1Q = 0x8100;
+  private static final int ETHER_TYPE_QINQ = 0x88A8;
+
+  private static final int IP_PROTO_ICMPV4 = 1;
+  private static final int IP_PROTO_TCP = 6;
+  private static final int IP_PROTO_UDP = 17;
+  private static final int IP_PROTO_ICMPV6 = 58;
+  private static final int IP_PROTO_SCTP = 132;
+  private static final int IPV6_HOPOPTS = 0;
+  private static final int IPV6_ROUTING = 43;
+  private static final int IPV6_FRAGMENT = 44;
+  private static final int IPV6_AH = 51;
+  private static final int IPV6_DSTOPTS = 60;
+
+  int version;
+  long srcHi;
+  long srcLo;
+  long dstHi;
+  long dstLo;
+  int srcPort;
+  int dstPort;
+  int protocol;
+  int tcpFlags;
+  long length;
+
+  /**
+   *
+   */
+  public FlowKey() {}
+
+  /**
+   * Extracts the flow key of the IP packet in a captured frame.
+   *
+   * @param frame frame
+   * @param offset offset
+   * @param length length
+   * @param dlt the data link type of the frame.
+   * @return true if the key was extracted; false if the frame was not an IP packet,
+   *         it was malformed, or the data link type is not supported.
+   *         This object is left in an unspecified state if false is returned.
+   */
+  public boolean parseFrame(byte[] frame, int offset, int length, DataLinkType dlt) {
+    if (frame == null || dlt == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("frame: ").append(frame)
+        .append(" dlt: ").append(dlt);
+      throw new NullPointerException(sb.toString());
+    }
+
+    int end = offset + length;
+    int cursor;
+    int etherType;
+    if (dlt.equals(DataLinkType.EN10MB)) {
+      cursor = offset + 12;
+      if (end < cursor + 2) {
+        return false;
+      }
+      etherType = getShort(frame, cursor) & 0xFFFF;
+      cursor += 2;
+      while (etherType == ETHER_TYPE_DOT1Q || etherType == ETHER_TYPE_QINQ) {
+        if (end < cursor + 4) {
+          return false;
+        }
+        etherType = getShort(frame, cursor + 2) & 0xFFFF;
+        cursor += 4;
+      }
+    }
+    else if (dlt.equals(DataLinkType.LINUX_SLL)) {
+      cursor = offset + 16;
+      if (end < cursor) {
+        return false;
+      }
+      etherType = getShort(frame, cursor - 2) & 0xFFFF;
+    }
+    else if (dlt.equals(DataLinkType.RAW)) {
+      return parseIpPacket(frame, offset, length);
+    }
+    else {
+      return false;
+    }
+
+    if (etherType != ETHER_TYPE_IPV4 && etherType != ETHER_TYPE_IPV6) {
+      return false;
+    }
+    return parseIpPacket(frame, cursor, end - cursor);
+  }
+
+  /**
+   * Extracts the flow key of an IPv4 or IPv6 packet.
+   *
+   * @param packet a byte array which contains the packet.
+   * @param offset the offset of the IP header in the array.
+   * @param length length
+   * @return true if the key was extracted; false if the packet was malformed.
+   *         This object is left in an unspecified state if false is returned.
+   */
+  public boolean parseIpPacket(byte[] packet, int offset, int length) {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+    if (length <= 0 || offset < 0 || offset + length > packet.length) {
+      return false;
+    }
+
+    int end = offset + length;
+    int l4;
+    boolean fragment;
+    version = (packet[offset] >> 4) & 0x0F;
+    if (version == 4) {
+      if (length < 20) {
+        return false;
+      }
+      int ihl = (packet[offset] & 0x0F) * 4;
+      if (ihl < 20) {
+        return false;
+      }
+      this.length = getShort(packet, offset + 2) & 0xFFFF;
+      fragment = (getShort(packet, offset + 6) & 0x1FFF) != 0;
+      protocol = packet[offset + 9] & 0xFF;
+      srcHi = 0;
+      srcLo = getInt(packet, offset + 12) & 0xFFFFFFFFL;
+      dstHi = 0;
+      dstLo = getInt(packet, offset + 16) & 0xFFFFFFFFL;
+      l4 = offset + ihl;
+    }
+    else if (version == 6) {
+      if (length < 40) {
+        return false;
+      }
+      int payloadLength = getShort(packet, offset + 4) & 0xFFFF;
+      this.length = payloadLength != 0 ? payloadLength + 40 : 0;
+      protocol = packet[offset + 6] & 0xFF;
+      srcHi = getLong(packet, offset + 8);
+      srcLo = getLong(packet, offset + 16);
+      dstHi = getLong(packet, offset + 24);
+      dstLo = getLong(packet, offset + 32);
+      l4 = offset + 40;
+      fragment = false;
+      while (l4 + 8 <= end) {
+        if (
+             protocol == IPV6_HOPOPTS
+          || protocol == IPV6_ROUTING
+          || protocol == IPV6_DSTOPTS
+        ) {
+          protocol = packet[l4] & 0xFF;
+          l4 += ((packet[l4 + 1] & 0xFF) + 1) * 8;
+        }
+        else if (protocol == IPV6_AH) {
+          protocol = packet[l4] & 0xFF;
+          l4 += ((packet[l4 + 1] & 0xFF) + 2) * 4;
+        }
+        else if (protocol == IPV6_FRAGMENT) {
+          protocol = packet[l4] & 0xFF;
+          fragment = (getShort(packet, l4 + 2) & 0xFFF8) != 0;
+          l4 += 8;
+        }
+        else {
+          break;
+        }
+      }
+    }
+    else {
+      return false;
+    }
+    if (this.length == 0) {
+      this.length = length;
+    }
+
+    srcPort = 0;
+    dstPort = 0;
+    tcpFlags = 0;
+    if (!fragment) {
+      switch (protocol) {
+        case IP_PROTO_TCP:
+          if (l4 + 14 <= end) {
+            tcpFlags = packet[l4 + 13] & 0xFF;
+          }
+          // fall through
+        case IP_PROTO_UDP:
+        case IP_PROTO_SCTP:
+          if (l4 + 4 <= end) {
+            srcPort = getShort(packet, l4) & 0xFFFF;
+            dstPort = getShort(packet, l4 + 2) & 0xFFFF;
+          }
+          break;
+        case IP_PROTO_ICMPV4:
+        case IP_PROTO_ICMPV6:
+          if (l4 + 2 <= end) {
+            dstPort = getShort(packet, l4) & 0xFFFF;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Orders the endpoints of this key so that both directions of a flow have the same key.
+   */
+  public void canonicalize() {
+    if (
+         srcHi > dstHi
+      || (srcHi == dstHi && (srcLo > dstLo || (srcLo == dstLo && srcPort > dstPort)))
+    ) {
+      long tmp = srcHi;
+      srcHi = dstHi;
+      dstHi = tmp;
+      tmp = srcLo;
+      srcLo = dstLo;
+      dstLo = tmp;
+      int tmpPort = srcPort;
+      srcPort = dstPort;
+      dstPort = tmpPort;
+    }
+  }
+
+  /**
+   * @param seed seed
+   * @return a 64-bit hash of this key.
+   */
+  public long hash(long seed) {
+    long h = seed;
+    h = h * 0x9E3779B97F4A7C15L + srcHi;
+    h = h * 0x9E3779B97F4A7C15L + srcLo;
+    h = h * 0x9E3779B97F4A7C15L + dstHi;
+    h = h * 0x9E3779B97F4A7C15L + dstLo;
+    h = h * 0x9E3779B97F4A7C15L + meta();
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * @return the IP version, 4 or 6.
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the IP protocol number. e.g. 6 for TCP.
+   */
+  public int getProtocol() {
+    return protocol;
+  }
+
+  /**
+   * @return srcPort
+   */
+  public int getSrcPort() {
+    return srcPort;
+  }
+
+  /**
+   * @return dstPort
+   */
+  public int getDstPort() {
+    return dstPort;
+  }
+
+  /**
+   * @return the TCP flags of a TCP packet; 0 otherwise.
+   */
+  public int getTcpFlags() {
+    return tcpFlags;
+  }
+
+  /**
+   * @return the length of the IP packet in its header,
+   *         or the captured length if the header doesn't tell it.
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * @return the IP version, the IP protocol, and the ports packed in a long.
+   */
+  long meta() {
+    return ((long) version << 40) | ((long) protocol << 32) | ((long) srcPort << 16) | dstPort;
+  }
+
+}
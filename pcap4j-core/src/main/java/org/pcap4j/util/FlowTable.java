@@ -0,0 +1,585 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import static org.pcap4j.util.ByteArrays.*;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * A flow table which accounts packets per flow, in the manner of NetFlow.
+ * A flow is identified by IP version, source/destination addresses, source/destination ports
+ * and IP protocol, as extracted by a {@link FlowKey}. For ICMP and ICMPv6, the destination port
+ * holds (type * 256 + code).
+ * <p>
+ * Keys and counters are stored in primitive arrays with open addressing (linear probing),
+ * and keys are extracted directly from raw bytes without building {@link
+ * org.pcap4j.packet.Packet Packet} objects, so that accounting a packet allocates nothing.
+ * The table never grows; all the memory is allocated when the table is built,
+ * and packets of new flows are dropped (and counted by {@link #getDroppedPacketCount()})
+ * when the table is full.
+ * </p>
+ * <p>
+ * Flows are exported as {@link FlowRecord}s by {@link #expire(long)} when their idle timeout
+ * or active timeout is reached, or when a TCP FIN or RST has been seen.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class FlowTable {
+
+  /**
+   * The maximum capacity, which is the largest one for which the key array
+   * (5 longs per slot, with a load factor of 0.75 or less) can be indexed by an int.
+   */
+  public static final int MAX_CAPACITY = (3 << 26) - 1;
+
+  private static final int TCP_FIN = 0x01;
+  private static final int TCP_RST = 0x04;
+
+  private static final int KEY_STRIDE = 5;
+  private static final int COUNTER_STRIDE = 4;
+  private static final int PACKETS = 0;
+  private static final int BYTES = 1;
+  private static final int FIRST_SEEN = 2;
+  private static final int LAST_SEEN = 3;
+
+  private final int capacity;
+  private final int mask;
+  private final long idleTimeoutMillis;
+  private final long activeTimeoutMillis;
+
+  // srcHi, srcLo, dstHi, dstLo, (version, protocol, srcPort, dstPort)
+  private final long[] keys;
+  // packets, bytes, firstSeen, lastSeen
+  private final long[] counters;
+  private final int[] hashes;
+  private final byte[] tcpFlags;
+  private final boolean[] used;
+  private final FlowKey key = new FlowKey();
+
+  private int size = 0;
+  private long droppedPacketCount = 0;
+
+  private FlowTable(Builder builder) {
+    if (
+         builder == null
+      || builder.capacity <= 0
+      || builder.capacity > MAX_CAPACITY
+      || builder.idleTimeoutMillis <= 0
+      || builder.activeTimeoutMillis <= 0
+    ) {
+      StringBuilder sb = new StringBuilder(120);
+      sb.append("builder: ").append(builder);
+      if (builder != null) {
+        sb.append(" builder.capacity: ").append(builder.capacity)
+          .append(" builder.idleTimeoutMillis: ").append(builder.idleTimeoutMillis)
+          .append(" builder.activeTimeoutMillis: ").append(builder.activeTimeoutMillis);
+      }
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.capacity = builder.capacity;
+    this.idleTimeoutMillis = builder.idleTimeoutMillis;
+    this.activeTimeoutMillis = builder.activeTimeoutMillis;
+
+    // Keep the load factor at 0.75 or less.
+    int slots = Integer.highestOneBit(capacity + capacity / 3) << 1;
+    this.mask = slots - 1;
+    this.keys = new long[slots * KEY_STRIDE];
+    this.counters = new long[slots * COUNTER_STRIDE];
+    this.hashes = new int[slots];
+    this.tcpFlags = new byte[slots];
+    this.used = new boolean[slots];
+  }
+
+  /**
+   * Accounts a captured frame.
+   *
+   * @param frame frame
+   * @param offset offset
+   * @param length length
+   * @param dlt the data link type of the frame. {@link DataLinkType#EN10MB},
+   *            {@link DataLinkType#LINUX_SLL}, and {@link DataLinkType#RAW} are supported.
+   * @param timestamp the time the frame was captured at in milliseconds.
+   * @return true if the frame was accounted; false if it was not an IP packet,
+   *         it was malformed, or the table was full.
+   */
+  public boolean addFrame(
+    byte[] frame, int offset, int length, DataLinkType dlt, long timestamp
+  ) {
+    if (!key.parseFrame(frame, offset, length, dlt)) {
+      return false;
+    }
+    return account(timestamp);
+  }
+
+  /**
+   * Accounts an IPv4 or IPv6 packet.
+   *
+   * @param packet a byte array which contains the packet.
+   * @param offset the offset of the IP header in the array.
+   * @param length length
+   * @param timestamp the time the packet was captured at in milliseconds.
+   * @return true if the packet was accounted; false if it was malformed or the table was full.
+   */
+  public boolean addIpPacket(byte[] packet, int offset, int length, long timestamp) {
+    if (!key.parseIpPacket(packet, offset, length)) {
+      return false;
+    }
+    return account(timestamp);
+  }
+
+  private boolean account(long timestamp) {
+    long srcHi = key.srcHi;
+    long srcLo = key.srcLo;
+    long dstHi = key.dstHi;
+    long dstLo = key.dstLo;
+    long meta = key.meta();
+    long bytes = key.length;
+    int flags = key.tcpFlags;
+    int hash = (int) key.hash(0L);
+    int slot = hash & mask;
+    while (used[slot]) {
+      int k = slot * KEY_STRIDE;
+      if (
+           hashes[slot] == hash
+        && keys[k] == srcHi
+        && keys[k + 1] == srcLo
+        && keys[k + 2] == dstHi
+        && keys[k + 3] == dstLo
+        && keys[k + 4] == meta
+      ) {
+        int c = slot * COUNTER_STRIDE;
+        counters[c + PACKETS]++;
+        counters[c + BYTES] += bytes;
+        if (timestamp > counters[c + LAST_SEEN]) {
+          counters[c + LAST_SEEN] = timestamp;
+        }
+        tcpFlags[slot] |= flags;
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size >= capacity) {
+      droppedPacketCount++;
+      return false;
+    }
+
+    int k = slot * KEY_STRIDE;
+    keys[k] = srcHi;
+    keys[k + 1] = srcLo;
+    keys[k + 2] = dstHi;
+    keys[k + 3] = dstLo;
+    keys[k + 4] = meta;
+    int c = slot * COUNTER_STRIDE;
+    counters[c + PACKETS] = 1;
+    counters[c + BYTES] = bytes;
+    counters[c + FIRST_SEEN] = timestamp;
+    counters[c + LAST_SEEN] = timestamp;
+    hashes[slot] = hash;
+    tcpFlags[slot] = (byte) flags;
+    used[slot] = true;
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes and returns the flows which have expired at the given time:
+   * ones idle for the idle timeout, ones active for the active timeout,
+   * and TCP flows in which FIN or RST has been seen.
+   *
+   * @param now the current time in milliseconds, in the same clock as the packet timestamps.
+   * @return a list of the expired flows. Never null.
+   */
+  public List<FlowRecord> expire(long now) {
+    List<FlowRecord> expired = new ArrayList<FlowRecord>();
+    int slot = 0;
+    while (slot <= mask) {
+      if (!used[slot]) {
+        slot++;
+        continue;
+      }
+
+      int c = slot * COUNTER_STRIDE;
+      FlowEndReason reason;
+      if (now - counters[c + LAST_SEEN] >= idleTimeoutMillis) {
+        reason = FlowEndReason.IDLE_TIMEOUT;
+      }
+      else if (now - counters[c + FIRST_SEEN] >= activeTimeoutMillis) {
+        reason = FlowEndReason.ACTIVE_TIMEOUT;
+      }
+      else if ((tcpFlags[slot] & (TCP_FIN | TCP_RST)) != 0) {
+        reason = FlowEndReason.END_OF_FLOW;
+      }
+      else {
+        slot++;
+        continue;
+      }
+
+      expired.add(toRecord(slot, reason));
+      // Don't advance; remove() may have moved another flow into this slot.
+      remove(slot);
+    }
+    return expired;
+  }
+
+  /**
+   * Removes and returns all the flows.
+   *
+   * @return a list of the flows. Never null.
+   */
+  public List<FlowRecord> expireAll() {
+    List<FlowRecord> expired = new ArrayList<FlowRecord>(size);
+    for (int slot = 0; slot <= mask; slot++) {
+      if (used[slot]) {
+        expired.add(toRecord(slot, FlowEndReason.FORCED_END));
+        used[slot] = false;
+      }
+    }
+    size = 0;
+    return expired;
+  }
+
+  private void remove(int slot) {
+    // backward shift deletion for linear probing
+    int hole = slot;
+    int cur = slot;
+    while (true) {
+      cur = (cur + 1) & mask;
+      if (!used[cur]) {
+        break;
+      }
+      int home = hashes[cur] & mask;
+      boolean movable
+        = hole <= cur ? (home <= hole || home > cur)
+                      : (home <= hole && home > cur);
+      if (movable) {
+        System.arraycopy(keys, cur * KEY_STRIDE, keys, hole * KEY_STRIDE, KEY_STRIDE);
+        System.arraycopy(
+          counters, cur * COUNTER_STRIDE, counters, hole * COUNTER_STRIDE, COUNTER_STRIDE
+        );
+        hashes[hole] = hashes[cur];
+        tcpFlags[hole] = tcpFlags[cur];
+        hole = cur;
+      }
+    }
+    used[hole] = false;
+    size--;
+  }
+
+  private FlowRecord toRecord(int slot, FlowEndReason reason) {
+    int k = slot * KEY_STRIDE;
+    int c = slot * COUNTER_STRIDE;
+    long meta = keys[k + 4];
+    int version = (int) (meta >>> 40) & 0xFF;
+    return new FlowRecord(
+             version,
+             toAddress(version, keys[k], keys[k + 1]),
+             toAddress(version, keys[k + 2], keys[k + 3]),
+             (int) (meta >>> 16) & 0xFFFF,
+             (int) meta & 0xFFFF,
+             (int) (meta >>> 32) & 0xFF,
+             tcpFlags[slot] & 0xFF,
+             counters[c + PACKETS],
+             counters[c + BYTES],
+             counters[c + FIRST_SEEN],
+             counters[c + LAST_SEEN],
+             reason
+           );
+  }
+
+  private static byte[] toAddress(int version, long hi, long lo) {
+    if (version == 4) {
+      return toByteArray((int) lo);
+    }
+    else {
+      return concatenate(toByteArray(hi), toByteArray(lo));
+    }
+  }
+
+  /**
+   * @return the number of flows in this table.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the maximum number of flows this table can hold.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the number of packets dropped because the table was full.
+   */
+  public long getDroppedPacketCount() {
+    return droppedPacketCount;
+  }
+
+  /**
+   * The reason why a flow was expired.
+   * The values are the same as IPFIX's flowEndReason (RFC 5102).
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static enum FlowEndReason {
+
+    /**
+     * The flow was idle for the idle timeout.
+     */
+    IDLE_TIMEOUT(1),
+
+    /**
+     * The flow was active for the active timeout.
+     */
+    ACTIVE_TIMEOUT(2),
+
+    /**
+     * The end of the flow (TCP FIN or RST) was seen.
+     */
+    END_OF_FLOW(3),
+
+    /**
+     * The flow was expired by {@link FlowTable#expireAll()}.
+     */
+    FORCED_END(4);
+
+    private final int value;
+
+    private FlowEndReason(int value) {
+      this.value = value;
+    }
+
+    /**
+     * @return value
+     */
+    public int getValue() {
+      return value;
+    }
+
+  }
+
+  /**
+   * An immutable record of an expired flow.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class FlowRecord {
+
+    private final int ipVersion;
+    private final byte[] srcAddr;
+    private final byte[] dstAddr;
+    private final int srcPort;
+    private final int dstPort;
+    private final int protocol;
+    private final int tcpFlags;
+    private final long packets;
+    private final long bytes;
+    private final long firstSeen;
+    private final long lastSeen;
+    private final FlowEndReason endReason;
+
+    private FlowRecord(
+      int ipVersion, byte[] srcAddr, byte[] dstAddr, int srcPort, int dstPort,
+      int protocol, int tcpFlags, long packets, long bytes, long firstSeen, long lastSeen,
+      FlowEndReason endReason
+    ) {
+      this.ipVersion = ipVersion;
+      this.srcAddr = srcAddr;
+      this.dstAddr = dstAddr;
+      this.srcPort = srcPort;
+      this.dstPort = dstPort;
+      this.protocol = protocol;
+      this.tcpFlags = tcpFlags;
+      this.packets = packets;
+      this.bytes = bytes;
+      this.firstSeen = firstSeen;
+      this.lastSeen = lastSeen;
+      this.endReason = endReason;
+    }
+
+    /**
+     * @return 4 or 6
+     */
+    public int getIpVersion() { return ipVersion; }
+
+    /**
+     * @return srcAddr
+     */
+    public InetAddress getSrcAddr() { return toInetAddress(srcAddr); }
+
+    /**
+     * @return a new byte array of the source address.
+     */
+    public byte[] getRawSrcAddr() { return ByteArrays.clone(srcAddr); }
+
+    /**
+     * @return dstAddr
+     */
+    public InetAddress getDstAddr() { return toInetAddress(dstAddr); }
+
+    /**
+     * @return a new byte array of the destination address.
+     */
+    public byte[] getRawDstAddr() { return ByteArrays.clone(dstAddr); }
+
+    /**
+     * @return srcPort. 0 if the protocol doesn't have ports.
+     */
+    public int getSrcPort() { return srcPort; }
+
+    /**
+     * @return dstPort. (type * 256 + code) for ICMP and ICMPv6.
+     *         0 if the protocol doesn't have ports.
+     */
+    public int getDstPort() { return dstPort; }
+
+    /**
+     * @return the IP protocol number.
+     */
+    public int getProtocol() { return protocol; }
+
+    /**
+     * @return the cumulative OR of the TCP flags.
+     */
+    public int getTcpFlags() { return tcpFlags; }
+
+    /**
+     * @return the number of packets.
+     */
+    public long getPackets() { return packets; }
+
+    /**
+     * @return the number of bytes at the IP layer.
+     */
+    public long getBytes() { return bytes; }
+
+    /**
+     * @return the time the first packet was seen at in milliseconds.
+     */
+    public long getFirstSeen() { return firstSeen; }
+
+    /**
+     * @return the time the last packet was seen at in milliseconds.
+     */
+    public long getLastSeen() { return lastSeen; }
+
+    /**
+     * @return endReason
+     */
+    public FlowEndReason getEndReason() { return endReason; }
+
+    private static InetAddress toInetAddress(byte[] addr) {
+      try {
+        return InetAddress.getByAddress(addr);
+      } catch (UnknownHostException e) {
+        throw new AssertionError("Never get here.");
+      }
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(150);
+      sb.append("[")
+        .append(getSrcAddr().getHostAddress())
+        .append(":")
+        .append(srcPort)
+        .append(" -> ")
+        .append(getDstAddr().getHostAddress())
+        .append(":")
+        .append(dstPort)
+        .append(" proto: ")
+        .append(protocol)
+        .append(", packets: ")
+        .append(packets)
+        .append(", bytes: ")
+        .append(bytes)
+        .append(", tcpFlags: 0x")
+        .append(Integer.toHexString(tcpFlags))
+        .append(", firstSeen: ")
+        .append(firstSeen)
+        .append(", lastSeen: ")
+        .append(lastSeen)
+        .append(", endReason: ")
+        .append(endReason)
+        .append("]");
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private int capacity = 1 << 20;
+    private long idleTimeoutMillis = 15000L;
+    private long activeTimeoutMillis = 1800000L;
+
+    /**
+     *
+     */
+    public Builder() {}
+
+    /**
+     * @param capacity the maximum number of flows. 1048576 by default.
+     *                 The table takes about 100 bytes per flow.
+     *                 Must not be greater than {@link FlowTable#MAX_CAPACITY}.
+     * @return this Builder object for method chaining.
+     */
+    public Builder capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    /**
+     * @param idleTimeoutMillis flows which haven't seen a packet for this period expire.
+     *                          15000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder idleTimeoutMillis(long idleTimeoutMillis) {
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @param activeTimeoutMillis flows which have lasted for this period expire.
+     *                            1800000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder activeTimeoutMillis(long activeTimeoutMillis) {
+      this.activeTimeoutMillis = activeTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @return a new FlowTable object.
+     */
+    public FlowTable build() {
+      return new FlowTable(this);
+    }
+
+  }
+
+}
@@ -0,0 +1,644 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * A compact binary codec for captured packets, to be used instead of Java serialization
+ * to ship packets between processes.
+ * A packet is encoded as its data link type, timestamp, original length, and raw data,
+ * and is rebuilt by {@link PacketFactories} on the receiving side.
+ * <p>
+ * Records are encoded in batches. A batch is a 4-byte big-endian length of the rest of
+ * the batch, the number of records as a varint, and the records. A record is a flags byte,
+ * the data link type as a varint unless it's the same as that of the previous record,
+ * the timestamp as a zigzag varint of nanoseconds since the previous record (or since the
+ * epoch for the first record), the captured length as a varint, the original length as a
+ * varint if it differs from the captured length, and the raw data.
+ * So, a record of a packet in a stream of packets from a single interface usually takes
+ * only 4 to 6 bytes more than its raw data.
+ * </p>
+ * <p>
+ * Batches can be encoded into and decoded from a {@link ByteBuffer} by
+ * {@link #encodeBatch(List, ByteBuffer)} and {@link #decodeBatch(ByteBuffer)}, or written to
+ * an {@link OutputStream} by a {@link Writer} and read from an {@link InputStream} by a
+ * {@link Reader}. A stream starts with the 4-byte magic number {@link #STREAM_MAGIC} and
+ * a version byte.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PacketCodec {
+
+  /**
+   * "P4JB"
+   */
+  public static final int STREAM_MAGIC = 0x50344A42;
+
+  /**
+   * The version of the format.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The maximum length of a batch which {@link #decodeBatch(ByteBuffer)} and {@link Reader}
+   * accept: 64 MiB.
+   */
+  public static final int MAX_BATCH_LENGTH = 64 * 1024 * 1024;
+
+  private static final int SAME_DLT = 0x01;
+  private static final int NO_TIMESTAMP = 0x02;
+  private static final int TRUNCATED = 0x04;
+
+  private PacketCodec() { throw new AssertionError(); }
+
+  /**
+   * @param records records
+   * @return the number of bytes {@link #encodeBatch(List, ByteBuffer)} writes for the records.
+   */
+  public static int encodedLength(List<Record> records) {
+    if (records == null) {
+      throw new NullPointerException("records must not be null.");
+    }
+
+    long length = 4 + varintLength(records.size());
+    int prevDlt = -1;
+    long prevNanos = 0;
+    for (Record record: records) {
+      length++;
+      int dlt = record.dlt.value();
+      if (dlt != prevDlt) {
+        length += varintLength(dlt);
+        prevDlt = dlt;
+      }
+      if (record.timestamp != null) {
+        long nanos = EpochNanos.fromTimestamp(record.timestamp);
+        length += varintLength(zigzag(nanos - prevNanos));
+        prevNanos = nanos;
+      }
+      length += varintLength(record.rawData.length);
+      if (record.originalLength != record.rawData.length) {
+        length += varintLength(record.originalLength);
+      }
+      length += record.rawData.length;
+    }
+    if (length - 4 > MAX_BATCH_LENGTH) {
+      throw new IllegalArgumentException("Too large batch: " + length);
+    }
+    return (int) length;
+  }
+
+  /**
+   * Encodes records into a batch.
+   *
+   * @param records records
+   * @return a new buffer which contains the batch, ready to be read.
+   */
+  public static ByteBuffer encodeBatch(List<Record> records) {
+    ByteBuffer buf = ByteBuffer.allocate(encodedLength(records));
+    encodeBatch(records, buf);
+    buf.flip();
+    return buf;
+  }
+
+  /**
+   * Encodes records into a batch and writes it to the buffer at its position.
+   *
+   * @param records records
+   * @param dst dst
+   * @throws java.nio.BufferOverflowException if the remaining of dst is less than
+   *         {@link #encodedLength(List)}.
+   */
+  public static void encodeBatch(List<Record> records, ByteBuffer dst) {
+    if (records == null || dst == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("records: ").append(records)
+        .append(" dst: ").append(dst);
+      throw new NullPointerException(sb.toString());
+    }
+
+    int start = dst.position();
+    dst.putInt(0);
+    putVarint(dst, records.size());
+    int prevDlt = -1;
+    long prevNanos = 0;
+    for (Record record: records) {
+      int dlt = record.dlt.value();
+      int flags = 0;
+      if (dlt == prevDlt) {
+        flags |= SAME_DLT;
+      }
+      if (record.timestamp == null) {
+        flags |= NO_TIMESTAMP;
+      }
+      if (record.originalLength != record.rawData.length) {
+        flags |= TRUNCATED;
+      }
+      dst.put((byte) flags);
+
+      if (dlt != prevDlt) {
+        putVarint(dst, dlt);
+        prevDlt = dlt;
+      }
+      if (record.timestamp != null) {
+        long nanos = EpochNanos.fromTimestamp(record.timestamp);
+        putVarint(dst, zigzag(nanos - prevNanos));
+        prevNanos = nanos;
+      }
+      putVarint(dst, record.rawData.length);
+      if (record.originalLength != record.rawData.length) {
+        putVarint(dst, record.originalLength);
+      }
+      dst.put(record.rawData);
+    }
+    dst.putInt(start, dst.position() - start - 4);
+  }
+
+  /**
+   * Decodes a batch at the position of the buffer and
+   * advances the position to the end of the batch.
+   *
+   * @param src src
+   * @return the records in the batch.
+   * @throws IllegalArgumentException if the batch is malformed.
+   * @throws BufferUnderflowException if the buffer doesn't contain the whole batch.
+   */
+  public static List<Record> decodeBatch(ByteBuffer src) {
+    if (src == null) {
+      throw new NullPointerException("src must not be null.");
+    }
+
+    int length = src.getInt();
+    if (length < 1 || length > MAX_BATCH_LENGTH) {
+      throw new IllegalArgumentException("Illegal batch length: " + length);
+    }
+    if (src.remaining() < length) {
+      throw new BufferUnderflowException();
+    }
+
+    ByteBuffer batch = src.slice();
+    batch.limit(length);
+    src.position(src.position() + length);
+    try {
+      return decodeRecords(batch);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated batch.", e);
+    }
+  }
+
+  private static List<Record> decodeRecords(ByteBuffer batch) {
+    long count = getVarint(batch);
+    if (count < 0 || count > batch.remaining()) {
+      throw new IllegalArgumentException("Illegal record count: " + count);
+    }
+
+    List<Record> records = new ArrayList<Record>((int) count);
+    DataLinkType dlt = null;
+    long prevNanos = 0;
+    for (int i = 0; i < count; i++) {
+      int flags = batch.get();
+      if ((flags & SAME_DLT) == 0) {
+        dlt = DataLinkType.getInstance(toInt(getVarint(batch)));
+      }
+      else if (dlt == null) {
+        throw new IllegalArgumentException("The first record has no data link type.");
+      }
+
+      Timestamp timestamp = null;
+      if ((flags & NO_TIMESTAMP) == 0) {
+        prevNanos += unzigzag(getVarint(batch));
+        timestamp = EpochNanos.toTimestamp(prevNanos);
+      }
+
+      int capturedLength = toInt(getVarint(batch));
+      int originalLength
+        = (flags & TRUNCATED) != 0 ? toInt(getVarint(batch)) : capturedLength;
+      if (capturedLength > batch.remaining()) {
+        throw new IllegalArgumentException("Illegal captured length: " + capturedLength);
+      }
+      byte[] rawData = new byte[capturedLength];
+      batch.get(rawData);
+      records.add(new Record(dlt, timestamp, originalLength, rawData, false));
+    }
+    if (batch.hasRemaining()) {
+      throw new IllegalArgumentException(batch.remaining() + " bytes left after the records.");
+    }
+    return records;
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static int varintLength(long value) {
+    int length = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  private static void putVarint(ByteBuffer dst, long value) {
+    while ((value & ~0x7FL) != 0) {
+      dst.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    dst.put((byte) value);
+  }
+
+  private static long getVarint(ByteBuffer src) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = src.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Too long varint.");
+  }
+
+  private static int toInt(long value) {
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Illegal value: " + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * A captured packet to be encoded or which has been decoded.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Record {
+
+    private final DataLinkType dlt;
+    private final Timestamp timestamp;
+    private final int originalLength;
+    private final byte[] rawData;
+
+    /**
+     * @param dlt the data link type of the packet.
+     * @param timestamp the time the packet was captured at. May be null.
+     * @param originalLength the length of the packet on the wire.
+     * @param rawData the captured raw data of the packet. Not copied.
+     */
+    public Record(DataLinkType dlt, Timestamp timestamp, int originalLength, byte[] rawData) {
+      this(dlt, timestamp, originalLength, rawData, true);
+    }
+
+    /**
+     * @param packet packet
+     * @param dlt the data link type of the packet.
+     * @param timestamp the time the packet was captured at. May be null.
+     */
+    public Record(Packet packet, DataLinkType dlt, Timestamp timestamp) {
+      this(dlt, timestamp, packet.length(), packet.getRawData(), true);
+    }
+
+    private Record(
+      DataLinkType dlt, Timestamp timestamp, int originalLength, byte[] rawData, boolean check
+    ) {
+      if (check) {
+        if (dlt == null || rawData == null) {
+          StringBuilder sb = new StringBuilder();
+          sb.append("dlt: ").append(dlt)
+            .append(" rawData: ").append(rawData);
+          throw new NullPointerException(sb.toString());
+        }
+        if (originalLength < 0) {
+          throw new IllegalArgumentException("originalLength: " + originalLength);
+        }
+      }
+      this.dlt = dlt;
+      this.timestamp = timestamp;
+      this.originalLength = originalLength;
+      this.rawData = rawData;
+    }
+
+    /**
+     * @return dlt
+     */
+    public DataLinkType getDlt() {
+      return dlt;
+    }
+
+    /**
+     * @return timestamp. May be null.
+     */
+    public Timestamp getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * @return originalLength
+     */
+    public int getOriginalLength() {
+      return originalLength;
+    }
+
+    /**
+     * @return the raw data. Not copied.
+     */
+    public byte[] getRawData() {
+      return rawData;
+    }
+
+    /**
+     * @return a new Packet object built from the raw data by {@link PacketFactories}.
+     */
+    public Packet getPacket() {
+      return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+               .newInstance(rawData, 0, rawData.length, dlt);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(80);
+      sb.append("[dlt: ").append(dlt)
+        .append(", timestamp: ").append(timestamp)
+        .append(", originalLength: ").append(originalLength)
+        .append(", capturedLength: ").append(rawData.length)
+        .append("]");
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * Writes records to an OutputStream in batches.
+   * A batch is written when it reaches the maximum number of records or bytes,
+   * or when {@link #flush()} or {@link #close()} is called.
+   * This class is not thread-safe.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Writer implements Closeable, Flushable {
+
+    private final OutputStream out;
+    private final int maxBatchRecords;
+    private final int maxBatchBytes;
+    private final List<Record> pending = new ArrayList<Record>();
+    private int pendingBytes = 0;
+    private ByteBuffer buf = ByteBuffer.allocate(0);
+    private boolean closed = false;
+
+    /**
+     * Writes batches of up to 256 records or 256 KiB.
+     *
+     * @param out out
+     * @throws IOException if an I/O error occurs.
+     */
+    public Writer(OutputStream out) throws IOException {
+      this(out, 256, 256 * 1024);
+    }
+
+    /**
+     * @param out out
+     * @param maxBatchRecords the maximum number of records in a batch.
+     * @param maxBatchBytes the approximate maximum number of raw data bytes in a batch.
+     * @throws IOException if an I/O error occurs.
+     */
+    public Writer(OutputStream out, int maxBatchRecords, int maxBatchBytes) throws IOException {
+      if (out == null) {
+        throw new NullPointerException("out must not be null.");
+      }
+      if (
+           maxBatchRecords < 1
+        || maxBatchBytes < 1
+        || maxBatchBytes > MAX_BATCH_LENGTH / 2
+      ) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("maxBatchRecords: ").append(maxBatchRecords)
+          .append(" maxBatchBytes: ").append(maxBatchBytes);
+        throw new IllegalArgumentException(sb.toString());
+      }
+      this.out = out;
+      this.maxBatchRecords = maxBatchRecords;
+      this.maxBatchBytes = maxBatchBytes;
+
+      ByteBuffer header = ByteBuffer.allocate(5);
+      header.putInt(STREAM_MAGIC).put((byte) VERSION);
+      out.write(header.array());
+    }
+
+    /**
+     * @param record record
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(Record record) throws IOException {
+      if (record == null) {
+        throw new NullPointerException("record must not be null.");
+      }
+      if (closed) {
+        throw new IOException("Already closed.");
+      }
+
+      pending.add(record);
+      pendingBytes += record.rawData.length;
+      if (pending.size() >= maxBatchRecords || pendingBytes >= maxBatchBytes) {
+        writeBatch();
+      }
+    }
+
+    /**
+     * @param rawData rawData
+     * @param dlt dlt
+     * @param timestamp timestamp. May be null.
+     * @param originalLength originalLength
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(
+      byte[] rawData, DataLinkType dlt, Timestamp timestamp, int originalLength
+    ) throws IOException {
+      write(new Record(dlt, timestamp, originalLength, rawData));
+    }
+
+    /**
+     * @param packet packet
+     * @param dlt dlt
+     * @param timestamp timestamp. May be null.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(Packet packet, DataLinkType dlt, Timestamp timestamp) throws IOException {
+      if (packet == null) {
+        throw new NullPointerException("packet must not be null.");
+      }
+      write(new Record(packet, dlt, timestamp));
+    }
+
+    private void writeBatch() throws IOException {
+      if (pending.isEmpty()) {
+        return;
+      }
+
+      int length = encodedLength(pending);
+      if (buf.capacity() < length) {
+        buf = ByteBuffer.allocate(Math.max(length, buf.capacity() * 2));
+      }
+      buf.clear();
+      encodeBatch(pending, buf);
+      out.write(buf.array(), 0, buf.position());
+      pending.clear();
+      pendingBytes = 0;
+    }
+
+    /**
+     * Writes the pending records as a batch and flushes the stream.
+     */
+    @Override
+    public void flush() throws IOException {
+      writeBatch();
+      out.flush();
+    }
+
+    /**
+     * Writes the pending records and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      try {
+        flush();
+      } finally {
+        closed = true;
+        out.close();
+      }
+    }
+
+  }
+
+  /**
+   * Reads records written by a {@link Writer} from an InputStream.
+   * This class is not thread-safe.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Reader implements Closeable {
+
+    private final DataInputStream in;
+    private List<Record> batch = Collections.emptyList();
+    private int next = 0;
+    private byte[] buf = new byte[0];
+
+    /**
+     * @param in in
+     * @throws IOException if an I/O error occurs or the stream doesn't start with
+     *                     the magic number and a supported version.
+     */
+    public Reader(InputStream in) throws IOException {
+      if (in == null) {
+        throw new NullPointerException("in must not be null.");
+      }
+      this.in = new DataInputStream(in);
+
+      int magic = this.in.readInt();
+      int version = this.in.readUnsignedByte();
+      if (magic != STREAM_MAGIC || version != VERSION) {
+        StringBuilder sb = new StringBuilder(60);
+        sb.append("Not a packet stream. magic: ")
+          .append(Integer.toHexString(magic))
+          .append(" version: ")
+          .append(version);
+        throw new IOException(sb.toString());
+      }
+    }
+
+    /**
+     * @return the next record, or null if the stream has ended.
+     * @throws IOException if an I/O error occurs or the stream is malformed.
+     */
+    public Record read() throws IOException {
+      while (next == batch.size()) {
+        if (!readNextBatch()) {
+          return null;
+        }
+      }
+      return batch.get(next++);
+    }
+
+    /**
+     * @return the records of the next batch, or null if the stream has ended.
+     *         Records of the current batch which haven't been read by {@link #read()}
+     *         are skipped.
+     * @throws IOException if an I/O error occurs or the stream is malformed.
+     */
+    public List<Record> readBatch() throws IOException {
+      if (!readNextBatch()) {
+        return null;
+      }
+      next = batch.size();
+      return batch;
+    }
+
+    private boolean readNextBatch() throws IOException {
+      int b = in.read();
+      if (b < 0) {
+        return false;
+      }
+      int length = (b << 24) | (in.readUnsignedByte() << 16)
+                     | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+      if (length < 1 || length > MAX_BATCH_LENGTH) {
+        throw new IOException("Illegal batch length: " + length);
+      }
+
+      if (buf.length < length + 4) {
+        buf = new byte[Math.max(length + 4, buf.length * 2)];
+      }
+      ByteBuffer bb = ByteBuffer.wrap(buf, 0, length + 4);
+      bb.putInt(0, length);
+      try {
+        in.readFully(buf, 4, length);
+      } catch (EOFException e) {
+        throw new IOException("Truncated batch.", e);
+      }
+
+      try {
+        batch = decodeBatch(bb);
+      } catch (IllegalArgumentException e) {
+        throw new IOException(e);
+      }
+      next = 0;
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,761 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import org.pcap4j.packet.ArpPacket;
+import org.pcap4j.packet.ArpPacket.ArpHeader;
+import org.pcap4j.packet.Dot1qVlanTagPacket;
+import org.pcap4j.packet.Dot1qVlanTagPacket.Dot1qVlanTagHeader;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.EthernetPacket.EthernetHeader;
+import org.pcap4j.packet.FragmentedPacket;
+import org.pcap4j.packet.IcmpV4CommonPacket;
+import org.pcap4j.packet.IcmpV4CommonPacket.IcmpV4CommonHeader;
+import org.pcap4j.packet.IcmpV6CommonPacket;
+import org.pcap4j.packet.IcmpV6CommonPacket.IcmpV6CommonHeader;
+import org.pcap4j.packet.IllegalPacket;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Packet.IpV4Header;
+import org.pcap4j.packet.IpV6Packet;
+import org.pcap4j.packet.IpV6Packet.IpV6Header;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.Packet.Header;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.TcpPacket.TcpHeader;
+import org.pcap4j.packet.UdpPacket;
+import org.pcap4j.packet.UdpPacket.UdpHeader;
+import org.pcap4j.packet.UnknownPacket;
+import org.pcap4j.packet.namednumber.ArpOperation;
+import org.pcap4j.packet.namednumber.NamedNumber;
+
+/**
+ * Writes decoded packets as text or JSON to an {@link Appendable} (e.g. a {@link Writer}
+ * or a {@link StringBuilder}) or a {@link ByteBuffer}.
+ * Unlike {@link Packet#toString()}, which builds a String per layer, caches them in the packet,
+ * and concatenates them, a formatter reads the fields of the headers and writes them into
+ * a buffer which it reuses for the next packet.
+ * <p>
+ * Ethernet, IEEE 802.1Q, ARP, IPv4, IPv6, ICMPv4, ICMPv6, TCP, and UDP headers are written
+ * field by field. The other headers are written as hex streams, and so are data packets
+ * such as {@link UnknownPacket}, {@link FragmentedPacket}, and {@link IllegalPacket},
+ * which are read through their getRawDataBuffer() without copying their raw data.
+ * </p>
+ * <p>
+ * A formatter isn't thread safe because of the reused buffers.
+ * Each thread should use its own formatter.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PacketFormatter {
+
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+  private static final int MAX_RETAINED_BUFFER_SIZE = 65536;
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private final Style style;
+  private final Map<Class<?>, String> simpleNames = new HashMap<Class<?>, String>();
+  private final int[] ipV6Groups = new int[8];
+  private StringBuilder buf = new StringBuilder(256);
+  private char[] chars = new char[256];
+  private boolean firstLayer;
+
+  /**
+   * @param style style
+   */
+  public PacketFormatter(Style style) {
+    if (style == null) {
+      throw new NullPointerException("style must not be null.");
+    }
+    this.style = style;
+  }
+
+  /**
+   * @return style
+   */
+  public Style getStyle() {
+    return style;
+  }
+
+  /**
+   * Writes a packet to an Appendable.
+   * A {@link Writer} is given the text in one call to {@link Writer#write(char[], int, int)}.
+   *
+   * @param packet packet
+   * @param out out
+   * @throws IOException if out throws it.
+   */
+  public void format(Packet packet, Appendable out) throws IOException {
+    if (packet == null || out == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" out: ").append(out);
+      throw new NullPointerException(sb.toString());
+    }
+
+    build(packet);
+    if (out instanceof Writer) {
+      int len = buf.length();
+      if (chars.length < len) {
+        chars = new char[Math.max(len, chars.length * 2)];
+      }
+      buf.getChars(0, len, chars, 0);
+      ((Writer) out).write(chars, 0, len);
+    }
+    else {
+      out.append(buf);
+    }
+  }
+
+  /**
+   * Writes a packet to a ByteBuffer encoding it in UTF-8.
+   *
+   * @param packet packet
+   * @param out out
+   * @throws BufferOverflowException if out doesn't have enough space for the packet.
+   *         In this case, the position of out is not changed.
+   */
+  public void format(Packet packet, ByteBuffer out) {
+    if (packet == null || out == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" out: ").append(out);
+      throw new NullPointerException(sb.toString());
+    }
+
+    build(packet);
+    int start = out.position();
+    try {
+      encode(out);
+    } catch (BufferOverflowException e) {
+      out.position(start);
+      throw e;
+    }
+  }
+
+  /**
+   * @param packet packet
+   * @return a String representation of the packet.
+   */
+  public String format(Packet packet) {
+    if (packet == null) {
+      throw new NullPointerException("packet must not be null.");
+    }
+
+    build(packet);
+    return buf.toString();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(40);
+    sb.append("PacketFormatter [style: ").append(style).append("]");
+    return sb.toString();
+  }
+
+  private void build(Packet packet) {
+    if (buf.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+      buf = new StringBuilder(256);
+    }
+    buf.setLength(0);
+
+    switch (style) {
+      case LINE:
+        line(packet);
+        break;
+      case TREE:
+        layers(packet);
+        break;
+      case JSON:
+        buf.append("{\"length\":").append(packet.length()).append(",\"layers\":[");
+        layers(packet);
+        buf.append("]}");
+        break;
+      default:
+        throw new AssertionError("Never get here.");
+    }
+  }
+
+  private void line(Packet packet) {
+    NamedNumber<?, ?> type = null;
+    for (Packet p = packet; p != null; p = p.getPayload()) {
+      if (p instanceof EthernetPacket) {
+        EthernetHeader h = ((EthernetPacket) p).getHeader();
+        appendMac(h.getSrcAddr());
+        buf.append(" > ");
+        appendMac(h.getDstAddr());
+        buf.append(", ethertype ").append(h.getType().name()).append(" (0x");
+        appendHex(h.getType().value() & 0xFFFF, 4);
+        buf.append("), length ").append(p.length()).append(": ");
+        type = h.getType();
+      }
+      else if (p instanceof Dot1qVlanTagPacket) {
+        Dot1qVlanTagHeader h = ((Dot1qVlanTagPacket) p).getHeader();
+        buf.append("vlan ").append(h.getVidAsInt())
+          .append(", p ").append(h.getPriority())
+          .append(", ethertype ").append(h.getType().name()).append(" (0x");
+        appendHex(h.getType().value() & 0xFFFF, 4);
+        buf.append("), ");
+        type = h.getType();
+      }
+      else if (p instanceof ArpPacket) {
+        ArpHeader h = ((ArpPacket) p).getHeader();
+        buf.append("ARP, ");
+        if (h.getOperation().equals(ArpOperation.REQUEST)) {
+          buf.append("Request who-has ");
+          appendIpV4(h.getDstProtocolAddrAsInt());
+          buf.append(" tell ");
+          appendIpV4(h.getSrcProtocolAddrAsInt());
+        }
+        else if (h.getOperation().equals(ArpOperation.REPLY)) {
+          buf.append("Reply ");
+          appendIpV4(h.getSrcProtocolAddrAsInt());
+          buf.append(" is-at ");
+          appendMac(h.getSrcHardwareAddr());
+        }
+        else {
+          buf.append(h.getOperation().name());
+        }
+        buf.append(", length ").append(p.length());
+        return;
+      }
+      else if (p instanceof IpV4Packet) {
+        IpV4Header h = ((IpV4Packet) p).getHeader();
+        buf.append("IP ");
+        appendIpV4(h.getSrcAddrAsInt());
+        appendPort(p.getPayload(), true);
+        buf.append(" > ");
+        appendIpV4(h.getDstAddrAsInt());
+        appendPort(p.getPayload(), false);
+        buf.append(": ");
+        type = h.getProtocol();
+      }
+      else if (p instanceof IpV6Packet) {
+        IpV6Header h = ((IpV6Packet) p).getHeader();
+        buf.append("IP6 ");
+        appendIpV6(h.getSrcAddrHigh(), h.getSrcAddrLow());
+        appendPort(p.getPayload(), true);
+        buf.append(" > ");
+        appendIpV6(h.getDstAddrHigh(), h.getDstAddrLow());
+        appendPort(p.getPayload(), false);
+        buf.append(": ");
+        type = h.getNextHeader();
+      }
+      else if (p instanceof TcpPacket) {
+        TcpHeader h = ((TcpPacket) p).getHeader();
+        buf.append("Flags [");
+        int len = buf.length();
+        if (h.getFin()) { buf.append('F'); }
+        if (h.getSyn()) { buf.append('S'); }
+        if (h.getRst()) { buf.append('R'); }
+        if (h.getPsh()) { buf.append('P'); }
+        if (h.getUrg()) { buf.append('U'); }
+        if (h.getAck()) { buf.append('.'); }
+        if (buf.length() == len) {
+          buf.append("none");
+        }
+        buf.append("], seq ").append(h.getSequenceNumberAsLong());
+        if (h.getAck()) {
+          buf.append(", ack ").append(h.getAcknowledgmentNumberAsLong());
+        }
+        buf.append(", win ").append(h.getWindowAsInt())
+          .append(", length ").append(payloadLength(p));
+        return;
+      }
+      else if (p instanceof UdpPacket) {
+        buf.append("UDP, length ").append(payloadLength(p));
+        return;
+      }
+      else if (p instanceof IcmpV4CommonPacket) {
+        IcmpV4CommonHeader h = ((IcmpV4CommonPacket) p).getHeader();
+        buf.append("ICMP ").append(h.getType().name())
+          .append(", length ").append(payloadLength(p));
+        return;
+      }
+      else if (p instanceof IcmpV6CommonPacket) {
+        IcmpV6CommonHeader h = ((IcmpV6CommonPacket) p).getHeader();
+        buf.append("ICMP6 ").append(h.getType().name())
+          .append(", length ").append(payloadLength(p));
+        return;
+      }
+      else {
+        // Names the layer by the type field of the last known layer, as tcpdump does.
+        buf.append(type != null ? type.name() : simpleName(p.getClass()))
+          .append(", length ").append(p.length());
+        return;
+      }
+    }
+  }
+
+  private void appendPort(Packet payload, boolean src) {
+    if (payload instanceof TcpPacket) {
+      TcpHeader h = ((TcpPacket) payload).getHeader();
+      buf.append('.').append(src ? h.getSrcPort().valueAsInt() : h.getDstPort().valueAsInt());
+    }
+    else if (payload instanceof UdpPacket) {
+      UdpHeader h = ((UdpPacket) payload).getHeader();
+      buf.append('.').append(src ? h.getSrcPort().valueAsInt() : h.getDstPort().valueAsInt());
+    }
+  }
+
+  private static int payloadLength(Packet packet) {
+    Packet payload = packet.getPayload();
+    return payload != null ? payload.length() : 0;
+  }
+
+  private void layers(Packet packet) {
+    firstLayer = true;
+    for (Packet p = packet; p != null; p = p.getPayload()) {
+      if (p instanceof EthernetPacket) {
+        EthernetHeader h = ((EthernetPacket) p).getHeader();
+        beginLayer("eth", "Ethernet Header", h.length());
+        macField("dst", "Destination address", h.getDstAddr());
+        macField("src", "Source address", h.getSrcAddr());
+        namedField("type", "Type", h.getType(), h.getType().value() & 0xFFFF, 4);
+      }
+      else if (p instanceof Dot1qVlanTagPacket) {
+        Dot1qVlanTagHeader h = ((Dot1qVlanTagPacket) p).getHeader();
+        beginLayer("vlan", "IEEE802.1Q Tag", h.length());
+        uintField("priority", "Priority", h.getPriority());
+        booleanField("cfi", "CFI", h.getCfi());
+        uintField("id", "VID", h.getVidAsInt());
+        namedField("type", "Type", h.getType(), h.getType().value() & 0xFFFF, 4);
+      }
+      else if (p instanceof ArpPacket) {
+        ArpHeader h = ((ArpPacket) p).getHeader();
+        beginLayer("arp", "ARP Header", h.length());
+        namedField(
+          "hwType", "Hardware type", h.getHardwareType(), h.getHardwareType().value() & 0xFFFF, 0
+        );
+        namedField(
+          "protoType", "Protocol type", h.getProtocolType(), h.getProtocolType().value() & 0xFFFF, 4
+        );
+        uintField("hwSize", "Hardware address length", h.getHardwareAddrLengthAsInt());
+        uintField("protoSize", "Protocol address length", h.getProtocolAddrLengthAsInt());
+        namedField("opcode", "Operation", h.getOperation(), h.getOperation().value() & 0xFFFF, 0);
+        macField("srcHw", "Source hardware address", h.getSrcHardwareAddr());
+        ipV4Field("srcProto", "Source protocol address", h.getSrcProtocolAddrAsInt());
+        macField("dstHw", "Destination hardware address", h.getDstHardwareAddr());
+        ipV4Field("dstProto", "Destination protocol address", h.getDstProtocolAddrAsInt());
+      }
+      else if (p instanceof IpV4Packet) {
+        IpV4Header h = ((IpV4Packet) p).getHeader();
+        beginLayer("ip", "IPv4 Header", h.length());
+        namedField("version", "Version", h.getVersion(), h.getVersion().value() & 0xFF, 0);
+        uintField("hdrLen", "IHL", h.getIhlAsInt());
+        hexField("tos", "TOS", h.getTos().value() & 0xFF, 2);
+        uintField("len", "Total length", h.getTotalLengthAsInt());
+        uintField("id", "Identification", h.getIdentificationAsInt());
+        booleanField("rb", "Reserved flag", h.getReservedFlag());
+        booleanField("df", "Don't fragment flag", h.getDontFragmentFlag());
+        booleanField("mf", "More fragment flag", h.getMoreFragmentFlag());
+        uintField("fragOffset", "Fragment offset", h.getFragmentOffset());
+        uintField("ttl", "TTL", h.getTtlAsInt());
+        namedField("proto", "Protocol", h.getProtocol(), h.getProtocol().value() & 0xFF, 0);
+        hexField("checksum", "Header checksum", h.getHeaderChecksum() & 0xFFFF, 4);
+        ipV4Field("src", "Source address", h.getSrcAddrAsInt());
+        ipV4Field("dst", "Destination address", h.getDstAddrAsInt());
+      }
+      else if (p instanceof IpV6Packet) {
+        IpV6Header h = ((IpV6Packet) p).getHeader();
+        beginLayer("ipv6", "IPv6 Header", h.length());
+        namedField("version", "Version", h.getVersion(), h.getVersion().value() & 0xFF, 0);
+        hexField("tclass", "Traffic Class", h.getTrafficClass().value() & 0xFF, 2);
+        hexField("flow", "Flow Label", h.getFlowLabel().value() & 0xFFFFF, 5);
+        uintField("plen", "Payload length", h.getPayloadLengthAsInt());
+        namedField("nxt", "Next Header", h.getNextHeader(), h.getNextHeader().value() & 0xFF, 0);
+        uintField("hlim", "Hop Limit", h.getHopLimitAsInt());
+        ipV6Field("src", "Source address", h.getSrcAddrHigh(), h.getSrcAddrLow());
+        ipV6Field("dst", "Destination address", h.getDstAddrHigh(), h.getDstAddrLow());
+      }
+      else if (p instanceof TcpPacket) {
+        TcpHeader h = ((TcpPacket) p).getHeader();
+        beginLayer("tcp", "TCP Header", h.length());
+        namedField("srcport", "Source port", h.getSrcPort(), h.getSrcPort().valueAsInt(), 0);
+        namedField("dstport", "Destination port", h.getDstPort(), h.getDstPort().valueAsInt(), 0);
+        uintField("seq", "Sequence Number", h.getSequenceNumberAsLong());
+        uintField("ack", "Acknowledgment Number", h.getAcknowledgmentNumberAsLong());
+        uintField("hdrLen", "Data Offset", h.getDataOffsetAsInt());
+        booleanField("urg", "URG", h.getUrg());
+        booleanField("ackFlag", "ACK", h.getAck());
+        booleanField("psh", "PSH", h.getPsh());
+        booleanField("rst", "RST", h.getRst());
+        booleanField("syn", "SYN", h.getSyn());
+        booleanField("fin", "FIN", h.getFin());
+        uintField("window", "Window", h.getWindowAsInt());
+        hexField("checksum", "Checksum", h.getChecksum() & 0xFFFF, 4);
+        uintField("urgentPointer", "Urgent Pointer", h.getUrgentPointerAsInt());
+      }
+      else if (p instanceof UdpPacket) {
+        UdpHeader h = ((UdpPacket) p).getHeader();
+        beginLayer("udp", "UDP Header", h.length());
+        namedField("srcport", "Source port", h.getSrcPort(), h.getSrcPort().valueAsInt(), 0);
+        namedField("dstport", "Destination port", h.getDstPort(), h.getDstPort().valueAsInt(), 0);
+        uintField("length", "Length", h.getLengthAsInt());
+        hexField("checksum", "Checksum", h.getChecksum() & 0xFFFF, 4);
+      }
+      else if (p instanceof IcmpV4CommonPacket) {
+        IcmpV4CommonHeader h = ((IcmpV4CommonPacket) p).getHeader();
+        beginLayer("icmp", "ICMPv4 Common Header", h.length());
+        namedField("type", "Type", h.getType(), h.getType().value() & 0xFF, 0);
+        namedField("code", "Code", h.getCode(), h.getCode().value() & 0xFF, 0);
+        hexField("checksum", "Checksum", h.getChecksum() & 0xFFFF, 4);
+      }
+      else if (p instanceof IcmpV6CommonPacket) {
+        IcmpV6CommonHeader h = ((IcmpV6CommonPacket) p).getHeader();
+        beginLayer("icmpv6", "ICMPv6 Common Header", h.length());
+        namedField("type", "Type", h.getType(), h.getType().value() & 0xFF, 0);
+        namedField("code", "Code", h.getCode(), h.getCode().value() & 0xFF, 0);
+        hexField("checksum", "Checksum", h.getChecksum() & 0xFFFF, 4);
+      }
+      else if (p.getHeader() != null) {
+        Header h = p.getHeader();
+        beginLayer(simpleName(p.getClass()), simpleName(h.getClass()), h.length());
+        dataField(ByteBuffer.wrap(h.getRawData()));
+      }
+      else if (p.getPayload() == null) {
+        ByteBuffer data = getRawDataBuffer(p);
+        beginLayer(simpleName(p.getClass()), simpleName(p.getClass()), data.remaining());
+        dataField(data);
+      }
+      else {
+        continue;
+      }
+      endLayer();
+    }
+  }
+
+  private static ByteBuffer getRawDataBuffer(Packet packet) {
+    if (packet instanceof UnknownPacket) {
+      return ((UnknownPacket) packet).getRawDataBuffer();
+    }
+    if (packet instanceof FragmentedPacket) {
+      return ((FragmentedPacket) packet).getRawDataBuffer();
+    }
+    if (packet instanceof IllegalPacket) {
+      return ((IllegalPacket) packet).getRawDataBuffer();
+    }
+    return ByteBuffer.wrap(packet.getRawData());
+  }
+
+  private String simpleName(Class<?> clazz) {
+    String name = simpleNames.get(clazz);
+    if (name == null) {
+      name = clazz.getSimpleName();
+      simpleNames.put(clazz, name);
+    }
+    return name;
+  }
+
+  private void beginLayer(String key, String title, int length) {
+    if (style == Style.JSON) {
+      if (!firstLayer) {
+        buf.append(',');
+      }
+      buf.append("{\"layer\":");
+      appendJsonString(key);
+      buf.append(",\"length\":").append(length);
+    }
+    else {
+      buf.append('[').append(title).append(" (").append(length).append(" bytes)]")
+        .append(LINE_SEPARATOR);
+    }
+    firstLayer = false;
+  }
+
+  private void endLayer() {
+    if (style == Style.JSON) {
+      buf.append('}');
+    }
+  }
+
+  private void beginField(String key, String label) {
+    if (style == Style.JSON) {
+      buf.append(",\"").append(key).append("\":");
+    }
+    else {
+      buf.append("  ").append(label).append(": ");
+    }
+  }
+
+  private void endField() {
+    if (style != Style.JSON) {
+      buf.append(LINE_SEPARATOR);
+    }
+  }
+
+  private void uintField(String key, String label, long value) {
+    beginField(key, label);
+    buf.append(value);
+    endField();
+  }
+
+  private void booleanField(String key, String label, boolean value) {
+    beginField(key, label);
+    buf.append(value);
+    endField();
+  }
+
+  private void hexField(String key, String label, long value, int digits) {
+    beginField(key, label);
+    if (style == Style.JSON) {
+      buf.append('"');
+    }
+    buf.append("0x");
+    appendHex(value, digits);
+    if (style == Style.JSON) {
+      buf.append('"');
+    }
+    endField();
+  }
+
+  /**
+   * Writes a value with its name. The value is written in decimal if digits is 0,
+   * or in hex with the digits otherwise.
+   */
+  private void namedField(
+    String key, String label, NamedNumber<?, ?> number, long value, int digits
+  ) {
+    if (style == Style.JSON) {
+      beginField(key, label);
+      buf.append(value);
+      buf.append(",\"").append(key).append("Name\":");
+      appendJsonString(number.name());
+    }
+    else {
+      beginField(key, label);
+      if (digits == 0) {
+        buf.append(value);
+      }
+      else {
+        buf.append("0x");
+        appendHex(value, digits);
+      }
+      buf.append(" (").append(number.name()).append(')');
+      endField();
+    }
+  }
+
+  private void macField(String key, String label, MacAddress addr) {
+    beginField(key, label);
+    if (style == Style.JSON) {
+      buf.append('"');
+      appendMac(addr);
+      buf.append('"');
+    }
+    else {
+      appendMac(addr);
+    }
+    endField();
+  }
+
+  private void ipV4Field(String key, String label, int addr) {
+    beginField(key, label);
+    if (style == Style.JSON) {
+      buf.append('"');
+      appendIpV4(addr);
+      buf.append('"');
+    }
+    else {
+      appendIpV4(addr);
+    }
+    endField();
+  }
+
+  private void ipV6Field(String key, String label, long high, long low) {
+    beginField(key, label);
+    if (style == Style.JSON) {
+      buf.append('"');
+      appendIpV6(high, low);
+      buf.append('"');
+    }
+    else {
+      appendIpV6(high, low);
+    }
+    endField();
+  }
+
+  private void dataField(ByteBuffer data) {
+    beginField("data", "Hex stream");
+    if (style == Style.JSON) {
+      buf.append('"');
+    }
+    int start = data.position();
+    int limit = data.limit();
+    for (int i = start; i < limit; i++) {
+      if (style != Style.JSON && i != start) {
+        buf.append(' ');
+      }
+      appendHex(data.get(i) & 0xFF, 2);
+    }
+    if (style == Style.JSON) {
+      buf.append('"');
+    }
+    endField();
+  }
+
+  private void appendHex(long value, int digits) {
+    for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+      buf.append(HEX_CHARS[(int) (value >>> shift) & 0xF]);
+    }
+  }
+
+  private void appendMac(MacAddress addr) {
+    byte[] octets = addr.getAddress();
+    for (int i = 0; i < octets.length; i++) {
+      if (i != 0) {
+        buf.append(':');
+      }
+      appendHex(octets[i] & 0xFF, 2);
+    }
+  }
+
+  private void appendIpV4(int addr) {
+    buf.append(addr >>> 24).append('.')
+      .append((addr >>> 16) & 0xFF).append('.')
+      .append((addr >>> 8) & 0xFF).append('.')
+      .append(addr & 0xFF);
+  }
+
+  /**
+   * Writes an IPv6 address in the form recommended by RFC 5952,
+   * i.e. with the longest run of two or more zero groups replaced by "::".
+   */
+  private void appendIpV6(long high, long low) {
+    int[] groups = ipV6Groups;
+    for (int i = 0; i < 4; i++) {
+      groups[i] = (int) (high >>> (48 - i * 16)) & 0xFFFF;
+      groups[i + 4] = (int) (low >>> (48 - i * 16)) & 0xFFFF;
+    }
+
+    int zerosStart = -1;
+    int zerosLen = 1;
+    for (int i = 0; i < groups.length;) {
+      if (groups[i] != 0) {
+        i++;
+        continue;
+      }
+      int j = i;
+      while (j < groups.length && groups[j] == 0) {
+        j++;
+      }
+      if (j - i > zerosLen) {
+        zerosStart = i;
+        zerosLen = j - i;
+      }
+      i = j;
+    }
+
+    for (int i = 0; i < groups.length; i++) {
+      if (i == zerosStart) {
+        buf.append("::");
+        i += zerosLen - 1;
+        continue;
+      }
+      if (i != 0 && i != zerosStart + zerosLen) {
+        buf.append(':');
+      }
+      int g = groups[i];
+      int digits = g > 0xFFF ? 4 : g > 0xFF ? 3 : g > 0xF ? 2 : 1;
+      appendHex(g, digits);
+    }
+  }
+
+  private void appendJsonString(CharSequence s) {
+    buf.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        buf.append('\\').append(c);
+      }
+      else if (c < 0x20 || c > 0x7E) {
+        buf.append("\\u");
+        appendHex(c, 4);
+      }
+      else {
+        buf.append(c);
+      }
+    }
+    buf.append('"');
+  }
+
+  private void encode(ByteBuffer out) {
+    int len = buf.length();
+    for (int i = 0; i < len; i++) {
+      char c = buf.charAt(i);
+      if (c < 0x80) {
+        out.put((byte) c);
+      }
+      else if (c < 0x800) {
+        out.put((byte) (0xC0 | (c >> 6)));
+        out.put((byte) (0x80 | (c & 0x3F)));
+      }
+      else if (
+           Character.isHighSurrogate(c)
+        && i + 1 < len
+        && Character.isLowSurrogate(buf.charAt(i + 1))
+      ) {
+        int cp = Character.toCodePoint(c, buf.charAt(++i));
+        out.put((byte) (0xF0 | (cp >> 18)));
+        out.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+        out.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+        out.put((byte) (0x80 | (cp & 0x3F)));
+      }
+      else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+        // An unpaired surrogate, which can't be encoded.
+        out.put((byte) '?');
+      }
+      else {
+        out.put((byte) (0xE0 | (c >> 12)));
+        out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        out.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  /**
+   * Output styles.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static enum Style {
+
+    /**
+     * A line like tcpdump -e writes, e.g.
+     * {@code 00:11:22:33:44:55 > 66:77:88:99:aa:bb, ethertype IPv4 (0x0800), length 54:
+     * IP 10.0.0.1.12345 > 10.0.0.2.80: Flags [S], seq 0, win 65535, length 0},
+     * without a line separator at the end.
+     */
+    LINE,
+
+    /**
+     * A header line per layer followed by a line per field,
+     * similar to {@link Packet#toString()}.
+     */
+    TREE,
+
+    /**
+     * A JSON object per packet, e.g.
+     * <code>{"length":54,"layers":[{"layer":"eth","length":14,"dst":"66:77:88:99:aa:bb",
+     * ...},...]}</code>, without a line separator at the end.
+     * Values of named fields such as {@code type} are accompanied by their names
+     * (e.g. {@code typeName}).
+     */
+    JSON
+
+  }
+
+}
@@ -0,0 +1,163 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * Reads records of a pcap savefile in pure Java, with random access to records by their
+ * file offsets, which the pcap native library doesn't provide.
+ * Savefiles with microsecond and nanosecond timestamps in either byte order are supported.
+ * pcapng files are not.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class PcapFileReader implements Closeable {
+
+  static final int GLOBAL_HEADER_LENGTH = 24;
+  static final int RECORD_HEADER_LENGTH = 16;
+
+  private static final int MAGIC_MICROS = 0xA1B2C3D4;
+  private static final int MAGIC_NANOS = 0xA1B23C4D;
+  private static final int MAX_RECORD_LENGTH = 256 * 1024 * 1024;
+
+  private final FileInputStream file;
+  private final FileChannel channel;
+  private final boolean swapped;
+  private final boolean nanos;
+  private final DataLinkType dlt;
+  private final byte[] header = new byte[RECORD_HEADER_LENGTH];
+  private DataInputStream in;
+  private long position;
+
+  private long timestamp;
+  private int originalLength;
+  private byte[] data;
+
+  PcapFileReader(File pcap) throws IOException {
+    this.file = new FileInputStream(pcap);
+    this.channel = file.getChannel();
+    try {
+      this.in = new DataInputStream(new BufferedInputStream(file, 64 * 1024));
+      byte[] global = new byte[GLOBAL_HEADER_LENGTH];
+      in.readFully(global);
+      int magic = ByteArrays.getInt(global, 0);
+      if (magic == MAGIC_MICROS || magic == MAGIC_NANOS) {
+        swapped = false;
+      }
+      else if (
+           Integer.reverseBytes(magic) == MAGIC_MICROS
+        || Integer.reverseBytes(magic) == MAGIC_NANOS
+      ) {
+        swapped = true;
+        magic = Integer.reverseBytes(magic);
+      }
+      else {
+        throw new IOException("Not a pcap savefile: " + pcap);
+      }
+      this.nanos = magic == MAGIC_NANOS;
+      this.dlt = DataLinkType.getInstance(getInt(global, 20) & 0x0FFFFFFF);
+      this.position = GLOBAL_HEADER_LENGTH;
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    } catch (RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  DataLinkType getDlt() {
+    return dlt;
+  }
+
+  /**
+   * @return the file offset of the next record.
+   */
+  long position() {
+    return position;
+  }
+
+  void seek(long offset) throws IOException {
+    if (offset == position) {
+      return;
+    }
+    channel.position(offset);
+    in = new DataInputStream(new BufferedInputStream(file, 64 * 1024));
+    position = offset;
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return false if the end of the file has been reached; true otherwise.
+   * @throws IOException if an I/O error occurs or the record is malformed.
+   */
+  boolean next() throws IOException {
+    int n = 0;
+    while (n < header.length) {
+      int count = in.read(header, n, header.length - n);
+      if (count < 0) {
+        if (n == 0) {
+          return false;
+        }
+        throw new EOFException("Truncated record header at " + position);
+      }
+      n += count;
+    }
+
+    long seconds = getInt(header, 0) & 0xFFFFFFFFL;
+    long fraction = getInt(header, 4) & 0xFFFFFFFFL;
+    int capturedLength = getInt(header, 8);
+    originalLength = getInt(header, 12);
+    if (capturedLength < 0 || capturedLength > MAX_RECORD_LENGTH) {
+      throw new IOException("Illegal captured length " + capturedLength + " at " + position);
+    }
+    timestamp = seconds * 1000000000L + (nanos ? fraction : fraction * 1000L);
+
+    data = new byte[capturedLength];
+    in.readFully(data);
+    position += RECORD_HEADER_LENGTH + capturedLength;
+    return true;
+  }
+
+  /**
+   * @return the timestamp of the current record in nanoseconds since the epoch.
+   */
+  long getTimestamp() {
+    return timestamp;
+  }
+
+  int getOriginalLength() {
+    return originalLength;
+  }
+
+  byte[] getData() {
+    return data;
+  }
+
+  private int getInt(byte[] array, int offset) {
+    int value = ByteArrays.getInt(array, offset);
+    return swapped ? Integer.reverseBytes(value) : value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+}
@@ -0,0 +1,812 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import static org.pcap4j.util.ByteArrays.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.PacketCodec.Record;
+
+/**
+ * An index of a pcap savefile for fast retrieval of the packets of given hosts, ports,
+ * endpoints, or flows in a given time range, without rescanning the whole file.
+ * <p>
+ * The records of a savefile are indexed in blocks of consecutive records.
+ * For each block, the index keeps the file offset of its first record, the number of its
+ * records, the range of their timestamps, and a Bloom filter of the IP addresses, ports,
+ * endpoints (pairs of an address and a port), and flows (5-tuples in either direction)
+ * of their IP packets. A {@link Query} seeks directly to the blocks which may contain
+ * matching packets and checks the records in them one by one, so it returns exactly the
+ * matching packets.
+ * </p>
+ * <p>
+ * An index is built after the fact by {@link #build(File)}, or while a savefile is being
+ * written by feeding an {@link Indexer} with each packet and its file offset, e.g.
+ * {@link org.pcap4j.core.PcapDumper#ftell() PcapDumper.ftell()} before
+ * {@link org.pcap4j.core.PcapDumper#dumpRaw(byte[], Timestamp) dumpRaw()}.
+ * Indexes are saved by {@link #write(File)} and loaded by {@link #read(File)}.
+ * Packets of {@link DataLinkType#EN10MB}, {@link DataLinkType#LINUX_SLL}, and
+ * {@link DataLinkType#RAW} are indexed by their {@link FlowKey}s, which are the same as the flow
+ * keys of {@link FlowTable}; others only by their timestamps.
+ * </p>
+ * <p>
+ * Each packet adds up to 7 keys to the Bloom filter of its block: 2 hosts, 2 ports,
+ * 2 endpoints, and a flow. The default size of the filters, {@link #bloomBitsFor(int)},
+ * gives 10 bits to each of those keys. With 4 hash functions per key, a block whose keys
+ * are all distinct then matches a query for a key it doesn't contain with a probability of
+ * about 1.2%. Keys repeat in real traffic, so the probability is usually lower.
+ * A smaller filter saves memory but prunes fewer blocks.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PcapIndex {
+
+  /**
+   * "P4JI"
+   */
+  private static final int FILE_MAGIC = 0x50344A49;
+  private static final int FILE_VERSION = 1;
+  private static final int BLOOM_HASHES = 4;
+  private static final int KEYS_PER_PACKET = 7;
+  private static final int BLOOM_BITS_PER_KEY = 10;
+
+  private static final long HOST = 1;
+  private static final long PORT = 2;
+  private static final long ENDPOINT = 3;
+  private static final long FLOW = 4;
+
+  private final DataLinkType dlt;
+  private final int bloomBits;
+  private final List<Block> blocks;
+
+  private PcapIndex(DataLinkType dlt, int bloomBits, List<Block> blocks) {
+    this.dlt = dlt;
+    this.bloomBits = bloomBits;
+    this.blocks = Collections.unmodifiableList(blocks);
+  }
+
+  /**
+   * Indexes a savefile in blocks of 1024 records with Bloom filters of
+   * {@link #bloomBitsFor(int) bloomBitsFor(1024)} bits.
+   *
+   * @param pcap a pcap savefile.
+   * @return a new PcapIndex object.
+   * @throws IOException if an I/O error occurs or the file is not a pcap savefile.
+   */
+  public static PcapIndex build(File pcap) throws IOException {
+    return build(pcap, Indexer.DEFAULT_PACKETS_PER_BLOCK, Indexer.DEFAULT_BLOOM_BITS);
+  }
+
+  /**
+   * Returns the size of Bloom filters which gives 10 bits to each key a block may have.
+   *
+   * @param packetsPerBlock the number of records in a block.
+   * @return the size of the Bloom filter of a block in bits. A multiple of 64.
+   * @throws IllegalArgumentException if packetsPerBlock is not positive or too large.
+   */
+  public static int bloomBitsFor(int packetsPerBlock) {
+    long bits = (long) packetsPerBlock * KEYS_PER_PACKET * BLOOM_BITS_PER_KEY;
+    bits = (bits + 63) & ~63L;
+    if (packetsPerBlock < 1 || bits > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("packetsPerBlock: " + packetsPerBlock);
+    }
+    return (int) bits;
+  }
+
+  /**
+   * @param pcap a pcap savefile.
+   * @param packetsPerBlock the number of records in a block.
+   * @param bloomBits the size of the Bloom filter of a block in bits. A multiple of 64.
+   *                  {@link #bloomBitsFor(int)} gives the recommended size.
+   * @return a new PcapIndex object.
+   * @throws IOException if an I/O error occurs or the file is not a pcap savefile.
+   */
+  public static PcapIndex build(File pcap, int packetsPerBlock, int bloomBits) throws IOException {
+    if (pcap == null) {
+      throw new NullPointerException("pcap must not be null.");
+    }
+
+    PcapFileReader reader = new PcapFileReader(pcap);
+    try {
+      Indexer indexer = new Indexer(reader.getDlt(), packetsPerBlock, bloomBits);
+      while (true) {
+        long offset = reader.position();
+        if (!reader.next()) {
+          break;
+        }
+        indexer.add(offset, reader.getData(), reader.getTimestamp());
+      }
+      return indexer.finish();
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * @param file a file written by {@link #write(File)}.
+   * @return a new PcapIndex object.
+   * @throws IOException if an I/O error occurs or the file is not an index.
+   */
+  public static PcapIndex read(File file) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("file must not be null.");
+    }
+
+    DataInputStream in
+      = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+        throw new IOException("Not a pcap index: " + file);
+      }
+      DataLinkType dlt = DataLinkType.getInstance(in.readInt());
+      int bloomBits = in.readInt();
+      int blockCount = in.readInt();
+      if (bloomBits <= 0 || bloomBits % 64 != 0 || blockCount < 0) {
+        throw new IOException("Corrupt pcap index: " + file);
+      }
+      List<Block> blocks = new ArrayList<Block>(Math.min(blockCount, 1 << 16));
+      for (int i = 0; i < blockCount; i++) {
+        long offset = in.readLong();
+        int packetCount = in.readInt();
+        long minTimestamp = in.readLong();
+        long maxTimestamp = in.readLong();
+        long[] bloom = new long[bloomBits / 64];
+        for (int j = 0; j < bloom.length; j++) {
+          bloom[j] = in.readLong();
+        }
+        blocks.add(new Block(offset, packetCount, minTimestamp, maxTimestamp, bloom));
+      }
+      return new PcapIndex(dlt, bloomBits, blocks);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @param file the file to save this index to.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void write(File file) throws IOException {
+    if (file == null) {
+      throw new NullPointerException("file must not be null.");
+    }
+
+    DataOutputStream out
+      = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeInt(FILE_MAGIC);
+      out.writeInt(FILE_VERSION);
+      out.writeInt(dlt.value());
+      out.writeInt(bloomBits);
+      out.writeInt(blocks.size());
+      for (Block block: blocks) {
+        out.writeLong(block.offset);
+        out.writeInt(block.packetCount);
+        out.writeLong(block.minTimestamp);
+        out.writeLong(block.maxTimestamp);
+        for (long bits: block.bloom) {
+          out.writeLong(bits);
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * @return the data link type of the indexed savefile.
+   */
+  public DataLinkType getDlt() {
+    return dlt;
+  }
+
+  /**
+   * @return the blocks of the indexed savefile in file order.
+   */
+  public List<Block> getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * @param query query
+   * @return the blocks which may contain packets matching the query.
+   */
+  public List<Block> findBlocks(Query query) {
+    if (query == null) {
+      throw new NullPointerException("query must not be null.");
+    }
+
+    List<Block> candidates = new ArrayList<Block>();
+    for (Block block: blocks) {
+      if (query.mayMatch(block)) {
+        candidates.add(block);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * @param pcap the indexed savefile.
+   * @param query query
+   * @return the records of the packets matching the query in file order.
+   * @throws IOException if an I/O error occurs.
+   */
+  public List<Record> search(File pcap, Query query) throws IOException {
+    final List<Record> records = new ArrayList<Record>();
+    search(
+      pcap,
+      query,
+      new RecordListener() {
+        @Override
+        public void gotRecord(Record record) {
+          records.add(record);
+        }
+      }
+    );
+    return records;
+  }
+
+  /**
+   * Reads the blocks which may contain packets matching the query and
+   * passes the records of the matching packets to the listener in file order.
+   *
+   * @param pcap the indexed savefile.
+   * @param query query
+   * @param listener listener
+   * @return the number of the matching packets.
+   * @throws IOException if an I/O error occurs.
+   */
+  public long search(File pcap, Query query, RecordListener listener) throws IOException {
+    if (pcap == null || query == null || listener == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("pcap: ").append(pcap)
+        .append(" query: ").append(query)
+        .append(" listener: ").append(listener);
+      throw new NullPointerException(sb.toString());
+    }
+
+    long count = 0;
+    FlowKey key = new FlowKey();
+    PcapFileReader reader = new PcapFileReader(pcap);
+    try {
+      for (Block block: findBlocks(query)) {
+        reader.seek(block.offset);
+        for (int i = 0; i < block.packetCount; i++) {
+          if (!reader.next()) {
+            throw new IOException("The savefile is shorter than its index: " + pcap);
+          }
+          long timestamp = reader.getTimestamp();
+          if (timestamp < query.from || timestamp > query.to) {
+            continue;
+          }
+          if (query.hasKeys()) {
+            byte[] data = reader.getData();
+            if (!key.parseFrame(data, 0, data.length, dlt)) {
+              continue;
+            }
+            key.canonicalize();
+            if (!query.matches(key)) {
+              continue;
+            }
+          }
+          listener.gotRecord(
+            new Record(
+              dlt, EpochNanos.toTimestamp(timestamp), reader.getOriginalLength(), reader.getData()
+            )
+          );
+          count++;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return count;
+  }
+
+  private static long hash(long type, long a, long b, long c) {
+    long h = type;
+    h = h * 0x9E3779B97F4A7C15L + a;
+    h = h * 0x9E3779B97F4A7C15L + b;
+    h = h * 0x9E3779B97F4A7C15L + c;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long hostHash(int version, long hi, long lo) {
+    return hash(HOST, version, hi, lo);
+  }
+
+  private static long portHash(int port) {
+    return hash(PORT, port, 0, 0);
+  }
+
+  private static long endpointHash(int version, long hi, long lo, int port) {
+    return hash(ENDPOINT, ((long) version << 32) | port, hi, lo);
+  }
+
+  private static long flowHash(FlowKey key) {
+    long h = hash(FLOW, key.srcHi, key.srcLo, key.dstHi);
+    return hash(h, key.dstLo, key.meta(), 0);
+  }
+
+  private static void addToBloom(long[] bloom, FlowKey key) {
+    addToBloom(bloom, hostHash(key.version, key.srcHi, key.srcLo));
+    addToBloom(bloom, hostHash(key.version, key.dstHi, key.dstLo));
+    addToBloom(bloom, portHash(key.srcPort));
+    addToBloom(bloom, portHash(key.dstPort));
+    addToBloom(bloom, endpointHash(key.version, key.srcHi, key.srcLo, key.srcPort));
+    addToBloom(bloom, endpointHash(key.version, key.dstHi, key.dstLo, key.dstPort));
+    addToBloom(bloom, flowHash(key));
+  }
+
+  private static void addToBloom(long[] bloom, long hash) {
+    int bits = bloom.length * 64;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+      bloom[index >>> 6] |= 1L << index;
+    }
+  }
+
+  private static boolean bloomContains(long[] bloom, long hash) {
+    int bits = bloom.length * 64;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bits;
+      if ((bloom[index >>> 6] & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long[] toKey(InetAddress address) {
+    byte[] bytes = address.getAddress();
+    if (address instanceof Inet4Address) {
+      return new long[] {4, 0, getInt(bytes, 0) & 0xFFFFFFFFL};
+    }
+    return new long[] {6, getLong(bytes, 0), getLong(bytes, 8)};
+  }
+
+  /**
+   * A block of consecutive records of an indexed savefile.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Block {
+
+    private final long offset;
+    private final int packetCount;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final long[] bloom;
+
+    private Block(
+      long offset, int packetCount, long minTimestamp, long maxTimestamp, long[] bloom
+    ) {
+      this.offset = offset;
+      this.packetCount = packetCount;
+      this.minTimestamp = minTimestamp;
+      this.maxTimestamp = maxTimestamp;
+      this.bloom = bloom;
+    }
+
+    /**
+     * @return the file offset of the first record of this block.
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /**
+     * @return the number of records in this block.
+     */
+    public int getPacketCount() {
+      return packetCount;
+    }
+
+    /**
+     * @return the earliest timestamp of the records in this block.
+     */
+    public Timestamp getMinTimestamp() {
+      return EpochNanos.toTimestamp(minTimestamp);
+    }
+
+    /**
+     * @return the latest timestamp of the records in this block.
+     */
+    public Timestamp getMaxTimestamp() {
+      return EpochNanos.toTimestamp(maxTimestamp);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder(100);
+      sb.append("[offset: ").append(offset)
+        .append(", packetCount: ").append(packetCount)
+        .append(", minTimestamp: ").append(getMinTimestamp())
+        .append(", maxTimestamp: ").append(getMaxTimestamp())
+        .append("]");
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * Builds a {@link PcapIndex} from the records of a savefile given in file order.
+   * This class is not thread-safe.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Indexer {
+
+    private static final int DEFAULT_PACKETS_PER_BLOCK = 1024;
+    private static final int DEFAULT_BLOOM_BITS = bloomBitsFor(DEFAULT_PACKETS_PER_BLOCK);
+
+    private final DataLinkType dlt;
+    private final int packetsPerBlock;
+    private final int bloomBits;
+    private final List<Block> blocks = new ArrayList<Block>();
+    private final FlowKey key = new FlowKey();
+    private long[] bloom;
+    private long blockOffset;
+    private int packetCount = 0;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long lastOffset = -1;
+
+    /**
+     * Indexes records in blocks of 1024 records with Bloom filters of
+     * {@link PcapIndex#bloomBitsFor(int) bloomBitsFor(1024)} bits.
+     *
+     * @param dlt the data link type of the savefile.
+     */
+    public Indexer(DataLinkType dlt) {
+      this(dlt, DEFAULT_PACKETS_PER_BLOCK, DEFAULT_BLOOM_BITS);
+    }
+
+    /**
+     * @param dlt the data link type of the savefile.
+     * @param packetsPerBlock the number of records in a block.
+     * @param bloomBits the size of the Bloom filter of a block in bits. A multiple of 64.
+     *                  {@link PcapIndex#bloomBitsFor(int)} gives the recommended size.
+     */
+    public Indexer(DataLinkType dlt, int packetsPerBlock, int bloomBits) {
+      if (dlt == null) {
+        throw new NullPointerException("dlt must not be null.");
+      }
+      if (packetsPerBlock < 1 || bloomBits < 64 || bloomBits % 64 != 0) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("packetsPerBlock: ").append(packetsPerBlock)
+          .append(" bloomBits: ").append(bloomBits);
+        throw new IllegalArgumentException(sb.toString());
+      }
+      this.dlt = dlt;
+      this.packetsPerBlock = packetsPerBlock;
+      this.bloomBits = bloomBits;
+    }
+
+    /**
+     * @param offset the file offset of the record of the packet.
+     * @param packet the captured packet.
+     * @param timestamp the timestamp of the packet.
+     */
+    public void add(long offset, byte[] packet, Timestamp timestamp) {
+      if (packet == null || timestamp == null) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("packet: ").append(packet)
+          .append(" timestamp: ").append(timestamp);
+        throw new NullPointerException(sb.toString());
+      }
+      add(offset, packet, EpochNanos.fromTimestamp(timestamp));
+    }
+
+    private void add(long offset, byte[] packet, long timestamp) {
+      if (offset <= lastOffset) {
+        throw new IllegalArgumentException(
+                "Records must be added in file order. offset: " + offset
+              );
+      }
+      lastOffset = offset;
+
+      if (packetCount == 0) {
+        bloom = new long[bloomBits / 64];
+        blockOffset = offset;
+        minTimestamp = timestamp;
+        maxTimestamp = timestamp;
+      }
+      else {
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+      }
+      if (key.parseFrame(packet, 0, packet.length, dlt)) {
+        key.canonicalize();
+        addToBloom(bloom, key);
+      }
+      packetCount++;
+      if (packetCount == packetsPerBlock) {
+        closeBlock();
+      }
+    }
+
+    private void closeBlock() {
+      if (packetCount != 0) {
+        blocks.add(new Block(blockOffset, packetCount, minTimestamp, maxTimestamp, bloom));
+        packetCount = 0;
+        bloom = null;
+      }
+    }
+
+    /**
+     * @return a new PcapIndex object of the records added so far.
+     *         More records can be added to build a larger index later.
+     */
+    public PcapIndex finish() {
+      List<Block> all = new ArrayList<Block>(blocks);
+      if (packetCount != 0) {
+        all.add(new Block(blockOffset, packetCount, minTimestamp, maxTimestamp, bloom.clone()));
+      }
+      return new PcapIndex(dlt, bloomBits, all);
+    }
+
+  }
+
+  /**
+   * Conditions which packets must all meet to be retrieved.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Query {
+
+    private final long from;
+    private final long to;
+    private final List<long[]> hosts;
+    private final List<Integer> ports;
+    private final List<long[]> endpoints;
+    private final FlowKey flow;
+
+    private Query(Builder builder) {
+      this.from = builder.from;
+      this.to = builder.to;
+      this.hosts = new ArrayList<long[]>(builder.hosts);
+      this.ports = new ArrayList<Integer>(builder.ports);
+      this.endpoints = new ArrayList<long[]>(builder.endpoints);
+      this.flow = builder.flow;
+    }
+
+    private boolean hasKeys() {
+      return !hosts.isEmpty() || !ports.isEmpty() || !endpoints.isEmpty() || flow != null;
+    }
+
+    private boolean mayMatch(Block block) {
+      if (block.maxTimestamp < from || block.minTimestamp > to) {
+        return false;
+      }
+      for (long[] host: hosts) {
+        if (!bloomContains(block.bloom, hostHash((int) host[0], host[1], host[2]))) {
+          return false;
+        }
+      }
+      for (int port: ports) {
+        if (!bloomContains(block.bloom, portHash(port))) {
+          return false;
+        }
+      }
+      for (long[] ep: endpoints) {
+        if (!bloomContains(block.bloom, endpointHash((int) ep[0], ep[1], ep[2], (int) ep[3]))) {
+          return false;
+        }
+      }
+      if (flow != null && !bloomContains(block.bloom, flowHash(flow))) {
+        return false;
+      }
+      return true;
+    }
+
+    private boolean matches(FlowKey key) {
+      for (long[] host: hosts) {
+        if (
+             key.version != host[0]
+          || !(
+                  (key.srcHi == host[1] && key.srcLo == host[2])
+               || (key.dstHi == host[1] && key.dstLo == host[2])
+             )
+        ) {
+          return false;
+        }
+      }
+      for (int port: ports) {
+        if (key.srcPort != port && key.dstPort != port) {
+          return false;
+        }
+      }
+      for (long[] ep: endpoints) {
+        if (
+             key.version != ep[0]
+          || !(
+                  (key.srcHi == ep[1] && key.srcLo == ep[2] && key.srcPort == ep[3])
+               || (key.dstHi == ep[1] && key.dstLo == ep[2] && key.dstPort == ep[3])
+             )
+        ) {
+          return false;
+        }
+      }
+      if (flow != null) {
+        if (
+             key.version != flow.version
+          || key.protocol != flow.protocol
+          || key.srcHi != flow.srcHi
+          || key.srcLo != flow.srcLo
+          || key.srcPort != flow.srcPort
+          || key.dstHi != flow.dstHi
+          || key.dstLo != flow.dstLo
+          || key.dstPort != flow.dstPort
+        ) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @author Kaito Yamada
+     * @since pcap4j 1.7.3
+     */
+    public static final class Builder {
+
+      private long from = Long.MIN_VALUE;
+      private long to = Long.MAX_VALUE;
+      private final List<long[]> hosts = new ArrayList<long[]>();
+      private final List<Integer> ports = new ArrayList<Integer>();
+      private final List<long[]> endpoints = new ArrayList<long[]>();
+      private FlowKey flow = null;
+
+      /**
+       *
+       */
+      public Builder() {}
+
+      /**
+       * @param from the earliest timestamp, inclusive. null for no limit.
+       * @param to the latest timestamp, inclusive. null for no limit.
+       * @return this Builder object for method chaining.
+       */
+      public Builder between(Timestamp from, Timestamp to) {
+        this.from = from != null ? EpochNanos.fromTimestamp(from) : Long.MIN_VALUE;
+        this.to = to != null ? EpochNanos.fromTimestamp(to) : Long.MAX_VALUE;
+        return this;
+      }
+
+      /**
+       * @param address the source or destination address of packets.
+       * @return this Builder object for method chaining.
+       */
+      public Builder host(InetAddress address) {
+        if (address == null) {
+          throw new NullPointerException("address must not be null.");
+        }
+        hosts.add(toKey(address));
+        return this;
+      }
+
+      /**
+       * @param port the source or destination TCP, UDP, or SCTP port of packets.
+       * @return this Builder object for method chaining.
+       */
+      public Builder port(int port) {
+        ports.add(port & 0xFFFF);
+        return this;
+      }
+
+      /**
+       * @param address address
+       * @param port port
+       * @return this Builder object for method chaining.
+       *         Packets from or to the port of the address match.
+       */
+      public Builder endpoint(InetAddress address, int port) {
+        if (address == null) {
+          throw new NullPointerException("address must not be null.");
+        }
+        long[] key = toKey(address);
+        endpoints.add(new long[] {key[0], key[1], key[2], port & 0xFFFF});
+        return this;
+      }
+
+      /**
+       * Packets of the flow in either direction match.
+       * For ICMP and ICMPv6, port1 is 0 and port2 is (type * 256 + code) of the packets from
+       * address1 to address2.
+       *
+       * @param protocol the IP protocol number. e.g. 6 for TCP.
+       * @param address1 address1
+       * @param port1 port1
+       * @param address2 address2
+       * @param port2 port2
+       * @return this Builder object for method chaining.
+       */
+      public Builder flow(
+        int protocol, InetAddress address1, int port1, InetAddress address2, int port2
+      ) {
+        if (address1 == null || address2 == null) {
+          StringBuilder sb = new StringBuilder();
+          sb.append("address1: ").append(address1)
+            .append(" address2: ").append(address2);
+          throw new NullPointerException(sb.toString());
+        }
+        long[] key1 = toKey(address1);
+        long[] key2 = toKey(address2);
+        if (key1[0] != key2[0]) {
+          throw new IllegalArgumentException("The addresses must be of the same IP version.");
+        }
+        FlowKey key = new FlowKey();
+        key.version = (int) key1[0];
+        key.protocol = protocol & 0xFF;
+        key.srcHi = key1[1];
+        key.srcLo = key1[2];
+        key.srcPort = port1 & 0xFFFF;
+        key.dstHi = key2[1];
+        key.dstLo = key2[2];
+        key.dstPort = port2 & 0xFFFF;
+        key.canonicalize();
+        this.flow = key;
+        return this;
+      }
+
+      /**
+       * @return a new Query object.
+       */
+      public Query build() {
+        return new Query(this);
+      }
+
+    }
+
+  }
+
+  /**
+   * Receives records retrieved by {@link PcapIndex#search(File, Query, RecordListener)}.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public interface RecordListener {
+
+    /**
+     * @param record record
+     */
+    public void gotRecord(Record record);
+
+  }
+
+}
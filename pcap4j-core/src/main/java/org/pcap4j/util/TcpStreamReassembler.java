@@ -0,0 +1,691 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.util;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.pcap4j.packet.FragmentedPacket;
+import org.pcap4j.packet.IllegalPacket;
+import org.pcap4j.packet.IpPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.TcpPacket.TcpHeader;
+import org.pcap4j.packet.UnknownPacket;
+
+/**
+ * A TCP stream reassembler.
+ * This class tracks TCP connections keyed by their 4-tuple, puts their segments in order,
+ * removes retransmitted and overlapping data, and passes each direction's contiguous data to
+ * a {@link StreamListener} created by a {@link StreamListenerFactory} for the direction.
+ * <p>
+ * Data which arrives in order is passed to the listener straight from the segment
+ * without being buffered. If the payload of the segment is an {@link UnknownPacket},
+ * a {@link FragmentedPacket}, or an {@link IllegalPacket}, it is read through its
+ * getRawDataBuffer(), so that the data isn't copied at all.
+ * Only out-of-order segments are copied and buffered, and the buffering is
+ * bounded per stream ({@link Builder#maxBufferedBytesPerStream(int)}) and in total
+ * ({@link Builder#maxBufferedBytes(long)}). When a stream's buffer is full, the reassembler
+ * gives up waiting for the missing data, reports the hole by
+ * {@link StreamListener#gotGap(int)}, and goes on.
+ * When the total is exceeded or there are too many connections, the least recently used
+ * connections are evicted. Connections which haven't seen a segment for the idle timeout
+ * are closed.
+ * Time is measured by the timestamps of the given packets, not by the wall clock.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class TcpStreamReassembler {
+
+  private static final long EXPIRATION_CHECK_INTERVAL_MILLIS = 1000L;
+  private static final long MAX_SEQUENCE_DISTANCE = 1L << 30;
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+  private final StreamListenerFactory listenerFactory;
+  private final int maxConnections;
+  private final int maxBufferedBytesPerStream;
+  private final long maxBufferedBytes;
+  private final long idleTimeoutMillis;
+  private final boolean midstreamPickup;
+
+  private final LinkedHashMap<ConnectionKey, Connection> connections
+    = new LinkedHashMap<ConnectionKey, Connection>(16, 0.75f, true);
+  private long bufferedBytes = 0;
+  private long lastExpirationCheck = Long.MIN_VALUE;
+
+  private TcpStreamReassembler(Builder builder) {
+    if (builder == null || builder.listenerFactory == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("builder: ").append(builder)
+        .append(" builder.listenerFactory: ")
+        .append(builder != null ? builder.listenerFactory : null);
+      throw new NullPointerException(sb.toString());
+    }
+    if (
+         builder.maxConnections <= 0
+      || builder.maxBufferedBytesPerStream <= 0
+      || builder.maxBufferedBytes <= 0
+      || builder.idleTimeoutMillis <= 0
+    ) {
+      StringBuilder sb = new StringBuilder(150);
+      sb.append("builder.maxConnections: ").append(builder.maxConnections)
+        .append(" builder.maxBufferedBytesPerStream: ")
+        .append(builder.maxBufferedBytesPerStream)
+        .append(" builder.maxBufferedBytes: ").append(builder.maxBufferedBytes)
+        .append(" builder.idleTimeoutMillis: ").append(builder.idleTimeoutMillis);
+      throw new IllegalArgumentException(sb.toString());
+    }
+
+    this.listenerFactory = builder.listenerFactory;
+    this.maxConnections = builder.maxConnections;
+    this.maxBufferedBytesPerStream = builder.maxBufferedBytesPerStream;
+    this.maxBufferedBytes = builder.maxBufferedBytes;
+    this.idleTimeoutMillis = builder.idleTimeoutMillis;
+    this.midstreamPickup = builder.midstreamPickup;
+  }
+
+  /**
+   * Feeds a packet to this reassembler.
+   * Packets which don't contain both an IP packet and a TCP packet are ignored.
+   *
+   * @param packet packet
+   * @param timestamp the time the packet was captured at.
+   * @return true if the packet was processed as a TCP segment; false if it was ignored.
+   */
+  public boolean addPacket(Packet packet, Timestamp timestamp) {
+    if (packet == null || timestamp == null) {
+      StringBuilder sb = new StringBuilder();
+      sb.append("packet: ").append(packet)
+        .append(" timestamp: ").append(timestamp);
+      throw new NullPointerException(sb.toString());
+    }
+
+    IpPacket ip = packet.get(IpPacket.class);
+    if (ip == null) {
+      return false;
+    }
+    TcpPacket tcp = ip.get(TcpPacket.class);
+    if (tcp == null) {
+      return false;
+    }
+
+    TcpHeader th = tcp.getHeader();
+    Packet payload = tcp.getPayload();
+    addSegment(
+      ip.getHeader().getSrcAddr(), th.getSrcPort().valueAsInt(),
+      ip.getHeader().getDstAddr(), th.getDstPort().valueAsInt(),
+      th.getSequenceNumber(), th.getSyn(), th.getAck(), th.getFin(), th.getRst(),
+      payload != null ? getRawDataBuffer(payload) : EMPTY,
+      timestamp.getTime()
+    );
+    return true;
+  }
+
+  private static ByteBuffer getRawDataBuffer(Packet packet) {
+    if (packet instanceof UnknownPacket) {
+      return ((UnknownPacket) packet).getRawDataBuffer();
+    }
+    if (packet instanceof FragmentedPacket) {
+      return ((FragmentedPacket) packet).getRawDataBuffer();
+    }
+    if (packet instanceof IllegalPacket) {
+      return ((IllegalPacket) packet).getRawDataBuffer();
+    }
+    return ByteBuffer.wrap(packet.getRawData()).asReadOnlyBuffer();
+  }
+
+  private void addSegment(
+    InetAddress srcAddr, int srcPort, InetAddress dstAddr, int dstPort,
+    int seq, boolean syn, boolean ack, boolean fin, boolean rst,
+    ByteBuffer data, long now
+  ) {
+    if (lastExpirationCheck == Long.MIN_VALUE) {
+      // The first packet. Subtracting MIN_VALUE from now would overflow.
+      lastExpirationCheck = now;
+    }
+    else if (now - lastExpirationCheck >= EXPIRATION_CHECK_INTERVAL_MILLIS) {
+      expire(now);
+    }
+
+    ConnectionKey key = new ConnectionKey(srcAddr, srcPort, dstAddr, dstPort);
+    Connection conn = connections.get(key);
+    if (conn == null) {
+      if (rst) {
+        return;
+      }
+      if (connections.size() >= maxConnections) {
+        evictEldest(CloseReason.EVICTED);
+      }
+      // A SYN/ACK comes from the server.
+      boolean fromServer = syn && ack;
+      conn = fromServer ? new Connection(key, dstAddr, dstPort, srcAddr, srcPort)
+                        : new Connection(key, srcAddr, srcPort, dstAddr, dstPort);
+      connections.put(key, conn);
+    }
+    conn.lastSeen = now;
+
+    if (rst) {
+      closeConnection(conn, CloseReason.RST);
+      return;
+    }
+
+    Stream stream = conn.isClient(srcAddr, srcPort) ? conn.clientStream : conn.serverStream;
+    stream.addSegment(seq, syn, fin, data);
+
+    if (conn.clientStream.finished && conn.serverStream.finished) {
+      connections.remove(conn.key);
+    }
+    else if (bufferedBytes > maxBufferedBytes) {
+      while (bufferedBytes > maxBufferedBytes && !connections.isEmpty()) {
+        evictEldest(CloseReason.EVICTED);
+      }
+    }
+  }
+
+  /**
+   * Closes connections which haven't seen a segment for the idle timeout.
+   * This method is called automatically as packets are added,
+   * but can be called to expire connections when no packets are coming.
+   *
+   * @param now the current time in milliseconds, in the same clock as the packet timestamps.
+   * @return the number of closed connections.
+   */
+  public int expire(long now) {
+    lastExpirationCheck = now;
+    int count = 0;
+    Iterator<Connection> iter = connections.values().iterator();
+    while (iter.hasNext()) {
+      Connection conn = iter.next();
+      if (now - conn.lastSeen < idleTimeoutMillis) {
+        // The map is in access order, so the rest are newer.
+        break;
+      }
+      iter.remove();
+      conn.close(CloseReason.TIMEOUT);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Closes all the connections, delivering what is buffered.
+   */
+  public void close() {
+    Iterator<Connection> iter = connections.values().iterator();
+    while (iter.hasNext()) {
+      Connection conn = iter.next();
+      iter.remove();
+      conn.close(CloseReason.CLOSED);
+    }
+  }
+
+  /**
+   * @return the number of connections being tracked.
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * @return the number of bytes held in the out-of-order buffers.
+   */
+  public long getBufferedBytes() {
+    return bufferedBytes;
+  }
+
+  private void evictEldest(CloseReason reason) {
+    Iterator<Connection> iter = connections.values().iterator();
+    if (iter.hasNext()) {
+      Connection conn = iter.next();
+      iter.remove();
+      conn.close(reason);
+    }
+  }
+
+  private void closeConnection(Connection conn, CloseReason reason) {
+    connections.remove(conn.key);
+    conn.close(reason);
+  }
+
+  private static final class ConnectionKey {
+
+    private final InetAddress addr1;
+    private final int port1;
+    private final InetAddress addr2;
+    private final int port2;
+    private final int hashCode;
+
+    private ConnectionKey(InetAddress addr1, int port1, InetAddress addr2, int port2) {
+      this.addr1 = addr1;
+      this.port1 = port1;
+      this.addr2 = addr2;
+      this.port2 = port2;
+      // Symmetric so that both directions get the same hash code.
+      this.hashCode
+        = (31 * addr1.hashCode() + port1) + (31 * addr2.hashCode() + port2);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) { return true; }
+      if (!(obj instanceof ConnectionKey)) { return false; }
+      ConnectionKey other = (ConnectionKey) obj;
+      if (hashCode != other.hashCode) { return false; }
+      if (port1 == other.port1 && port2 == other.port2) {
+        if (addr1.equals(other.addr1) && addr2.equals(other.addr2)) {
+          return true;
+        }
+      }
+      if (port1 == other.port2 && port2 == other.port1) {
+        if (addr1.equals(other.addr2) && addr2.equals(other.addr1)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+  private final class Connection {
+
+    private final ConnectionKey key;
+    private final InetAddress clientAddr;
+    private final int clientPort;
+    private final Stream clientStream;
+    private final Stream serverStream;
+    private long lastSeen;
+
+    private Connection(
+      ConnectionKey key,
+      InetAddress clientAddr, int clientPort,
+      InetAddress serverAddr, int serverPort
+    ) {
+      this.key = key;
+      this.clientAddr = clientAddr;
+      this.clientPort = clientPort;
+      this.clientStream
+        = new Stream(
+            listenerFactory.newStreamListener(clientAddr, clientPort, serverAddr, serverPort)
+          );
+      this.serverStream
+        = new Stream(
+            listenerFactory.newStreamListener(serverAddr, serverPort, clientAddr, clientPort)
+          );
+    }
+
+    private boolean isClient(InetAddress addr, int port) {
+      return port == clientPort && addr.equals(clientAddr);
+    }
+
+    private void close(CloseReason reason) {
+      clientStream.close(reason);
+      serverStream.close(reason);
+    }
+
+  }
+
+  private final class Stream {
+
+    private final StreamListener listener;
+    private boolean initialized = false;
+    private boolean finished = false;
+
+    // the sequence number of the first byte of the stream
+    private int baseSeq;
+    // the position of the next byte to deliver, relative to baseSeq
+    private long next = 0;
+    // the position of FIN, relative to baseSeq
+    private long finPos = -1;
+    // out-of-order segments keyed by their positions
+    private TreeMap<Long, byte[]> pending = null;
+    private int pendingBytes = 0;
+
+    private Stream(StreamListener listener) {
+      this.listener = listener;
+    }
+
+    private long toPosition(int seq) {
+      // The int subtraction handles sequence number wraparound.
+      return next + (seq - (baseSeq + (int) next));
+    }
+
+    private void addSegment(int seq, boolean syn, boolean fin, ByteBuffer data) {
+      if (finished) {
+        return;
+      }
+
+      int length = data.remaining();
+      if (syn) {
+        if (!initialized) {
+          baseSeq = seq + 1;
+          initialized = true;
+        }
+        // SYN occupies a sequence number.
+        seq++;
+      }
+      if (!initialized) {
+        if (!midstreamPickup || (length == 0 && !fin)) {
+          return;
+        }
+        baseSeq = seq;
+        initialized = true;
+      }
+
+      long pos = toPosition(seq);
+      if (pos - next > MAX_SEQUENCE_DISTANCE || next - pos > MAX_SEQUENCE_DISTANCE) {
+        // Not likely to belong to this stream.
+        return;
+      }
+
+      if (fin && finPos < 0) {
+        finPos = pos + length;
+      }
+
+      if (length > 0) {
+        long end = pos + length;
+        if (end > next) {
+          if (pos <= next) {
+            data.position(data.position() + (int) (next - pos));
+            deliver(data);
+            next = end;
+            drain(false);
+          }
+          else {
+            buffer(pos, data, length);
+            if (pendingBytes > maxBufferedBytesPerStream) {
+              drain(true);
+            }
+          }
+        }
+      }
+
+      if (finPos >= 0 && next >= finPos) {
+        close(CloseReason.FIN);
+      }
+    }
+
+    private void buffer(long pos, ByteBuffer data, int length) {
+      if (pending == null) {
+        pending = new TreeMap<Long, byte[]>();
+      }
+      Long key = Long.valueOf(pos);
+      byte[] old = pending.get(key);
+      if (old != null && old.length >= length) {
+        return;
+      }
+
+      // The data may be a part of a packet, so it's copied.
+      byte[] segment = new byte[length];
+      data.get(segment);
+      pending.put(key, segment);
+
+      int delta = length - (old != null ? old.length : 0);
+      pendingBytes += delta;
+      bufferedBytes += delta;
+    }
+
+    /**
+     * Delivers buffered segments which have become contiguous.
+     * If skipGaps is true, holes are reported to the listener and skipped.
+     */
+    private void drain(boolean skipGaps) {
+      if (pending == null) {
+        return;
+      }
+
+      while (!pending.isEmpty()) {
+        Map.Entry<Long, byte[]> first = pending.firstEntry();
+        long pos = first.getKey().longValue();
+        if (pos > next) {
+          if (!skipGaps) {
+            break;
+          }
+          if (listener != null) {
+            listener.gotGap((int) (pos - next));
+          }
+          next = pos;
+        }
+
+        pending.remove(first.getKey());
+        byte[] segment = first.getValue();
+        pendingBytes -= segment.length;
+        bufferedBytes -= segment.length;
+
+        long end = pos + segment.length;
+        if (end > next) {
+          int skip = (int) (next - pos);
+          deliver(ByteBuffer.wrap(segment, skip, segment.length - skip).asReadOnlyBuffer());
+          next = end;
+        }
+
+        if (skipGaps && pendingBytes <= maxBufferedBytesPerStream / 2) {
+          // Go back to waiting for the missing data.
+          skipGaps = false;
+        }
+      }
+    }
+
+    private void deliver(ByteBuffer data) {
+      if (listener != null) {
+        listener.gotData(data);
+      }
+    }
+
+    private void close(CloseReason reason) {
+      if (finished) {
+        return;
+      }
+      if (reason != CloseReason.FIN && reason != CloseReason.RST) {
+        drain(true);
+      }
+      if (pending != null) {
+        bufferedBytes -= pendingBytes;
+        pendingBytes = 0;
+      }
+      pending = null;
+      finished = true;
+      if (listener != null) {
+        listener.closed(reason);
+      }
+    }
+
+  }
+
+  /**
+   * The reason why a stream was closed.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static enum CloseReason {
+
+    /**
+     * All the data up to FIN has been delivered.
+     */
+    FIN,
+
+    /**
+     * The connection was reset.
+     */
+    RST,
+
+    /**
+     * The connection was idle longer than the idle timeout.
+     */
+    TIMEOUT,
+
+    /**
+     * The connection was evicted to keep the connection count or the buffered bytes in
+     * the limits.
+     */
+    EVICTED,
+
+    /**
+     * The reassembler was closed.
+     */
+    CLOSED,
+
+  }
+
+  /**
+   * A listener which receives the reassembled data of one direction of a TCP connection.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public interface StreamListener {
+
+    /**
+     * Called with contiguous data of the stream.
+     * The buffer may wrap a part of a packet, so the listener must copy the data if it needs
+     * to keep it after this method returns.
+     *
+     * @param data a read-only buffer whose remaining bytes are the data.
+     */
+    public void gotData(ByteBuffer data);
+
+    /**
+     * Called when data of the stream was lost and the reassembler skipped it.
+     *
+     * @param length the number of the lost bytes.
+     */
+    public void gotGap(int length);
+
+    /**
+     * Called once when the stream is closed. No methods are called after this.
+     *
+     * @param reason reason
+     */
+    public void closed(CloseReason reason);
+
+  }
+
+  /**
+   * A factory of {@link StreamListener}.
+   *
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public interface StreamListenerFactory {
+
+    /**
+     * Called twice when a new connection is found, once for each direction.
+     *
+     * @param srcAddr the address of the sender of the stream.
+     * @param srcPort the port of the sender of the stream.
+     * @param dstAddr the address of the receiver of the stream.
+     * @param dstPort the port of the receiver of the stream.
+     * @return a new StreamListener. May be null, in which case the stream's data is discarded.
+     */
+    public StreamListener newStreamListener(
+      InetAddress srcAddr, int srcPort, InetAddress dstAddr, int dstPort
+    );
+
+  }
+
+  /**
+   * @author Kaito Yamada
+   * @since pcap4j 1.7.3
+   */
+  public static final class Builder {
+
+    private StreamListenerFactory listenerFactory;
+    private int maxConnections = 1 << 20;
+    private int maxBufferedBytesPerStream = 1 << 20;
+    private long maxBufferedBytes = 256L << 20;
+    private long idleTimeoutMillis = 300000L;
+    private boolean midstreamPickup = true;
+
+    /**
+     *
+     */
+    public Builder() {}
+
+    /**
+     * @param listenerFactory listenerFactory
+     * @return this Builder object for method chaining.
+     */
+    public Builder listenerFactory(StreamListenerFactory listenerFactory) {
+      this.listenerFactory = listenerFactory;
+      return this;
+    }
+
+    /**
+     * @param maxConnections the maximum number of connections to track at the same time.
+     *                       1048576 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxConnections(int maxConnections) {
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * @param maxBufferedBytesPerStream the maximum number of out-of-order bytes to buffer
+     *                                  for a stream. 1048576 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxBufferedBytesPerStream(int maxBufferedBytesPerStream) {
+      this.maxBufferedBytesPerStream = maxBufferedBytesPerStream;
+      return this;
+    }
+
+    /**
+     * @param maxBufferedBytes the maximum number of out-of-order bytes to buffer
+     *                         for all the streams. 268435456 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder maxBufferedBytes(long maxBufferedBytes) {
+      this.maxBufferedBytes = maxBufferedBytes;
+      return this;
+    }
+
+    /**
+     * @param idleTimeoutMillis connections which haven't seen a segment for this period
+     *                          are closed. 300000 by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder idleTimeoutMillis(long idleTimeoutMillis) {
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      return this;
+    }
+
+    /**
+     * @param midstreamPickup if true, streams whose SYN wasn't seen are reassembled from the
+     *                        first segment seen. Otherwise they are ignored. true by default.
+     * @return this Builder object for method chaining.
+     */
+    public Builder midstreamPickup(boolean midstreamPickup) {
+      this.midstreamPickup = midstreamPickup;
+      return this;
+    }
+
+    /**
+     * @return a new TcpStreamReassembler object.
+     */
+    public TcpStreamReassembler build() {
+      return new TcpStreamReassembler(this);
+    }
+
+  }
+
+}
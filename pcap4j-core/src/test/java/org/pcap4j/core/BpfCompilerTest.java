@@ -0,0 +1,283 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.pcap4j.core.BpfProgram.BpfCompileMode;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+@SuppressWarnings("javadoc")
+public class BpfCompilerTest {
+
+  private static final String MAC_SRC = "001122334455";
+  private static final String MAC_DST = "66778899aabb";
+
+  // 0: TCP SYN over IPv4, 1: UDP over IPv4 with options, 2: ICMP echo, 3: TCP over IPv6,
+  // 4: ARP request, 5: UDP over IPv4 in VLAN 100, 6: non-first fragment of TCP
+  static final byte[][] FRAMES = {
+    frame(
+      ether(
+        MAC_DST, MAC_SRC, "0800",
+        ipv4(5, 6, 0x4000, "0a000001", "0a000002", tcp(12345, 80, 0x02))
+      )
+    ),
+    frame(
+      ether(MAC_DST, MAC_SRC, "0800", ipv4(6, 17, 0, "0a000003", "c0a80101", udp(53, 53)))
+    ),
+    frame(
+      ether(
+        "01005e000001", "001122334466", "0800",
+        ipv4(5, 1, 0, "0a000002", "0a000001", "0800000000010001")
+      )
+    ),
+    frame(
+      ether(
+        MAC_DST, MAC_SRC, "86dd",
+        ipv6(
+          6, "20010db8000000000000000000000001", "20010db8000000000000000000000002",
+          tcp(443, 50000, 0x10)
+        )
+      )
+    ),
+    frame(
+      ether(
+        "ffffffffffff", MAC_SRC, "0806",
+        "0001080006040001" + MAC_SRC + "0a000001" + "000000000000" + "0a000002"
+      )
+    ),
+    frame(
+      ether(
+        MAC_DST, MAC_SRC, "8100",
+        "0064" + "0800" + ipv4(5, 17, 0, "0a000005", "0a000006", udp(1000, 2000))
+      )
+    ),
+    frame(
+      ether(
+        MAC_DST, MAC_SRC, "0800",
+        ipv4(5, 6, 0x00b9, "0a000001", "0a000002", tcp(12345, 80, 0x02))
+      )
+    ),
+  };
+
+  // An expression and the frames it should accept.
+  static final String[][] CASES = {
+    {"", "XXXXXXX"},
+    {"ip", "XXX...X"},
+    {"ip6", "...X..."},
+    {"arp", "....X.."},
+    {"tcp", "X..X..X"},
+    {"udp", ".X....."},
+    {"icmp", "..X...."},
+    {"host 10.0.0.1", "X.X.X.X"},
+    {"src host 10.0.0.1", "X...X.X"},
+    {"dst host 10.0.0.1", "..X...."},
+    {"ip src or dst 10.0.0.2", "X.X...X"},
+    {"host 2001:db8::2", "...X..."},
+    {"ip6 net 2001:db8::/32", "...X..."},
+    {"net 192.168.0.0/16", ".X....."},
+    {"net 10.0.0.0 mask 255.255.255.0", "XXX.X.X"},
+    {"net 10", "XXX.X.X"},
+    {"port 80", "X......"},
+    {"tcp port 443", "...X..."},
+    {"udp port domain", ".X....."},
+    {"portrange 50-100", "XX....."},
+    {"dst port 50000", "...X..."},
+    {"src port 53 and dst port 53", ".X....."},
+    {"ether src 00:11:22:33:44:55", "XX.XXXX"},
+    {"ether dst 66:77:88:99:aa:bb", "XX.X.XX"},
+    {"ether broadcast", "....X.."},
+    {"ether multicast", "..X.X.."},
+    {"ip multicast", "......."},
+    {"ether proto \\arp", "....X.."},
+    {"ip proto \\tcp", "X.....X"},
+    {"proto 6", "X..X..X"},
+    {"vlan 100", ".....X."},
+    {"vlan 100 and udp port 2000", ".....X."},
+    {"vlan 200", "......."},
+    {"tcp[tcpflags] & tcp-syn != 0", "X......"},
+    {"tcp[13] & 2 = 2", "X......"},
+    {"icmp[icmptype] == icmp-echo", "..X...."},
+    {"ip[0] & 0xf > 5", ".X....."},
+    {"ip[6:2] & 0x1fff != 0", "......X"},
+    {"ip[len - len + 9] = 17", ".X....."},
+    {"udp[len - len + 2:2] = 53", ".X....."},
+    {"ether[12:2] = 0x8100", ".....X."},
+    {"less 1000", "XXXXXXX"},
+    {"greater 1000", "......."},
+    {"not tcp and not arp", ".XX..X."},
+    {"!(tcp || arp)", ".XX..X."},
+    {"(tcp or udp) and not port 80", ".X.X..X"},
+    {"host 10.0.0.1 or 10.0.0.3", "XXX.X.X"},
+    {"tcp and (port 80 or port 443)", "X..X..."},
+    {"(ip[9]) = 17", ".X....."},
+  };
+
+  @Test
+  public void testCompile() {
+    for (String[] c: CASES) {
+      BpfProgram prog = BpfCompiler.compile(c[0], DataLinkType.EN10MB);
+      assertEquals(c[0], c[1], apply(prog));
+      assertEquals(c[0], prog.getExpression());
+    }
+  }
+
+  @Test
+  public void testOtherDataLinkTypes() {
+    byte[] ip = new byte[FRAMES[0].length - 14];
+    System.arraycopy(FRAMES[0], 14, ip, 0, ip.length);
+    assertTrue(BpfCompiler.compile("tcp port 80", DataLinkType.RAW).applyFilter(ip));
+    assertTrue(BpfCompiler.compile("host 10.0.0.2", DataLinkType.RAW).applyFilter(ip));
+    assertFalse(BpfCompiler.compile("ip6 or arp", DataLinkType.RAW).applyFilter(ip));
+
+    byte[] sll = ByteArrays.concatenate(
+                   ByteArrays.parseByteArray("00000001000600112233445500000800", ""), ip
+                 );
+    assertTrue(BpfCompiler.compile("tcp port 80", DataLinkType.LINUX_SLL).applyFilter(sll));
+    assertFalse(BpfCompiler.compile("udp", DataLinkType.LINUX_SLL).applyFilter(sll));
+
+    try {
+      BpfCompiler.compile("ip", DataLinkType.IEEE802_11);
+      fail();
+    } catch (IllegalArgumentException e) {}
+    try {
+      BpfCompiler.compile("vlan", DataLinkType.RAW);
+      fail();
+    } catch (IllegalArgumentException e) {}
+  }
+
+  @Test
+  public void testFarJumps() {
+    StringBuilder sb = new StringBuilder("host 10.1.0.1");
+    for (int i = 2; i < 100; i++) {
+      sb.append(" or 10.1.0.").append(i);
+    }
+    sb.append(" or tcp port 80");
+    BpfProgram prog = BpfCompiler.compile(sb.toString(), DataLinkType.EN10MB, 1500);
+    assertTrue(prog.getInstructions().length > 256);
+    assertEquals("X......", apply(prog));
+
+    BpfInstruction[] insns = prog.getInstructions();
+    assertEquals(new BpfInstruction(0x06, 0, 0, 1500), insns[insns.length - 2]);
+    assertEquals(new BpfInstruction(0x06, 0, 0, 0), insns[insns.length - 1]);
+  }
+
+  @Test
+  public void testFree() {
+    BpfProgram prog = BpfCompiler.compile("tcp", DataLinkType.EN10MB);
+    assertTrue(prog.applyFilter(FRAMES[0]));
+    prog.free();
+    assertTrue(prog.isFreed());
+    assertFalse(prog.applyFilter(FRAMES[0]));
+    prog.free();
+  }
+
+  @Test
+  public void testInvalidExpressions() {
+    String[] exprs = {
+      "host www.example.com", "tcp port", "foo", "port 70000", "ip[1:3] = 0",
+      "(tcp", "tcp and", "ip[0] = 1 / 0", "host 10.0.0.256", "net 10.0.0.1/24",
+      "ether host 10.0.0.1", "tcp host 00:11:22:33:44:55", "1 + 2", "gateway 10.0.0.1"
+    };
+    for (String expr: exprs) {
+      try {
+        BpfCompiler.compile(expr, DataLinkType.EN10MB);
+        fail(expr);
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().length() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentCompile() throws Exception {
+    final Throwable[] error = new Throwable[1];
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 50; i++) {
+              for (String[] c: CASES) {
+                assertEquals(c[1], apply(BpfCompiler.compile(c[0], DataLinkType.EN10MB)));
+              }
+            }
+          } catch (Throwable e) {
+            synchronized (error) {
+              error[0] = e;
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread: threads) {
+      thread.join();
+    }
+    synchronized (error) {
+      assertNull(error[0]);
+    }
+  }
+
+  @Test
+  public void testCompareWithLibpcap() throws Exception {
+    for (String[] c: CASES) {
+      BpfProgram prog
+        = Pcaps.compileFilter(
+            65536, DataLinkType.EN10MB, c[0],
+            BpfCompileMode.OPTIMIZE, PcapHandle.PCAP_NETMASK_UNKNOWN
+          );
+      try {
+        assertEquals(c[0], apply(prog), apply(BpfCompiler.compile(c[0], DataLinkType.EN10MB)));
+      } finally {
+        prog.free();
+      }
+    }
+  }
+
+  private static String apply(BpfProgram prog) {
+    StringBuilder sb = new StringBuilder(FRAMES.length);
+    for (byte[] frame: FRAMES) {
+      sb.append(prog.applyFilter(frame) ? 'X' : '.');
+    }
+    return sb.toString();
+  }
+
+  private static byte[] frame(String hex) {
+    return ByteArrays.parseByteArray(hex, "");
+  }
+
+  private static String ether(String dst, String src, String type, String payload) {
+    return dst + src + type + payload;
+  }
+
+  private static String ipv4(int ihl, int proto, int frag, String src, String dst, String payload) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+          "4%x00%04x0000%04x40%02x0000", ihl, ihl * 4 + payload.length() / 2, frag, proto
+        )
+      )
+      .append(src)
+      .append(dst);
+    for (int i = 5; i < ihl; i++) {
+      sb.append("01010101");
+    }
+    return sb.append(payload).toString();
+  }
+
+  private static String ipv6(int nextHeader, String src, String dst, String payload) {
+    return String.format("60000000%04x%02x40", payload.length() / 2, nextHeader)
+             + src + dst + payload;
+  }
+
+  private static String tcp(int src, int dst, int flags) {
+    return String.format("%04x%04x000000000000000050%02xffff00000000", src, dst, flags);
+  }
+
+  private static String udp(int src, int dst) {
+    return String.format("%04x%04x001000000102030405060708", src, dst);
+  }
+
+}
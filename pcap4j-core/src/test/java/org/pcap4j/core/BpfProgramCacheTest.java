@@ -0,0 +1,102 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.pcap4j.core.BpfProgram.BpfCompileMode;
+import org.pcap4j.core.BpfProgramCache.Compiler;
+import org.pcap4j.core.BpfProgramCache.Key;
+import org.pcap4j.core.BpfProgramCache.SharedCode;
+import org.pcap4j.core.NativeMappings.bpf_program;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+@SuppressWarnings("javadoc")
+public class BpfProgramCacheTest {
+
+  private final AtomicInteger compiled = new AtomicInteger();
+  private final Compiler compiler
+    = new Compiler() {
+        @Override
+        public bpf_program compile() {
+          compiled.incrementAndGet();
+          return new bpf_program();
+        }
+      };
+
+  private static Key key(String expression) {
+    return new Key(expression, DataLinkType.EN10MB, 65536, BpfCompileMode.OPTIMIZE, -1, false);
+  }
+
+  @Test
+  public void testHitsAndEvictions() throws Exception {
+    BpfProgramCache cache = new BpfProgramCache(2);
+    SharedCode tcp = cache.acquire(key("tcp"), compiler);
+    assertSame(tcp, cache.acquire(key("tcp"), compiler));
+    assertEquals(1, compiled.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    assertEquals(3, tcp.getReferences());
+
+    assertNotSame(
+      cache.acquire(key("tcp"), compiler),
+      cache.acquire(
+        new Key("tcp", DataLinkType.EN10MB, 65536, BpfCompileMode.OPTIMIZE, -1, true), compiler
+      )
+    );
+    assertEquals(2, compiled.get());
+    assertEquals(4, tcp.getReferences());
+
+    // evicts tcp, which is still used
+    SharedCode udp = cache.acquire(key("udp"), compiler);
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(2, cache.getSize());
+    assertEquals(3, tcp.getReferences());
+    assertEquals(2, udp.getReferences());
+
+    // evicts the least recently used one compiled by a live handle
+    assertNotSame(tcp, cache.acquire(key("tcp"), compiler));
+    assertEquals(4, compiled.get());
+    assertEquals(2, cache.getEvictionCount());
+    assertEquals(2, udp.getReferences());
+    assertTrue(cache.getCompileTimeNanos() >= 0);
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    BpfProgramCache cache = new BpfProgramCache(0);
+    SharedCode tcp = cache.acquire(key("tcp"), compiler);
+    assertNotSame(tcp, cache.acquire(key("tcp"), compiler));
+    assertEquals(2, cache.getMissCount());
+    assertEquals(0, cache.getSize());
+    assertEquals(1, tcp.getReferences());
+  }
+
+  @Test
+  public void testCompileFilter() throws Exception {
+    BpfProgramCache cache = new BpfProgramCache(4);
+    BpfProgram prog1
+      = cache.compileFilter(
+          65536, DataLinkType.EN10MB, "icmp",
+          BpfCompileMode.OPTIMIZE, PcapHandle.PCAP_NETMASK_UNKNOWN
+        );
+    BpfProgram prog2
+      = cache.compileFilter(
+          65536, DataLinkType.EN10MB, "icmp",
+          BpfCompileMode.OPTIMIZE, PcapHandle.PCAP_NETMASK_UNKNOWN
+        );
+    assertEquals(1, cache.getHitCount());
+
+    prog1.free();
+    assertTrue(prog1.isFreed());
+    assertFalse(prog1.applyFilter(BpfCompilerTest.FRAMES[2]));
+    assertTrue(prog2.applyFilter(BpfCompilerTest.FRAMES[2]));
+    assertFalse(prog2.applyFilter(BpfCompilerTest.FRAMES[0]));
+
+    cache.clear();
+    assertEquals(0, cache.getSize());
+    assertTrue(prog2.applyFilter(BpfCompilerTest.FRAMES[2]));
+    prog2.free();
+  }
+
+}
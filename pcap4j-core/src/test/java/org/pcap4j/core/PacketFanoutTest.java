@@ -0,0 +1,99 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.pcap4j.core.PacketFanout.Subscription;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+@SuppressWarnings("javadoc")
+public class PacketFanoutTest {
+
+  @Test
+  public void testMatchesCompiledPrograms() {
+    PacketFanout fanout = new PacketFanout(DataLinkType.EN10MB);
+    List<Subscription> subs = new ArrayList<Subscription>();
+    for (String[] c: BpfCompilerTest.CASES) {
+      subs.add(fanout.subscribe(c[0], 100));
+    }
+
+    int total = 0;
+    for (byte[] frame: BpfCompilerTest.FRAMES) {
+      total += fanout.publish(frame, frame.length);
+    }
+
+    int expectedTotal = 0;
+    for (int i = 0; i < subs.size(); i++) {
+      String expected = BpfCompilerTest.CASES[i][1];
+      StringBuilder sb = new StringBuilder();
+      byte[] next = subs.get(i).poll();
+      for (byte[] frame: BpfCompilerTest.FRAMES) {
+        if (next == frame) {
+          sb.append('X');
+          next = subs.get(i).poll();
+        }
+        else {
+          sb.append('.');
+        }
+      }
+      assertNull(next);
+      assertEquals(BpfCompilerTest.CASES[i][0], expected, sb.toString());
+      expectedTotal += expected.replace(".", "").length();
+    }
+    assertEquals(expectedTotal, total);
+  }
+
+  @Test
+  public void testManySubscriptions() {
+    PacketFanout fanout = new PacketFanout(DataLinkType.EN10MB);
+    Subscription[] subs = new Subscription[200];
+    for (int i = 0; i < subs.length; i++) {
+      subs[i] = fanout.subscribe("tcp and host 10.0." + (i / 100) + "." + (i % 100 + 1), 10);
+    }
+    assertTrue(fanout.toString(), fanout.toString().endsWith("unindexed subscriptions: 0]"));
+
+    // 10.0.0.1 -> 10.0.0.2, a SYN, and a non-first fragment
+    assertEquals(2, fanout.publish(BpfCompilerTest.FRAMES[0], BpfCompilerTest.FRAMES[0].length));
+    assertEquals(2, fanout.publish(BpfCompilerTest.FRAMES[6], BpfCompilerTest.FRAMES[6].length));
+    // UDP
+    assertEquals(0, fanout.publish(BpfCompilerTest.FRAMES[1], BpfCompilerTest.FRAMES[1].length));
+    for (int i = 0; i < subs.length; i++) {
+      assertEquals(i == 0 || i == 1 ? 2 : 0, subs[i].getQueueSize());
+    }
+  }
+
+  @Test
+  public void testQueueAndCancel() throws Exception {
+    PacketFanout fanout = new PacketFanout(DataLinkType.EN10MB);
+    Subscription tcp = fanout.subscribe("tcp", 1);
+    Subscription all = fanout.subscribe("", 10);
+
+    fanout.gotPacket(BpfCompilerTest.FRAMES[0]);
+    fanout.gotPacket(BpfCompilerTest.FRAMES[3]);
+    assertEquals(1, tcp.getDeliveredCount());
+    assertEquals(1, tcp.getDroppedCount());
+    assertEquals(2, all.getDeliveredCount());
+    assertSame(BpfCompilerTest.FRAMES[0], tcp.take());
+
+    tcp.cancel();
+    assertTrue(tcp.isCancelled());
+    assertEquals(1, fanout.getSubscriptions().size());
+    fanout.gotPacket(BpfCompilerTest.FRAMES[0]);
+    assertNull(tcp.poll());
+    assertEquals(3, all.getQueueSize());
+
+    byte[] truncated = ByteArrays.getSubArray(BpfCompilerTest.FRAMES[0], 0, 30);
+    Subscription port = fanout.subscribe("port 80", 10);
+    assertEquals(1, fanout.publish(truncated, BpfCompilerTest.FRAMES[0].length));
+    assertEquals(0, port.getQueueSize());
+
+    try {
+      fanout.subscribe("tcp port", 10);
+      fail();
+    } catch (IllegalArgumentException e) {}
+  }
+
+}
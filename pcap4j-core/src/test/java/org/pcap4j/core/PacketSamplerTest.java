@@ -0,0 +1,126 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.pcap4j.core.PacketSampler.FlowHashSampler;
+import org.pcap4j.core.PacketSampler.RateLimitSampler;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+@SuppressWarnings("javadoc")
+public class PacketSamplerTest {
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000028abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+        ""
+      );
+
+  @Test
+  public void testOneInN() {
+    PacketSampler sampler = PacketSampler.oneInN(4);
+    int accepted = 0;
+    for (int i = 0; i < 100; i++) {
+      if (sampler.sample(FRAME, DataLinkType.EN10MB)) {
+        assertEquals(0, i % 4);
+        accepted++;
+      }
+    }
+    assertEquals(25, accepted);
+    assertEquals(25, sampler.getAcceptedCount());
+    assertEquals(75, sampler.getDroppedCount());
+    assertEquals(4.0, sampler.getScaleFactor(), 0.0);
+
+    sampler.resetCounts();
+    assertEquals(0, sampler.getAcceptedCount());
+    assertEquals(0, sampler.getDroppedCount());
+    assertEquals(1.0, sampler.getScaleFactor(), 0.0);
+  }
+
+  @Test
+  public void testFlowHash() {
+    FlowHashSampler sampler = new FlowHashSampler(8, 0);
+    byte[] reverse = reverse(FRAME);
+    assertEquals(
+      sampler.hash(FRAME, DataLinkType.EN10MB),
+      sampler.hash(reverse, DataLinkType.EN10MB)
+    );
+
+    // The hash doesn't depend on fields other than the flow key.
+    byte[] other = FRAME.clone();
+    other[18] = 0x12;
+    other[38] = 0x34;
+    assertEquals(
+      sampler.hash(FRAME, DataLinkType.EN10MB),
+      sampler.hash(other, DataLinkType.EN10MB)
+    );
+
+    byte[] raw = new byte[FRAME.length - 14];
+    System.arraycopy(FRAME, 14, raw, 0, raw.length);
+    assertEquals(
+      sampler.hash(FRAME, DataLinkType.EN10MB),
+      sampler.hash(raw, DataLinkType.RAW)
+    );
+
+    boolean accepted = sampler.sample(FRAME, DataLinkType.EN10MB);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(accepted, sampler.sample(FRAME, DataLinkType.EN10MB));
+      assertEquals(accepted, sampler.sample(reverse, DataLinkType.EN10MB));
+    }
+
+    // About 1 in 8 flows are kept.
+    int acceptedFlows = 0;
+    byte[] frame = FRAME.clone();
+    for (int port = 0; port < 8000; port++) {
+      frame[34] = (byte) (port >> 8);
+      frame[35] = (byte) port;
+      if (sampler.sample(frame, DataLinkType.EN10MB)) {
+        acceptedFlows++;
+      }
+    }
+    assertTrue(String.valueOf(acceptedFlows), acceptedFlows > 800 && acceptedFlows < 1200);
+
+    PacketSampler all = PacketSampler.flowHash(1);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(all.sample(new byte[i], DataLinkType.EN10MB));
+    }
+  }
+
+  @Test
+  public void testRateLimit() {
+    RateLimitSampler sampler = new RateLimitSampler(1000, 10);
+    long now = System.nanoTime();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(sampler.tryAcquire(now));
+    }
+    assertFalse(sampler.tryAcquire(now));
+
+    // 1 token per ms.
+    now += 500000L;
+    assertFalse(sampler.tryAcquire(now));
+    now += 500000L;
+    assertTrue(sampler.tryAcquire(now));
+    assertFalse(sampler.tryAcquire(now));
+
+    // The bucket doesn't overflow.
+    now += 1000000000L;
+    for (int i = 0; i < 10; i++) {
+      assertTrue(sampler.tryAcquire(now));
+    }
+    assertFalse(sampler.tryAcquire(now));
+  }
+
+  private static byte[] reverse(byte[] frame) {
+    byte[] reverse = frame.clone();
+    System.arraycopy(frame, 0, reverse, 6, 6);
+    System.arraycopy(frame, 6, reverse, 0, 6);
+    System.arraycopy(frame, 26, reverse, 30, 4);
+    System.arraycopy(frame, 30, reverse, 26, 4);
+    System.arraycopy(frame, 34, reverse, 36, 2);
+    System.arraycopy(frame, 36, reverse, 34, 2);
+    return reverse;
+  }
+
+}
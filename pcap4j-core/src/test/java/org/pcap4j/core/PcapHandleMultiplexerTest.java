@@ -0,0 +1,144 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.core.PcapHandleMultiplexer.Registration;
+
+@SuppressWarnings("javadoc")
+public class PcapHandleMultiplexerTest {
+
+  private static final String[] FILES = {
+    "src/test/resources/org/pcap4j/core/PcapHandleTest.pcap",
+    "src/test/resources/org/pcap4j/core/udp_tcp_icmp.pcap"
+  };
+
+  private final List<PcapHandle> handles = new ArrayList<PcapHandle>();
+  private PcapHandleMultiplexer multiplexer;
+
+  @Before
+  public void setUp() throws Exception {
+    multiplexer = new PcapHandleMultiplexer.Builder().threads(2).burstSize(1).build();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    multiplexer.close();
+    for (PcapHandle handle: handles) {
+      handle.close();
+    }
+  }
+
+  @Test
+  public void testRegister() throws Exception {
+    List<Registration> registrations = new ArrayList<Registration>();
+    final List<AtomicInteger> counts = new ArrayList<AtomicInteger>();
+    for (int i = 0; i < 3; i++) {
+      for (String file: FILES) {
+        PcapHandle handle = Pcaps.openOffline(file);
+        handles.add(handle);
+        final AtomicInteger count = new AtomicInteger();
+        counts.add(count);
+        registrations.add(
+          multiplexer.register(
+            handle,
+            new RawPacketListener() {
+              @Override
+              public void gotPacket(byte[] packet) {
+                count.incrementAndGet();
+              }
+            }
+          )
+        );
+      }
+    }
+
+    for (int i = 0; i < registrations.size(); i++) {
+      Registration registration = registrations.get(i);
+      assertTrue(registration.await(10, TimeUnit.SECONDS));
+      assertFalse(registration.isRegistered());
+      assertEquals(countPackets(FILES[i % FILES.length]), counts.get(i).get());
+      assertEquals(counts.get(i).get(), registration.getPacketCount());
+    }
+  }
+
+  @Test
+  public void testPauseAndUnregister() throws Exception {
+    PcapHandle handle = Pcaps.openOffline(FILES[1]);
+    handles.add(handle);
+    final List<Object> packets = Collections.synchronizedList(new ArrayList<Object>());
+    Registration registration
+      = multiplexer.register(
+          handle,
+          new PacketListener() {
+            @Override
+            public void gotPacket(org.pcap4j.packet.Packet packet) {
+              packets.add(packet);
+            }
+          }
+        );
+    registration.pause();
+    assertTrue(registration.isPaused());
+
+    registration.unregister();
+    assertTrue(registration.await(10, TimeUnit.SECONDS));
+    long count = registration.getPacketCount();
+    assertEquals(count, packets.size());
+    Thread.sleep(50);
+    assertEquals(count, packets.size());
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    PcapHandle handle = Pcaps.openOffline(FILES[0]);
+    handles.add(handle);
+    Registration registration
+      = multiplexer.register(
+          handle,
+          new RawPacketListener() {
+            @Override
+            public void gotPacket(byte[] packet) {}
+          }
+        );
+    registration.pause();
+    multiplexer.close();
+    assertFalse(multiplexer.isOpen());
+    assertTrue(registration.await(0, TimeUnit.SECONDS));
+    assertTrue(handle.isOpen());
+
+    try {
+      multiplexer.register(
+        handle,
+        new RawPacketListener() {
+          @Override
+          public void gotPacket(byte[] packet) {}
+        }
+      );
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private int countPackets(String file) throws Exception {
+    PcapHandle handle = Pcaps.openOffline(file);
+    try {
+      int count = 0;
+      while (handle.getNextRawPacket() != null) {
+        count++;
+      }
+      return count;
+    } finally {
+      handle.close();
+    }
+  }
+
+}
@@ -0,0 +1,201 @@
+package org.pcap4j.core;
+
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.junit.After;
+import org.junit.Test;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.UdpPacket;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.PacketCodec.Record;
+
+@SuppressWarnings("javadoc")
+public class PcapStreamTest {
+
+  private static final String FILE = "src/test/resources/org/pcap4j/core/udp_tcp_icmp.pcap";
+
+  private PcapStreamServer server;
+  private PcapStreamClient client;
+
+  @After
+  public void tearDown() throws Exception {
+    if (client != null) {
+      client.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private static InetSocketAddress loopback(int port) throws IOException {
+    return new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port);
+  }
+
+  private void startServer() throws IOException {
+    server
+      = new PcapStreamServer.Builder(
+          loopback(0),
+          new PcapStreamServer.HandleOpener() {
+            @Override
+            public PcapHandle open() throws PcapNativeException {
+              return Pcaps.openOffline(FILE);
+            }
+          }
+        ).maxBatchRecords(2).build();
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    startServer();
+    for (boolean compression: new boolean[] {false, true}) {
+      client
+        = new PcapStreamClient.Builder(server.getLocalAddress())
+            .compression(compression)
+            .build();
+      PcapHandle handle = Pcaps.openOffline(FILE);
+      try {
+        assertEquals(handle.getDlt(), client.getDlt());
+        assertEquals(handle.getSnapshot(), client.getSnapshot());
+        byte[] expected;
+        while ((expected = handle.getNextRawPacket()) != null) {
+          assertArrayEquals(expected, client.getNextRawPacketEx());
+          assertEquals(handle.getTimestamp(), client.getTimestamp());
+          assertEquals(handle.getOriginalLength(), client.getOriginalLength());
+        }
+      } finally {
+        handle.close();
+      }
+      try {
+        client.getNextPacketEx();
+        fail();
+      } catch (EOFException e) {
+        // expected
+      }
+      assertNull(client.getNextRawPacket());
+      client.close();
+    }
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    startServer();
+    client = new PcapStreamClient.Builder(server.getLocalAddress()).filter("udp").build();
+    assertEquals("udp", client.getFilteringExpression());
+    final List<Object> packets = new ArrayList<Object>();
+    client.loop(
+      -1,
+      new PacketListener() {
+        @Override
+        public void gotPacket(Packet packet) {
+          assertTrue(packet.contains(UdpPacket.class));
+          packets.add(packet);
+        }
+      }
+    );
+    assertFalse(packets.isEmpty());
+  }
+
+  @Test
+  public void testHandshakeTimeout() throws Exception {
+    // The handle is never opened, so this doesn't need the pcap native library.
+    server
+      = new PcapStreamServer.Builder(
+          loopback(0),
+          new PcapStreamServer.HandleOpener() {
+            @Override
+            public PcapHandle open() throws PcapNativeException {
+              throw new AssertionError();
+            }
+          }
+        ).handshakeTimeoutMillis(200).build();
+    SocketChannel ch = SocketChannel.open(server.getLocalAddress());
+    try {
+      // Send a part of the request and stall.
+      ch.write(ByteBuffer.wrap(new byte[] {0x50, 0x34}));
+      ch.socket().setSoTimeout(10000);
+      long start = System.nanoTime();
+      assertEquals(-1, ch.socket().getInputStream().read());
+      assertTrue(System.nanoTime() - start < 5000000000L);
+    } finally {
+      ch.close();
+    }
+    for (int i = 0; i < 50 && server.getSessionCount() != 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(0, server.getSessionCount());
+  }
+
+  @Test
+  public void testProtocol() throws Exception {
+    // A fake server which doesn't need the pcap native library.
+    final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+    serverChannel.socket().bind(loopback(0));
+    final List<Record> records = new ArrayList<Record>();
+    for (int i = 0; i < 50; i++) {
+      byte[] data = new byte[60 + i];
+      data[i] = (byte) i;
+      records.add(new Record(DataLinkType.EN10MB, new Timestamp(1000L * i), 100 + i, data));
+    }
+    final List<String> filters = new ArrayList<String>();
+    Thread fake
+      = new Thread() {
+          @Override
+          public void run() {
+            try {
+              SocketChannel ch = serverChannel.accept();
+              ByteBuffer header = ByteBuffer.allocate(6);
+              PcapStreamProtocol.readFully(ch, header);
+              filters.add(PcapStreamProtocol.readFilter(ch));
+              PcapStreamProtocol.writeOkResponse(ch, DataLinkType.EN10MB.value(), 65535);
+              ByteBuffer[] buffers = new ByteBuffer[2];
+              Deflater deflater = new Deflater();
+              PcapStreamProtocol.writeBatch(ch, records.subList(0, 20), deflater, buffers);
+              PcapStreamProtocol.writeBatch(ch, records.subList(20, 50), null, buffers);
+              PcapStreamProtocol.writeError(ch, "boom");
+              deflater.end();
+              ch.close();
+            } catch (IOException e) {
+              throw new AssertionError(e);
+            }
+          }
+        };
+    fake.start();
+    try {
+      client
+        = new PcapStreamClient.Builder(
+            (InetSocketAddress) serverChannel.socket().getLocalSocketAddress()
+          ).filter("tcp port 80").compression(true).build();
+      assertEquals(DataLinkType.EN10MB, client.getDlt());
+      assertEquals(65535, client.getSnapshot());
+      for (Record record: records) {
+        assertArrayEquals(record.getRawData(), client.getNextRawPacketEx());
+        assertEquals(record.getTimestamp(), client.getTimestamp());
+        assertEquals(record.getOriginalLength(), client.getOriginalLength().intValue());
+      }
+      try {
+        client.getNextRawPacketEx();
+        fail();
+      } catch (EOFException e) {
+        fail();
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().endsWith("boom"));
+      }
+      fake.join();
+      assertEquals("tcp port 80", filters.get(0));
+    } finally {
+      serverChannel.close();
+    }
+  }
+
+}
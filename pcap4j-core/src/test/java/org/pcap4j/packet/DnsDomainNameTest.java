@@ -0,0 +1,79 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.pcap4j.packet.DnsDomainName.NameCache;
+
+@SuppressWarnings("javadoc")
+public class DnsDomainNameTest {
+
+  // header(12) + "www" + pointer to "Example.COM" at 20 + "example" "com" 0 + "mail" + pointer
+  private static final byte[] MESSAGE = {
+    0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11,
+    3, 'w', 'w', 'w', (byte) 0xC0, 20, 0, 0,
+    7, 'E', 'x', 'a', 'm', 'p', 'l', 'e', 3, 'C', 'O', 'M', 0,
+    4, 'm', 'a', 'i', 'l', (byte) 0xC0, 12,
+  };
+
+  @Test
+  public void testResolve() throws Exception {
+    byte[] resolved = DnsDomainName.resolve(MESSAGE, 0, MESSAGE.length, 33);
+    assertEquals(22, resolved.length);
+    DnsDomainName name = DnsDomainName.newInstance(resolved, 0, resolved.length);
+    assertEquals("mail.www.Example.COM", name.getName());
+    assertNull(name.getPointer());
+
+    byte[] padded = new byte[MESSAGE.length + 5];
+    System.arraycopy(MESSAGE, 0, padded, 5, MESSAGE.length);
+    assertArrayEquals(resolved, DnsDomainName.resolve(padded, 5, MESSAGE.length, 33));
+  }
+
+  @Test
+  public void testMalformed() throws Exception {
+    byte[] loop = MESSAGE.clone();
+    loop[17] = 16;
+    try {
+      DnsDomainName.resolve(loop, 0, loop.length, 12);
+      fail();
+    } catch (IllegalRawDataException e) {
+      assertTrue(e.getMessage().contains("loop"));
+    }
+    try {
+      DnsDomainName.resolve(MESSAGE, 0, 30, 20);
+      fail();
+    } catch (IllegalRawDataException e) {
+      // expected
+    }
+    byte[] badLabel = MESSAGE.clone();
+    badLabel[20] = (byte) 0x80;
+    try {
+      DnsDomainName.resolve(badLabel, 0, badLabel.length, 20);
+      fail();
+    } catch (IllegalRawDataException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testNameCache() throws Exception {
+    NameCache cache = new NameCache(2);
+    String www = cache.get(MESSAGE, 0, MESSAGE.length, 12);
+    assertEquals("www.example.com", www);
+    assertSame(www, cache.get(MESSAGE, 0, MESSAGE.length, 12));
+    assertEquals("example.com", cache.get(MESSAGE, 0, MESSAGE.length, 20));
+    assertEquals(1L, cache.getHitCount());
+    assertEquals(2L, cache.getMissCount());
+
+    // touch www so that example.com is evicted
+    assertSame(www, cache.get(MESSAGE, 0, MESSAGE.length, 12));
+    assertEquals("mail.www.example.com", cache.get(MESSAGE, 0, MESSAGE.length, 33));
+    assertEquals(2, cache.size());
+    assertSame(www, cache.get(MESSAGE, 0, MESSAGE.length, 12));
+    assertEquals(3L, cache.getHitCount());
+    cache.get(MESSAGE, 0, MESSAGE.length, 20);
+    assertEquals(4L, cache.getMissCount());
+
+    assertEquals("", cache.get(new byte[] { 0 }, 0, 1, 0));
+  }
+
+}
@@ -0,0 +1,56 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Test;
+import org.pcap4j.util.ByteArrays;
+
+@SuppressWarnings("javadoc")
+public class IllegalRawDataExceptionTest {
+
+  private final boolean original = IllegalRawDataException.isFastFailDecoding();
+
+  @After
+  public void tearDown() {
+    IllegalRawDataException.setFastFailDecoding(original);
+  }
+
+  private static IllegalRawDataException decodeTruncatedUdp() {
+    byte[] data = { 0x12, 0x34, 0x00, 0x35, 0x00 };
+    try {
+      UdpPacket.newPacket(data, 0, data.length);
+    } catch (IllegalRawDataException e) {
+      return e;
+    }
+    fail();
+    return null;
+  }
+
+  @Test
+  public void testDefault() throws Exception {
+    IllegalRawDataException.setFastFailDecoding(false);
+    IllegalRawDataException e = decodeTruncatedUdp();
+    assertTrue(e.getMessage().contains("12 34 00 35 00"));
+    assertTrue(e.getStackTrace().length > 0);
+    assertEquals(
+      "ab cd", IllegalRawDataException.toHexString(new byte[] { (byte) 0xAB, (byte) 0xCD })
+    );
+  }
+
+  @Test
+  public void testFastFailDecoding() throws Exception {
+    IllegalRawDataException.setFastFailDecoding(true);
+    IllegalRawDataException e = decodeTruncatedUdp();
+    assertFalse(e.getMessage().contains("12 34"));
+    assertTrue(e.getMessage().contains("[5 bytes]"));
+    assertEquals(0, e.getStackTrace().length);
+
+    try {
+      ByteArrays.getInt(new byte[] { 1, 2, 3 }, 0);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException ex) {
+      assertTrue(ex.getMessage().contains("arr: [3 bytes]"));
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.pcap4j.util.ByteArrays;
+import org.pcap4j.util.Packets;
+
+@SuppressWarnings("javadoc")
+public class PacketLayerIndexTest {
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000030abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b00000102030405060708",
+        ""
+      );
+
+  @Test
+  public void testGet() throws Exception {
+    EthernetPacket packet = EthernetPacket.newPacket(FRAME, 0, FRAME.length);
+    IpV4Packet ipV4 = (IpV4Packet) packet.getPayload();
+    TcpPacket tcp = (TcpPacket) ipV4.getPayload();
+
+    assertSame(packet, packet.get(EthernetPacket.class));
+    assertSame(packet, packet.get(Packet.class));
+    assertSame(ipV4, packet.get(IpV4Packet.class));
+    assertSame(ipV4, packet.get(IpPacket.class));
+    assertSame(tcp, packet.get(TcpPacket.class));
+    assertSame(tcp, ipV4.get(TcpPacket.class));
+    assertSame(tcp.getPayload(), packet.get(UnknownPacket.class));
+    assertNull(packet.get(UdpPacket.class));
+    assertNull(packet.get(IpV6Packet.class));
+    assertNull(tcp.get(IpV4Packet.class));
+
+    // Calls after the index is built return the same.
+    assertSame(tcp, packet.get(TcpPacket.class));
+    assertNull(packet.get(UdpPacket.class));
+  }
+
+  @Test
+  public void testGetOuterOf() throws Exception {
+    EthernetPacket packet = EthernetPacket.newPacket(FRAME, 0, FRAME.length);
+    assertSame(packet, packet.getOuterOf(IpPacket.class));
+    assertSame(packet.getPayload(), packet.getOuterOf(TcpPacket.class));
+    assertNull(packet.getOuterOf(EthernetPacket.class));
+    assertNull(packet.getOuterOf(UdpPacket.class));
+  }
+
+  @Test
+  public void testContains() throws Exception {
+    EthernetPacket packet = EthernetPacket.newPacket(FRAME, 0, FRAME.length);
+    assertTrue(packet.contains(EthernetPacket.class));
+    assertTrue(packet.contains(IpPacket.class));
+    assertTrue(Packets.containsTcpPacket(packet));
+    assertTrue(Packets.containsIpV4Packet(packet));
+    assertFalse(Packets.containsUdpPacket(packet));
+    assertFalse(packet.contains(IcmpV4CommonPacket.class));
+    assertFalse(packet.getPayload().contains(EthernetPacket.class));
+  }
+
+}
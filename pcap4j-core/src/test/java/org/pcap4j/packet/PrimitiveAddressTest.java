@@ -0,0 +1,167 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.ArpHardwareType;
+import org.pcap4j.packet.namednumber.ArpOperation;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.namednumber.IpVersion;
+import org.pcap4j.util.ByteArrays;
+import org.pcap4j.util.MacAddress;
+
+@SuppressWarnings("javadoc")
+public class PrimitiveAddressTest {
+
+  @SuppressWarnings("unchecked")
+  private static <T> T serializeAndDeserialize(T obj) throws Exception {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bout);
+    out.writeObject(obj);
+    out.close();
+    ObjectInputStream in
+      = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+    try {
+      return (T) in.readObject();
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void testIpV4() throws Exception {
+    Inet4Address src = (Inet4Address) InetAddress.getByName("192.0.2.1");
+    Inet4Address dst = (Inet4Address) InetAddress.getByName("198.51.100.254");
+    IpV4Packet packet
+      = new IpV4Packet.Builder()
+          .version(IpVersion.IPV4)
+          .tos(IpV4Rfc791Tos.newInstance((byte) 0))
+          .protocol(IpNumber.UDP)
+          .ttl((byte) 64)
+          .srcAddr(src)
+          .dstAddr(dst)
+          .correctChecksumAtBuild(true)
+          .correctLengthAtBuild(true)
+          .build();
+    assertSame(src, packet.getHeader().getSrcAddr());
+    assertEquals(0xC0000201, packet.getHeader().getSrcAddrAsInt());
+    assertEquals(0xC63364FE, packet.getHeader().getDstAddrAsInt());
+
+    byte[] raw = packet.getRawData();
+    IpV4Packet parsed = IpV4Packet.newPacket(raw, 0, raw.length);
+    assertEquals(0xC0000201, parsed.getHeader().getSrcAddrAsInt());
+    assertEquals(src, parsed.getHeader().getSrcAddr());
+    assertSame(parsed.getHeader().getSrcAddr(), parsed.getHeader().getSrcAddr());
+    assertEquals(dst, parsed.getHeader().getDstAddr());
+    IpV4Packet rebuilt = parsed.getBuilder().build();
+    assertEquals(parsed, rebuilt);
+    assertEquals(parsed.hashCode(), rebuilt.hashCode());
+    assertArrayEquals(raw, rebuilt.getRawData());
+
+    IpV4Packet deserialized = serializeAndDeserialize(IpV4Packet.newPacket(raw, 0, raw.length));
+    assertEquals(parsed, deserialized);
+    assertEquals(0xC63364FE, deserialized.getHeader().getDstAddrAsInt());
+  }
+
+  @Test
+  public void testIpV6() throws Exception {
+    Inet6Address src = (Inet6Address) InetAddress.getByName("2001:db8::1");
+    Inet6Address dst = (Inet6Address) InetAddress.getByName("fe80::1:2:3:4");
+    IpV6Packet packet
+      = new IpV6Packet.Builder()
+          .version(IpVersion.IPV6)
+          .trafficClass(IpV6SimpleTrafficClass.newInstance((byte) 0))
+          .flowLabel(IpV6SimpleFlowLabel.newInstance(0))
+          .nextHeader(IpNumber.IPV6_NONXT)
+          .hopLimit((byte) 64)
+          .srcAddr(src)
+          .dstAddr(dst)
+          .correctLengthAtBuild(true)
+          .build();
+    assertEquals(0x20010DB800000000L, packet.getHeader().getSrcAddrHigh());
+    assertEquals(1L, packet.getHeader().getSrcAddrLow());
+    assertEquals(0xFE80000000000000L, packet.getHeader().getDstAddrHigh());
+    assertEquals(0x0001000200030004L, packet.getHeader().getDstAddrLow());
+
+    byte[] raw = packet.getRawData();
+    IpV6Packet parsed = IpV6Packet.newPacket(raw, 0, raw.length);
+    assertEquals(1L, parsed.getHeader().getSrcAddrLow());
+    assertEquals(src, parsed.getHeader().getSrcAddr());
+    assertEquals(dst, parsed.getHeader().getDstAddr());
+    IpV6Packet rebuilt = parsed.getBuilder().build();
+    assertEquals(parsed, rebuilt);
+    assertEquals(parsed.hashCode(), rebuilt.hashCode());
+    assertArrayEquals(raw, rebuilt.getRawData());
+
+    IpV6Packet deserialized = serializeAndDeserialize(IpV6Packet.newPacket(raw, 0, raw.length));
+    assertEquals(parsed, deserialized);
+    assertEquals(0x0001000200030004L, deserialized.getHeader().getDstAddrLow());
+  }
+
+  @Test
+  public void testArp() throws Exception {
+    InetAddress src = InetAddress.getByName("192.0.2.1");
+    InetAddress dst = InetAddress.getByName("192.0.2.2");
+    ArpPacket packet
+      = new ArpPacket.Builder()
+          .hardwareType(ArpHardwareType.ETHERNET)
+          .protocolType(EtherType.IPV4)
+          .hardwareAddrLength((byte) MacAddress.SIZE_IN_BYTES)
+          .protocolAddrLength((byte) ByteArrays.INET4_ADDRESS_SIZE_IN_BYTES)
+          .operation(ArpOperation.REQUEST)
+          .srcHardwareAddr(MacAddress.getByName("00:01:02:03:04:05"))
+          .srcProtocolAddr(src)
+          .dstHardwareAddr(MacAddress.ETHER_BROADCAST_ADDRESS)
+          .dstProtocolAddr(dst)
+          .build();
+    assertEquals(0xC0000201, packet.getHeader().getSrcProtocolAddrAsInt());
+    assertEquals(0xC0000202, packet.getHeader().getDstProtocolAddrAsInt());
+
+    byte[] raw = packet.getRawData();
+    ArpPacket parsed = ArpPacket.newPacket(raw, 0, raw.length);
+    assertEquals(packet, parsed);
+    assertEquals(src, parsed.getHeader().getSrcProtocolAddr());
+    assertEquals(dst, parsed.getHeader().getDstProtocolAddr());
+  }
+
+  @Test
+  public void testArpInvalidProtocolAddr() throws Exception {
+    ArpPacket.Builder b
+      = new ArpPacket.Builder()
+          .hardwareType(ArpHardwareType.ETHERNET)
+          .protocolType(EtherType.IPV4)
+          .hardwareAddrLength((byte) MacAddress.SIZE_IN_BYTES)
+          .protocolAddrLength((byte) ByteArrays.INET4_ADDRESS_SIZE_IN_BYTES)
+          .operation(ArpOperation.REQUEST)
+          .srcHardwareAddr(MacAddress.getByName("00:01:02:03:04:05"))
+          .srcProtocolAddr(InetAddress.getByName("2001:db8::1"))
+          .dstHardwareAddr(MacAddress.ETHER_BROADCAST_ADDRESS)
+          .dstProtocolAddr(InetAddress.getByName("192.0.2.2"));
+    try {
+      b.build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    b.srcProtocolAddr(InetAddress.getByName("192.0.2.1"))
+     .dstProtocolAddr(InetAddress.getByName("2001:db8::2"));
+    try {
+      b.build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    b.dstProtocolAddr(InetAddress.getByName("192.0.2.2"));
+    assertEquals(0xC0000201, b.build().getHeader().getSrcProtocolAddrAsInt());
+  }
+
+}
@@ -0,0 +1,97 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import org.junit.After;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ZeroCopyPayloadTest {
+
+  private final boolean original = SimplePacket.isZeroCopyPayload();
+
+  @After
+  public void tearDown() {
+    SimplePacket.setZeroCopyPayload(original);
+  }
+
+  private static Object serializeAndDeserialize(Object obj) throws Exception {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bout);
+    out.writeObject(obj);
+    out.close();
+    ObjectInputStream in
+      = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+    try {
+      return in.readObject();
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void testUnknownPacket() throws Exception {
+    SimplePacket.setZeroCopyPayload(true);
+    byte[] buf = { 0, 1, 2, 3, 4, 5 };
+    UnknownPacket packet = UnknownPacket.newPacket(buf, 2, 3);
+    assertEquals(3, packet.length());
+    assertArrayEquals(new byte[] { 2, 3, 4 }, packet.getRawData());
+
+    UnknownPacket copied = new UnknownPacket.Builder().rawData(new byte[] { 2, 3, 4 }).build();
+    assertEquals(copied, packet);
+    assertEquals(packet, copied);
+    assertEquals(copied.hashCode(), packet.hashCode());
+    assertEquals(copied.toString(), packet.toString());
+    assertEquals(copied, packet.getBuilder().build());
+
+    ByteBuffer bb = packet.getRawDataBuffer();
+    assertEquals(3, bb.remaining());
+    assertEquals(2, bb.get(0));
+    try {
+      bb.put(0, (byte) 9);
+      fail();
+    } catch (ReadOnlyBufferException e) {
+      // expected
+    }
+
+    UnknownPacket deserialized = (UnknownPacket) serializeAndDeserialize(packet);
+    assertEquals(copied, deserialized);
+    assertEquals(3, deserialized.length());
+
+    // the packet shares the array
+    buf[3] = 9;
+    assertEquals(9, packet.getRawData()[1]);
+    assertEquals(3, deserialized.getRawData()[1]);
+  }
+
+  @Test
+  public void testCopy() throws Exception {
+    SimplePacket.setZeroCopyPayload(false);
+    byte[] buf = { 0, 1, 2, 3, 4, 5 };
+    UnknownPacket packet = UnknownPacket.newPacket(buf, 2, 3);
+    IllegalPacket illegal = IllegalPacket.newPacket(buf, 2, 3);
+    buf[3] = 9;
+    assertArrayEquals(new byte[] { 2, 3, 4 }, packet.getRawData());
+    assertArrayEquals(new byte[] { 2, 3, 4 }, illegal.getRawData());
+  }
+
+  @Test
+  public void testIllegalPacket() throws Exception {
+    SimplePacket.setZeroCopyPayload(true);
+    byte[] buf = { 0, 1, 2, 3, 4, 5 };
+    IllegalPacket packet = IllegalPacket.newPacket(buf, 1, 4);
+    IllegalPacket copied
+      = new IllegalPacket.Builder().rawData(new byte[] { 1, 2, 3, 4 }).build();
+    assertEquals(4, packet.length());
+    assertEquals(copied, packet);
+    assertEquals(copied.hashCode(), packet.hashCode());
+    assertEquals(1, packet.getRawDataBuffer().get(0));
+    assertEquals(copied, serializeAndDeserialize(packet));
+  }
+
+}
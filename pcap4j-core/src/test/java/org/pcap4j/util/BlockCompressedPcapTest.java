@@ -0,0 +1,175 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+@SuppressWarnings("javadoc")
+public class BlockCompressedPcapTest {
+
+  private static final int PACKETS = 3000;
+  private static final long BASE_MILLIS = 1500000000000L;
+
+  private File file;
+  private final List<byte[]> packets = new ArrayList<byte[]>();
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("BlockCompressedPcapTest", ".pcap.gz");
+    BlockCompressedPcapWriter writer
+      = new BlockCompressedPcapWriter.Builder(new FileOutputStream(file), DataLinkType.EN10MB)
+          .blockSize(4096)
+          .threads(3)
+          .build();
+    for (int i = 0; i < PACKETS; i++) {
+      byte[] packet = new byte[60 + i % 200];
+      for (int j = 0; j < packet.length; j++) {
+        packet[j] = (byte) (i + j % 7);
+      }
+      packets.add(packet);
+      writer.dumpRaw(packet, time(i), packet.length + i % 3);
+    }
+    writer.close();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  private static Timestamp time(int i) {
+    Timestamp ts = new Timestamp(BASE_MILLIS + i);
+    ts.setNanos(ts.getNanos() + 1000 * (i % 1000));
+    return ts;
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    BlockCompressedPcapReader reader = new BlockCompressedPcapReader(file, 2);
+    try {
+      assertEquals(DataLinkType.EN10MB, reader.getDlt());
+      assertEquals(65536, reader.getSnapshot());
+      assertEquals(PACKETS, reader.getRecordCount());
+      assertTrue(reader.getBlockCount() > 10);
+      for (int i = 0; i < PACKETS; i++) {
+        assertArrayEquals(packets.get(i), reader.getNextRawPacketEx());
+        assertEquals(time(i), reader.getTimestamp());
+        assertEquals(packets.get(i).length + i % 3, reader.getOriginalLength().intValue());
+      }
+      try {
+        reader.getNextRawPacketEx();
+        fail();
+      } catch (EOFException e) {
+        // expected
+      }
+      assertNull(reader.getNextRawPacket());
+    } finally {
+      reader.close();
+    }
+    assertTrue(file.length() < totalLength() / 2);
+  }
+
+  @Test
+  public void testSeek() throws Exception {
+    BlockCompressedPcapReader reader = new BlockCompressedPcapReader(file, 1);
+    try {
+      for (int index: new int[] {1234, 0, 2999, 17, 1500}) {
+        reader.seekToRecord(index);
+        assertArrayEquals(packets.get(index), reader.getNextRawPacketEx());
+        if (index + 1 < PACKETS) {
+          assertArrayEquals(packets.get(index + 1), reader.getNextRawPacketEx());
+        }
+      }
+      reader.seekToRecord(PACKETS);
+      assertNull(reader.getNextRawPacket());
+
+      reader.seekToTime(time(2000));
+      assertArrayEquals(packets.get(2000), reader.getNextRawPacketEx());
+      assertEquals(time(2000), reader.getTimestamp());
+      reader.seekToTime(new Timestamp(0));
+      assertArrayEquals(packets.get(0), reader.getNextRawPacketEx());
+      reader.seekToTime(time(PACKETS));
+      assertNull(reader.getNextRawPacket());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testGzipCompatibility() throws Exception {
+    File plain = File.createTempFile("BlockCompressedPcapTest", ".pcap");
+    try {
+      InputStream in = new GZIPInputStream(new FileInputStream(file));
+      OutputStream out = new FileOutputStream(plain);
+      try {
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) >= 0) {
+          out.write(buf, 0, n);
+        }
+      } finally {
+        in.close();
+        out.close();
+      }
+      assertEquals(24 + 16 * PACKETS + totalLength(), plain.length());
+
+      PcapFileReader reader = new PcapFileReader(plain);
+      try {
+        assertEquals(DataLinkType.EN10MB, reader.getDlt());
+        for (int i = 0; i < PACKETS; i++) {
+          assertTrue(reader.next());
+          assertArrayEquals(packets.get(i), reader.getData());
+        }
+        assertFalse(reader.next());
+      } finally {
+        reader.close();
+      }
+    } finally {
+      plain.delete();
+    }
+  }
+
+  @Test
+  public void testTruncated() throws Exception {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.setLength(raf.length() - 10);
+    } finally {
+      raf.close();
+    }
+    BlockCompressedPcapReader reader = new BlockCompressedPcapReader(file);
+    try {
+      long count = reader.getRecordCount();
+      assertTrue(count > 0 && count < PACKETS);
+      for (int i = 0; i < count; i++) {
+        assertArrayEquals(packets.get(i), reader.getNextRawPacketEx());
+      }
+      assertNull(reader.getNextRawPacket());
+    } finally {
+      reader.close();
+    }
+  }
+
+  private long totalLength() {
+    long total = 0;
+    for (byte[] packet: packets) {
+      total += packet.length;
+    }
+    return total;
+  }
+
+}
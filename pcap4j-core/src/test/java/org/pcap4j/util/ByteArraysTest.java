@@ -1,6 +1,8 @@
 package org.pcap4j.util;
 
 import static org.junit.Assert.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.junit.Test;
 
 @SuppressWarnings("javadoc")
@@ -33,4 +35,84 @@ public class ByteArraysTest {
     );
   }
 
+  @Test
+  public void testUncheckedAccessors() throws Exception {
+    byte[] arr = new byte[] {
+      (byte)0x01, (byte)0x82, (byte)0x03, (byte)0x84,
+      (byte)0x05, (byte)0x86, (byte)0x07, (byte)0x88, (byte)0x09
+    };
+
+    for (int i = 0; i < 2; i++) {
+      assertEquals(ByteArrays.getShort(arr, i), ByteArrays.getShortUnchecked(arr, i));
+      assertEquals(
+        ByteArrays.getShort(arr, i, ByteOrder.LITTLE_ENDIAN),
+        ByteArrays.getShortUnchecked(arr, i, ByteOrder.LITTLE_ENDIAN)
+      );
+      assertEquals(ByteArrays.getInt(arr, i), ByteArrays.getIntUnchecked(arr, i));
+      assertEquals(
+        ByteArrays.getInt(arr, i, ByteOrder.LITTLE_ENDIAN),
+        ByteArrays.getIntUnchecked(arr, i, ByteOrder.LITTLE_ENDIAN)
+      );
+      assertEquals(ByteArrays.getLong(arr, i), ByteArrays.getLongUnchecked(arr, i));
+      assertEquals(
+        ByteArrays.getLong(arr, i, ByteOrder.LITTLE_ENDIAN),
+        ByteArrays.getLongUnchecked(arr, i, ByteOrder.LITTLE_ENDIAN)
+      );
+      assertEquals(
+        ByteArrays.getInet4Address(arr, i), ByteArrays.getInet4AddressUnchecked(arr, i)
+      );
+    }
+
+    byte[] buf = new byte[9];
+    ByteArrays.putShortUnchecked(buf, 1, (short) 0x8203, ByteOrder.LITTLE_ENDIAN);
+    assertArrayEquals(ByteArrays.toByteArray((short) 0x8203, ByteOrder.LITTLE_ENDIAN),
+                      ByteArrays.getSubArray(buf, 1, 2));
+    ByteArrays.putIntUnchecked(buf, 1, 0x82038405);
+    assertEquals(0x82038405, ByteArrays.getInt(buf, 1));
+    ByteArrays.putLongUnchecked(buf, 1, 0x8203840586078809L, ByteOrder.LITTLE_ENDIAN);
+    assertEquals(0x8203840586078809L, ByteArrays.getLong(buf, 1, ByteOrder.LITTLE_ENDIAN));
+  }
+
+  @Test
+  public void testByteBufferAccessors() throws Exception {
+    byte[] arr = new byte[] {
+      (byte)0x01, (byte)0x82, (byte)0x03, (byte)0x84,
+      (byte)0x05, (byte)0x86, (byte)0x07, (byte)0x88,
+      (byte)0x09, (byte)0x8a, (byte)0x0b, (byte)0x8c,
+      (byte)0x0d, (byte)0x8e, (byte)0x0f, (byte)0x90, (byte)0x11
+    };
+    ByteBuffer direct = ByteBuffer.allocateDirect(arr.length);
+    direct.put(arr);
+    direct.order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer heap = ByteBuffer.wrap(arr);
+
+    for (ByteBuffer bb: new ByteBuffer[] { direct, heap }) {
+      assertEquals(arr[3], ByteArrays.getByte(bb, 3));
+      assertEquals(ByteArrays.getShort(arr, 1), ByteArrays.getShort(bb, 1));
+      assertEquals(
+        ByteArrays.getShort(arr, 1, ByteOrder.LITTLE_ENDIAN),
+        ByteArrays.getShort(bb, 1, ByteOrder.LITTLE_ENDIAN)
+      );
+      assertEquals(ByteArrays.getInt(arr, 1), ByteArrays.getInt(bb, 1));
+      assertEquals(
+        ByteArrays.getInt(arr, 1, ByteOrder.LITTLE_ENDIAN),
+        ByteArrays.getInt(bb, 1, ByteOrder.LITTLE_ENDIAN)
+      );
+      assertEquals(ByteArrays.getLong(arr, 1), ByteArrays.getLong(bb, 1));
+      assertArrayEquals(ByteArrays.getSubArray(arr, 2, 5), ByteArrays.getSubArray(bb, 2, 5));
+      assertEquals(ByteArrays.getMacAddress(arr, 1), ByteArrays.getMacAddress(bb, 1));
+      assertEquals(ByteArrays.getInet4Address(arr, 1), ByteArrays.getInet4Address(bb, 1));
+      assertEquals(ByteArrays.getInet6Address(arr, 1), ByteArrays.getInet6Address(bb, 1));
+    }
+    assertEquals(ByteOrder.LITTLE_ENDIAN, direct.order());
+    assertEquals(arr.length, direct.position());
+
+    try {
+      ByteArrays.getSubArray(heap, 10, 8);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
 }
@@ -0,0 +1,213 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.DnsPacket;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.namednumber.DnsRCode;
+import org.pcap4j.util.DnsAnalyzer.NameCount;
+import org.pcap4j.util.DnsAnalyzer.Statistics;
+
+@SuppressWarnings("javadoc")
+public class DnsAnalyzerTest {
+
+  private InetAddress client;
+  private InetAddress server;
+
+  @Before
+  public void setUp() throws Exception {
+    client = InetAddress.getByName("192.168.0.1");
+    server = InetAddress.getByName("192.168.0.53");
+  }
+
+  private static byte[] message(int id, boolean response, int rCode, String qname) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(id >> 8);
+    out.write(id);
+    out.write(response ? 0x81 : 0x01);
+    out.write(response ? 0x80 | rCode : 0);
+    byte[] counts = { 0, 1, 0, 0, 0, 0, 0, 0 };
+    out.write(counts, 0, counts.length);
+    for (String label: qname.split("\\.")) {
+      out.write(label.length());
+      out.write(label.getBytes(), 0, label.length());
+    }
+    byte[] tail = { 0, 0, 1, 0, 1 };
+    out.write(tail, 0, tail.length);
+    return out.toByteArray();
+  }
+
+  private static void add(
+    DnsAnalyzer analyzer, byte[] msg, InetAddress src, int srcPort,
+    InetAddress dst, int dstPort, long ts
+  ) {
+    assertTrue(analyzer.addMessage(msg, 0, msg.length, src, srcPort, dst, dstPort, ts));
+  }
+
+  @Test
+  public void testMatchingAndRCodes() throws Exception {
+    DnsAnalyzer analyzer = new DnsAnalyzer.Builder().queryTimeoutMillis(1000L).build();
+    add(analyzer, message(1, false, 0, "www.Example.com"), client, 5000, server, 53, 0L);
+    add(analyzer, message(2, false, 0, "nx.example.com"), client, 5000, server, 53, 10L);
+    add(analyzer, message(3, false, 0, "lost.example.com"), client, 5000, server, 53, 20L);
+    assertEquals(3, analyzer.getPendingQueryCount());
+
+    add(analyzer, message(1, true, 0, "www.example.com"), server, 53, client, 5000, 300L);
+    add(analyzer, message(2, true, 3, "nx.example.com"), server, 53, client, 5000, 110L);
+    // a response to another client
+    add(analyzer, message(3, true, 0, "lost.example.com"), server, 53, client, 5001, 120L);
+    assertEquals(1, analyzer.getPendingQueryCount());
+    assertEquals(1, analyzer.expire(2000000L));
+    assertEquals(0, analyzer.getPendingQueryCount());
+
+    Statistics stats = analyzer.getStatistics(true);
+    assertEquals(3L, stats.getQueryCount());
+    assertEquals(3L, stats.getResponseCount());
+    assertEquals(1L, stats.getUnmatchedResponseCount());
+    assertEquals(1L, stats.getTimedOutQueryCount());
+    assertEquals(1L, stats.getRCodeCount(DnsRCode.NX_DOMAIN));
+    assertEquals(1.0 / 3, stats.getNxDomainRate(), 0.0001);
+    assertEquals(2L, stats.getLatencyCount());
+    assertEquals(200.0, stats.getAverageLatencyMicros(), 0.0001);
+    assertEquals(300L, stats.getMaxLatencyMicros());
+    long[] histogram = stats.getLatencyHistogram();
+    assertEquals(1L, histogram[7]);
+    assertEquals(1L, histogram[9]);
+
+    assertEquals(0L, analyzer.getStatistics(false).getQueryCount());
+  }
+
+  @Test
+  public void testMalformedAndCompression() throws Exception {
+    DnsAnalyzer analyzer = new DnsAnalyzer.Builder().build();
+    byte[] truncated = new byte[11];
+    assertFalse(
+      analyzer.addMessage(truncated, 0, truncated.length, client, 1, server, 53, 0L)
+    );
+    byte[] loop = message(1, false, 0, "a");
+    loop[12] = (byte) 0xC0;
+    loop[13] = 12;
+    assertFalse(analyzer.addMessage(loop, 0, loop.length, client, 1, server, 53, 0L));
+
+    // QNAME pointing to a name after the question
+    byte[] msg = new byte[21];
+    System.arraycopy(message(1, false, 0, "x"), 0, msg, 0, 12);
+    msg[12] = (byte) 0xC0;
+    msg[13] = 18;
+    msg[15] = 1;
+    msg[17] = 1;
+    msg[18] = 1;
+    msg[19] = 'X';
+    add(analyzer, msg, client, 1, server, 53, 0L);
+
+    Statistics stats = analyzer.getStatistics(false);
+    assertEquals(2L, stats.getMalformedCount());
+    assertEquals("x", stats.getTopNames().get(0).getName());
+  }
+
+  @Test
+  public void testAddPacket() throws Exception {
+    DnsAnalyzer analyzer = new DnsAnalyzer.Builder().build();
+    String ether = "66778899aabb" + "001122334455" + "0800";
+    byte[] dns = message(1, false, 0, "www.example.com");
+    byte[] dnsFrame
+      = ByteArrays.concatenate(
+          ByteArrays.parseByteArray(ether + ipV4Udp(5000, 53, dns.length), ""), dns
+        );
+    // An NTP packet, which has a non-zero word at offset 4.
+    byte[] ntp = new byte[48];
+    ntp[0] = 0x23;
+    ntp[5] = 1;
+    byte[] ntpFrame
+      = ByteArrays.concatenate(
+          ByteArrays.parseByteArray(ether + ipV4Udp(123, 123, ntp.length), ""), ntp
+        );
+    Timestamp ts = new Timestamp(0L);
+
+    assertFalse(analyzer.addPacket(EthernetPacket.newPacket(ntpFrame, 0, ntpFrame.length), ts));
+    assertTrue(analyzer.addPacket(EthernetPacket.newPacket(dnsFrame, 0, dnsFrame.length), ts));
+
+    Statistics stats = analyzer.getStatistics(false);
+    assertEquals(1L, stats.getQueryCount());
+    assertEquals(0L, stats.getMalformedCount());
+    assertEquals(1, analyzer.getPendingQueryCount());
+  }
+
+  private static String ipV4Udp(int srcPort, int dstPort, int payloadLength) {
+    return String.format("4500%04x00000000401100000a0000010a000002", 28 + payloadLength)
+             + String.format("%04x%04x%04x0000", srcPort, dstPort, 8 + payloadLength);
+  }
+
+  @Test
+  public void testTopNamesAcrossPartitions() throws Exception {
+    final DnsAnalyzer analyzer
+      = new DnsAnalyzer.Builder().partitions(4).topNameCapacity(10).build();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      final int port = 1000 + t;
+      Thread thread
+        = new Thread() {
+            @Override
+            public void run() {
+              for (int i = 0; i < 1000; i++) {
+                String name = i % 2 == 0 ? "hot.example.com" : "n" + i + ".example.com";
+                if (i % 4 == 1) {
+                  name = "warm.example.com";
+                }
+                byte[] msg = message(i, false, 0, name);
+                analyzer.addMessage(msg, 0, msg.length, client, port, server, 53, i);
+              }
+            }
+          };
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread: threads) {
+      thread.join();
+    }
+
+    Statistics stats = analyzer.getStatistics(false);
+    assertEquals(4000L, stats.getQueryCount());
+    List<NameCount> top = stats.getTopNames();
+    assertEquals(10, top.size());
+    assertEquals("hot.example.com", top.get(0).getName());
+    assertTrue(top.get(0).getCount() - top.get(0).getError() <= 2000L);
+    assertTrue(top.get(0).getCount() >= 2000L);
+    assertEquals("warm.example.com", top.get(1).getName());
+    assertTrue(top.get(1).getCount() >= 1000L);
+  }
+
+  @Test
+  public void testResponseListener() throws Exception {
+    final List<DnsPacket> responses = new ArrayList<DnsPacket>();
+    final List<Long> latencies = new ArrayList<Long>();
+    DnsAnalyzer analyzer
+      = new DnsAnalyzer.Builder()
+          .responseListener(
+             new DnsAnalyzer.ResponseListener() {
+               @Override
+               public void gotResponse(DnsPacket response, long latencyMicros) {
+                 responses.add(response);
+                 latencies.add(latencyMicros);
+               }
+             }
+           )
+          .build();
+    add(analyzer, message(7, false, 0, "a.example"), client, 5000, server, 53, 0L);
+    add(analyzer, message(7, true, 0, "a.example"), server, 53, client, 5000, 50L);
+    add(analyzer, message(8, true, 0, "b.example"), server, 53, client, 5000, 60L);
+    assertEquals(2, responses.size());
+    assertEquals(
+      "a.example", responses.get(0).getHeader().getQuestions().get(0).getQName().getName()
+    );
+    assertEquals(Long.valueOf(50L), latencies.get(0));
+    assertEquals(Long.valueOf(-1L), latencies.get(1));
+  }
+
+}
@@ -0,0 +1,33 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import java.sql.Timestamp;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class EpochNanosTest {
+
+  @Test
+  public void testRoundTrip() {
+    long[] values = {
+      0L, 1L, 999999999L, 1000000000L, 1500000000123456789L,
+      -1L, -999999999L, -1000000000L, -1500000000L, -1500000000123456789L
+    };
+    for (long nanos: values) {
+      Timestamp ts = EpochNanos.toTimestamp(nanos);
+      assertTrue(String.valueOf(nanos), ts.getNanos() >= 0);
+      assertEquals(nanos, EpochNanos.fromTimestamp(ts));
+    }
+  }
+
+  @Test
+  public void testBeforeEpoch() {
+    Timestamp ts = new Timestamp(-1500L);
+    assertEquals(500000000, ts.getNanos());
+    assertEquals(-1500000000L, EpochNanos.fromTimestamp(ts));
+
+    ts.setNanos(500000001);
+    assertEquals(-1499999999L, EpochNanos.fromTimestamp(ts));
+  }
+
+}
@@ -0,0 +1,241 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.FlowExporter.Format;
+
+@SuppressWarnings("javadoc")
+public class FlowExporterTest {
+
+  private static byte[] ipV4Udp(int src, int srcPort) {
+    byte[] p = new byte[28];
+    p[0] = 0x45;
+    p[3] = 28;
+    p[9] = 17;
+    System.arraycopy(ByteArrays.toByteArray(src), 0, p, 12, 4);
+    System.arraycopy(ByteArrays.toByteArray(0x0A000001), 0, p, 16, 4);
+    System.arraycopy(ByteArrays.toByteArray((short) srcPort), 0, p, 20, 2);
+    p[23] = 53;
+    return p;
+  }
+
+  private static byte[] ipV6Udp() {
+    byte[] p = new byte[48];
+    p[0] = 0x60;
+    p[5] = 8;
+    p[6] = 17;
+    p[23] = 1;
+    p[39] = 2;
+    p[43] = 53;
+    return p;
+  }
+
+  private static ByteBuffer export(Format format, int flows) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FlowExporter exporter
+      = new FlowExporter.Builder()
+          .format(format)
+          .outputStream(out)
+          .observationDomainId(7)
+          .maxMessageSize(1500)
+          .build();
+    for (int i = 0; i < flows; i++) {
+      byte[] p = ipV4Udp(0xC0A80000 + i, 10000 + i);
+      assertTrue(exporter.addFrame(p, 0, p.length, DataLinkType.RAW, 1000L));
+    }
+    byte[] p6 = ipV6Udp();
+    exporter.addFrame(p6, 0, p6.length, DataLinkType.RAW, 1000L);
+    exporter.close();
+    if (format == Format.NETFLOW_V5) {
+      assertEquals(flows, exporter.getExportedRecordCount());
+      assertEquals(1L, exporter.getDroppedRecordCount());
+    }
+    else {
+      assertEquals(flows + 1, exporter.getExportedRecordCount());
+      assertEquals(0L, exporter.getDroppedRecordCount());
+    }
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  @Test(timeout = 10000L)
+  public void testCloseAfterExporterDied() throws Exception {
+    final CountDownLatch written = new CountDownLatch(1);
+    OutputStream out
+      = new OutputStream() {
+          @Override
+          public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) {
+            written.countDown();
+            throw new IllegalStateException("The exporter thread dies.");
+          }
+        };
+    FlowExporter exporter
+      = new FlowExporter.Builder()
+          .format(Format.NETFLOW_V5)
+          .outputStream(out)
+          .flowTable(new FlowTable.Builder().idleTimeoutMillis(1000L).build())
+          .expiryIntervalMillis(1000L)
+          .queueCapacity(1)
+          .build();
+    byte[] p = ipV4Udp(0xC0A80001, 10000);
+    exporter.addFrame(p, 0, p.length, DataLinkType.RAW, 0L);
+    exporter.expire(10000L);
+    written.await();
+
+    // Fills the queue, which the dead exporter thread never takes from.
+    byte[] q = ipV4Udp(0xC0A80002, 10000);
+    exporter.addFrame(q, 0, q.length, DataLinkType.RAW, 20000L);
+    exporter.expire(30000L);
+    exporter.close();
+    assertEquals(0L, exporter.getExportedRecordCount());
+    assertEquals(1L, exporter.getDroppedRecordCount());
+  }
+
+  @Test
+  public void testNetFlowV5() throws Exception {
+    ByteBuffer bb = export(Format.NETFLOW_V5, 31);
+    assertEquals(5, bb.getShort(0));
+    assertEquals(30, bb.getShort(2));
+    assertEquals(0, bb.getInt(16));
+    assertEquals(7, bb.get(21));
+    int second = 24 + 48 * 30;
+    assertEquals(5, bb.getShort(second));
+    assertEquals(1, bb.getShort(second + 2));
+    assertEquals(30, bb.getInt(second + 16));
+    assertEquals(second + 24 + 48, bb.limit());
+
+    int r = 24;
+    assertEquals(0x0A000001, bb.getInt(r + 4));
+    assertEquals(1, bb.getInt(r + 16));
+    assertEquals(28, bb.getInt(r + 20));
+    assertEquals(53, bb.getShort(r + 34));
+    assertEquals(17, bb.get(r + 38));
+  }
+
+  @Test
+  public void testOfflineTimestamps() throws Exception {
+    // A capture from 2010, over 24 days before now.
+    long t0 = 1262304000000L;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FlowExporter exporter
+      = new FlowExporter.Builder()
+          .format(Format.NETFLOW_V5)
+          .outputStream(out)
+          .build();
+    byte[] p = ipV4Udp(0xC0A80001, 10000);
+    exporter.addFrame(p, 0, p.length, DataLinkType.RAW, t0);
+    byte[] q = ipV4Udp(0xC0A80002, 10000);
+    exporter.addFrame(q, 0, q.length, DataLinkType.RAW, t0 + 3000L);
+    exporter.addFrame(p, 0, p.length, DataLinkType.RAW, t0 + 5000L);
+    exporter.close();
+
+    ByteBuffer bb = ByteBuffer.wrap(out.toByteArray());
+    assertEquals(2, bb.getShort(2));
+    // sysUptime, unix_secs, and unix_nsecs of the header
+    assertEquals(5000, bb.getInt(4));
+    assertEquals((int) ((t0 + 5000L) / 1000L), bb.getInt(8));
+    assertEquals(0, bb.getInt(12));
+    for (int r = 24; r < 24 + 48 * 2; r += 48) {
+      if (bb.getInt(r) == 0xC0A80001) {
+        assertEquals(0, bb.getInt(r + 24));
+        assertEquals(5000, bb.getInt(r + 28));
+      }
+      else {
+        assertEquals(3000, bb.getInt(r + 24));
+        assertEquals(3000, bb.getInt(r + 28));
+      }
+    }
+  }
+
+  @Test
+  public void testNetFlowV9() throws Exception {
+    ByteBuffer bb = export(Format.NETFLOW_V9, 2);
+    assertEquals(9, bb.getShort(0));
+    assertEquals(4, bb.getShort(2));
+    assertEquals(7, bb.getInt(16));
+    // template flowset
+    assertEquals(0, bb.getShort(20));
+    int templateSetLength = bb.getShort(22);
+    assertEquals(4 + (4 + 40) * 2, templateSetLength);
+    assertEquals(256, bb.getShort(24));
+    assertEquals(10, bb.getShort(26));
+    // data flowset
+    int data = 20 + templateSetLength;
+    assertEquals(256, bb.getShort(data));
+    assertEquals(4 + 38 * 2 + 0, bb.getShort(data + 2));
+    assertEquals(28L, bb.getLong(data + 4));
+    assertEquals(1L, bb.getLong(data + 12));
+
+    // IPv6 message without templates
+    int second = data + bb.getShort(data + 2);
+    assertEquals(9, bb.getShort(second));
+    assertEquals(1, bb.getShort(second + 2));
+    assertEquals(1, bb.getInt(second + 12));
+    assertEquals(257, bb.getShort(second + 20));
+  }
+
+  @Test
+  public void testIpfix() throws Exception {
+    ByteBuffer bb = export(Format.IPFIX, 3);
+    assertEquals(10, bb.getShort(0));
+    int length = bb.getShort(2);
+    assertEquals(0, bb.getInt(8));
+    assertEquals(7, bb.getInt(12));
+    assertEquals(2, bb.getShort(16));
+    int data = 16 + bb.getShort(18);
+    assertEquals(256, bb.getShort(data));
+    assertEquals(length, data + bb.getShort(data + 2));
+    // flowStartMilliseconds and flowEndReason (forced end) of the first record
+    assertEquals(1000L, bb.getLong(data + 4 + 30));
+    assertEquals(4, bb.get(data + 4 + 46));
+
+    assertEquals(10, bb.getShort(length));
+    assertEquals(3, bb.getInt(length + 8));
+    assertEquals(257, bb.getShort(length + 16));
+  }
+
+  @Test
+  public void testUdp() throws Exception {
+    DatagramSocket collector = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+    try {
+      collector.setSoTimeout(5000);
+      FlowExporter exporter
+        = new FlowExporter.Builder()
+            .format(Format.NETFLOW_V5)
+            .collector(
+               new InetSocketAddress(InetAddress.getByName("127.0.0.1"), collector.getLocalPort())
+             )
+            .expiryIntervalMillis(100L)
+            .flowTable(new FlowTable.Builder().idleTimeoutMillis(100L).build())
+            .build();
+      byte[] p = ipV4Udp(0xC0A80001, 10000);
+      exporter.addFrame(p, 0, p.length, DataLinkType.RAW, 0L);
+      byte[] q = ipV4Udp(0xC0A80002, 10000);
+      exporter.addFrame(q, 0, q.length, DataLinkType.RAW, 200L);
+
+      DatagramPacket received = new DatagramPacket(new byte[1500], 1500);
+      collector.receive(received);
+      assertEquals(24 + 48, received.getLength());
+      assertEquals(1, ByteBuffer.wrap(received.getData()).getShort(2));
+      exporter.close();
+      collector.receive(received);
+      assertEquals(2L, exporter.getExportedRecordCount());
+    } finally {
+      collector.close();
+    }
+  }
+
+}
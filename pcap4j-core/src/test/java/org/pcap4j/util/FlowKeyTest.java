@@ -0,0 +1,53 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+@SuppressWarnings("javadoc")
+public class FlowKeyTest {
+
+  private static final String TCP
+    = "4500002c12344000400600000a0000010a000002"
+        + "3039005000000064000000005012040000000000";
+  private static final String TCP_REPLY
+    = "4500002c12344000400600000a0000020a000001"
+        + "0050303900000064000000005010040000000000";
+
+  @Test
+  public void testParseFrame() throws Exception {
+    byte[] frame
+      = ByteArrays.parseByteArray(
+          "66778899aabb" + "001122334455" + "88a80064" + "81000065" + "0800" + TCP, ""
+        );
+    FlowKey key = new FlowKey();
+    assertTrue(key.parseFrame(frame, 0, frame.length, DataLinkType.EN10MB));
+    assertEquals(4, key.getVersion());
+    assertEquals(6, key.getProtocol());
+    assertEquals(12345, key.getSrcPort());
+    assertEquals(80, key.getDstPort());
+    assertEquals(0x12, key.getTcpFlags());
+    assertEquals(44L, key.getLength());
+
+    assertFalse(key.parseFrame(frame, 0, 20, DataLinkType.EN10MB));
+    assertFalse(key.parseFrame(frame, 0, frame.length, DataLinkType.FDDI));
+  }
+
+  @Test
+  public void testCanonicalize() throws Exception {
+    byte[] p1 = ByteArrays.parseByteArray(TCP, "");
+    byte[] p2 = ByteArrays.parseByteArray(TCP_REPLY, "");
+    FlowKey key1 = new FlowKey();
+    FlowKey key2 = new FlowKey();
+    assertTrue(key1.parseFrame(p1, 0, p1.length, DataLinkType.RAW));
+    assertTrue(key2.parseIpPacket(p2, 0, p2.length));
+    assertTrue(key1.hash(0L) != key2.hash(0L));
+
+    key1.canonicalize();
+    key2.canonicalize();
+    assertEquals(key1.hash(0L), key2.hash(0L));
+    assertEquals(key1.getSrcPort(), key2.getSrcPort());
+    assertEquals(key1.getDstPort(), key2.getDstPort());
+  }
+
+}
@@ -0,0 +1,164 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.FlowTable.FlowEndReason;
+import org.pcap4j.util.FlowTable.FlowRecord;
+
+@SuppressWarnings("javadoc")
+public class FlowTableTest {
+
+  private FlowTable table;
+
+  @Before
+  public void setUp() {
+    table
+      = new FlowTable.Builder()
+          .capacity(4)
+          .idleTimeoutMillis(1000L)
+          .activeTimeoutMillis(10000L)
+          .build();
+  }
+
+  private static byte[] ipV4Tcp(int src, int srcPort, int dstPort, int flags, int payload) {
+    byte[] p = new byte[40 + payload];
+    p[0] = 0x45;
+    System.arraycopy(ByteArrays.toByteArray((short) p.length), 0, p, 2, 2);
+    p[9] = 6;
+    System.arraycopy(ByteArrays.toByteArray(src), 0, p, 12, 4);
+    System.arraycopy(ByteArrays.toByteArray(0x0A000001), 0, p, 16, 4);
+    System.arraycopy(ByteArrays.toByteArray((short) srcPort), 0, p, 20, 2);
+    System.arraycopy(ByteArrays.toByteArray((short) dstPort), 0, p, 22, 2);
+    p[32] = 0x50;
+    p[33] = (byte) flags;
+    return p;
+  }
+
+  private static byte[] ether(byte[] ip, boolean vlan) {
+    byte[] hdr = new byte[vlan ? 18 : 14];
+    if (vlan) {
+      hdr[12] = (byte) 0x81;
+      hdr[16] = 0x08;
+    }
+    else {
+      hdr[12] = 0x08;
+    }
+    return ByteArrays.concatenate(hdr, ip);
+  }
+
+  @Test
+  public void testAccounting() throws Exception {
+    byte[] p1 = ipV4Tcp(0xC0A80001, 40000, 80, 0x02, 0);
+    byte[] p2 = ipV4Tcp(0xC0A80001, 40000, 80, 0x10, 100);
+    assertTrue(table.addFrame(ether(p1, false), 0, p1.length + 14, DataLinkType.EN10MB, 0L));
+    byte[] f2 = ether(p2, true);
+    assertTrue(table.addFrame(f2, 0, f2.length, DataLinkType.EN10MB, 500L));
+    assertEquals(1, table.size());
+
+    List<FlowRecord> records = table.expire(1000L);
+    assertTrue(records.isEmpty());
+    records = table.expire(1500L);
+    assertEquals(1, records.size());
+    FlowRecord r = records.get(0);
+    assertEquals(4, r.getIpVersion());
+    assertEquals("192.168.0.1", r.getSrcAddr().getHostAddress());
+    assertEquals("10.0.0.1", r.getDstAddr().getHostAddress());
+    assertEquals(40000, r.getSrcPort());
+    assertEquals(80, r.getDstPort());
+    assertEquals(6, r.getProtocol());
+    assertEquals(0x12, r.getTcpFlags());
+    assertEquals(2L, r.getPackets());
+    assertEquals(180L, r.getBytes());
+    assertEquals(0L, r.getFirstSeen());
+    assertEquals(500L, r.getLastSeen());
+    assertEquals(FlowEndReason.IDLE_TIMEOUT, r.getEndReason());
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  public void testIpV6() throws Exception {
+    byte[] p = new byte[48];
+    p[0] = 0x60;
+    p[5] = 8;
+    p[6] = 17;
+    p[23] = 1;
+    p[39] = 2;
+    p[41] = 53;
+    p[43] = 53;
+    assertTrue(table.addIpPacket(p, 0, p.length, 0L));
+    FlowRecord r = table.expireAll().get(0);
+    assertEquals(6, r.getIpVersion());
+    assertEquals("0:0:0:0:0:0:0:1", r.getSrcAddr().getHostAddress());
+    assertEquals(53, r.getSrcPort());
+    assertEquals(17, r.getProtocol());
+    assertEquals(48L, r.getBytes());
+    assertEquals(FlowEndReason.FORCED_END, r.getEndReason());
+  }
+
+  @Test
+  public void testFullAndRemoval() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      byte[] p = ipV4Tcp(0xC0A80000 + i, 1000 + i, 80, i == 1 ? 0x01 : 0x10, 0);
+      assertTrue(table.addIpPacket(p, 0, p.length, i));
+    }
+    byte[] extra = ipV4Tcp(0xC0A800FF, 2000, 80, 0x10, 0);
+    assertFalse(table.addIpPacket(extra, 0, extra.length, 4L));
+    assertEquals(1L, table.getDroppedPacketCount());
+
+    List<FlowRecord> records = table.expire(10L);
+    assertEquals(1, records.size());
+    assertEquals(1001, records.get(0).getSrcPort());
+    assertEquals(FlowEndReason.END_OF_FLOW, records.get(0).getEndReason());
+
+    // the remaining flows must still be found after the removal
+    for (int i = 0; i < 4; i++) {
+      if (i == 1) {
+        continue;
+      }
+      byte[] p = ipV4Tcp(0xC0A80000 + i, 1000 + i, 80, 0x10, 0);
+      assertTrue(table.addIpPacket(p, 0, p.length, 20L));
+    }
+    assertEquals(3, table.size());
+    assertTrue(table.addIpPacket(extra, 0, extra.length, 20L));
+    assertEquals(4, table.size());
+
+    records = table.expire(10000L);
+    assertEquals(4, records.size());
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  public void testActiveTimeout() throws Exception {
+    byte[] p = ipV4Tcp(0xC0A80001, 40000, 80, 0x10, 0);
+    for (long ts = 0; ts <= 10000L; ts += 500L) {
+      table.addIpPacket(p, 0, p.length, ts);
+    }
+    List<FlowRecord> records = table.expire(10000L);
+    assertEquals(1, records.size());
+    assertEquals(FlowEndReason.ACTIVE_TIMEOUT, records.get(0).getEndReason());
+    assertEquals(21L, records.get(0).getPackets());
+  }
+
+  @Test
+  public void testCapacityBounds() throws Exception {
+    int[] invalid = { 0, -1, FlowTable.MAX_CAPACITY + 1, 1 << 28, Integer.MAX_VALUE };
+    for (int capacity: invalid) {
+      try {
+        new FlowTable.Builder().capacity(capacity).build();
+        fail(String.valueOf(capacity));
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+
+    // The largest capacity keeps the key array within an int index.
+    long capacity = FlowTable.MAX_CAPACITY;
+    long slots = Long.highestOneBit(capacity + capacity / 3) << 1;
+    assertTrue(slots * 5 <= Integer.MAX_VALUE);
+    assertEquals(1, new FlowTable.Builder().capacity(1).build().getCapacity());
+  }
+
+}
@@ -0,0 +1,120 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.PacketCodec.Reader;
+import org.pcap4j.util.PacketCodec.Record;
+import org.pcap4j.util.PacketCodec.Writer;
+
+@SuppressWarnings("javadoc")
+public class PacketCodecTest {
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000028abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+        ""
+      );
+
+  private static List<Record> records(int count) {
+    List<Record> records = new ArrayList<Record>();
+    long base = 1500000000123L;
+    for (int i = 0; i < count; i++) {
+      Timestamp ts = new Timestamp(base + i * 3);
+      ts.setNanos(ts.getNanos() + i * 7);
+      records.add(new Record(DataLinkType.EN10MB, ts, FRAME.length, FRAME));
+    }
+    return records;
+  }
+
+  private static void assertRecordEquals(Record expected, Record actual) {
+    assertEquals(expected.getDlt(), actual.getDlt());
+    assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    assertEquals(expected.getOriginalLength(), actual.getOriginalLength());
+    assertArrayEquals(expected.getRawData(), actual.getRawData());
+  }
+
+  @Test
+  public void testByteBuffer() {
+    List<Record> records = records(10);
+    records.add(new Record(DataLinkType.RAW, null, 1500, new byte[] {0x45, 0x00}));
+    Timestamp old = new Timestamp(-1001L);
+    old.setNanos(999999999);
+    records.add(new Record(DataLinkType.EN10MB, old, FRAME.length, FRAME));
+
+    ByteBuffer buf = PacketCodec.encodeBatch(records);
+    assertEquals(PacketCodec.encodedLength(records), buf.remaining());
+    List<Record> decoded = PacketCodec.decodeBatch(buf);
+    assertFalse(buf.hasRemaining());
+    assertEquals(records.size(), decoded.size());
+    for (int i = 0; i < records.size(); i++) {
+      assertRecordEquals(records.get(i), decoded.get(i));
+    }
+    assertEquals(1500, decoded.get(10).getOriginalLength());
+    assertNull(decoded.get(10).getTimestamp());
+    assertArrayEquals(FRAME, decoded.get(0).getPacket().getRawData());
+  }
+
+  @Test
+  public void testMalformedBatch() {
+    ByteBuffer buf = PacketCodec.encodeBatch(records(2));
+    buf.put(4, (byte) 3);
+    try {
+      PacketCodec.decodeBatch(buf);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    List<Record> records = records(100);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new Writer(out, 16, 64 * 1024);
+    for (Record record: records) {
+      writer.write(record);
+    }
+    writer.close();
+
+    Reader reader = new Reader(new ByteArrayInputStream(out.toByteArray()));
+    for (Record record: records) {
+      assertRecordEquals(record, reader.read());
+    }
+    assertNull(reader.read());
+    reader.close();
+
+    // About 4 bytes of overhead per record.
+    assertTrue(out.size() < records.size() * (FRAME.length + 8));
+
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(serialized);
+    for (Record record: records) {
+      oos.writeObject(record.getPacket());
+      oos.writeObject(record.getTimestamp());
+    }
+    oos.close();
+    assertTrue(out.size() < serialized.size());
+  }
+
+  @Test
+  public void testNotAStream() throws Exception {
+    try {
+      new Reader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+      fail();
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,234 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.PacketCodec.Record;
+import org.pcap4j.util.PcapIndex.Block;
+import org.pcap4j.util.PcapIndex.Query;
+
+@SuppressWarnings("javadoc")
+public class PcapIndexTest {
+
+  private static final long BASE_SECONDS = 1500000000L;
+  private static final int PACKETS = 5000;
+
+  private File pcap;
+  private File index;
+  private final List<byte[]> frames = new ArrayList<byte[]>();
+
+  @Before
+  public void setUp() throws Exception {
+    pcap = File.createTempFile("PcapIndexTest", ".pcap");
+    index = File.createTempFile("PcapIndexTest", ".idx");
+
+    DataOutputStream out
+      = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pcap)));
+    try {
+      out.writeInt(0xA1B2C3D4);
+      out.writeShort(2);
+      out.writeShort(4);
+      out.writeInt(0);
+      out.writeInt(0);
+      out.writeInt(65535);
+      out.writeInt(DataLinkType.EN10MB.value());
+      for (int i = 0; i < PACKETS; i++) {
+        // Host 10.0.0.x talks to 192.168.0.1:443 from port 40000 + x, one host at a time.
+        int host = i / 100;
+        byte[] frame = frame(host, 40000 + host, i % 2 == 0);
+        frames.add(frame);
+        out.writeInt((int) (BASE_SECONDS + i / 10));
+        out.writeInt((i % 10) * 100000);
+        out.writeInt(frame.length);
+        out.writeInt(frame.length + 100);
+        out.write(frame);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    pcap.delete();
+    index.delete();
+  }
+
+  private static byte[] frame(int host, int port, boolean outbound) {
+    return frame(new byte[] {10, 0, 0, (byte) host}, port, outbound);
+  }
+
+  private static byte[] frame(byte[] client, int port, boolean outbound) {
+    byte[] frame
+      = ByteArrays.parseByteArray(
+          "001122334455665544332211080045000028abcd400040060000"
+            + "0a0000000a000000c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+          ""
+        );
+    byte[] server = {(byte) 192, (byte) 168, 0, 1};
+    System.arraycopy(outbound ? client : server, 0, frame, 26, 4);
+    System.arraycopy(outbound ? server : client, 0, frame, 30, 4);
+    byte[] clientPort = ByteArrays.toByteArray((short) port);
+    byte[] serverPort = ByteArrays.toByteArray((short) 443);
+    System.arraycopy(outbound ? clientPort : serverPort, 0, frame, 34, 2);
+    System.arraycopy(outbound ? serverPort : clientPort, 0, frame, 36, 2);
+    return frame;
+  }
+
+  private static Timestamp time(long seconds) {
+    return new Timestamp((BASE_SECONDS + seconds) * 1000L);
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    PcapIndex idx = PcapIndex.build(pcap, 100, 1024);
+    assertEquals(DataLinkType.EN10MB, idx.getDlt());
+    assertEquals(PACKETS / 100, idx.getBlocks().size());
+    assertEquals(time(0), idx.getBlocks().get(0).getMinTimestamp());
+
+    Query query
+      = new Query.Builder()
+          .endpoint(InetAddress.getByName("10.0.0.7"), 40007)
+          .port(443)
+          .build();
+    List<Block> blocks = idx.findBlocks(query);
+    assertTrue(String.valueOf(blocks.size()), blocks.size() >= 1 && blocks.size() <= 3);
+    List<Record> records = idx.search(pcap, query);
+    assertEquals(100, records.size());
+    for (int i = 0; i < records.size(); i++) {
+      Record record = records.get(i);
+      assertArrayEquals(frames.get(700 + i), record.getRawData());
+      assertEquals(record.getRawData().length + 100, record.getOriginalLength());
+      Timestamp expected = time(70 + i / 10);
+      expected.setNanos((i % 10) * 100000000);
+      assertEquals(expected, record.getTimestamp());
+    }
+
+    // Time ranges narrow the result further.
+    query
+      = new Query.Builder()
+          .host(InetAddress.getByName("192.168.0.1"))
+          .between(time(100), time(104))
+          .build();
+    records = idx.search(pcap, query);
+    assertEquals(41, records.size());
+    assertArrayEquals(frames.get(1000), records.get(0).getRawData());
+
+    query
+      = new Query.Builder()
+          .flow(
+            6,
+            InetAddress.getByName("192.168.0.1"), 443,
+            InetAddress.getByName("10.0.0.42"), 40042
+          )
+          .build();
+    assertEquals(100, idx.search(pcap, query).size());
+
+    query = new Query.Builder().host(InetAddress.getByName("10.0.0.99")).build();
+    assertEquals(0, idx.findBlocks(query).size());
+    assertEquals(0, idx.search(pcap, query).size());
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    PcapIndex idx = PcapIndex.build(pcap);
+    idx.write(index);
+    PcapIndex read = PcapIndex.read(index);
+    assertEquals(idx.getBlocks().size(), read.getBlocks().size());
+    Query query = new Query.Builder().port(40013).build();
+    assertEquals(idx.search(pcap, query).size(), read.search(pcap, query).size());
+    assertEquals(100, read.search(pcap, query).size());
+  }
+
+  @Test
+  public void testIndexer() throws Exception {
+    PcapIndex.Indexer indexer = new PcapIndex.Indexer(DataLinkType.EN10MB, 100, 1024);
+    long offset = PcapFileReader.GLOBAL_HEADER_LENGTH;
+    for (int i = 0; i < PACKETS; i++) {
+      Timestamp ts = time(i / 10);
+      ts.setNanos((i % 10) * 100000000);
+      indexer.add(offset, frames.get(i), ts);
+      offset += PcapFileReader.RECORD_HEADER_LENGTH + frames.get(i).length;
+    }
+    PcapIndex idx = indexer.finish();
+    Query query = new Query.Builder().host(InetAddress.getByName("10.0.0.3")).build();
+    assertEquals(100, idx.search(pcap, query).size());
+
+    try {
+      indexer.add(0, frames.get(0), time(0));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPruneMultiFlowBlocks() throws Exception {
+    // Every packet is of a different flow, so each block has about 4 * 1024 distinct keys.
+    int blockCount = 4;
+    PcapIndex.Indexer indexer = new PcapIndex.Indexer(DataLinkType.EN10MB);
+    long offset = PcapFileReader.GLOBAL_HEADER_LENGTH;
+    for (int i = 0; i < 1024 * blockCount; i++) {
+      byte[] frame = frame(new byte[] {10, 1, (byte) (i >> 8), (byte) i}, 10000 + i, true);
+      indexer.add(offset, frame, time(i));
+      offset += PcapFileReader.RECORD_HEADER_LENGTH + frame.length;
+    }
+    PcapIndex idx = indexer.finish();
+    assertEquals(blockCount, idx.getBlocks().size());
+
+    int hits = 0;
+    for (int i = 0; i < 1024 * blockCount; i += 7) {
+      Query query
+        = new Query.Builder()
+            .host(InetAddress.getByAddress(new byte[] {10, 1, (byte) (i >> 8), (byte) i}))
+            .build();
+      List<Block> blocks = idx.findBlocks(query);
+      assertTrue(blocks.contains(idx.getBlocks().get(i / 1024)));
+      hits += blocks.size();
+
+      query = new Query.Builder().port(10000 + i).build();
+      blocks = idx.findBlocks(query);
+      assertTrue(blocks.contains(idx.getBlocks().get(i / 1024)));
+      hits += blocks.size();
+    }
+    // Each query should find only the block of its key but for a few false positives.
+    int queries = 2 * ((1024 * blockCount + 6) / 7);
+    assertTrue(String.valueOf(hits), hits < queries * 1.05);
+  }
+
+  @Test
+  public void testBloomBitsFor() {
+    assertEquals(71680, PcapIndex.bloomBitsFor(1024));
+    assertEquals(128, PcapIndex.bloomBitsFor(1));
+    try {
+      PcapIndex.bloomBitsFor(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      PcapIndex.bloomBitsFor(Integer.MAX_VALUE);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotAPcap() throws Exception {
+    PcapIndex.build(index);
+  }
+
+}
@@ -0,0 +1,226 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Rfc791Tos;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.UnknownPacket;
+import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.namednumber.IpVersion;
+import org.pcap4j.packet.namednumber.TcpPort;
+import org.pcap4j.util.TcpStreamReassembler.CloseReason;
+import org.pcap4j.util.TcpStreamReassembler.StreamListener;
+import org.pcap4j.util.TcpStreamReassembler.StreamListenerFactory;
+
+@SuppressWarnings("javadoc")
+public class TcpStreamReassemblerTest {
+
+  private Inet4Address client;
+  private Inet4Address server;
+  private short clientPort = (short) 40000;
+  private List<Recorder> recorders;
+  private TcpStreamReassembler reassembler;
+
+  @Before
+  public void setUp() throws Exception {
+    client = (Inet4Address) InetAddress.getByName("192.168.0.1");
+    server = (Inet4Address) InetAddress.getByName("192.168.0.2");
+    recorders = new ArrayList<Recorder>();
+    reassembler = newReassembler(new TcpStreamReassembler.Builder());
+  }
+
+  private TcpStreamReassembler newReassembler(TcpStreamReassembler.Builder builder) {
+    return builder
+             .listenerFactory(
+                new StreamListenerFactory() {
+                  @Override
+                  public StreamListener newStreamListener(
+                    InetAddress srcAddr, int srcPort, InetAddress dstAddr, int dstPort
+                  ) {
+                    Recorder r = new Recorder(srcPort);
+                    recorders.add(r);
+                    return r;
+                  }
+                }
+              )
+             .build();
+  }
+
+  private Packet segment(
+    boolean fromClient, int seq, boolean syn, boolean ack, boolean fin, boolean rst, String data
+  ) {
+    TcpPacket.Builder tcpb = new TcpPacket.Builder();
+    tcpb.srcPort(TcpPort.getInstance(fromClient ? clientPort : (short) 80))
+        .dstPort(TcpPort.getInstance(fromClient ? (short) 80 : clientPort))
+        .sequenceNumber(seq)
+        .dataOffset((byte) 5)
+        .syn(syn)
+        .ack(ack)
+        .fin(fin)
+        .rst(rst);
+    if (data != null) {
+      tcpb.payloadBuilder(new UnknownPacket.Builder().rawData(data.getBytes()));
+    }
+
+    IpV4Packet.Builder ipb = new IpV4Packet.Builder();
+    ipb.version(IpVersion.IPV4)
+       .tos(IpV4Rfc791Tos.newInstance((byte) 0))
+       .protocol(IpNumber.TCP)
+       .srcAddr(fromClient ? client : server)
+       .dstAddr(fromClient ? server : client)
+       .payloadBuilder(tcpb)
+       .correctLengthAtBuild(true);
+    return ipb.build();
+  }
+
+  private Recorder recorder(int srcPort) {
+    for (Recorder r: recorders) {
+      if (r.srcPort == srcPort) {
+        return r;
+      }
+    }
+    throw new AssertionError("No recorder for " + srcPort);
+  }
+
+  @Test
+  public void testInOrderAndOutOfOrder() throws Exception {
+    Timestamp ts = new Timestamp(1000L);
+    assertTrue(reassembler.addPacket(segment(true, 99, true, false, false, false, null), ts));
+    reassembler.addPacket(segment(false, 499, true, true, false, false, null), ts);
+    reassembler.addPacket(segment(true, 100, false, true, false, false, "GET "), ts);
+    // out of order
+    reassembler.addPacket(segment(true, 108, false, true, false, false, "HTTP"), ts);
+    assertEquals(4L, reassembler.getBufferedBytes());
+    reassembler.addPacket(segment(true, 104, false, true, false, false, "/ab "), ts);
+    assertEquals(0L, reassembler.getBufferedBytes());
+    // retransmission overlapping delivered data
+    reassembler.addPacket(segment(true, 106, false, true, false, false, "b HTTP/1.0"), ts);
+    reassembler.addPacket(segment(false, 500, false, true, false, false, "200 OK"), ts);
+
+    assertEquals("GET /ab HTTP/1.0", recorder(40000).data.toString("US-ASCII"));
+    assertEquals("200 OK", recorder(80).data.toString("US-ASCII"));
+    assertEquals(1, reassembler.getConnectionCount());
+  }
+
+  @Test
+  public void testFinAndRst() throws Exception {
+    Timestamp ts = new Timestamp(1000L);
+    reassembler.addPacket(segment(true, 0, true, false, false, false, null), ts);
+    reassembler.addPacket(segment(false, 0, true, true, false, false, null), ts);
+    reassembler.addPacket(segment(true, 1, false, true, true, false, "bye"), ts);
+    assertEquals(CloseReason.FIN, recorder(40000).reason);
+    assertNull(recorder(80).reason);
+    reassembler.addPacket(segment(false, 1, false, true, true, false, null), ts);
+    assertEquals(CloseReason.FIN, recorder(80).reason);
+    assertEquals(0, reassembler.getConnectionCount());
+
+    reassembler.addPacket(segment(true, 10, false, true, false, false, "x"), ts);
+    assertEquals(1, reassembler.getConnectionCount());
+    reassembler.addPacket(segment(false, 10, false, true, false, true, null), ts);
+    assertEquals(0, reassembler.getConnectionCount());
+    assertEquals(CloseReason.RST, recorders.get(2).reason);
+  }
+
+  @Test
+  public void testGapAndTimeout() throws Exception {
+    reassembler
+      = newReassembler(
+          new TcpStreamReassembler.Builder()
+            .maxBufferedBytesPerStream(8)
+            .idleTimeoutMillis(5000L)
+        );
+    reassembler.addPacket(segment(true, 0, true, false, false, false, null), new Timestamp(0L));
+    reassembler.addPacket(segment(true, 11, false, true, false, false, "12345"), new Timestamp(1L));
+    reassembler.addPacket(segment(true, 16, false, true, false, false, "6789"), new Timestamp(2L));
+    Recorder r = recorder(40000);
+    assertEquals(10, r.gap);
+    assertEquals("123456789", r.data.toString("US-ASCII"));
+
+    reassembler.addPacket(segment(true, 30, false, true, false, false, "z"), new Timestamp(3L));
+    assertEquals(1L, reassembler.getBufferedBytes());
+    assertEquals(1, reassembler.expire(10000L));
+    assertEquals(CloseReason.TIMEOUT, r.reason);
+    assertEquals(0L, reassembler.getBufferedBytes());
+    assertEquals("123456789z", r.data.toString("US-ASCII"));
+  }
+
+  @Test
+  public void testAutomaticTimeout() throws Exception {
+    reassembler
+      = newReassembler(new TcpStreamReassembler.Builder().idleTimeoutMillis(5000L));
+    long base = 1500000000000L;
+    reassembler.addPacket(segment(true, 0, true, false, false, false, null), new Timestamp(base));
+    assertEquals(1, reassembler.getConnectionCount());
+
+    // Another connection, past the check interval but within the idle timeout.
+    clientPort = (short) 40001;
+    reassembler.addPacket(
+      segment(true, 0, true, false, false, false, null), new Timestamp(base + 2000L)
+    );
+    assertEquals(2, reassembler.getConnectionCount());
+    assertNull(recorder(40000).reason);
+
+    // Past the idle timeout of the first connection only.
+    clientPort = (short) 40002;
+    reassembler.addPacket(
+      segment(true, 0, true, false, false, false, null), new Timestamp(base + 6000L)
+    );
+    assertEquals(2, reassembler.getConnectionCount());
+    assertEquals(CloseReason.TIMEOUT, recorder(40000).reason);
+    assertNull(recorder(40001).reason);
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    reassembler = newReassembler(new TcpStreamReassembler.Builder().maxConnections(1));
+    reassembler.addPacket(segment(true, 0, true, false, false, false, null), new Timestamp(0L));
+    clientPort = (short) 40001;
+    reassembler.addPacket(segment(true, 0, true, false, false, false, null), new Timestamp(1L));
+    assertEquals(1, reassembler.getConnectionCount());
+    assertEquals(4, recorders.size());
+    assertEquals(CloseReason.EVICTED, recorders.get(0).reason);
+    assertNull(recorders.get(2).reason);
+  }
+
+  private static final class Recorder implements StreamListener {
+
+    private final int srcPort;
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private int gap = 0;
+    private CloseReason reason;
+
+    private Recorder(int srcPort) {
+      this.srcPort = srcPort;
+    }
+
+    @Override
+    public void gotData(ByteBuffer d) {
+      byte[] bytes = new byte[d.remaining()];
+      d.get(bytes);
+      data.write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void gotGap(int length) {
+      gap += length;
+    }
+
+    @Override
+    public void closed(CloseReason reason) {
+      assertNull(this.reason);
+      this.reason = reason;
+    }
+
+  }
+
+}
@@ -0,0 +1,743 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.packet.factory.generator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.pcap4j.packet.IllegalRawDataException;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.packet.namednumber.NamedNumber;
+
+/**
+ * Generates the Java sources of switch-based PacketFactory implementations and
+ * a PacketFactoryBinder from packet-factory.properties.
+ * <p>
+ * The generated factories dispatch on the value of a NamedNumber with a switch statement and
+ * call the static factory methods (e.g. newPacket(byte[], int, int)) of the configured classes
+ * directly, so that they need neither reflection nor properties at run time.
+ * They follow the rules of {@link org.pcap4j.packet.factory.PacketFactoryPropertiesLoader}:
+ * a value without a mapping is handed to the class for unknownNumber, and an EtherType not
+ * greater than {@link EtherType#IEEE802_3_MAX_LENGTH} to the class for LLC.
+ * Values in the keys must be in decimal or hexadecimal (0x) notation.
+ * </p>
+ * <p>
+ * Usage: java PacketFactorySourceGenerator &lt;outputDir&gt; [&lt;propertiesFile&gt; ...]<br>
+ * The packet-factory.properties of pcap4j-packetfactory-propertiesbased is read first,
+ * and then the given files, each of which overrides the entries of the preceding ones.
+ * The classes the properties refer to must be in the class path of the generator.
+ * </p>
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+public final class PacketFactorySourceGenerator {
+
+  private static final String PACKAGE_NAME = "org.pcap4j.packet.factory";
+  private static final String DEFAULT_PROPERTIES_PATH
+    = PACKAGE_NAME.replace('.', '/') + "/packet-factory.properties";
+  private static final String CLASS_FOR = ".classFor.";
+  private static final String CLASSIFIED_BY = ".classifiedBy.";
+  private static final String IS_MADE_BY = ".isMadeBy";
+  private static final String CLASS = ".class";
+  private static final String UNKNOWN_NUMBER = "unknownNumber";
+  private static final String LLC = "LLC";
+  private static final String UNKNOWN_PACKET_FACTORY = "GeneratedUnknownPacketFactory";
+  private static final String BINDER = "PacketFactoryBinder";
+
+  private final ClassLoader classLoader;
+
+  // (target class, number class) -> (value -> class)
+  private final Map<String, Map<String, Map<String, String>>> classes
+    = new TreeMap<String, Map<String, Map<String, String>>>();
+  private final Map<String, String> unknownClasses = new TreeMap<String, String>();
+  private final Map<String, String> singleClasses = new TreeMap<String, String>();
+
+  /**
+   *
+   * @param properties properties
+   * @param classLoader the class loader to load the classes the properties refer to.
+   */
+  public PacketFactorySourceGenerator(Properties properties, ClassLoader classLoader) {
+    if (properties == null || classLoader == null) {
+      StringBuilder sb = new StringBuilder(60);
+      sb.append("properties: ")
+        .append(properties)
+        .append(" classLoader: ")
+        .append(classLoader);
+      throw new NullPointerException(sb.toString());
+    }
+
+    this.classLoader = classLoader;
+    for (String key: properties.stringPropertyNames()) {
+      String value = properties.getProperty(key).trim();
+      if (key.endsWith(IS_MADE_BY)) {
+        int idx = key.indexOf(CLASSIFIED_BY);
+        if (idx >= 0) {
+          getClasses(
+            key.substring(0, idx),
+            key.substring(idx + CLASSIFIED_BY.length(), key.length() - IS_MADE_BY.length())
+          );
+        }
+        continue;
+      }
+
+      int idx = key.indexOf(CLASS_FOR);
+      if (idx >= 0) {
+        String target = key.substring(0, idx);
+        String rest = key.substring(idx + CLASS_FOR.length());
+        if (rest.equals(UNKNOWN_NUMBER)) {
+          unknownClasses.put(target, value);
+        }
+        else {
+          int lastDot = rest.lastIndexOf('.');
+          getClasses(target, rest.substring(0, lastDot)).put(rest.substring(lastDot + 1), value);
+        }
+      }
+      else if (key.endsWith(CLASS)) {
+        singleClasses.put(key.substring(0, key.length() - CLASS.length()), value);
+      }
+    }
+  }
+
+  private Map<String, String> getClasses(String target, String numberClass) {
+    Map<String, Map<String, String>> byNumberClass = classes.get(target);
+    if (byNumberClass == null) {
+      byNumberClass = new TreeMap<String, Map<String, String>>();
+      classes.put(target, byNumberClass);
+    }
+    Map<String, String> byValue = byNumberClass.get(numberClass);
+    if (byValue == null) {
+      byValue = new TreeMap<String, String>();
+      byNumberClass.put(numberClass, byValue);
+    }
+    return byValue;
+  }
+
+  /**
+   * Generates the sources.
+   *
+   * @return a map from simple class names to the sources of the generated classes,
+   *         all of which are in the package org.pcap4j.packet.factory.
+   * @throws IllegalArgumentException if the properties are inconsistent or refer to
+   *                                  classes or methods which don't exist.
+   */
+  public Map<String, String> generate() {
+    Map<String, String> sources = new TreeMap<String, String>();
+    StringBuilder bindings = new StringBuilder();
+
+    for (Map.Entry<String, Map<String, Map<String, String>>> e: classes.entrySet()) {
+      String target = e.getKey();
+      boolean isPacket = target.equals(Packet.class.getName());
+      if (!isPacket && e.getValue().size() != 1) {
+        throw new IllegalArgumentException(target + " is classified by more than one class.");
+      }
+
+      for (Map.Entry<String, Map<String, String>> byNumberClass: e.getValue().entrySet()) {
+        String numberClass = byNumberClass.getKey();
+        String name
+          = isPacket
+            ? "Generated" + getSimpleName(numberClass) + "PacketFactory"
+            : "Generated" + getSimpleName(target) + "Factory";
+        put(
+          sources,
+          name,
+          generateNumberedFactory(name, target, numberClass, byNumberClass.getValue())
+        );
+        bindings.append("    ")
+          .append(isPacket ? "packetFactories" : "packetPieceFactories")
+          .append(".put(")
+          .append(toSourceName(isPacket ? numberClass : target))
+          .append(".class, ")
+          .append(name)
+          .append(".getInstance());\n");
+      }
+    }
+
+    put(
+      sources,
+      UNKNOWN_PACKET_FACTORY,
+      generateNumberedFactory(
+        UNKNOWN_PACKET_FACTORY,
+        Packet.class.getName(),
+        NamedNumber.class.getName(),
+        new TreeMap<String, String>()
+      )
+    );
+
+    for (Map.Entry<String, String> e: singleClasses.entrySet()) {
+      String target = e.getKey();
+      String name = "Generated" + getSimpleName(target) + "Factory";
+      put(sources, name, generateSingleFactory(name, target, e.getValue()));
+      bindings.append("    packetPieceFactories.put(")
+        .append(toSourceName(target))
+        .append(".class, ")
+        .append(name)
+        .append(".getInstance());\n");
+    }
+
+    put(sources, BINDER, generateBinder(bindings.toString()));
+    return sources;
+  }
+
+  private static void put(Map<String, String> sources, String name, String source) {
+    if (sources.containsKey(name)) {
+      throw new IllegalArgumentException("Duplicate class name: " + name);
+    }
+    sources.put(name, source);
+  }
+
+  private String generateNumberedFactory(
+    String name, String target, String numberClass, Map<String, String> byValue
+  ) {
+    boolean isPacket = target.equals(Packet.class.getName());
+    boolean isUnknownFactory = name.equals(UNKNOWN_PACKET_FACTORY);
+    String factoryMethod = isPacket ? "newPacket" : "newInstance";
+    String targetType = toSourceName(target);
+    String numberType
+      = isUnknownFactory ? "NamedNumber<?, ?>" : toSourceName(numberClass);
+    // The defaults are the same as those of PacketFactoryPropertiesLoader.
+    String packageName = target.substring(0, target.lastIndexOf('.') + 1);
+    String unknownClass = unknownClasses.get(target);
+    if (unknownClass == null) {
+      unknownClass = packageName + "Unknown" + getSimpleName(target);
+    }
+    String illegalClass = packageName + "Illegal" + getSimpleName(target);
+
+    boolean anyThrows = throwsIllegalRawData(getFactoryMethod(unknownClass, factoryMethod));
+    getFactoryMethod(illegalClass, factoryMethod);
+
+    // case label -> class
+    Map<String, String> cases = new TreeMap<String, String>();
+    String llcClass = null;
+    boolean isEtherType = numberClass.equals(EtherType.class.getName());
+    if (isEtherType) {
+      llcClass = unknownClass;
+    }
+    if (!byValue.isEmpty()) {
+      Class<?> valueType = getValueType(numberClass);
+      for (Map.Entry<String, String> e: byValue.entrySet()) {
+        String clazz = e.getValue();
+        anyThrows |= throwsIllegalRawData(getFactoryMethod(clazz, factoryMethod));
+        if (e.getKey().equals(LLC) && isEtherType) {
+          llcClass = clazz;
+          continue;
+        }
+
+        String label = toCaseLabel(e.getKey(), valueType, numberClass);
+        String old = cases.put(label, clazz);
+        if (old != null && !old.equals(clazz)) {
+          StringBuilder sb = new StringBuilder(120);
+          sb.append("Conflicting classes for ")
+            .append(numberClass)
+            .append(" ")
+            .append(label)
+            .append(": ")
+            .append(old)
+            .append(", ")
+            .append(clazz);
+          throw new IllegalArgumentException(sb.toString());
+        }
+      }
+    }
+
+    SourceBuilder sb = new SourceBuilder();
+    sb.header(isUnknownFactory ? "import org.pcap4j.packet.namednumber.NamedNumber;" : null);
+    sb.line("public final class " + name)
+      .line("implements PacketFactory<" + targetType + ", " + numberType + "> {")
+      .singleton(name);
+
+    sb.line("  @Override")
+      .line("  public " + targetType + " newInstance(")
+      .line("    byte[] rawData, int offset, int length, " + numberType + " number")
+      .line("  ) {")
+      .line("    if (rawData == null || number == null) {")
+      .line("      StringBuilder sb = new StringBuilder(40);")
+      .line("      sb.append(\"rawData: \")")
+      .line("        .append(rawData)")
+      .line("        .append(\" number: \")")
+      .line("        .append(number);")
+      .line("      throw new NullPointerException(sb.toString());")
+      .line("    }")
+      .line("");
+    if (cases.isEmpty() && llcClass == null) {
+      sb.line("    return newInstance(rawData, offset, length);");
+    }
+    else {
+      if (isPacket) {
+        // Honor the DecodeDepth like the static factories do.
+        sb.line("    if (!DecodeDepth.isLimited()) {")
+          .line("      return doNewInstance(rawData, offset, length, number);")
+          .line("    }")
+          .line("")
+          .line("    Class<? extends " + targetType + "> targetClass = getTargetClass(number);")
+          .line("    if (!DecodeDepth.isDecoded(targetClass)) {")
+          .line("      return org.pcap4j.packet.UnknownPacket.newPacket(rawData, offset, length);")
+          .line("    }")
+          .line("    boolean outer = DecodeDepth.enter(targetClass);")
+          .line("    try {")
+          .line("      return doNewInstance(rawData, offset, length, number);")
+          .line("    } finally {")
+          .line("      DecodeDepth.exit(outer);")
+          .line("    }")
+          .line("  }")
+          .line("")
+          .line("  private " + targetType + " doNewInstance(")
+          .line("    byte[] rawData, int offset, int length, " + numberType + " number")
+          .line("  ) {");
+      }
+      String indent = anyThrows ? "      " : "    ";
+      if (anyThrows) {
+        sb.line("    try {");
+      }
+      if (llcClass != null) {
+        sb.line(indent + "if ((number.value() & 0xFFFF) <= "
+                  + EtherType.class.getName() + ".IEEE802_3_MAX_LENGTH) {")
+          .line(indent + "  return " + invocation(llcClass, factoryMethod) + ";")
+          .line(indent + "}");
+      }
+      sb.line(indent + "switch (number.value()) {");
+      for (Map.Entry<String, String> e: cases.entrySet()) {
+        sb.line(indent + "  case " + e.getKey() + ":")
+          .line(indent + "    return " + invocation(e.getValue(), factoryMethod) + ";");
+      }
+      sb.line(indent + "  default:")
+        .line(indent + "    return " + invocation(unknownClass, factoryMethod) + ";")
+        .line(indent + "}");
+      if (anyThrows) {
+        sb.line("    } catch (IllegalRawDataException e) {")
+          .line("      return " + invocation(illegalClass, factoryMethod) + ";")
+          .line("    }");
+      }
+    }
+    sb.line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line("  public " + targetType + " newInstance(byte[] rawData, int offset, int length) {");
+    if (throwsIllegalRawData(getFactoryMethod(unknownClass, factoryMethod))) {
+      sb.line("    try {")
+        .line("      return " + invocation(unknownClass, factoryMethod) + ";")
+        .line("    } catch (IllegalRawDataException e) {")
+        .line("      return " + invocation(illegalClass, factoryMethod) + ";")
+        .line("    }");
+    }
+    else {
+      sb.line("    return " + invocation(unknownClass, factoryMethod) + ";");
+    }
+    sb.line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line(
+         "  public Class<? extends " + targetType + "> getTargetClass("
+           + numberType + " number) {"
+       )
+      .line("    if (number == null) {")
+      .line("      throw new NullPointerException(\"number must not be null.\");")
+      .line("    }");
+    if (llcClass != null) {
+      sb.line("    if ((number.value() & 0xFFFF) <= "
+                + EtherType.class.getName() + ".IEEE802_3_MAX_LENGTH) {")
+        .line("      return " + toSourceName(llcClass) + ".class;")
+        .line("    }");
+    }
+    if (cases.isEmpty()) {
+      sb.line("    return getTargetClass();");
+    }
+    else {
+      sb.line("    switch (number.value()) {");
+      for (Map.Entry<String, String> e: cases.entrySet()) {
+        sb.line("      case " + e.getKey() + ":")
+          .line("        return " + toSourceName(e.getValue()) + ".class;");
+      }
+      sb.line("      default:")
+        .line("        return getTargetClass();")
+        .line("    }");
+    }
+    sb.line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line("  public Class<? extends " + targetType + "> getTargetClass() {")
+      .line("    return " + toSourceName(unknownClass) + ".class;")
+      .line("  }")
+      .line("")
+      .line("}");
+
+    if (!anyThrows) {
+      return sb.toString().replace(
+               "import org.pcap4j.packet.IllegalRawDataException;\n", ""
+             );
+    }
+    return sb.toString();
+  }
+
+  private String generateSingleFactory(String name, String target, String clazz) {
+    String targetType = toSourceName(target);
+    String numberType = "org.pcap4j.packet.namednumber.NotApplicable";
+    Method method;
+    String argument;
+    try {
+      method = loadClass(clazz).getMethod("newInstance", byte.class);
+      argument = "rawData[offset]";
+    } catch (NoSuchMethodException e) {
+      method = getFactoryMethod(clazz, "newInstance", int.class);
+      argument = "ByteArrays.getInt(rawData, offset)";
+    }
+    boolean isInt = method.getParameterTypes()[0] == int.class;
+
+    SourceBuilder sb = new SourceBuilder();
+    sb.header("import org.pcap4j.util.ByteArrays;");
+    sb.line("public final class " + name)
+      .line("implements PacketFactory<" + targetType + ", " + numberType + "> {")
+      .singleton(name);
+
+    sb.line("  @Override")
+      .line("  @Deprecated")
+      .line("  public " + targetType + " newInstance(")
+      .line("    byte[] rawData, int offset, int length, " + numberType + " number")
+      .line("  ) {")
+      .line("    return newInstance(rawData, offset, length);")
+      .line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line("  public " + targetType + " newInstance(byte[] rawData, int offset, int length) {")
+      .line("    ByteArrays.validateBounds(rawData, offset, length);");
+    if (isInt) {
+      sb.line("    if (length < ByteArrays.INT_SIZE_IN_BYTES) {")
+        .line("      StringBuilder sb = new StringBuilder(100);")
+        .line("      sb.append(\"rawData is too short: \")")
+        .line("        .append(IllegalRawDataException.toHexString(rawData))")
+        .line("        .append(\", offset: \")")
+        .line("        .append(offset)")
+        .line("        .append(\", length: \")")
+        .line("        .append(length);")
+        .line("      throw new IllegalArgumentException(sb.toString());")
+        .line("    }")
+        .line("");
+    }
+    String call = toSourceName(clazz) + ".newInstance(" + argument + ")";
+    if (throwsIllegalRawData(method)) {
+      sb.line("    try {")
+        .line("      return " + call + ";")
+        .line("    } catch (IllegalRawDataException e) {")
+        .line("      throw new IllegalArgumentException(e);")
+        .line("    }");
+    }
+    else {
+      sb.line("    return " + call + ";");
+    }
+    sb.line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line("  @Deprecated")
+      .line(
+         "  public Class<? extends " + targetType + "> getTargetClass("
+           + numberType + " number) {"
+       )
+      .line("    return getTargetClass();")
+      .line("  }")
+      .line("");
+
+    sb.line("  @Override")
+      .line("  public Class<? extends " + targetType + "> getTargetClass() {")
+      .line("    return " + toSourceName(clazz) + ".class;")
+      .line("  }")
+      .line("")
+      .line("}");
+
+    if (!isInt && !throwsIllegalRawData(method)) {
+      return sb.toString().replace(
+               "import org.pcap4j.packet.IllegalRawDataException;\n", ""
+             );
+    }
+    return sb.toString();
+  }
+
+  private String generateBinder(String bindings) {
+    SourceBuilder sb = new SourceBuilder();
+    sb.line("/*_##########################################################################")
+      .line("  _##")
+      .line("  _##  Copyright (C) 2017  Pcap4J.org")
+      .line("  _##")
+      .line("  _##########################################################################")
+      .line("*/")
+      .line("")
+      .line("package " + PACKAGE_NAME + ";")
+      .line("")
+      .line("import java.util.HashMap;")
+      .line("import java.util.Map;")
+      .line("import org.pcap4j.packet.Packet;")
+      .line("import org.pcap4j.packet.namednumber.NamedNumber;")
+      .line("")
+      .line("/**")
+      .line(" * Generated by " + PacketFactorySourceGenerator.class.getName() + ".")
+      .line(" * Don't edit.")
+      .line(" */")
+      .line("final class " + BINDER + " {")
+      .line("")
+      .line("  private static final " + BINDER + " INSTANCE = new " + BINDER + "();")
+      .line("")
+      .line(
+         "  private final Map<Class<? extends NamedNumber<?, ?>>, PacketFactory<?, ?>>"
+           + " packetFactories"
+       )
+      .line("    = new HashMap<Class<? extends NamedNumber<?, ?>>, PacketFactory<?, ?>>();")
+      .line("  private final Map<Class<?>, PacketFactory<?, ?>> packetPieceFactories")
+      .line("    = new HashMap<Class<?>, PacketFactory<?, ?>>();")
+      .line("")
+      .line("  private " + BINDER + "() {");
+    sb.raw(bindings);
+    sb.line("  }")
+      .line("")
+      .line("  public static " + BINDER + " getInstance() { return INSTANCE; }")
+      .line("")
+      .line("  @SuppressWarnings(\"unchecked\")")
+      .line("  public <T, N extends NamedNumber<?, ?>> PacketFactory<T, N> getPacketFactory(")
+      .line("    Class<T> targetClass, Class<N> numberClass")
+      .line("  ) {")
+      .line("    if (Packet.class.isAssignableFrom(targetClass)) {")
+      .line(
+         "      PacketFactory<T, N> factory"
+           + " = (PacketFactory<T, N>) packetFactories.get(numberClass);"
+       )
+      .line("      if (factory != null) {")
+      .line("        return factory;")
+      .line("      }")
+      .line("      else {")
+      .line("        return (PacketFactory<T, N>) " + UNKNOWN_PACKET_FACTORY + ".getInstance();")
+      .line("      }")
+      .line("    }")
+      .line("    return (PacketFactory<T, N>) packetPieceFactories.get(targetClass);")
+      .line("  }")
+      .line("")
+      .line("}");
+    return sb.toString();
+  }
+
+  private Class<?> loadClass(String className) {
+    try {
+      return Class.forName(className, false, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Class not found: " + className, e);
+    }
+  }
+
+  private Method getFactoryMethod(String className, String methodName) {
+    return getFactoryMethod(className, methodName, byte[].class, int.class, int.class);
+  }
+
+  private Method getFactoryMethod(
+    String className, String methodName, Class<?>... parameterTypes
+  ) {
+    Method method;
+    try {
+      method = loadClass(className).getMethod(methodName, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(e);
+    }
+    if (!Modifier.isStatic(method.getModifiers())) {
+      throw new IllegalArgumentException(method + " is not static.");
+    }
+    return method;
+  }
+
+  private static boolean throwsIllegalRawData(Method method) {
+    for (Class<?> exceptionType: method.getExceptionTypes()) {
+      if (exceptionType.isAssignableFrom(IllegalRawDataException.class)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Class<?> getValueType(String numberClass) {
+    Class<?> clazz = loadClass(numberClass);
+    while (clazz != null && clazz != Object.class) {
+      Type superclass = clazz.getGenericSuperclass();
+      if (
+           superclass instanceof ParameterizedType
+        && ((ParameterizedType) superclass).getRawType() == NamedNumber.class
+      ) {
+        Type type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+        if (type == Byte.class || type == Short.class || type == Integer.class) {
+          return (Class<?>) type;
+        }
+        break;
+      }
+      clazz = clazz.getSuperclass();
+    }
+    throw new IllegalArgumentException(
+            numberClass + " is not a NamedNumber of Byte, Short, or Integer."
+          );
+  }
+
+  private static String toCaseLabel(String value, Class<?> valueType, String numberClass) {
+    long v;
+    try {
+      v = Long.decode(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+              "Invalid value for " + numberClass + ": " + value, e
+            );
+    }
+    if (valueType == Byte.class) {
+      return String.format("(byte) 0x%02X", v & 0xFFL);
+    }
+    else if (valueType == Short.class) {
+      return String.format("(short) 0x%04X", v & 0xFFFFL);
+    }
+    else {
+      return String.format("0x%08X", v & 0xFFFFFFFFL);
+    }
+  }
+
+  private static String invocation(String className, String methodName) {
+    return toSourceName(className) + "." + methodName + "(rawData, offset, length)";
+  }
+
+  private static String toSourceName(String binaryName) {
+    return binaryName.replace('$', '.');
+  }
+
+  private static String getSimpleName(String binaryName) {
+    return binaryName.substring(
+             Math.max(binaryName.lastIndexOf('.'), binaryName.lastIndexOf('$')) + 1
+           );
+  }
+
+  private static final class SourceBuilder {
+
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    SourceBuilder line(String line) {
+      sb.append(line).append('\n');
+      return this;
+    }
+
+    SourceBuilder raw(String lines) {
+      sb.append(lines);
+      return this;
+    }
+
+    SourceBuilder header(String extraImport) {
+      line("/*_##########################################################################")
+        .line("  _##")
+        .line("  _##  Copyright (C) 2017  Pcap4J.org")
+        .line("  _##")
+        .line("  _##########################################################################")
+        .line("*/")
+        .line("")
+        .line("package " + PACKAGE_NAME + ";")
+        .line("")
+        .line("import org.pcap4j.packet.IllegalRawDataException;");
+      if (extraImport != null) {
+        line(extraImport);
+      }
+      return line("")
+        .line("/**")
+        .line(" * Generated by " + PacketFactorySourceGenerator.class.getName() + ".")
+        .line(" * Don't edit.")
+        .line(" */");
+    }
+
+    SourceBuilder singleton(String name) {
+      return line("")
+        .line("  private static final " + name + " INSTANCE")
+        .line("    = new " + name + "();")
+        .line("")
+        .line("  private " + name + "() {}")
+        .line("")
+        .line("  /**")
+        .line("   *")
+        .line("   * @return the singleton instance of " + name + ".")
+        .line("   */")
+        .line("  public static " + name + " getInstance() {")
+        .line("    return INSTANCE;")
+        .line("  }")
+        .line("");
+    }
+
+    @Override
+    public String toString() {
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   *
+   * @param args &lt;outputDir&gt; [&lt;propertiesFile&gt; ...]
+   * @throws IOException if an I/O error occurs.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println(
+        "Usage: java " + PacketFactorySourceGenerator.class.getName()
+          + " <outputDir> [<propertiesFile> ...]"
+      );
+      System.exit(1);
+    }
+
+    ClassLoader classLoader = PacketFactorySourceGenerator.class.getClassLoader();
+    Properties properties = new Properties();
+    InputStream in = classLoader.getResourceAsStream(DEFAULT_PROPERTIES_PATH);
+    if (in == null) {
+      throw new IOException("Not found: " + DEFAULT_PROPERTIES_PATH);
+    }
+    try {
+      properties.load(in);
+    } finally {
+      in.close();
+    }
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].trim().length() == 0) {
+        continue;
+      }
+      in = new FileInputStream(args[i].trim());
+      try {
+        properties.load(in);
+      } finally {
+        in.close();
+      }
+    }
+
+    File dir = new File(args[0], PACKAGE_NAME.replace('.', File.separatorChar));
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Couldn't create " + dir);
+    }
+    Map<String, String> sources
+      = new PacketFactorySourceGenerator(properties, classLoader).generate();
+    for (Map.Entry<String, String> e: sources.entrySet()) {
+      File file = new File(dir, e.getKey() + ".java");
+      Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+      try {
+        writer.write(e.getValue());
+      } finally {
+        writer.close();
+      }
+    }
+    System.out.println("Generated " + sources.size() + " classes in " + dir);
+  }
+
+}
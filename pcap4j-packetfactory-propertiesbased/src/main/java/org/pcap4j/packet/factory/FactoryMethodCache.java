@@ -0,0 +1,55 @@
+/*_##########################################################################
+  _##
+  _##  Copyright (C) 2017  Pcap4J.org
+  _##
+  _##########################################################################
+*/
+
+package org.pcap4j.packet.factory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches public static factory methods (e.g. newPacket(byte[], int, int)) by class
+ * so that they aren't looked up by reflection for each packet.
+ * Lookups don't take a lock.
+ *
+ * @author Kaito Yamada
+ * @since pcap4j 1.7.3
+ */
+final class FactoryMethodCache {
+
+  private final String methodName;
+  private final Class<?>[] parameterTypes;
+  private final ConcurrentMap<Class<?>, Method> methods
+    = new ConcurrentHashMap<Class<?>, Method>();
+
+  /**
+   *
+   * @param methodName methodName
+   * @param parameterTypes parameterTypes
+   */
+  FactoryMethodCache(String methodName, Class<?>... parameterTypes) {
+    this.methodName = methodName;
+    this.parameterTypes = parameterTypes;
+  }
+
+  /**
+   *
+   * @param clazz clazz
+   * @return the public method of clazz.
+   * @throws NoSuchMethodException if the method is not found.
+   * @throws SecurityException if the method can't be accessed.
+   */
+  Method getMethod(Class<?> clazz) throws NoSuchMethodException {
+    Method method = methods.get(clazz);
+    if (method == null) {
+      method = clazz.getMethod(methodName, parameterTypes);
+      methods.put(clazz, method);
+    }
+    return method;
+  }
+
+}
@@ -7,6 +7,8 @@
 
 package org.pcap4j.packet.factory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.pcap4j.packet.DnsResourceRecord.DnsRData;
 import org.pcap4j.packet.IcmpV6CommonPacket.IpV6NeighborDiscoveryOption;
 import org.pcap4j.packet.IpV4InternetTimestampOption.IpV4InternetTimestampOptionData;
@@ -212,6 +214,31 @@ public final class PacketFactoryPropertiesLoader {
         true
       );
 
+  private final NamedNumberClassCache<Packet> packetClasses
+    = new NamedNumberClassCache<Packet>();
+  private final NamedNumberClassCache<IpV4Option> ipV4OptionClasses
+    = new NamedNumberClassCache<IpV4Option>();
+  private final NamedNumberClassCache<TcpOption> tcpOptionClasses
+    = new NamedNumberClassCache<TcpOption>();
+  private final NamedNumberClassCache<IpV4InternetTimestampOptionData>
+    ipV4InternetTimestampDataClasses
+      = new NamedNumberClassCache<IpV4InternetTimestampOptionData>();
+  private final NamedNumberClassCache<IpV6Option> ipV6OptionClasses
+    = new NamedNumberClassCache<IpV6Option>();
+  private final NamedNumberClassCache<IpV6RoutingData> ipV6RoutingDataClasses
+    = new NamedNumberClassCache<IpV6RoutingData>();
+  private final NamedNumberClassCache<IpV6NeighborDiscoveryOption>
+    ipV6NeighborDiscoveryOptionClasses
+      = new NamedNumberClassCache<IpV6NeighborDiscoveryOption>();
+  private final NamedNumberClassCache<RadiotapData> radiotapDataFieldClasses
+    = new NamedNumberClassCache<RadiotapData>();
+  private final NamedNumberClassCache<SctpChunk> sctpChunkClasses
+    = new NamedNumberClassCache<SctpChunk>();
+  private final NamedNumberClassCache<DnsRData> dnsRDataClasses
+    = new NamedNumberClassCache<DnsRData>();
+  private final ConcurrentMap<String, Class<?>> classes
+    = new ConcurrentHashMap<String, Class<?>>();
+
   private PacketFactoryPropertiesLoader() {}
 
   /**
@@ -229,6 +256,11 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements Packet for a specified NamedNumber.
    */
   public <T extends NamedNumber<?, ?>> Class<? extends Packet> getPacketClass(T number) {
+    Class<? extends Packet> clazz = packetClasses.get(number);
+    if (clazz != null) {
+      return clazz;
+    }
+
     String val = number.valueAsString();
     if (number instanceof EtherType) {
       EtherType et = (EtherType) number;
@@ -242,9 +274,12 @@ public final class PacketFactoryPropertiesLoader {
       .append(number.getClass().getName())
       .append(".")
       .append(val);
-    return loader.<Packet>getClass(
-             sb.toString(),
-             getUnknownPacketClass()
+    return packetClasses.put(
+             number,
+             loader.<Packet>getClass(
+               sb.toString(),
+               getUnknownPacketClass()
+             )
            );
   }
 
@@ -253,7 +288,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements Packet for an unknown packet.
    */
   public Class<? extends Packet> getUnknownPacketClass() {
-    return loader.<Packet>getClass(
+    return this.<Packet>getCachedClass(
              UNKNOWN_PACKET_CLASS_KEY,
              UnknownPacket.class
            );
@@ -307,14 +342,22 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV4Option for a specified type.
    */
   public Class<? extends IpV4Option> getIpV4OptionClass(IpV4OptionType type) {
+    Class<? extends IpV4Option> clazz = ipV4OptionClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(IPV4_OPTION_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<IpV4Option>getClass(
-             sb.toString(),
-             getUnknownIpV4OptionClass()
+    return ipV4OptionClasses.put(
+             type,
+             loader.<IpV4Option>getClass(
+               sb.toString(),
+               getUnknownIpV4OptionClass()
+             )
            );
   }
 
@@ -323,7 +366,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV4Option for an unknown type.
    */
   public Class<? extends IpV4Option> getUnknownIpV4OptionClass() {
-    return loader.<IpV4Option>getClass(
+    return this.<IpV4Option>getCachedClass(
              UNKNOWN_IPV4_OPTION_KEY,
              UnknownIpV4Option.class
            );
@@ -335,14 +378,22 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements TcpOption for a specified type.
    */
   public Class<? extends TcpOption> getTcpOptionClass(TcpOptionKind type) {
+    Class<? extends TcpOption> clazz = tcpOptionClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(TCP_OPTION_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<TcpOption>getClass(
-             sb.toString(),
-             getUnknownTcpOptionClass()
+    return tcpOptionClasses.put(
+             type,
+             loader.<TcpOption>getClass(
+               sb.toString(),
+               getUnknownTcpOptionClass()
+             )
            );
   }
 
@@ -351,7 +402,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements TcpOption for an unknown type.
    */
   public Class<? extends TcpOption> getUnknownTcpOptionClass() {
-    return loader.<TcpOption>getClass(
+    return this.<TcpOption>getCachedClass(
              UNKNOWN_TCP_OPTION_KEY,
              UnknownTcpOption.class
            );
@@ -365,14 +416,23 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends IpV4InternetTimestampOptionData>
   getIpV4InternetTimestampDataClass(IpV4InternetTimestampOptionFlag flag) {
+    Class<? extends IpV4InternetTimestampOptionData> clazz
+      = ipV4InternetTimestampDataClasses.get(flag);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(150);
     sb.append(IPV4_INTERNET_TIMESTAMP_DATA_CLASS_KEY_BASE)
       .append(flag.getClass().getName())
       .append(".")
       .append(flag.valueAsString());
-    return loader.<IpV4InternetTimestampOptionData>getClass(
-             sb.toString(),
-             getUnknownIpV4InternetTimestampDataClass()
+    return ipV4InternetTimestampDataClasses.put(
+             flag,
+             loader.<IpV4InternetTimestampOptionData>getClass(
+               sb.toString(),
+               getUnknownIpV4InternetTimestampDataClass()
+             )
            );
   }
 
@@ -383,7 +443,7 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends IpV4InternetTimestampOptionData>
   getUnknownIpV4InternetTimestampDataClass() {
-    return loader.<IpV4InternetTimestampOptionData>getClass(
+    return this.<IpV4InternetTimestampOptionData>getCachedClass(
              UNKNOWN_IPV4_INTERNET_TIMESTAMP_DATA_KEY,
              UnknownIpV4InternetTimestampOptionData.class
            );
@@ -395,14 +455,22 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV6Option for a specified type.
    */
   public Class<? extends IpV6Option> getIpV6OptionClass(IpV6OptionType type) {
+    Class<? extends IpV6Option> clazz = ipV6OptionClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(IPV6_OPTION_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<IpV6Option>getClass(
-             sb.toString(),
-             getUnknownIpV6OptionClass()
+    return ipV6OptionClasses.put(
+             type,
+             loader.<IpV6Option>getClass(
+               sb.toString(),
+               getUnknownIpV6OptionClass()
+             )
            );
   }
 
@@ -411,7 +479,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV6Option for an unknown type.
    */
   public Class<? extends IpV6Option> getUnknownIpV6OptionClass() {
-    return loader.<IpV6Option>getClass(
+    return this.<IpV6Option>getCachedClass(
              UNKNOWN_IPV6_OPTION_KEY,
              UnknownIpV6Option.class
            );
@@ -425,14 +493,22 @@ public final class PacketFactoryPropertiesLoader {
   public Class<? extends IpV6RoutingData> getIpV6RoutingDataClass(
     IpV6RoutingType type
   ) {
+    Class<? extends IpV6RoutingData> clazz = ipV6RoutingDataClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(IPV6_ROUTING_DATA_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<IpV6RoutingData>getClass(
-             sb.toString(),
-             getUnknownIpV6RoutingDataClass()
+    return ipV6RoutingDataClasses.put(
+             type,
+             loader.<IpV6RoutingData>getClass(
+               sb.toString(),
+               getUnknownIpV6RoutingDataClass()
+             )
            );
   }
 
@@ -441,7 +517,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV6RoutingData for an unknown type.
    */
   public Class<? extends IpV6RoutingData> getUnknownIpV6RoutingDataClass() {
-    return loader.<IpV6RoutingData>getClass(
+    return this.<IpV6RoutingData>getCachedClass(
              UNKNOWN_IPV6_ROUTING_DATA_KEY,
              UnknownIpV6RoutingData.class
            );
@@ -454,14 +530,23 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends IpV6NeighborDiscoveryOption>
   getIpV6NeighborDiscoveryOptionClass(IpV6NeighborDiscoveryOptionType type) {
+    Class<? extends IpV6NeighborDiscoveryOption> clazz
+      = ipV6NeighborDiscoveryOptionClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(IPV6_NEIGHBOR_DISCOVERY_OPTION_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<IpV6NeighborDiscoveryOption>getClass(
-             sb.toString(),
-             getUnknownIpV6NeighborDiscoveryOptionClass()
+    return ipV6NeighborDiscoveryOptionClasses.put(
+             type,
+             loader.<IpV6NeighborDiscoveryOption>getClass(
+               sb.toString(),
+               getUnknownIpV6NeighborDiscoveryOptionClass()
+             )
            );
   }
 
@@ -471,7 +556,7 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends IpV6NeighborDiscoveryOption>
   getUnknownIpV6NeighborDiscoveryOptionClass() {
-    return loader.<IpV6NeighborDiscoveryOption>getClass(
+    return this.<IpV6NeighborDiscoveryOption>getCachedClass(
              UNKNOWN_IPV6_NEIGHBOR_DISCOVERY_OPTION_KEY,
              UnknownIpV6NeighborDiscoveryOption.class
            );
@@ -484,14 +569,22 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends RadiotapData>
   getRadiotapDataFieldClass(RadiotapPresentBitNumber num) {
+    Class<? extends RadiotapData> clazz = radiotapDataFieldClasses.get(num);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(RADIOTAP_DATA_FIELD_CLASS_KEY_BASE)
       .append(num.getClass().getName())
       .append(".")
       .append(num.valueAsString());
-    return loader.<RadiotapData>getClass(
-             sb.toString(),
-             getUnknownRadiotapDataFieldClass()
+    return radiotapDataFieldClasses.put(
+             num,
+             loader.<RadiotapData>getClass(
+               sb.toString(),
+               getUnknownRadiotapDataFieldClass()
+             )
            );
   }
 
@@ -501,7 +594,7 @@ public final class PacketFactoryPropertiesLoader {
    */
   public Class<? extends RadiotapData>
   getUnknownRadiotapDataFieldClass() {
-    return loader.<RadiotapData>getClass(
+    return this.<RadiotapData>getCachedClass(
              UNKNOWN_RADIOTAP_DATA_FIELD_KEY,
              UnknownRadiotapData.class
            );
@@ -513,14 +606,22 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements SctpChunk for a specified type.
    */
   public Class<? extends SctpChunk> getSctpChunkClass(SctpChunkType type) {
+    Class<? extends SctpChunk> clazz = sctpChunkClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(SCTP_CHUNK_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<SctpChunk>getClass(
-             sb.toString(),
-             getUnknownSctpChunkClass()
+    return sctpChunkClasses.put(
+             type,
+             loader.<SctpChunk>getClass(
+               sb.toString(),
+               getUnknownSctpChunkClass()
+             )
            );
   }
 
@@ -529,7 +630,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements SctpChunk for an unknown type.
    */
   public Class<? extends SctpChunk> getUnknownSctpChunkClass() {
-    return loader.<SctpChunk>getClass(
+    return this.<SctpChunk>getCachedClass(
              UNKNOWN_SCTP_CHUNK_KEY,
              UnknownSctpChunk.class
            );
@@ -541,14 +642,22 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements DnsRData for a specified type.
    */
   public Class<? extends DnsRData> getDnsRDataClass(DnsResourceRecordType type) {
+    Class<? extends DnsRData> clazz = dnsRDataClasses.get(type);
+    if (clazz != null) {
+      return clazz;
+    }
+
     StringBuilder sb = new StringBuilder(120);
     sb.append(DNS_RDATA_CLASS_KEY_BASE)
       .append(type.getClass().getName())
       .append(".")
       .append(type.valueAsString());
-    return loader.<DnsRData>getClass(
-             sb.toString(),
-             getUnknownDnsRDataClass()
+    return dnsRDataClasses.put(
+             type,
+             loader.<DnsRData>getClass(
+               sb.toString(),
+               getUnknownDnsRDataClass()
+             )
            );
   }
 
@@ -557,7 +666,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements DnsRData for an unknown type.
    */
   public Class<? extends DnsRData> getUnknownDnsRDataClass() {
-    return loader.<DnsRData>getClass(
+    return this.<DnsRData>getCachedClass(
              UNKNOWN_DNS_RDATA_KEY,
              UnknownDnsRData.class
            );
@@ -568,7 +677,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV4Tos.
    */
   public Class<? extends IpV4Tos> getIpV4TosClass() {
-    return loader.<IpV4Tos>getClass(
+    return this.<IpV4Tos>getCachedClass(
              IPV4_TOS_CLASS_KEY,
              IpV4Rfc1349Tos.class
            );
@@ -579,7 +688,7 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV6TrafficClass.
    */
   public Class<? extends IpV6TrafficClass> getIpV6TrafficClassClass() {
-    return loader.<IpV6TrafficClass>getClass(
+    return this.<IpV6TrafficClass>getCachedClass(
              IPV6_TRAFFIC_CLASS_CLASS_KEY,
              IpV6SimpleTrafficClass.class
            );
@@ -590,10 +699,52 @@ public final class PacketFactoryPropertiesLoader {
    * @return a class which implements IpV6FlowLabel.
    */
   public Class<? extends IpV6FlowLabel> getIpV6FlowLabelClass() {
-    return loader.<IpV6FlowLabel>getClass(
+    return this.<IpV6FlowLabel>getCachedClass(
              IPV6_FLOW_LABEL_CLASS_KEY,
              IpV6SimpleFlowLabel.class
            );
   }
 
+  private <T> Class<? extends T> getCachedClass(String key, Class<? extends T> defaultValue) {
+    @SuppressWarnings("unchecked")
+    Class<? extends T> clazz = (Class<? extends T>) classes.get(key);
+    if (clazz == null) {
+      clazz = loader.<T>getClass(key, defaultValue);
+      classes.put(key, clazz);
+    }
+    return clazz;
+  }
+
+  /**
+   * A lock-free cache of the classes looked up by NamedNumber objects.
+   * It saves building a key string and taking the lock of PropertiesLoader for each lookup.
+   *
+   * @param <T> the type the cached classes implement.
+   */
+  private static final class NamedNumberClassCache<T> {
+
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Class<? extends T>>> classes
+      = new ConcurrentHashMap<Class<?>, ConcurrentMap<Object, Class<? extends T>>>();
+
+    Class<? extends T> get(NamedNumber<?, ?> number) {
+      ConcurrentMap<Object, Class<? extends T>> byValue = classes.get(number.getClass());
+      return byValue != null ? byValue.get(number.value()) : null;
+    }
+
+    Class<? extends T> put(NamedNumber<?, ?> number, Class<? extends T> clazz) {
+      ConcurrentMap<Object, Class<? extends T>> byValue = classes.get(number.getClass());
+      if (byValue == null) {
+        byValue = new ConcurrentHashMap<Object, Class<? extends T>>();
+        ConcurrentMap<Object, Class<? extends T>> current
+          = classes.putIfAbsent(number.getClass(), byValue);
+        if (current != null) {
+          byValue = current;
+        }
+      }
+      byValue.put(number.value(), clazz);
+      return clazz;
+    }
+
+  }
+
 }
@@ -25,6 +25,8 @@ implements PacketFactory<DnsRData, DnsResourceRecordType> {
 
   private static final PropertiesBasedDnsRDataFactory INSTANCE
     = new PropertiesBasedDnsRDataFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedDnsRDataFactory() {}
 
@@ -72,7 +74,7 @@ implements PacketFactory<DnsRData, DnsResourceRecordType> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (DnsRData)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
@@ -24,6 +24,8 @@ implements PacketFactory<IpV4InternetTimestampOptionData, IpV4InternetTimestampO
 
   private static final PropertiesBasedIpV4InternetTimestampOptionDataFactory INSTANCE
     = new PropertiesBasedIpV4InternetTimestampOptionDataFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedIpV4InternetTimestampOptionDataFactory() {}
 
@@ -73,7 +75,7 @@ implements PacketFactory<IpV4InternetTimestampOptionData, IpV4InternetTimestampO
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (IpV4InternetTimestampOptionData)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
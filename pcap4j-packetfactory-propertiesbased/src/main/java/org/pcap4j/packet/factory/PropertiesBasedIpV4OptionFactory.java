@@ -24,6 +24,8 @@ implements PacketFactory<IpV4Option, IpV4OptionType> {
 
   private static final PropertiesBasedIpV4OptionFactory INSTANCE
     = new PropertiesBasedIpV4OptionFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedIpV4OptionFactory() {}
 
@@ -68,7 +70,7 @@ implements PacketFactory<IpV4Option, IpV4OptionType> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (IpV4Option)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
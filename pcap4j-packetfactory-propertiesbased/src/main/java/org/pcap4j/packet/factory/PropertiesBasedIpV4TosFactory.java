@@ -22,6 +22,8 @@ implements PacketFactory<IpV4Tos, NotApplicable> {
 
   private static final PropertiesBasedIpV4TosFactory INSTANCE
     = new PropertiesBasedIpV4TosFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte.class);
 
   private PropertiesBasedIpV4TosFactory() {}
 
@@ -66,7 +68,7 @@ implements PacketFactory<IpV4Tos, NotApplicable> {
     }
 
     try {
-      Method newInstance = tosClass.getMethod("newInstance", byte.class);
+      Method newInstance = newInstanceMethods.getMethod(tosClass);
       return (IpV4Tos)newInstance.invoke(null, rawData[offset]);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
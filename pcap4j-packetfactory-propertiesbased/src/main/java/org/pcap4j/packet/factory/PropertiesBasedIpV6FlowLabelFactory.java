@@ -23,6 +23,8 @@ implements PacketFactory<IpV6FlowLabel, NotApplicable> {
 
   private static final PropertiesBasedIpV6FlowLabelFactory INSTANCE
     = new PropertiesBasedIpV6FlowLabelFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", int.class);
 
   private PropertiesBasedIpV6FlowLabelFactory() {}
 
@@ -69,7 +71,7 @@ implements PacketFactory<IpV6FlowLabel, NotApplicable> {
     }
 
     try {
-      Method newInstance = clazz.getMethod("newInstance", int.class);
+      Method newInstance = newInstanceMethods.getMethod(clazz);
       return (IpV6FlowLabel)newInstance.invoke(null, ByteArrays.getInt(rawData, offset));
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
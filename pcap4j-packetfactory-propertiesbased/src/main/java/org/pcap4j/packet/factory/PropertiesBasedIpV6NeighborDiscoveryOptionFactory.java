@@ -24,6 +24,8 @@ implements PacketFactory<IpV6NeighborDiscoveryOption, IpV6NeighborDiscoveryOptio
 
   private static final PropertiesBasedIpV6NeighborDiscoveryOptionFactory INSTANCE
     = new PropertiesBasedIpV6NeighborDiscoveryOptionFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedIpV6NeighborDiscoveryOptionFactory() {}
 
@@ -72,7 +74,7 @@ implements PacketFactory<IpV6NeighborDiscoveryOption, IpV6NeighborDiscoveryOptio
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (IpV6NeighborDiscoveryOption)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
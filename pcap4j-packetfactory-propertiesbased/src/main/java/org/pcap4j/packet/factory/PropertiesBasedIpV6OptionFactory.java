@@ -24,6 +24,8 @@ implements PacketFactory<IpV6Option, IpV6OptionType> {
 
   private static final PropertiesBasedIpV6OptionFactory INSTANCE
     = new PropertiesBasedIpV6OptionFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedIpV6OptionFactory() {}
 
@@ -68,7 +70,7 @@ implements PacketFactory<IpV6Option, IpV6OptionType> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (IpV6Option)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
@@ -24,6 +24,8 @@ implements PacketFactory<IpV6RoutingData, IpV6RoutingType> {
 
   private static final PropertiesBasedIpV6RoutingDataFactory INSTANCE
     = new PropertiesBasedIpV6RoutingDataFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedIpV6RoutingDataFactory() {}
 
@@ -72,7 +74,7 @@ implements PacketFactory<IpV6RoutingData, IpV6RoutingType> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (IpV6RoutingData)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
@@ -22,6 +22,8 @@ implements PacketFactory<IpV6TrafficClass, NotApplicable> {
 
   private static final PropertiesBasedIpV6TrafficClassFactory INSTANCE
     = new PropertiesBasedIpV6TrafficClassFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte.class);
 
   private PropertiesBasedIpV6TrafficClassFactory() {}
 
@@ -65,7 +67,7 @@ implements PacketFactory<IpV6TrafficClass, NotApplicable> {
     }
 
     try {
-      Method newInstance = clazz.getMethod("newInstance", byte.class);
+      Method newInstance = newInstanceMethods.getMethod(clazz);
       return (IpV6TrafficClass)newInstance.invoke(null, rawData[offset]);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
@@ -13,6 +13,7 @@ import java.lang.reflect.Method;
 import org.pcap4j.packet.IllegalPacket;
 import org.pcap4j.packet.IllegalRawDataException;
 import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.UnknownPacket;
 import org.pcap4j.packet.namednumber.NamedNumber;
 
 /**
@@ -24,6 +25,8 @@ implements PacketFactory<Packet, NamedNumber<?, ?>> {
 
   private static final PropertiesBasedPacketFactory INSTANCE
     = new PropertiesBasedPacketFactory();
+  private static final FactoryMethodCache newPacketMethods
+    = new FactoryMethodCache("newPacket", byte[].class, int.class, int.class);
 
   private PropertiesBasedPacketFactory() {};
 
@@ -68,8 +71,26 @@ implements PacketFactory<Packet, NamedNumber<?, ?>> {
       throw new NullPointerException(sb.toString());
     }
 
+    if (!DecodeDepth.isLimited()) {
+      return doNewInstance(rawData, offset, length, packetClass);
+    }
+
+    if (!DecodeDepth.isDecoded(packetClass)) {
+      return UnknownPacket.newPacket(rawData, offset, length);
+    }
+    boolean outer = DecodeDepth.enter(packetClass);
+    try {
+      return doNewInstance(rawData, offset, length, packetClass);
+    } finally {
+      DecodeDepth.exit(outer);
+    }
+  }
+
+  private Packet doNewInstance(
+    byte[] rawData, int offset, int length, Class<? extends Packet> packetClass
+  ) {
     try {
-      Method newPacket = packetClass.getMethod("newPacket", byte[].class, int.class, int.class);
+      Method newPacket = newPacketMethods.getMethod(packetClass);
       return (Packet)newPacket.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
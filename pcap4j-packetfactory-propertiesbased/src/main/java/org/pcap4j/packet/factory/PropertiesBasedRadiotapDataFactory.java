@@ -25,6 +25,8 @@ implements PacketFactory<RadiotapData, RadiotapPresentBitNumber> {
 
   private static final PropertiesBasedRadiotapDataFactory INSTANCE
     = new PropertiesBasedRadiotapDataFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedRadiotapDataFactory() {}
 
@@ -73,7 +75,7 @@ implements PacketFactory<RadiotapData, RadiotapPresentBitNumber> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (RadiotapData)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
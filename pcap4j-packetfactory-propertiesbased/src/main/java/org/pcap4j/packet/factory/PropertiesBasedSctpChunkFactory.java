@@ -24,6 +24,8 @@ implements PacketFactory<SctpChunk, SctpChunkType> {
 
   private static final PropertiesBasedSctpChunkFactory INSTANCE
     = new PropertiesBasedSctpChunkFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedSctpChunkFactory() {}
 
@@ -67,7 +69,7 @@ implements PacketFactory<SctpChunk, SctpChunkType> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (SctpChunk)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
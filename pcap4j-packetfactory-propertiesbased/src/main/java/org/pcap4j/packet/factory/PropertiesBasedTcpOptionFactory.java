@@ -24,6 +24,8 @@ implements PacketFactory<TcpOption, TcpOptionKind> {
 
   private static final PropertiesBasedTcpOptionFactory INSTANCE
     = new PropertiesBasedTcpOptionFactory();
+  private static final FactoryMethodCache newInstanceMethods
+    = new FactoryMethodCache("newInstance", byte[].class, int.class, int.class);
 
   private PropertiesBasedTcpOptionFactory() {}
 
@@ -68,7 +70,7 @@ implements PacketFactory<TcpOption, TcpOptionKind> {
     }
 
     try {
-      Method newInstance = dataClass.getMethod("newInstance", byte[].class, int.class, int.class);
+      Method newInstance = newInstanceMethods.getMethod(dataClass);
       return (TcpOption)newInstance.invoke(null, rawData, offset, length);
     } catch (SecurityException e) {
       throw new IllegalStateException(e);
@@ -42,16 +42,44 @@ implements PacketFactory<Packet, N> {
 
     PacketInstantiater instantiater = instantiaters.get(number);
     if (instantiater != null) {
-      try {
-        return instantiater.newInstance(rawData, offset, length);
-      } catch (IllegalRawDataException e) {
-        return IllegalPacket.newPacket(rawData, offset, length);
-      }
+      return instantiate(instantiater, rawData, offset, length);
     }
 
     return newInstance(rawData, offset, length);
   }
 
+  /**
+   * Builds a packet with an instantiater, honoring the {@link DecodeDepth}.
+   */
+  final Packet instantiate(
+    PacketInstantiater instantiater, byte[] rawData, int offset, int length
+  ) {
+    if (!DecodeDepth.isLimited()) {
+      return doInstantiate(instantiater, rawData, offset, length);
+    }
+
+    Class<? extends Packet> targetClass = instantiater.getTargetClass();
+    if (!DecodeDepth.isDecoded(targetClass)) {
+      return UnknownPacket.newPacket(rawData, offset, length);
+    }
+    boolean outer = DecodeDepth.enter(targetClass);
+    try {
+      return doInstantiate(instantiater, rawData, offset, length);
+    } finally {
+      DecodeDepth.exit(outer);
+    }
+  }
+
+  private Packet doInstantiate(
+    PacketInstantiater instantiater, byte[] rawData, int offset, int length
+  ) {
+    try {
+      return instantiater.newInstance(rawData, offset, length);
+    } catch (IllegalRawDataException e) {
+      return IllegalPacket.newPacket(rawData, offset, length);
+    }
+  }
+
   @Override
   public Packet newInstance(byte[] rawData, int offset, int length) {
     return UnknownPacket.newPacket(rawData, offset, length);
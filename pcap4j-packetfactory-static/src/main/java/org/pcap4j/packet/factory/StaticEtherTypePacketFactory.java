@@ -9,7 +9,6 @@ package org.pcap4j.packet.factory;
 
 import org.pcap4j.packet.ArpPacket;
 import org.pcap4j.packet.Dot1qVlanTagPacket;
-import org.pcap4j.packet.IllegalPacket;
 import org.pcap4j.packet.IllegalRawDataException;
 import org.pcap4j.packet.IpV4Packet;
 import org.pcap4j.packet.IpV6Packet;
@@ -24,6 +23,20 @@ import org.pcap4j.packet.namednumber.EtherType;
 public final class StaticEtherTypePacketFactory
 extends AbstractStaticPacketFactory<EtherType> {
 
+  private static final PacketInstantiater LLC_INSTANTIATER
+    = new PacketInstantiater() {
+        @Override
+        public Packet newInstance(
+          byte[] rawData, int offset, int length
+        ) throws IllegalRawDataException {
+          return LlcPacket.newPacket(rawData, offset, length);
+        }
+        @Override
+        public Class<LlcPacket> getTargetClass() {
+          return LlcPacket.class;
+        }
+      };
+
   private static final StaticEtherTypePacketFactory INSTANCE
     = new StaticEtherTypePacketFactory();
 
@@ -107,22 +120,28 @@ extends AbstractStaticPacketFactory<EtherType> {
 
     PacketInstantiater instantiater = instantiaters.get(number);
     if (instantiater != null) {
-      try {
-        return instantiater.newInstance(rawData, offset, length);
-      } catch (IllegalRawDataException e) {
-        return IllegalPacket.newPacket(rawData, offset, length);
-      }
+      return instantiate(instantiater, rawData, offset, length);
     }
 
     if ((number.value() & 0xFFFF) <= EtherType.IEEE802_3_MAX_LENGTH) {
-      try {
-        return LlcPacket.newPacket(rawData, offset, length);
-      } catch (IllegalRawDataException e) {
-        IllegalPacket.newPacket(rawData, offset, length);
-      }
+      return instantiate(LLC_INSTANTIATER, rawData, offset, length);
     }
 
     return newInstance(rawData, offset, length);
   }
 
+  @Override
+  public Class<? extends Packet> getTargetClass(EtherType number) {
+    if (number == null) {
+      throw new NullPointerException("number must not be null.");
+    }
+    if (
+         !instantiaters.containsKey(number)
+      && (number.value() & 0xFFFF) <= EtherType.IEEE802_3_MAX_LENGTH
+    ) {
+      return LLC_INSTANTIATER.getTargetClass();
+    }
+    return super.getTargetClass(number);
+  }
+
 }
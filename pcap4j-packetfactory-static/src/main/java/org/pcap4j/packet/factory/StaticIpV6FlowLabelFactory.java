@@ -8,6 +8,7 @@
 package org.pcap4j.packet.factory;
 
 import static org.pcap4j.util.ByteArrays.*;
+import org.pcap4j.packet.IllegalRawDataException;
 import org.pcap4j.packet.IpV6Packet.IpV6FlowLabel;
 import org.pcap4j.packet.IpV6SimpleFlowLabel;
 import org.pcap4j.packet.namednumber.NotApplicable;
@@ -43,7 +44,7 @@ implements PacketFactory<IpV6FlowLabel, NotApplicable> {
     if (length < INT_SIZE_IN_BYTES) {
       StringBuilder sb = new StringBuilder(100);
       sb.append("rawData is too short: ")
-        .append(ByteArrays.toHexString(rawData, " "))
+        .append(IllegalRawDataException.toHexString(rawData))
         .append(", offset: ")
         .append(offset)
         .append(", length: ")
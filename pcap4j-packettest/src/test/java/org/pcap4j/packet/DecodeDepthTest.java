@@ -0,0 +1,127 @@
+package org.pcap4j.packet;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pcap4j.packet.factory.DecodeDepth;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+@SuppressWarnings("javadoc")
+public class DecodeDepthTest {
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000030abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b00000102030405060708",
+        ""
+      );
+
+  private static final byte[] VLAN_FRAME
+    = ByteArrays.parseByteArray(
+        "00112233445566554433221181000064080045000024abcd400040110000c0a80001"
+          + "c0a80002c3500035001000000102030405060708",
+        ""
+      );
+
+  private static final byte[] LLC_FRAME
+    = ByteArrays.parseByteArray(
+        "0180c20000006655443322110026424203000000000080000011223344550000000080"
+          + "0000112233445580010000140002000f000000000000000000",
+        ""
+      );
+
+  private static Packet decode(byte[] frame) {
+    return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+             .newInstance(frame, 0, frame.length, DataLinkType.EN10MB);
+  }
+
+  @After
+  public void tearDown() {
+    DecodeDepth.setCurrent(null);
+  }
+
+  @Test
+  public void testFull() throws Exception {
+    DecodeDepth.setCurrent(DecodeDepth.FULL);
+    Packet packet = decode(FRAME);
+    assertTrue(packet.contains(TcpPacket.class));
+    assertEquals(8, packet.get(TcpPacket.class).getPayload().length());
+
+    // A packet built directly is dissected down to the first stop below it.
+    DecodeDepth.setCurrent(DecodeDepth.NETWORK);
+    packet = EthernetPacket.newPacket(FRAME, 0, FRAME.length);
+    assertTrue(packet.contains(IpV4Packet.class));
+    assertFalse(packet.contains(TcpPacket.class));
+  }
+
+  @Test
+  public void testDataLink() throws Exception {
+    DecodeDepth.setCurrent(DecodeDepth.DATA_LINK);
+    Packet packet = decode(FRAME);
+    assertEquals(UnknownPacket.class, packet.getPayload().getClass());
+    assertEquals(FRAME.length - 14, packet.getPayload().length());
+    assertArrayEquals(FRAME, packet.getRawData());
+
+    // A VLAN tag is a data link layer header, too.
+    packet = decode(VLAN_FRAME);
+    assertEquals(Dot1qVlanTagPacket.class, packet.getPayload().getClass());
+    assertEquals(UnknownPacket.class, packet.getPayload().getPayload().getClass());
+    assertArrayEquals(VLAN_FRAME, packet.getRawData());
+  }
+
+  @Test
+  public void testNetwork() throws Exception {
+    DecodeDepth.setCurrent(DecodeDepth.NETWORK);
+    Packet packet = decode(FRAME);
+    assertEquals(IpV4Packet.class, packet.getPayload().getClass());
+    assertEquals(UnknownPacket.class, packet.getPayload().getPayload().getClass());
+    assertFalse(packet.contains(TcpPacket.class));
+    assertArrayEquals(FRAME, packet.getRawData());
+
+    packet = decode(VLAN_FRAME);
+    assertTrue(packet.contains(IpV4Packet.class));
+    assertFalse(packet.contains(UdpPacket.class));
+  }
+
+  @Test
+  public void testTransport() throws Exception {
+    DecodeDepth.setCurrent(DecodeDepth.TRANSPORT);
+    Packet packet = decode(VLAN_FRAME);
+    UdpPacket udp = packet.get(UdpPacket.class);
+    assertNotNull(udp);
+    assertEquals(UnknownPacket.class, udp.getPayload().getClass());
+    assertFalse(packet.contains(DnsPacket.class));
+    assertArrayEquals(VLAN_FRAME, packet.getRawData());
+  }
+
+  @Test
+  public void testAfter() throws Exception {
+    DecodeDepth depth = DecodeDepth.after(EthernetPacket.class);
+    assertTrue(depth.stopsAfter(EthernetPacket.class));
+    assertFalse(depth.stopsAfter(Dot1qVlanTagPacket.class));
+
+    DecodeDepth.setCurrent(depth);
+    Packet packet = decode(VLAN_FRAME);
+    assertEquals(UnknownPacket.class, packet.getPayload().getClass());
+
+    // An IEEE 802.3 frame, whose LLC header is built by the same path.
+    packet = decode(LLC_FRAME);
+    assertEquals(UnknownPacket.class, packet.getPayload().getClass());
+    assertArrayEquals(LLC_FRAME, packet.getRawData());
+
+    DecodeDepth.setCurrent(DecodeDepth.FULL);
+    assertEquals(LlcPacket.class, decode(LLC_FRAME).getPayload().getClass());
+  }
+
+  @Test
+  public void testValueOf() {
+    assertSame(DecodeDepth.FULL, DecodeDepth.valueOf("FULL"));
+    assertSame(DecodeDepth.TRANSPORT, DecodeDepth.valueOf("transport"));
+    assertSame(DecodeDepth.FULL, DecodeDepth.valueOf("L7"));
+    assertSame(DecodeDepth.FULL, DecodeDepth.after());
+  }
+
+}
@@ -0,0 +1,209 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import org.junit.Before;
+import org.junit.Test;
+import org.pcap4j.packet.DnsPacket;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.IpV4Rfc791Tos;
+import org.pcap4j.packet.IpV6Packet;
+import org.pcap4j.packet.IpV6SimpleFlowLabel;
+import org.pcap4j.packet.IpV6SimpleTrafficClass;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.packet.UdpPacket;
+import org.pcap4j.packet.UnknownPacket;
+import org.pcap4j.packet.factory.DecodeDepth;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.packet.namednumber.EtherType;
+import org.pcap4j.packet.namednumber.IpNumber;
+import org.pcap4j.packet.namednumber.IpVersion;
+import org.pcap4j.packet.namednumber.TcpPort;
+import org.pcap4j.packet.namednumber.UdpPort;
+
+@SuppressWarnings("javadoc")
+public class DisplayFilterTest {
+
+  private Packet tcp;
+  private Packet dns;
+  private Packet ipv6;
+
+  @Before
+  public void setUp() throws Exception {
+    TcpPacket.Builder tcpb = new TcpPacket.Builder();
+    tcpb.srcPort(TcpPort.getInstance((short) 40000))
+        .dstPort(TcpPort.HTTP)
+        .sequenceNumber(100)
+        .dataOffset((byte) 5)
+        .syn(true)
+        .window((short) 1024)
+        .payloadBuilder(new UnknownPacket.Builder().rawData("GET / HTTP/1.1".getBytes()));
+    tcp = ether(ipV4(IpNumber.TCP, "10.1.2.3", "192.168.0.1", tcpb), EtherType.IPV4);
+
+    byte[] message
+      = ByteArrays.parseByteArray(
+          "123481800001000100000000"
+            + "03777777076578616d706c6503636f6d0000010001"
+            + "c00c000100010000012c00045db8d822",
+          ""
+        );
+    UdpPacket.Builder udpb = new UdpPacket.Builder();
+    udpb.srcPort(UdpPort.DOMAIN)
+        .dstPort(UdpPort.getInstance((short) 50000))
+        .payloadBuilder(DnsPacket.newPacket(message, 0, message.length).getBuilder())
+        .correctLengthAtBuild(true);
+    dns = ether(ipV4(IpNumber.UDP, "192.168.0.53", "192.168.0.2", udpb), EtherType.IPV4);
+
+    UdpPacket.Builder udp6b = new UdpPacket.Builder();
+    udp6b.srcPort(UdpPort.getInstance((short) 1000))
+         .dstPort(UdpPort.getInstance((short) 2000))
+         .correctLengthAtBuild(true);
+    IpV6Packet.Builder ipv6b = new IpV6Packet.Builder();
+    ipv6b.version(IpVersion.IPV6)
+         .trafficClass(IpV6SimpleTrafficClass.newInstance((byte) 0))
+         .flowLabel(IpV6SimpleFlowLabel.newInstance(0))
+         .nextHeader(IpNumber.UDP)
+         .hopLimit((byte) 64)
+         .srcAddr((Inet6Address) InetAddress.getByName("2001:db8::1"))
+         .dstAddr((Inet6Address) InetAddress.getByName("2001:db9::2"))
+         .payloadBuilder(udp6b)
+         .correctLengthAtBuild(true);
+    ipv6 = ether(ipv6b, EtherType.IPV6);
+  }
+
+  private static IpV4Packet.Builder ipV4(
+    IpNumber protocol, String src, String dst, Packet.Builder payload
+  ) throws Exception {
+    IpV4Packet.Builder ipb = new IpV4Packet.Builder();
+    ipb.version(IpVersion.IPV4)
+       .tos(IpV4Rfc791Tos.newInstance((byte) 0))
+       .ttl((byte) 64)
+       .protocol(protocol)
+       .srcAddr((Inet4Address) InetAddress.getByName(src))
+       .dstAddr((Inet4Address) InetAddress.getByName(dst))
+       .payloadBuilder(payload)
+       .correctLengthAtBuild(true);
+    return ipb;
+  }
+
+  private static Packet ether(Packet.Builder payload, EtherType type) {
+    return new EthernetPacket.Builder()
+             .srcAddr(MacAddress.getByName("00:01:02:03:04:05"))
+             .dstAddr(MacAddress.getByName("0a:0b:0c:0d:0e:0f"))
+             .type(type)
+             .payloadBuilder(payload)
+             .paddingAtBuild(true)
+             .build();
+  }
+
+  private void assertMatch(boolean expected, String expression, Packet packet) {
+    DisplayFilter filter = DisplayFilter.compile(expression);
+    assertEquals(expression, expected, filter.matches(packet));
+    assertEquals(
+      expression, expected, filter.matches(packet.getRawData(), DataLinkType.EN10MB)
+    );
+  }
+
+  @Test
+  public void testTransportAndBelow() throws Exception {
+    assertMatch(true, "tcp.flags.syn && ip.src == 10.0.0.0/8", tcp);
+    assertMatch(false, "tcp.flags.ack", tcp);
+    assertMatch(true, "tcp.flags.syn == 1 and tcp.flags.ack eq false", tcp);
+    assertMatch(true, "tcp.port in {443, 8000..8080, 80}", tcp);
+    assertMatch(false, "tcp.port in {443 8000..8080}", tcp);
+    assertMatch(true, "tcp.dstport > 79 && tcp.dstport le 0x50", tcp);
+    assertMatch(false, "ip.addr != 192.168.0.1", tcp);
+    assertMatch(true, "ip.addr != 172.16.0.1", tcp);
+    assertMatch(true, "ip.ttl == 64 && ip.proto == 6 && eth.type == 0x0800", tcp);
+    assertMatch(true, "eth.src == 00:01:02:03:04:05 && !(eth.dst == 00:01:02:03:04:05)", tcp);
+    assertMatch(true, "tcp.len == 14 && tcp contains \"GET\"", tcp);
+    assertMatch(true, "frame contains 48:54:54:50", tcp);
+    assertMatch(true, "frame.len >= 60 && frame.len == " + tcp.length(), tcp);
+    assertMatch(false, "udp", tcp);
+    assertMatch(true, "not udp", tcp);
+    // A comparison of an absent field is false either way.
+    assertMatch(false, "udp.port != 53", tcp);
+    assertMatch(false, "udp.port == 53", tcp);
+  }
+
+  @Test
+  public void testIpV6() throws Exception {
+    assertMatch(true, "ipv6.src == 2001:db8::/32", ipv6);
+    assertMatch(false, "ipv6.dst == 2001:db8::/32", ipv6);
+    assertMatch(true, "ipv6.addr == 2001:db9::2 && ipv6.hlim == 64", ipv6);
+    assertMatch(true, "ipv6.addr == 2001:db8::/31", ipv6);
+    assertMatch(false, "ipv6.src == 2001:db8::1/128 && ip", ipv6);
+    assertMatch(true, "udp.port in {1000} && ipv6.nxt == 17", ipv6);
+  }
+
+  @Test
+  public void testApplicationLayer() throws Exception {
+    assertMatch(true, "dns", dns);
+    assertMatch(false, "dns", tcp);
+    assertMatch(
+      true,
+      "dns.qry.name contains \"example\" && dns.flags.response && dns.flags.rcode == 0",
+      dns
+    );
+    assertMatch(false, "udp.port == 53 && dns.qry.name contains \"example\"", tcp);
+    assertMatch(true, "dns.qry.name == \"www.example.com\"", dns);
+    assertMatch(true, "dns.resp.name == \"www.example.com\"", dns);
+    assertMatch(true, "dns.qry.name matches \"^WWW\\\\.\"", dns);
+    assertMatch(true, "dns.a == 93.184.216.0/24 && udp.srcport == 53", dns);
+    assertMatch(true, "dns.resp.ttl == 300 && dns.id == 0x1234", dns);
+    assertMatch(false, "dns.aaaa", dns);
+    assertMatch(false, "dns.qry.name != \"www.example.com\"", dns);
+  }
+
+  @Test
+  public void testDecodeDepth() throws Exception {
+    assertEquals(DecodeDepth.DATA_LINK, DisplayFilter.compile("frame.len > 10").getDecodeDepth());
+    assertEquals(DecodeDepth.DATA_LINK, DisplayFilter.compile("eth").getDecodeDepth());
+    assertEquals(DecodeDepth.NETWORK, DisplayFilter.compile("ip.ttl < 2").getDecodeDepth());
+    assertEquals(
+      DecodeDepth.TRANSPORT, DisplayFilter.compile("eth && !tcp.port == 22").getDecodeDepth()
+    );
+    assertEquals(
+      DecodeDepth.FULL, DisplayFilter.compile("udp || dns.qry.type == 1").getDecodeDepth()
+    );
+    assertTrue(DisplayFilter.getFieldNames().contains("tcp.flags.syn"));
+  }
+
+  @Test
+  public void testSyntaxErrors() throws Exception {
+    String[] expressions = {
+      "",
+      "ip.src ==",
+      "foo.bar",
+      "ip.src == 300.1.1.1",
+      "ip.src > 10.0.0.1",
+      "tcp.port > \"a\"",
+      "tcp.port == 1..2",
+      "tcp.port in {}",
+      "(tcp",
+      "tcp)",
+      "tcp == 1",
+      "tcp contains",
+      "tcp.flags.syn == 2",
+      "dns.qry.name matches \"(\"",
+      "ipv6.src == 10.0.0.1",
+      "eth.src == 0001",
+      "dns.qry.name contains \"unterminated",
+      "tcp.port == 80 # comment",
+    };
+    for (String expression: expressions) {
+      try {
+        DisplayFilter.compile(expression);
+        fail(expression);
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains(" at position "));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+package org.pcap4j.util;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.util.PacketFormatter.Style;
+
+@SuppressWarnings("javadoc")
+public class PacketFormatterTest {
+
+  private static final String LS = System.getProperty("line.separator");
+
+  private static final String TCP
+    = "66778899aabb" + "001122334455" + "0800"
+        + "4500002c12344000400600000a0000010a000002"
+        + "3039005000000064000000005002040000000000"
+        + "01020304";
+  private static final String ARP
+    = "ffffffffffff" + "001122334455" + "0806"
+        + "0001080006040001" + "001122334455" + "0a000001" + "000000000000" + "0a000002";
+  private static final String IPV6_UDP
+    = "66778899aabb" + "001122334455" + "86dd"
+        + "60000000000c1140"
+        + "20010db8000000000000000000000001" + "20010db8000000010000000000000002"
+        + "c35001bb000c0000" + "cafebabe";
+
+  @Test
+  public void testLine() throws Exception {
+    PacketFormatter formatter = new PacketFormatter(Style.LINE);
+    assertEquals(
+      "00:11:22:33:44:55 > 66:77:88:99:aa:bb, ethertype IPv4 (0x0800), length 58: "
+        + "IP 10.0.0.1.12345 > 10.0.0.2.80: Flags [S], seq 100, win 1024, length 4",
+      formatter.format(packet(TCP))
+    );
+    assertEquals(
+      "00:11:22:33:44:55 > ff:ff:ff:ff:ff:ff, ethertype ARP (0x0806), length 42: "
+        + "ARP, Request who-has 10.0.0.2 tell 10.0.0.1, length 28",
+      formatter.format(packet(ARP))
+    );
+    assertEquals(
+      "00:11:22:33:44:55 > 66:77:88:99:aa:bb, ethertype IPv6 (0x86dd), length 66: "
+        + "IP6 2001:db8::1.50000 > 2001:db8:0:1::2.443: UDP, length 4",
+      formatter.format(packet(IPV6_UDP))
+    );
+  }
+
+  @Test
+  public void testTree() throws Exception {
+    PacketFormatter formatter = new PacketFormatter(Style.TREE);
+    StringWriter out = new StringWriter();
+    formatter.format(packet(TCP), out);
+    String tree = out.toString();
+    assertTrue(tree, tree.startsWith("[Ethernet Header (14 bytes)]" + LS));
+    assertTrue(tree, tree.contains(LS + "  Type: 0x0800 (IPv4)" + LS));
+    assertTrue(tree, tree.contains(LS + "  Protocol: 6 (TCP)" + LS));
+    assertTrue(tree, tree.contains(LS + "  Destination port: 80 (HTTP)" + LS));
+    assertTrue(tree, tree.contains(LS + "  SYN: true" + LS));
+    assertTrue(
+      tree, tree.endsWith("[UnknownPacket (4 bytes)]" + LS + "  Hex stream: 01 02 03 04" + LS)
+    );
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    PacketFormatter formatter = new PacketFormatter(Style.JSON);
+    StringBuilder out = new StringBuilder();
+    formatter.format(packet(ARP), out);
+    assertEquals(
+      "{\"length\":42,\"layers\":["
+        + "{\"layer\":\"eth\",\"length\":14,\"dst\":\"ff:ff:ff:ff:ff:ff\","
+        + "\"src\":\"00:11:22:33:44:55\",\"type\":2054,\"typeName\":\"ARP\"},"
+        + "{\"layer\":\"arp\",\"length\":28,\"hwType\":1,\"hwTypeName\":\"Ethernet (10Mb)\","
+        + "\"protoType\":2048,\"protoTypeName\":\"IPv4\",\"hwSize\":6,\"protoSize\":4,"
+        + "\"opcode\":1,\"opcodeName\":\"REQUEST\",\"srcHw\":\"00:11:22:33:44:55\","
+        + "\"srcProto\":\"10.0.0.1\",\"dstHw\":\"00:00:00:00:00:00\",\"dstProto\":\"10.0.0.2\"}"
+        + "]}",
+      out.toString()
+    );
+
+    String json = formatter.format(packet(IPV6_UDP));
+    assertTrue(json, json.contains("\"src\":\"2001:db8::1\",\"dst\":\"2001:db8:0:1::2\""));
+    assertTrue(
+      json, json.endsWith("{\"layer\":\"UnknownPacket\",\"length\":4,\"data\":\"cafebabe\"}]}")
+    );
+  }
+
+  @Test
+  public void testByteBuffer() throws Exception {
+    PacketFormatter formatter = new PacketFormatter(Style.LINE);
+    Packet packet = packet(TCP);
+    String expected = formatter.format(packet);
+
+    ByteBuffer buf = ByteBuffer.allocate(expected.length() + 10);
+    buf.put((byte) '>');
+    formatter.format(packet, buf);
+    assertEquals(1 + expected.length(), buf.position());
+    assertEquals(">" + expected, new String(buf.array(), 0, buf.position(), "UTF-8"));
+
+    try {
+      formatter.format(packet, buf);
+      fail();
+    } catch (BufferOverflowException e) {
+      assertEquals(1 + expected.length(), buf.position());
+    }
+  }
+
+  @Test
+  public void testReuse() throws Exception {
+    PacketFormatter formatter = new PacketFormatter(Style.JSON);
+    StringBuilder out = new StringBuilder();
+    formatter.format(packet(TCP), out);
+    int len = out.length();
+    formatter.format(packet(TCP), out);
+    assertEquals(2 * len, out.length());
+    assertEquals(out.substring(0, len), out.substring(len));
+  }
+
+  private static Packet packet(String hex) throws Exception {
+    byte[] data = ByteArrays.parseByteArray(hex, "");
+    return EthernetPacket.newPacket(data, 0, data.length);
+  }
+
+}
@@ -0,0 +1,104 @@
+package org.pcap4j.sample;
+
+import java.nio.ByteBuffer;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * Compares the checked accessors of ByteArrays with the unchecked ones and the ByteBuffer
+ * overloads by reading the fixed fields of a TCP header repeatedly.
+ * A byte of the header is changed in every iteration so that the reads can't be hoisted.
+ * Run with e.g. "-Xms256m -Xmx256m"; the first rounds are warm-up.
+ */
+@SuppressWarnings("javadoc")
+public class ByteArraysBenchmark {
+
+  private static final int COUNT
+    = Integer.getInteger(ByteArraysBenchmark.class.getName() + ".count", 50000000);
+  private static final int ROUNDS
+    = Integer.getInteger(ByteArraysBenchmark.class.getName() + ".rounds", 5);
+
+  private static final byte[] TCP_HEADER
+    = ByteArrays.parseByteArray("c35000509a1b2c3d4e5f60715018ffff1a2b0000", "");
+
+  private ByteArraysBenchmark() {}
+
+  public static void main(String[] args) {
+    ByteBuffer heap = ByteBuffer.wrap(TCP_HEADER);
+    ByteBuffer direct = ByteBuffer.allocateDirect(TCP_HEADER.length);
+    direct.put(TCP_HEADER);
+
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        TCP_HEADER[19] = (byte) i;
+        sink += checked(TCP_HEADER);
+      }
+      report("checked", round, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        TCP_HEADER[19] = (byte) i;
+        sink += unchecked(TCP_HEADER);
+      }
+      report("unchecked", round, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        heap.put(19, (byte) i);
+        sink += buffer(heap);
+      }
+      report("heap ByteBuffer", round, start);
+
+      start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        direct.put(19, (byte) i);
+        sink += buffer(direct);
+      }
+      report("direct ByteBuffer", round, start);
+    }
+    System.out.println("(" + sink + ")");
+  }
+
+  private static long checked(byte[] data) {
+    return ByteArrays.getShort(data, 0)
+         + ByteArrays.getShort(data, 2)
+         + ByteArrays.getInt(data, 4)
+         + ByteArrays.getInt(data, 8)
+         + ByteArrays.getShort(data, 12)
+         + ByteArrays.getShort(data, 14)
+         + ByteArrays.getShort(data, 16)
+         + ByteArrays.getShort(data, 18);
+  }
+
+  private static long unchecked(byte[] data) {
+    ByteArrays.validateBounds(data, 0, 20);
+    return ByteArrays.getShortUnchecked(data, 0)
+         + ByteArrays.getShortUnchecked(data, 2)
+         + ByteArrays.getIntUnchecked(data, 4)
+         + ByteArrays.getIntUnchecked(data, 8)
+         + ByteArrays.getShortUnchecked(data, 12)
+         + ByteArrays.getShortUnchecked(data, 14)
+         + ByteArrays.getShortUnchecked(data, 16)
+         + ByteArrays.getShortUnchecked(data, 18);
+  }
+
+  private static long buffer(ByteBuffer data) {
+    return ByteArrays.getShort(data, 0)
+         + ByteArrays.getShort(data, 2)
+         + ByteArrays.getInt(data, 4)
+         + ByteArrays.getInt(data, 8)
+         + ByteArrays.getShort(data, 12)
+         + ByteArrays.getShort(data, 14)
+         + ByteArrays.getShort(data, 16)
+         + ByteArrays.getShort(data, 18);
+  }
+
+  private static void report(String name, int round, long start) {
+    long elapsed = System.nanoTime() - start;
+    System.out.printf(
+      "round %d: %-17s %6.2f ns/header%n", round, name, (double) elapsed / COUNT
+    );
+  }
+
+}
@@ -0,0 +1,96 @@
+package org.pcap4j.sample;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.sql.Timestamp;
+import java.util.Random;
+import org.pcap4j.core.PcapDumper;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.BlockCompressedPcapWriter;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * Compares the write throughput of PcapDumper (a raw pcap file) with that of
+ * BlockCompressedPcapWriter at a few thread counts, and reports the size of each file.
+ * Frames are Ethernet/IPv4/TCP headers followed by payloads which are half random and half
+ * repetitive. Needs the pcap native library for PcapDumper.
+ */
+@SuppressWarnings("javadoc")
+public class CompressedPcapBenchmark {
+
+  private static final int COUNT
+    = Integer.getInteger(CompressedPcapBenchmark.class.getName() + ".count", 1000000);
+  private static final int ROUNDS
+    = Integer.getInteger(CompressedPcapBenchmark.class.getName() + ".rounds", 3);
+
+  private static final byte[] HEADERS
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000028abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+        ""
+      );
+
+  private CompressedPcapBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    byte[][] frames = new byte[1024][];
+    Random random = new Random(1);
+    long bytes = 0;
+    for (int i = 0; i < frames.length; i++) {
+      byte[] frame = new byte[HEADERS.length + random.nextInt(1400)];
+      System.arraycopy(HEADERS, 0, frame, 0, HEADERS.length);
+      for (int j = HEADERS.length; j < frame.length; j++) {
+        frame[j] = j % 2 == 0 ? (byte) random.nextInt() : (byte) (j % 16);
+      }
+      frames[i] = frame;
+    }
+    for (int i = 0; i < COUNT; i++) {
+      bytes += frames[i % frames.length].length;
+    }
+
+    File file = File.createTempFile("CompressedPcapBenchmark", ".pcap");
+    file.deleteOnExit();
+    try {
+      int[] threadCounts = {1, 2, Runtime.getRuntime().availableProcessors()};
+      for (int round = 0; round < ROUNDS; round++) {
+        PcapHandle handle = Pcaps.openDead(DataLinkType.EN10MB, 65536);
+        PcapDumper dumper = handle.dumpOpen(file.getPath());
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+          dumper.dumpRaw(frames[i % frames.length], new Timestamp(i));
+        }
+        dumper.close();
+        handle.close();
+        report("PcapDumper", round, start, bytes, file.length());
+
+        for (int threads: threadCounts) {
+          BlockCompressedPcapWriter writer
+            = new BlockCompressedPcapWriter.Builder(
+                new BufferedOutputStream(new FileOutputStream(file), 64 * 1024),
+                DataLinkType.EN10MB
+              ).threads(threads).build();
+          start = System.nanoTime();
+          for (int i = 0; i < COUNT; i++) {
+            writer.dumpRaw(frames[i % frames.length], new Timestamp(i));
+          }
+          writer.close();
+          report("compressed, " + threads + " thread(s)", round, start, bytes, file.length());
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static void report(String name, int round, long start, long bytes, long fileSize) {
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+      "round %d: %-26s %8.1f MB/s %10d bytes (%.1f%%)%n",
+      round, name, bytes / seconds / 1e6, fileSize, 100.0 * fileSize / (bytes + 16L * COUNT)
+    );
+  }
+
+}
@@ -0,0 +1,100 @@
+package org.pcap4j.sample;
+
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IllegalRawDataException;
+import org.pcap4j.packet.IpV4Packet;
+import org.pcap4j.packet.TcpPacket;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * Measures the cost of dissecting truncated frames with and without fast-fail decoding.
+ * The corpus consists of an Ethernet/IPv4/TCP frame truncated at every length shorter than
+ * its headers, padded with garbage so that the frames look like 1500-byte captures.
+ * Each frame is dissected as Ethernet, IPv4, and TCP, which fails at least once per frame.
+ * Run with e.g. "-Xms256m -Xmx256m"; the first rounds are warm-up.
+ */
+@SuppressWarnings("javadoc")
+public class MalformedPacketBenchmark {
+
+  private static final int COUNT
+    = Integer.getInteger(MalformedPacketBenchmark.class.getName() + ".count", 20000);
+  private static final int ROUNDS
+    = Integer.getInteger(MalformedPacketBenchmark.class.getName() + ".rounds", 5);
+  private static final int CAPTURE_SIZE = 1500;
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000028abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+        ""
+      );
+
+  private MalformedPacketBenchmark() {}
+
+  public static void main(String[] args) {
+    byte[][] corpus = new byte[FRAME.length - 1][];
+    int[] lengths = new int[corpus.length];
+    for (int i = 0; i < corpus.length; i++) {
+      corpus[i] = new byte[CAPTURE_SIZE];
+      for (int j = 0; j < CAPTURE_SIZE; j++) {
+        corpus[i][j] = (byte) (j * 31);
+      }
+      lengths[i] = i + 1;
+      System.arraycopy(FRAME, 0, corpus[i], 0, lengths[i]);
+    }
+
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      IllegalRawDataException.setFastFailDecoding(false);
+      long start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        sink += dissect(corpus, lengths);
+      }
+      report("default", round, start, corpus.length);
+
+      IllegalRawDataException.setFastFailDecoding(true);
+      start = System.nanoTime();
+      for (int i = 0; i < COUNT; i++) {
+        sink += dissect(corpus, lengths);
+      }
+      report("fast-fail", round, start, corpus.length);
+    }
+    System.out.println("(" + sink + ")");
+  }
+
+  private static long dissect(byte[][] corpus, int[] lengths) {
+    long failures = 0;
+    for (int i = 0; i < corpus.length; i++) {
+      byte[] frame = corpus[i];
+      int length = lengths[i];
+      try {
+        EthernetPacket.newPacket(frame, 0, length);
+      } catch (IllegalRawDataException e) {
+        failures += e.getMessage().length();
+      }
+      if (length > 14) {
+        try {
+          IpV4Packet.newPacket(frame, 14, length - 14);
+        } catch (IllegalRawDataException e) {
+          failures += e.getMessage().length();
+        }
+      }
+      if (length > 34) {
+        try {
+          TcpPacket.newPacket(frame, 34, length - 34);
+        } catch (IllegalRawDataException e) {
+          failures += e.getMessage().length();
+        }
+      }
+    }
+    return failures;
+  }
+
+  private static void report(String name, int round, long start, int frames) {
+    long elapsed = System.nanoTime() - start;
+    System.out.printf(
+      "round %d: %-9s %9.2f ns/frame%n", round, name, (double) elapsed / COUNT / frames
+    );
+  }
+
+}
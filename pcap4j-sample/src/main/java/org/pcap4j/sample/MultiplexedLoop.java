@@ -0,0 +1,84 @@
+package org.pcap4j.sample;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapHandleMultiplexer;
+import org.pcap4j.core.PcapHandleMultiplexer.Registration;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.PcapNetworkInterface.PromiscuousMode;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.core.RawPacketListener;
+
+/**
+ * Captures packets on all the network interfaces with a PcapHandleMultiplexer
+ * and prints the number of packets captured on each of them every second.
+ */
+@SuppressWarnings("javadoc")
+public class MultiplexedLoop {
+
+  private static final String THREADS_KEY
+    = MultiplexedLoop.class.getName() + ".threads";
+  private static final int THREADS
+    = Integer.getInteger(THREADS_KEY, 2);
+
+  private static final String DURATION_KEY
+    = MultiplexedLoop.class.getName() + ".duration";
+  private static final int DURATION
+    = Integer.getInteger(DURATION_KEY, 10); // [s]
+
+  private static final String SNAPLEN_KEY
+    = MultiplexedLoop.class.getName() + ".snaplen";
+  private static final int SNAPLEN
+    = Integer.getInteger(SNAPLEN_KEY, 65536); // [bytes]
+
+  private MultiplexedLoop() {}
+
+  public static void main(String[] args)
+  throws PcapNativeException, NotOpenException, InterruptedException {
+    System.out.println(THREADS_KEY + ": " + THREADS);
+    System.out.println(DURATION_KEY + ": " + DURATION);
+    System.out.println(SNAPLEN_KEY + ": " + SNAPLEN);
+    System.out.println("\n");
+
+    PcapHandleMultiplexer multiplexer
+      = new PcapHandleMultiplexer.Builder().threads(THREADS).build();
+    List<String> names = new ArrayList<String>();
+    List<PcapHandle> handles = new ArrayList<PcapHandle>();
+    List<Registration> registrations = new ArrayList<Registration>();
+    RawPacketListener listener
+      = new RawPacketListener() {
+          @Override
+          public void gotPacket(byte[] packet) {}
+        };
+
+    try {
+      for (PcapNetworkInterface nif: Pcaps.findAllDevs()) {
+        PcapHandle handle = nif.openLive(SNAPLEN, PromiscuousMode.PROMISCUOUS, 10);
+        names.add(nif.getName());
+        handles.add(handle);
+        registrations.add(multiplexer.register(handle, listener));
+      }
+
+      for (int i = 0; i < DURATION; i++) {
+        Thread.sleep(1000);
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < registrations.size(); j++) {
+          sb.append(j == 0 ? "" : ", ")
+            .append(names.get(j))
+            .append(": ")
+            .append(registrations.get(j).getPacketCount());
+        }
+        System.out.println(sb);
+      }
+    } finally {
+      multiplexer.close();
+      for (PcapHandle handle: handles) {
+        handle.close();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+package org.pcap4j.sample;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.pcap4j.packet.EthernetPacket;
+import org.pcap4j.packet.IllegalRawDataException;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * Measures the bytes allocated to dissect an Ethernet/IPv4/TCP frame with a payload
+ * and to dissect it and then call length(), hashCode(), and getRawData() on each layer.
+ * Needs a packet factory module (e.g. pcap4j-packetfactory-static) in the class path and
+ * a JVM whose ThreadMXBean is a com.sun.management.ThreadMXBean.
+ */
+@SuppressWarnings("javadoc")
+public class PacketAllocationBenchmark {
+
+  private static final int COUNT
+    = Integer.getInteger(PacketAllocationBenchmark.class.getName() + ".count", 1000000);
+  private static final int ROUNDS
+    = Integer.getInteger(PacketAllocationBenchmark.class.getName() + ".rounds", 5);
+
+  private static final byte[] FRAME
+    = ByteArrays.parseByteArray(
+        "001122334455665544332211080045000030abcd400040060000c0a80001c0a80002"
+          + "c35000509a1b2c3d4e5f60715018ffff1a2b00000102030405060708",
+        ""
+      );
+
+  private PacketAllocationBenchmark() {}
+
+  public static void main(String[] args) throws IllegalRawDataException {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      System.err.println("Allocation measurement is not supported on this JVM.");
+      return;
+    }
+    com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) bean;
+    long tid = Thread.currentThread().getId();
+
+    long sink = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = mx.getThreadAllocatedBytes(tid);
+      for (int i = 0; i < COUNT; i++) {
+        sink += EthernetPacket.newPacket(FRAME, 0, FRAME.length).getHeader().length();
+      }
+      report("decode", round, mx.getThreadAllocatedBytes(tid) - start);
+
+      start = mx.getThreadAllocatedBytes(tid);
+      for (int i = 0; i < COUNT; i++) {
+        for (Packet p: EthernetPacket.newPacket(FRAME, 0, FRAME.length)) {
+          sink += p.length() + p.hashCode() + p.getRawData().length;
+        }
+      }
+      report("decode+use", round, mx.getThreadAllocatedBytes(tid) - start);
+    }
+    System.out.println("(" + sink + ")");
+  }
+
+  private static void report(String name, int round, long allocated) {
+    System.out.printf(
+      "round %d: %-10s %8.1f bytes/packet%n", round, name, (double) allocated / COUNT
+    );
+  }
+
+}
@@ -0,0 +1,98 @@
+package org.pcap4j.sample;
+
+import java.util.Random;
+import org.pcap4j.core.BpfCompiler;
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.PacketFanout;
+import org.pcap4j.core.PacketFanout.Subscription;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.util.ByteArrays;
+
+/**
+ * Compares the throughput of PacketFanout with that of applying each subscriber's
+ * BpfProgram to each packet, as the number of subscribers grows from 1 to 200.
+ * Subscriber i filters "tcp and host 10.0.0.i and port (8000 + i)", and frames are
+ * Ethernet/IPv4/TCP between random hosts and ports in those ranges.
+ * Needs no native library, as both evaluate programs made by BpfCompiler in Java.
+ */
+@SuppressWarnings("javadoc")
+public class PacketFanoutBenchmark {
+
+  private static final int COUNT
+    = Integer.getInteger(PacketFanoutBenchmark.class.getName() + ".count", 200000);
+  private static final int ROUNDS
+    = Integer.getInteger(PacketFanoutBenchmark.class.getName() + ".rounds", 3);
+
+  private static final int[] SUBSCRIBERS = {1, 10, 50, 100, 200};
+
+  private PacketFanoutBenchmark() {}
+
+  public static void main(String[] args) throws Exception {
+    byte[] headers
+      = ByteArrays.parseByteArray(
+          "001122334455665544332211080045000028abcd4000400600000a0000010a000002"
+            + "c35000509a1b2c3d4e5f60715018ffff1a2b0000",
+          ""
+        );
+    byte[][] frames = new byte[4096][];
+    Random random = new Random(1);
+    for (int i = 0; i < frames.length; i++) {
+      byte[] frame = headers.clone();
+      frame[29] = (byte) (1 + random.nextInt(250));
+      frame[33] = (byte) (1 + random.nextInt(250));
+      byte[] port = ByteArrays.toByteArray((short) (8000 + random.nextInt(250)));
+      System.arraycopy(port, 0, frame, 36, 2);
+      frames[i] = frame;
+    }
+
+    for (int round = 0; round < ROUNDS; round++) {
+      for (int n: SUBSCRIBERS) {
+        String[] exprs = new String[n];
+        for (int i = 0; i < n; i++) {
+          exprs[i] = "tcp and host 10.0.0." + (i + 1) + " and port " + (8000 + i + 1);
+        }
+
+        BpfProgram[] programs = new BpfProgram[n];
+        for (int i = 0; i < n; i++) {
+          programs[i] = BpfCompiler.compile(exprs[i], DataLinkType.EN10MB);
+        }
+        long matched = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+          byte[] frame = frames[i % frames.length];
+          for (BpfProgram prog: programs) {
+            if (prog.applyFilter(frame)) {
+              matched++;
+            }
+          }
+        }
+        report("programs", round, n, start, matched);
+
+        PacketFanout fanout = new PacketFanout(DataLinkType.EN10MB);
+        Subscription[] subs = new Subscription[n];
+        for (int i = 0; i < n; i++) {
+          subs[i] = fanout.subscribe(exprs[i], 1);
+        }
+        matched = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+          byte[] frame = frames[i % frames.length];
+          fanout.publish(frame, frame.length);
+        }
+        for (Subscription sub: subs) {
+          matched += sub.getDeliveredCount() + sub.getDroppedCount();
+        }
+        report("fanout", round, n, start, matched);
+      }
+    }
+  }
+
+  private static void report(String name, int round, int n, long start, long matched) {
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf(
+      "round %d: %-8s %3d subscribers %10.0f packets/s %8d matches%n",
+      round, name, n, COUNT / seconds, matched
+    );
+  }
+
+}